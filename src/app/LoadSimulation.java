@@ -0,0 +1,101 @@
+package app;
+
+import builder.ParkingLotBuilder;
+import clock.VirtualClock;
+import data.DataStore;
+import data.DataStoreFactory;
+import data.EventPublishingDataStore;
+import data.FineIndexedDataStore;
+import fine.FineSchemes;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import sim.ArrivalSource;
+import sim.LotSimulator;
+import sim.PoissonArrivals;
+import sim.SimulationReport;
+import sim.TraceArrivals;
+
+/**
+ * Load-tests a virtual lot with the discrete-event simulator (sim.LotSimulator) and prints
+ * throughput, latency percentiles, the occupancy curve and revenue.
+ *
+ * Usage: java app.LoadSimulation [name=value ...]
+ *   floors=4 rows=10 spots=20      lot layout (spots per row, split 10/70/10/10 % by type)
+ *   days=7 peak=300                Poisson arrivals: virtual days, arrivals per hour at peak
+ *   stay=180 overstay=0.01         mean stay in minutes, share staying past 24 hours
+ *   trace=FILE                     replay arrivals from a CSV trace instead (see sim.TraceArrivals)
+ *   threads=4 speedup=0 step=60    gates, virtual/wall time ratio (0 = max speed), step seconds
+ *   kiosk=0.5 seed=42              share paying at a pay station, random seed
+ *   engine=memory                  storage engine (see DataStoreFactory), fresh temp database
+ */
+public class LoadSimulation {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected name=value but got " + arg);
+            opt.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        int floors = Integer.parseInt(opt.getOrDefault("floors", "4"));
+        int rows = Integer.parseInt(opt.getOrDefault("rows", "10"));
+        int perRow = Integer.parseInt(opt.getOrDefault("spots", "20"));
+        String engine = opt.getOrDefault("engine", DataStoreFactory.MEMORY);
+
+        int compact = perRow / 10, handicapped = perRow / 10, reserved = perRow / 10;
+        ParkingLotBuilder lot = new ParkingLotBuilder()
+                .setLotId("SIM")
+                .setName("Simulated Lot")
+                .setNumFloors(floors)
+                .setRowsPerFloor(rows)
+                .setSpotsPerRow(perRow)
+                .setSpotDistributionPerRow(compact, perRow - compact - handicapped - reserved, handicapped, reserved);
+
+        // Store, events and services all run on virtual time
+        VirtualClock clock = new VirtualClock(START);
+        Path dir = Files.createTempDirectory("parking-sim");
+        String file = DataStoreFactory.fileFor(engine, "SIM");
+        DataStore raw = DataStoreFactory.open(engine, "SIM", file == null ? null : dir.resolve(file).toString(), clock);
+        // Same decorators as a production lot (see LotStoreRouter), minus the on-disk extras
+        DataStore store = new FineIndexedDataStore(new EventPublishingDataStore(raw, "SIM", clock));
+
+        ArrivalSource arrivals = arrivals(opt);
+        try {
+            SimulationReport report = new LotSimulator(store, lot, arrivals, FineSchemes.byName(FineSchemes.FIXED))
+                    .setThreads(Integer.parseInt(opt.getOrDefault("threads", "4")))
+                    .setSpeedup(Double.parseDouble(opt.getOrDefault("speedup", "0")))
+                    .setStepSeconds(Integer.parseInt(opt.getOrDefault("step", "60")))
+                    .setKioskShare(Double.parseDouble(opt.getOrDefault("kiosk", "0.5")))
+                    .setSeed(Long.parseLong(opt.getOrDefault("seed", "42")))
+                    .setClock(clock)
+                    .run();
+            report.print(System.out);
+        } finally {
+            if (arrivals instanceof TraceArrivals) ((TraceArrivals) arrivals).close();
+            store.close();
+            deleteAll(dir);
+        }
+    }
+
+    private static ArrivalSource arrivals(Map<String, String> opt) throws IOException {
+        if (opt.containsKey("trace")) return new TraceArrivals(Path.of(opt.get("trace")));
+        int days = Integer.parseInt(opt.getOrDefault("days", "7"));
+        return new PoissonArrivals(START, START.plusDays(days),
+                Double.parseDouble(opt.getOrDefault("peak", "300")),
+                Double.parseDouble(opt.getOrDefault("stay", "180")),
+                Double.parseDouble(opt.getOrDefault("overstay", "0.01")),
+                Long.parseLong(opt.getOrDefault("seed", "42")));
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted((a, b) -> b.compareTo(a)).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package app;
+
+import clock.VirtualClock;
+import data.DataStore;
+import data.DataStoreFactory;
+import data.EventPublishingDataStore;
+import data.FineIndexedDataStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import sim.ReplayReport;
+import sim.TraceReplayer;
+
+/**
+ * Replays an operation trace recorded with -Dparking.trace=FILE against a fresh store and
+ * reports latencies and any divergence from the recording. Exits with status 1 when the
+ * replay did not reproduce the recorded outcomes and final state.
+ *
+ * Usage: java app.ReplayTrace FILE [name=value ...]
+ *   speed=0          recorded/wall time ratio (0 = max speed, 1 = as recorded)
+ *   engine=memory    storage engine (see DataStoreFactory), fresh temp database
+ */
+public class ReplayTrace {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: java app.ReplayTrace FILE [speed=0] [engine=memory]");
+            System.exit(2);
+        }
+        Map<String, String> opt = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected name=value but got " + args[i]);
+            opt.put(args[i].substring(0, eq).trim(), args[i].substring(eq + 1).trim());
+        }
+        String engine = opt.getOrDefault("engine", DataStoreFactory.MEMORY);
+
+        // The replayer moves the clock to the trace's times; the store stamps its own times from it
+        VirtualClock clock = new VirtualClock(LocalDateTime.now());
+        Path dir = Files.createTempDirectory("parking-replay");
+        String file = DataStoreFactory.fileFor(engine, "REPLAY");
+        DataStore raw = DataStoreFactory.open(engine, "REPLAY", file == null ? null : dir.resolve(file).toString(), clock);
+        DataStore store = new FineIndexedDataStore(new EventPublishingDataStore(raw, "REPLAY", clock));
+
+        ReplayReport report;
+        try {
+            report = new TraceReplayer(store, Path.of(args[0]))
+                    .setSpeed(Double.parseDouble(opt.getOrDefault("speed", "0")))
+                    .setClock(clock)
+                    .run();
+            report.print(System.out);
+        } finally {
+            store.close();
+            deleteAll(dir);
+        }
+        if (!report.isFaithful()) System.exit(1);
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted((a, b) -> b.compareTo(a)).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
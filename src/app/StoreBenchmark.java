@@ -0,0 +1,129 @@
+package app;
+
+import data.DataStore;
+import data.DataStoreFactory;
+import enums.PaymentMethod;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.SpotStore;
+import model.Vehicle;
+
+/**
+ * Runs the same entry / lookup / exit / report workload against each storage engine and
+ * prints the cost per operation, to help pick -Dparking.store for a deployment.
+ *
+ * Usage: java app.StoreBenchmark [engines] [cars]
+ *   engines  comma separated, default "sqlite,h2,memory" (engines without a driver are skipped)
+ *   cars     vehicles per round, default 2000 (the lot is sized to fit them)
+ *
+ * Each engine gets a fresh database in a temporary directory, deleted afterwards.
+ */
+public class StoreBenchmark {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        String[] engines = (args.length > 0 ? args[0] : "sqlite,h2,memory").split(",");
+        int cars = args.length > 1 ? Integer.parseInt(args[1].trim()) : 2000;
+
+        System.out.printf("%-8s %12s %12s %12s %12s%n", "engine", "entry us", "lookup us", "exit us", "report ms");
+        for (String engine : engines) {
+            engine = engine.trim().toLowerCase();
+            if (!DataStoreFactory.isAvailable(engine)) {
+                System.out.printf("%-8s skipped (no JDBC driver on the classpath)%n", engine);
+                continue;
+            }
+            Path dir = Files.createTempDirectory("parking-bench-" + engine);
+            try {
+                run(engine, dir, cars);
+            } finally {
+                deleteAll(dir);
+            }
+        }
+    }
+
+    private static void run(String engine, Path dir, int cars) {
+        String file = DataStoreFactory.fileFor(engine, "BENCH");
+        DataStore store = DataStoreFactory.open(engine, "BENCH",
+                file == null ? null : dir.resolve(file).toString());
+        try {
+            SpotStore spots = new builder.ParkingLotBuilder()
+                    .setLotId("BENCH")
+                    .setNumFloors(Math.max(1, cars / 100 + 1))
+                    .setRowsPerFloor(10)
+                    .setSpotsPerRow(10)
+                    .setSpotDistributionPerRow(0, 10, 0, 0)
+                    .buildSpotStore();
+            for (int i = 0; i < spots.size(); i++) store.upsertSpot(spots.spot(i));
+
+            long entry = 0, lookup = 0, exit = 0, report = 0;
+            LocalDateTime clock = LocalDateTime.of(2024, 1, 1, 8, 0);
+            for (int round = 0; round < ROUNDS; round++) {
+                List<ParkingSession> parked = new ArrayList<>(cars);
+
+                long t0 = System.nanoTime();
+                List<ParkingSpot> free = store.findAvailableSpots("REGULAR");
+                for (int i = 0; i < cars; i++) {
+                    String plate = "BM" + round + "X" + i;
+                    String spotId = free.get(i).getSpotId();
+                    ParkingSession session = new ParkingSession("T-" + round + "-" + i,
+                            new Vehicle(plate, "CAR", false, false), spotId,
+                            clock.plusSeconds(i).format(TIME_FORMAT), null);
+                    store.createSession(session);
+                    store.setSpotOccupied(spotId, plate);
+                    parked.add(session);
+                }
+                long t1 = System.nanoTime();
+                for (ParkingSession session : parked) {
+                    if (store.getOpenSessionByPlate(session.getPlate()) == null) {
+                        throw new IllegalStateException(engine + " lost session " + session.getTicketNo());
+                    }
+                    store.getUnpaidFinesByPlate(session.getPlate());
+                }
+                long t2 = System.nanoTime();
+                LocalDateTime exitTime = clock.plusHours(2);
+                for (ParkingSession session : parked) {
+                    store.closeSession(session.getTicketNo(), exitTime.format(TIME_FORMAT), 2, 10.0);
+                    store.setSpotAvailable(session.getSpotId());
+                    store.createPayment(new PaymentRecord(session.getTicketNo(), session.getPlate(),
+                            PaymentMethod.CARD, exitTime, 2, 10.0, 0.0, 10.0));
+                }
+                long t3 = System.nanoTime();
+                store.getTotalRevenue();
+                store.getOccupiedSpotCount();
+                store.getAllActiveSessions();
+                store.getSessionsExitedSince(clock.format(TIME_FORMAT));
+                long t4 = System.nanoTime();
+
+                if (round > 0) { // the first round warms up the JIT and the database caches
+                    entry += t1 - t0;
+                    lookup += t2 - t1;
+                    exit += t3 - t2;
+                    report += t4 - t3;
+                }
+                clock = clock.plusDays(1);
+            }
+            int measured = (ROUNDS - 1) * cars;
+            System.out.printf("%-8s %12.1f %12.1f %12.1f %12.2f%n", engine,
+                    entry / 1e3 / measured, lookup / 1e3 / measured, exit / 1e3 / measured,
+                    report / 1e6 / (ROUNDS - 1));
+        } finally {
+            store.close();
+        }
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted((a, b) -> b.compareTo(a)).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package app;
+
+import data.DataStore;
+import data.DataStoreFactory;
+import enums.FineReason;
+import enums.PaymentMethod;
+import enums.ReservationStatus;
+import enums.SpotType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.Reservation;
+import model.Vehicle;
+
+/**
+ * Runs the same DataStore assertions against each storage engine, so the engines behind
+ * -Dparking.store stay interchangeable: spots, sessions (plate lookups in any spelling,
+ * stored fine scheme, history order), fines, payments and revenue, long config values,
+ * transactions that roll back, batch entries refused on a taken spot, and reservations.
+ * Exits with status 1 on any failure.
+ *
+ * Usage: java app.StoreContractCheck [engines]
+ *   engines  comma separated, default "sqlite,h2,memory" (engines without a driver are skipped)
+ *
+ * Each engine gets a fresh database in a temporary directory, deleted afterwards.
+ */
+public class StoreContractCheck {
+
+    private static final double EPS = 1e-9;
+
+    private static final List<String> failures = new ArrayList<>();
+    private static String engine;
+
+    public static void main(String[] args) throws IOException {
+        String[] engines = (args.length > 0 ? args[0] : "sqlite,h2,memory").split(",");
+        for (String name : engines) {
+            engine = name.trim().toLowerCase();
+            if (!DataStoreFactory.isAvailable(engine)) {
+                System.out.printf("%-8s skipped (no JDBC driver on the classpath)%n", engine);
+                continue;
+            }
+            Path dir = Files.createTempDirectory("parking-contract-" + engine);
+            String file = DataStoreFactory.fileFor(engine, "CONTRACT");
+            DataStore store = DataStoreFactory.open(engine, "CONTRACT", file == null ? null : dir.resolve(file).toString());
+            int before = failures.size();
+            try {
+                checkSpots(store);
+                checkSessions(store);
+                checkFines(store);
+                checkPayments(store);
+                checkConfig(store);
+                checkTransactions(store);
+                checkSessionBatch(store);
+                checkReservations(store);
+            } catch (RuntimeException e) {
+                fail("threw " + e);
+            } finally {
+                store.close();
+                deleteAll(dir);
+            }
+            System.out.printf("%-8s %s%n", engine, failures.size() == before ? "ok" : (failures.size() - before) + " failed");
+        }
+
+        failures.stream().limit(30).forEach(f -> System.out.println("FAIL " + f));
+        System.out.println(failures.isEmpty() ? "All store contract checks passed." : failures.size() + " store contract checks failed.");
+        if (!failures.isEmpty()) System.exit(1);
+    }
+
+    // ===============================
+    //  CHECKS
+    // ===============================
+
+    private static void checkSpots(DataStore store) {
+        for (int i = 1; i <= 6; i++) store.upsertSpot(new ParkingSpot("C1-R1-S" + i, SpotType.REGULAR));
+        store.upsertSpot(new ParkingSpot("C1-R2-S1", SpotType.COMPACT));
+        check(store.getTotalSpotCount() == 7, "total spots " + store.getTotalSpotCount() + ", expected 7");
+        check(store.getAllSpots().size() == 7, "getAllSpots returned " + store.getAllSpots().size());
+
+        store.setSpotOccupied("C1-R1-S1", "CTR001");
+        check(store.getOccupiedSpotCount() == 1, "occupied " + store.getOccupiedSpotCount() + " after one setSpotOccupied");
+        check(store.findAvailableSpots("REGULAR").size() == 5, "findAvailableSpots still lists the occupied spot");
+        ParkingSpot spot = spotById(store, "C1-R1-S1");
+        check(spot != null && !spot.isAvailable() && "CTR001".equals(spot.getCurrentVehiclePlate()),
+                "occupied spot reads back as " + describe(spot));
+
+        store.setSpotAvailable("C1-R1-S1");
+        spot = spotById(store, "C1-R1-S1");
+        check(spot != null && spot.isAvailable() && spot.getCurrentVehiclePlate() == null,
+                "released spot reads back as " + describe(spot));
+        check(store.getOccupiedSpotCount() == 0, "occupied " + store.getOccupiedSpotCount() + " after release");
+    }
+
+    private static void checkSessions(DataStore store) {
+        store.createSession(session("T-S1", "CTR101", "C1-R1-S2", "2024-03-01 08:00:00"));
+        store.createSession(session("T-S2", "CTR102", "C1-R1-S3", "2024-03-01 09:00:00", "Custom (DSL)#3"));
+        store.createSession(session("T-S3", "CTR103", "C1-R1-S4", "2024-03-01 07:00:00"));
+
+        ParkingSession open = store.getOpenSessionByPlate("ctr 101");
+        check(open != null && "T-S1".equals(open.getTicketNo()), "plate lookup in another spelling found " + ticketOf(open));
+        check(store.getOpenSessionByPlate("CTR999") == null, "lookup of an unknown plate found a session");
+        ParkingSession pinned = store.getOpenSessionByPlate("CTR102");
+        check(pinned != null && "Custom (DSL)#3".equals(pinned.getFineScheme()),
+                "session fine scheme read back as " + (pinned == null ? "nothing" : pinned.getFineScheme()));
+        check(store.getAllActiveSessions().size() == 3, "active sessions " + store.getAllActiveSessions().size() + ", expected 3");
+
+        List<ParkingSession> entered = store.getSessionsEnteredSince("2024-03-01 07:30:00");
+        check(tickets(entered).equals(List.of("T-S1", "T-S2")), "entered since 07:30 gave " + tickets(entered));
+
+        store.closeSession("T-S3", "2024-03-01 10:00:00", 3, 6.0);
+        store.closeSession("T-S1", "2024-03-01 11:00:00", 3, 6.0);
+        check(store.getOpenSessionByPlate("CTR101") == null, "closed session still open by plate");
+        check(store.getAllActiveSessions().size() == 1, "active sessions " + store.getAllActiveSessions().size() + " after two exits");
+        List<ParkingSession> exited = store.getSessionsExitedSince("2024-03-01 00:00:00");
+        check(tickets(exited).equals(List.of("T-S3", "T-S1")), "exited since midnight gave " + tickets(exited));
+    }
+
+    private static void checkFines(DataStore store) {
+        store.addFine(new FineRecord("CTR201", FineReason.OVERSTAY_24H, 50.0, "2024-03-01 10:00:00", false));
+        store.addFine(new FineRecord("CTR201", FineReason.OTHER, 20.0, "2024-03-01 11:00:00", false));
+        store.addFine(new FineRecord("CTR202", FineReason.INVALID_SPOT_TYPE, 30.0, "2024-03-01 12:00:00", false));
+        List<FineRecord> fines = store.getUnpaidFinesByPlate("ctr201");
+        check(fines.size() == 2, "unpaid fines by plate " + fines.size() + ", expected 2");
+        check(near(store.getTotalUnpaidFines(), 100.0), "total unpaid " + store.getTotalUnpaidFines() + ", expected 100");
+        check(store.getAllUnpaidFines().size() == 3, "all unpaid fines " + store.getAllUnpaidFines().size());
+
+        FineRecord overstay = null;
+        for (FineRecord f : fines) if (f.getReason() == FineReason.OVERSTAY_24H) overstay = f;
+        if (overstay == null) {
+            fail("overstay fine missing");
+            return;
+        }
+        store.reduceFineAmount(overstay, 15.0);
+        check(near(unpaidTotal(store, "CTR201"), 55.0), "after a partial payment CTR201 owes " + unpaidTotal(store, "CTR201"));
+        store.reduceFineAmount(overstay, overstay.getAmount());
+        check(store.getUnpaidFinesByPlate("CTR201").size() == 1, "a fully paid fine is still unpaid");
+
+        store.markAllFinesPaid("ctr 201", "2024-03-02 09:00:00");
+        check(store.getUnpaidFinesByPlate("CTR201").isEmpty(), "markAllFinesPaid left fines unpaid");
+        check(near(store.getTotalUnpaidFines(), 30.0), "total unpaid " + store.getTotalUnpaidFines() + ", expected 30");
+    }
+
+    private static void checkPayments(DataStore store) {
+        double before = store.getTotalRevenue();
+        LocalDateTime paid = LocalDateTime.of(2024, 3, 1, 11, 0);
+        store.createPayment(new PaymentRecord("T-S1", "CTR101", PaymentMethod.CARD, paid, 3, 6.0, 0.0, 6.0));
+        store.createPayment(new PaymentRecord("T-S1", "CTR101", PaymentMethod.CASH, paid.plusMinutes(5), 3, 6.0, 50.0, 50.0));
+        store.createPayment(new PaymentRecord("T-S3", "CTR103", PaymentMethod.CASH, paid, 3, 6.0, 0.0, 6.0));
+        check(near(store.getTotalRevenue() - before, 62.0), "revenue grew by " + (store.getTotalRevenue() - before) + ", expected 62");
+        List<PaymentRecord> payments = store.getPaymentsByTicket("T-S1");
+        check(payments.size() == 2, "payments by ticket " + payments.size() + ", expected 2");
+        double sum = 0;
+        for (PaymentRecord p : payments) sum += p.getAmountPaid();
+        check(near(sum, 56.0), "payments by ticket add up to " + sum + ", expected 56");
+    }
+
+    private static void checkConfig(DataStore store) {
+        check(store.getConfig("contract_missing") == null, "missing config key is not null");
+        store.setConfig("contract_key", "one");
+        store.setConfig("contract_key", "two");
+        check("two".equals(store.getConfig("contract_key")), "config overwrite read back " + store.getConfig("contract_key"));
+
+        String longValue = "weekday hourly 1 night 3 cap 8; ".repeat(45); // tariffs and fine schemes run long
+        store.setConfig("contract_long", longValue);
+        check(longValue.equals(store.getConfig("contract_long")),
+                "a " + longValue.length() + "-char config value read back as " + length(store.getConfig("contract_long")) + " chars");
+
+        store.setActiveFineScheme("Progressive Fine");
+        check("Progressive Fine".equals(store.getActiveFineScheme()), "active fine scheme read back " + store.getActiveFineScheme());
+    }
+
+    private static void checkTransactions(DataStore store) {
+        boolean committed = store.runInTransaction(() -> {
+            store.setConfig("contract_tx", "kept");
+            store.setSpotOccupied("C1-R1-S6", "CTR301");
+        });
+        check(committed, "a transaction without errors was rolled back");
+        check("kept".equals(store.getConfig("contract_tx")), "committed config reads " + store.getConfig("contract_tx"));
+
+        committed = store.runInTransaction(() -> {
+            store.setConfig("contract_tx", "lost");
+            store.setSpotAvailable("C1-R1-S6");
+            throw new IllegalStateException("abort (expected by StoreContractCheck)");
+        });
+        check(!committed, "a transaction whose work threw reported a commit");
+        check("kept".equals(store.getConfig("contract_tx")), "rolled-back config reads " + store.getConfig("contract_tx"));
+        ParkingSpot spot = spotById(store, "C1-R1-S6");
+        check(spot != null && !spot.isAvailable(), "rolled-back spot release is visible: " + describe(spot));
+    }
+
+    private static void checkSessionBatch(DataStore store) {
+        // C1-R1-S6 is occupied (see checkTransactions): the whole batch must be refused
+        boolean written = store.createSessionBatch(List.of(
+                session("T-B1", "CTR401", "C1-R2-S1", "2024-03-01 12:00:00"),
+                session("T-B2", "CTR402", "C1-R1-S6", "2024-03-01 12:00:00")));
+        check(!written, "a batch onto an occupied spot was written");
+        check(store.getOpenSessionByPlate("CTR401") == null, "a refused batch left a session behind");
+        ParkingSpot spot = spotById(store, "C1-R2-S1");
+        check(spot != null && spot.isAvailable(), "a refused batch left its spot taken: " + describe(spot));
+
+        written = store.createSessionBatch(List.of(session("T-B3", "CTR403", "C1-R2-S1", "2024-03-01 12:30:00", "Custom (DSL)#4")));
+        check(written, "a batch onto a free spot was refused");
+        spot = spotById(store, "C1-R2-S1");
+        check(spot != null && !spot.isAvailable() && "CTR403".equals(spot.getCurrentVehiclePlate()),
+                "batch entry left its spot as " + describe(spot));
+        ParkingSession entered = store.getOpenSessionByPlate("CTR403");
+        check(entered != null, "batch entry has no open session");
+        check(entered == null || "Custom (DSL)#4".equals(entered.getFineScheme()),
+                "batch entry fine scheme read back as " + (entered == null ? "nothing" : entered.getFineScheme()));
+    }
+
+    private static void checkReservations(DataStore store) {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 5, 9, 0);
+        int id = store.createReservation(new Reservation("C1-R1-S5", "CTR501", from, from.plusHours(2)));
+        check(id != -1, "createReservation failed");
+        check(hasOpenReservation(store, id), "new reservation is not open");
+        store.updateReservationStatus(id, ReservationStatus.CANCELLED);
+        check(!hasOpenReservation(store, id), "cancelled reservation is still open");
+    }
+
+    // ===============================
+    //  HELPERS
+    // ===============================
+
+    private static ParkingSession session(String ticketNo, String plate, String spotId, String entryTime) {
+        return session(ticketNo, plate, spotId, entryTime, "Fixed Fine (RM 50)");
+    }
+
+    private static ParkingSession session(String ticketNo, String plate, String spotId, String entryTime, String fineScheme) {
+        return new ParkingSession(ticketNo, new Vehicle(plate, "CAR", false, false), spotId, entryTime, fineScheme);
+    }
+
+    private static ParkingSpot spotById(DataStore store, String spotId) {
+        for (ParkingSpot spot : store.getAllSpots()) if (spot.getSpotId().equals(spotId)) return spot;
+        return null;
+    }
+
+    private static boolean hasOpenReservation(DataStore store, int id) {
+        for (Reservation r : store.getOpenReservations()) if (r.getId() == id) return true;
+        return false;
+    }
+
+    private static double unpaidTotal(DataStore store, String plate) {
+        double total = 0;
+        for (FineRecord f : store.getUnpaidFinesByPlate(plate)) total += f.getAmount();
+        return total;
+    }
+
+    private static List<String> tickets(List<ParkingSession> sessions) {
+        List<String> result = new ArrayList<>();
+        for (ParkingSession s : sessions) result.add(s.getTicketNo());
+        return result;
+    }
+
+    private static String ticketOf(ParkingSession session) {
+        return session == null ? "nothing" : session.getTicketNo();
+    }
+
+    private static String describe(ParkingSpot spot) {
+        return spot == null ? "missing" : spot.getStatus() + "/" + spot.getCurrentVehiclePlate();
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    private static boolean near(double a, double b) {
+        return Math.abs(a - b) < EPS;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) fail(message);
+    }
+
+    private static void fail(String message) {
+        failures.add(engine + ": " + message);
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted((a, b) -> b.compareTo(a)).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package app;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import pricing.RateSchedule;
+import pricing.Tariff;
+
+/**
+ * Checks pricing.Tariff against a straightforward minute-by-minute reference on random
+ * stays, verifies its properties (never negative, never cheaper for a longer stay,
+ * malformed tariffs and rate schedules rejected as IllegalArgumentException) and times the
+ * closed-form pricing for short and week-long stays. Exits with status 1 on any failure.
+ *
+ * Usage: java app.TariffCheck [stays] [seed]
+ *   stays  random stays per tariff, default 3000
+ *   seed   random seed, default 42
+ */
+public class TariffCheck {
+
+    private static final String[] SPECS = {
+        "day 07-19; first_hour free; weekday hourly 1 night 3 cap 8; weekend hourly 0.8 night 2 cap 5",
+        "day 08-18; weekday hourly 1.5 night 4",
+        "day 00-24; weekday hourly 1 cap 10",
+        "day 06-22; first_hour free; weekday hourly 2 night 1 cap 20; weekend hourly 0 night 0",
+    };
+    private static final String[] MALFORMED = {
+        "day", "day 07", "day 07-19-21", "day x-y", "day 19-07", "weekday hourly", "weekday hourly 1 night",
+        "weekday hourly -1", "weekday speed 1", "holiday hourly 1",
+    };
+    // pricing_schedule rules, read by the same refresh job
+    private static final String[] MALFORMED_SCHEDULES = {
+        "MON 07 x1.5", "MON 07- x1.5", "MON -10 x1.5", "MON 07-10-12 x1.5", "MON 10-07 x1.5", "MON-TUE-WED 07-10 x1.5",
+        "MON 07-10 xfast", "FUNDAY 07-10 x1.5", "MON 07-10",
+    };
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final double EPS = 1e-9;
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) {
+        int stays = args.length > 0 ? Integer.parseInt(args[0].trim()) : 3000;
+        long seed = args.length > 1 ? Long.parseLong(args[1].trim()) : 42;
+        Random random = new Random(seed);
+
+        for (String spec : SPECS) {
+            Tariff tariff = Tariff.parse(spec);
+            int before = failures.size();
+            for (int i = 0; i < stays; i++) {
+                LocalDateTime entry = FROM.plusMinutes(random.nextInt(60 * 24 * 365));
+                LocalDateTime exit = entry.plusMinutes(randomStayMinutes(random));
+                checkStay(tariff, spec, entry, exit, 1 + random.nextInt(180));
+            }
+            System.out.printf("%-95s %s%n", spec, failures.size() == before ? "ok" : (failures.size() - before) + " failed");
+        }
+        for (String spec : MALFORMED) {
+            try {
+                Tariff.parse(spec);
+                fail("accepted malformed spec \"" + spec + "\"");
+            } catch (IllegalArgumentException expected) {
+                // rejected as documented
+            } catch (RuntimeException e) {
+                fail("malformed spec \"" + spec + "\" threw " + e);
+            }
+        }
+        for (String spec : MALFORMED_SCHEDULES) {
+            try {
+                RateSchedule.parse(spec);
+                fail("accepted malformed schedule \"" + spec + "\"");
+            } catch (IllegalArgumentException expected) {
+                // rejected as documented
+            } catch (RuntimeException e) {
+                fail("malformed schedule \"" + spec + "\" threw " + e);
+            }
+        }
+        benchmark(Tariff.parse(SPECS[0]));
+
+        failures.stream().limit(20).forEach(f -> System.out.println("FAIL " + f));
+        System.out.println(failures.isEmpty() ? "All tariff checks passed." : failures.size() + " tariff checks failed.");
+        if (!failures.isEmpty()) System.exit(1);
+    }
+
+    // Mostly short stays, some over several days and a few over weeks
+    private static int randomStayMinutes(Random random) {
+        int kind = random.nextInt(10);
+        if (kind < 6) return random.nextInt(12 * 60);
+        if (kind < 9) return random.nextInt(4 * 24 * 60);
+        return random.nextInt(30 * 24 * 60);
+    }
+
+    private static void checkStay(Tariff tariff, String spec, LocalDateTime entry, LocalDateTime exit, int extraMinutes) {
+        double units = tariff.units(entry, exit);
+        double expected = Reference.parse(spec).units(entry, exit);
+        if (Math.abs(units - expected) > EPS) {
+            fail(spec + ": " + entry + " -> " + exit + " priced " + units + ", reference " + expected);
+        }
+        if (units < 0) fail(spec + ": negative charge for " + entry + " -> " + exit);
+        LocalDateTime later = exit.plusMinutes(extraMinutes);
+        if (tariff.units(entry, later) + EPS < units) {
+            fail(spec + ": " + entry + " -> " + later + " is cheaper than the shorter stay to " + exit);
+        }
+    }
+
+    private static void benchmark(Tariff tariff) {
+        int n = 1_000_000;
+        double sink = 0;
+        for (int round = 0; round < 2; round++) { // first round warms up
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) sink += tariff.units(FROM.plusMinutes(i & 1023), FROM.plusMinutes((i & 1023) + 90));
+            long shortNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) sink += tariff.units(FROM.plusMinutes(i & 1023), FROM.plusMinutes((i & 1023) + 7 * 1440));
+            long weekNanos = System.nanoTime() - start;
+            if (round == 1) {
+                System.out.printf("units(): %.0f ns for a 90-minute stay, %.0f ns for a week (%.0f)%n",
+                        (double) shortNanos / n, (double) weekNanos / n, sink % 10);
+            }
+        }
+    }
+
+    private static void fail(String message) {
+        failures.add(message);
+    }
+
+    // Reference pricing: walks the stay minute by minute, one tariff day at a time
+    private static final class Reference {
+        int dayStart = 7, dayEnd = 19;
+        boolean firstHourFree;
+        final double[] hourly = {1, 1}, night = {0, 0}, cap = {0, 0};
+
+        static Reference parse(String spec) {
+            Reference r = new Reference();
+            boolean weekend = false;
+            for (String clause : spec.split(";")) {
+                String[] t = clause.trim().split("\\s+");
+                if (t[0].equals("day")) {
+                    r.dayStart = Integer.parseInt(t[1].split("-")[0]);
+                    r.dayEnd = Integer.parseInt(t[1].split("-")[1]);
+                } else if (t[0].equals("first_hour")) {
+                    r.firstHourFree = true;
+                } else {
+                    int kind = t[0].equals("weekend") ? 1 : 0;
+                    weekend |= kind == 1;
+                    for (int i = 1; i < t.length; i += 2) {
+                        double v = Double.parseDouble(t[i + 1]);
+                        if (t[i].equals("hourly")) r.hourly[kind] = v;
+                        else if (t[i].equals("night")) r.night[kind] = v;
+                        else r.cap[kind] = v;
+                    }
+                }
+            }
+            if (!weekend) {
+                r.hourly[1] = r.hourly[0];
+                r.night[1] = r.night[0];
+                r.cap[1] = r.cap[0];
+            }
+            return r;
+        }
+
+        double units(LocalDateTime entry, LocalDateTime exit) {
+            LocalDateTime from = firstHourFree ? entry.plusHours(1) : entry;
+            if (!exit.isAfter(from)) return 0;
+            double total = 0;
+            // Tariff day containing "from": starts at dayStart on that calendar day or the one before
+            LocalDateTime dayOpen = from.toLocalDate().atTime(dayStart, 0);
+            if (dayOpen.isAfter(from)) dayOpen = dayOpen.minusDays(1);
+            for (; dayOpen.isBefore(exit); dayOpen = dayOpen.plusDays(1)) {
+                LocalDateTime dayClose = dayOpen.plusHours(dayEnd - dayStart);
+                LocalDateTime nextOpen = dayOpen.plusDays(1);
+                long dayMinutes = 0;
+                boolean nightTouched = false;
+                for (LocalDateTime m = max(from, dayOpen); m.isBefore(exit) && m.isBefore(nextOpen); m = m.plusMinutes(1)) {
+                    if (m.isBefore(dayClose)) dayMinutes++;
+                    else nightTouched = true;
+                }
+                DayOfWeek dow = dayOpen.getDayOfWeek();
+                int kind = dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY ? 1 : 0;
+                double charge = Math.ceil(dayMinutes / 60.0) * hourly[kind] + (nightTouched ? night[kind] : 0);
+                total += cap[kind] > 0 ? Math.min(charge, cap[kind]) : charge;
+            }
+            return total;
+        }
+
+        private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+            return a.isAfter(b) ? a : b;
+        }
+    }
+}
@@ -1,37 +1,189 @@
 package app;
 
+import clock.CoarseClock;
+import data.ArchiveManager;
+import data.ChangeLog;
 import data.DataStore;
+import data.DataStoreDecorator;
+import data.DataStoreFactory;
+import data.LotSnapshot;
+import data.LotStoreRouter;
 import data.SQLiteDataStore;
 import fine.*;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.swing.SwingUtilities;
+import pricing.PricingEngine;
+import service.AnprIngestionService;
+import service.ChangeFileSink;
+import service.ConsistencyChecker;
+import service.DemandForecaster;
 import service.EntryService;
 import service.ExitService;
+import service.FineService;
+import service.OverstayMonitor;
 import service.PaymentProcessor;
+import service.ReadModel;
+import service.ReservationService;
+import service.TicketIdGenerator;
+import sim.RecordingEntryService;
+import sim.RecordingExitService;
+import sim.RecordingPaymentProcessor;
+import sim.TraceRecorder;
 
 public class main {  // renamed to Main (standard convention)
 
     public static void main(String[] args) {
-        // 1. Database Connection
-        DataStore store = new SQLiteDataStore();
-        store.connect();
-        store.initSchema();
+        // 1. Database Connection (one store per lot, e.g. -Dparking.lots=MAIN,NORTH;
+        //    engine chosen with -Dparking.store=sqlite|h2|memory)
+        // One clock for every store and service; reads are a cached volatile, cheap on hot paths
+        CoarseClock clock = new CoarseClock();
+        LotStoreRouter router = new LotStoreRouter(clock);
+        String[] lotIds = System.getProperty("parking.lots", model.ParkingLot.DEFAULT_LOT_ID).split(",");
+        for (String lotId : lotIds) {
+            try {
+                router.register(lotId.trim());
+            } catch (IllegalArgumentException e) { // the id would become part of a file name
+                System.err.println("-Dparking.lots: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        // The UI operates the first lot; the others are reachable through the router
+        DataStore store = router.storeFor(lotIds[0].trim());
 
-        // 2. Build and Seed Parking Lot
-        ((SQLiteDataStore) store).initializeSpotsIfNeeded();
-        seedParkingLot(store);
-        ((SQLiteDataStore) store).syncSpotStatusFromSessions();
+        // Shared so all fine writes invalidate one cache; exits see and settle fines from every lot.
+        // Built before the startup checks so their fine repairs reach its cache too
+        FineService fineService = new FineService(store).setLotRouter(router);
+
+        // 2. Build and Seed Parking Lots (skipped when an up-to-date snapshot exists)
+        ReadModel restored = null; // UI lot's dashboards, seeded from its snapshot
+        for (String lotId : router.getLotIds()) {
+            DataStore lotStore = router.storeFor(lotId);
+            String dbFile = snapshotDbFile(lotStore);
+            LotSnapshot snapshot = dbFile == null ? null : LotSnapshot.read(LotSnapshot.fileFor(dbFile));
+            if (snapshot != null && snapshot.matches(Path.of(dbFile))) {
+                System.out.println("Lot " + lotId + " restored from snapshot: " + snapshot.getSpots().size()
+                        + " spots, " + snapshot.getSessions().size() + " active sessions.");
+                // Seed before anything writes to the lot, while the snapshot still describes it
+                if (lotStore == store) restored = new ReadModel(lotStore, snapshot);
+                // Full check in the background; both steps only add or fix, never reset spots
+                Thread reconcile = new Thread(() -> {
+                    lotStore.initializeSpotsIfNeeded();
+                    System.out.println(new ConsistencyChecker(lotStore, clock)
+                            .setFineService(fineService).check(true).summary());
+                }, "startup-reconcile-" + lotId);
+                reconcile.setDaemon(true);
+                reconcile.start();
+            } else {
+                lotStore.initializeSpotsIfNeeded();
+                seedParkingLot(lotStore, lotId);
+                System.out.println(new ConsistencyChecker(lotStore, clock)
+                        .setFineService(fineService).check(true).summary());
+                saveSnapshot(lotStore);
+            }
+        }
 
         // 3. Load the LAST CHOSEN fine scheme from database (persistent!)
         FineScheme activeScheme = loadLastChosenFineScheme(store);
 
         // 4. Initialize Services with the persisted scheme
-        ExitService exitService = new ExitService(store, activeScheme);
-        PaymentProcessor paymentProcessor = new PaymentProcessor(store);
-        EntryService entryService = new EntryService(store);
+        PricingEngine pricing = new PricingEngine(store); // shared so both fee paths agree
+        DemandForecaster forecaster = new DemandForecaster(store, clock);
+        ReservationService reservations = new ReservationService(store, clock);
+        // Optional operation trace of the UI lot for replay (-Dparking.trace=FILE, see app.ReplayTrace)
+        TraceRecorder recorder = startTrace(store, clock);
+        if (recorder != null) pricing.addOccupancyListener(recorder::occupancy); // replays price with the same occupancy
+        ExitService exitService = recorder == null
+                ? new ExitService(store, activeScheme, fineService, pricing, clock)
+                : new RecordingExitService(recorder, store, activeScheme, fineService, pricing);
+        PaymentProcessor paymentProcessor = recorder == null
+                ? new PaymentProcessor(store, fineService, pricing)
+                : new RecordingPaymentProcessor(recorder, store, fineService, pricing);
+        EntryService entryService = recorder == null
+                ? new EntryService(store, forecaster, reservations,
+                        new TicketIdGenerator(Integer.getInteger("parking.gate.id", 1), clock), clock)
+                : new RecordingEntryService(recorder, store, forecaster, reservations);
+        // Dashboards read projections, not the database
+        ReadModel readModel = restored != null ? restored : new ReadModel(store);
+
+        // Background jobs: refit the demand forecast every few minutes (incremental, only reads
+        // new sessions) and release bookings whose vehicle never arrived
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "parking-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(forecaster::refresh, 0, 5, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(reservations::releaseNoShows, 1, 1, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(pricing::refresh, 1, 1, TimeUnit.MINUTES); // occupancy + config
+        if (recorder != null) scheduler.scheduleWithFixedDelay(recorder::flush, 1, 1, TimeUnit.MINUTES);
+
+        // Live overstay detection: one timer per parked car, checked every minute
+        OverstayMonitor overstayMonitor = new OverstayMonitor(store, activeScheme, clock);
+        overstayMonitor.addListener(e -> System.out.printf("Overstay: %s at %s passed %dh (accrued fine RM %.2f)%n",
+                e.getPlate(), e.getSpotId(), e.getThresholdHours(), e.getAccruedFine()));
+        scheduler.scheduleWithFixedDelay(overstayMonitor::reconcile, 0, 5, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(overstayMonitor::advance, 1, 1, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(() -> router.getLotIds().forEach(id -> saveSnapshot(router.storeFor(id))),
+                5, 5, TimeUnit.MINUTES);
+
+        // Nightly archival keeps the hot databases small (closed history moves to monthly files)
+        scheduler.scheduleWithFixedDelay(() -> router.getLotIds().forEach(id -> {
+            ArchiveManager archiveManager = router.archiveManagerFor(id);
+            if (archiveManager != null) archiveManager.archive();
+        }), 10, 24 * 60, TimeUnit.MINUTES);
+
+        // Optional ANPR camera feed on a local port (e.g. -Dparking.anpr.port=5055)
+        AnprIngestionService anpr = new AnprIngestionService(store, entryService);
+        String anprPort = System.getProperty("parking.anpr.port");
+        if (anprPort != null) {
+            try {
+                anpr.start();
+                anpr.listen(Integer.parseInt(anprPort.trim()));
+                System.out.println("ANPR feed listening on localhost:" + anprPort);
+            } catch (Exception e) {
+                System.err.println("ANPR feed not started: " + e.getMessage());
+            }
+        }
+
+        // Optional local file sink for the change logs (-Dparking.cdc=true -Dparking.cdc.sink=true),
+        // one "<db>.changes.jsonl" per lot
+        List<ChangeFileSink> changeSinks = new ArrayList<>();
+        if (Boolean.getBoolean("parking.cdc.sink")) {
+            for (String lotId : router.getLotIds()) {
+                ChangeLog changeLog = router.changeLogFor(lotId);
+                if (changeLog == null) continue;
+                ChangeFileSink sink = new ChangeFileSink(changeLog, Path.of(LotStoreRouter.dbFileFor(lotId) + ".changes.jsonl"));
+                sink.start();
+                changeSinks.add(sink);
+            }
+        }
 
         // 5. Cleanup Hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            store.close();
+            anpr.stop();
+            changeSinks.forEach(ChangeFileSink::stop);
+            scheduler.shutdownNow();
+            readModel.close();
+            if (recorder != null) recorder.close(); // appends the final state the replay is checked against
+            // Snapshots are taken before closing and written after it: close-time writes (ledger feed,
+            // queued changes) bump the change counter but leave the snapshotted state as it is
+            Map<String, LotSnapshot> finalSnapshots = new LinkedHashMap<>();
+            for (String id : router.getLotIds()) {
+                DataStore lotStore = router.storeFor(id);
+                String dbFile = snapshotDbFile(lotStore);
+                if (dbFile != null) finalSnapshots.put(dbFile, LotSnapshot.capture(lotStore, -1));
+            }
+            router.closeAll();
+            finalSnapshots.forEach(main::writeSnapshotAfterClose); // fast restart next time
+            clock.close();
             System.out.println("Database connection closed safely.");
         }));
 
@@ -45,7 +197,7 @@ public class main {  // renamed to Main (standard convention)
                 if (loginDlg.isSucceeded()) {
                     String role = loginDlg.getAuthenticatedRole();
                     // Launch MainFrame with all dependencies
-                    new ui.MainFrame(store, exitService, entryService, paymentProcessor, role).setVisible(true);
+                    new ui.MainFrame(store, router, readModel, exitService, entryService, paymentProcessor, role).setVisible(true);
                 } else {
                     System.exit(0);
                 }
@@ -55,26 +207,64 @@ public class main {  // renamed to Main (standard convention)
         });
     }
 
-    private static void seedParkingLot(DataStore store) {
+    // Writes the lot's snapshot; the change counter is read first so a concurrent write invalidates it
+    private static void saveSnapshot(DataStore lotStore) {
+        String dbFile = snapshotDbFile(lotStore);
+        if (dbFile == null) return;
+        int changeCounter = LotSnapshot.readChangeCounter(Path.of(dbFile));
+        if (changeCounter < 0) return;
+        try {
+            LotSnapshot.capture(lotStore, changeCounter).write(LotSnapshot.fileFor(dbFile));
+        } catch (java.io.IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeSnapshotAfterClose(String dbFile, LotSnapshot snapshot) {
+        int changeCounter = LotSnapshot.readChangeCounter(Path.of(dbFile));
+        if (changeCounter < 0) return;
+        try {
+            snapshot.withChangeCounter(changeCounter).write(LotSnapshot.fileFor(dbFile));
+        } catch (java.io.IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Snapshots are validated against the SQLite file header, so only SQLite lots have them
+    private static String snapshotDbFile(DataStore lotStore) {
+        if (!DataStoreFactory.SQLITE.equals(DataStoreFactory.engineOf(lotStore))) return null;
+        return ((SQLiteDataStore) DataStoreDecorator.unwrap(lotStore)).getDbFile();
+    }
+
+    // Recorder for -Dparking.trace=FILE, or null when tracing is off or the file cannot be created
+    private static TraceRecorder startTrace(DataStore store, Clock clock) {
+        String file = System.getProperty("parking.trace");
+        if (file == null || file.isBlank()) return null;
+        try {
+            TraceRecorder recorder = new TraceRecorder(store, Path.of(file), Integer.getInteger("parking.gate.id", 1), clock);
+            System.out.println("Recording operation trace to " + file);
+            return recorder;
+        } catch (java.io.IOException e) {
+            System.err.println("Operation trace not started: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void seedParkingLot(DataStore store, String lotId) {
         builder.ParkingLotBuilder builder = new builder.ParkingLotBuilder()
+            .setLotId(lotId)
             .setName("University Parking Lot")
             .setNumFloors(3)
             .setRowsPerFloor(2)
             .setSpotsPerRow(10)
             .setSpotDistributionPerRow(2, 6, 1, 1);  // compact, regular, handicapped, reserved
 
-        model.ParkingLot lot = builder.build();
+        model.SpotStore spots = builder.buildSpotStore();
 
-        int count = 0;
-        for (model.Floor floor : lot.getFloors()) {
-            for (model.Row row : floor.getRows()) {
-                for (model.ParkingSpot spot : row.getSpots()) {
-                    store.upsertSpot(spot);
-                    count++;
-                }
-            }
+        for (int i = 0; i < spots.size(); i++) {
+            store.upsertSpot(spots.spot(i));
         }
-        System.out.println("Parking structure seeded: " + count + " spots.");
+        System.out.println("Parking structure seeded for lot " + lotId + ": " + spots.size() + " spots.");
     }
 
     /**
@@ -87,21 +277,18 @@ public class main {  // renamed to Main (standard convention)
 
         // First run ever: no value saved → default to Progressive and save it
         if (savedSchemeName == null || savedSchemeName.trim().isEmpty()) {
-            savedSchemeName = "Progressive (Tiered)";
+            savedSchemeName = FineSchemes.PROGRESSIVE;
             store.setActiveFineScheme(savedSchemeName);
             System.out.println("First run: No fine scheme saved yet → defaulted to Progressive (Tiered) and saved.");
         }
 
         // Map string → actual FineScheme instance
-        return switch (savedSchemeName) {
-            case "Fixed Fine (RM 50)"     -> new FixedFineScheme();
-            case "Progressive (Tiered)"   -> new ProgressiveFineScheme();
-            case "Hourly (RM 20/hr)"      -> new HourlyFineScheme();
-            default -> {
-                // Safety fallback if DB has invalid value
-                System.out.println("Warning: Unknown scheme '" + savedSchemeName + "' in DB → using Progressive");
-                yield new ProgressiveFineScheme();
-            }
-        };
+        FineScheme scheme = new LotFineSchemes(store::getConfig).byName(savedSchemeName); // custom: the lot's current version
+        if (scheme == null) {
+            // Safety fallback if DB has invalid value
+            System.out.println("Warning: Unknown scheme '" + savedSchemeName + "' in DB → using Progressive");
+            scheme = new ProgressiveFineScheme();
+        }
+        return scheme;
     }
 }
\ No newline at end of file
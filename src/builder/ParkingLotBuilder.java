@@ -4,12 +4,14 @@ import model.Floor;
 import model.ParkingLot;
 import model.ParkingSpot;
 import model.Row;
+import model.SpotStore;
 import enums.SpotType;
 
 //builds a ParkingLot step-by-step.
 
 public class ParkingLotBuilder {
 
+    private String lotId = ParkingLot.DEFAULT_LOT_ID;
     private String name = "Parking Lot";
     private int numFloors = 1;
     private int rowsPerFloor = 1;
@@ -26,6 +28,12 @@ public class ParkingLotBuilder {
         return this;
     }
 
+    // Optional: Set site identifier (multi-lot deployments)
+    public ParkingLotBuilder setLotId(String lotId) {
+        this.lotId = lotId;
+        return this;
+    }
+
     // Step 2: Set number of floors
     public ParkingLotBuilder setNumFloors(int numFloors) {
         this.numFloors = numFloors;
@@ -60,15 +68,9 @@ public class ParkingLotBuilder {
     public ParkingLot build() {
 
         // Basic validation
-        int total = compactPerRow + regularPerRow + handicappedPerRow + reservedPerRow;
-        if (total != spotsPerRow) {
-            throw new IllegalArgumentException(
-                "Spot distribution per row must add up to spotsPerRow. " +
-                "Expected " + spotsPerRow + " but got " + total
-            );
-        }
+        validateDistribution();
 
-        ParkingLot lot = new ParkingLot(name);
+        ParkingLot lot = new ParkingLot(lotId, name);
 
         // Create floors
         for (int f = 1; f <= numFloors; f++) {
@@ -95,6 +97,36 @@ public class ParkingLotBuilder {
         return lot;
     }
 
+    // Alternative final step: same layout as build(), stored as primitive arrays
+    // (use for large or many lots; spots are handed out as flyweight ParkingSpot views)
+    public SpotStore buildSpotStore() {
+        validateDistribution();
+
+        SpotStore store = new SpotStore(numFloors * rowsPerFloor * spotsPerRow);
+        for (int f = 1; f <= numFloors; f++) {
+            store.addFloor(f);
+            for (int r = 1; r <= rowsPerFloor; r++) {
+                store.addRow(r);
+                int sNo = 1;
+                for (int i = 0; i < compactPerRow; i++) store.addSpot(sNo++, SpotType.COMPACT);
+                for (int i = 0; i < regularPerRow; i++) store.addSpot(sNo++, SpotType.REGULAR);
+                for (int i = 0; i < handicappedPerRow; i++) store.addSpot(sNo++, SpotType.HANDICAPPED);
+                for (int i = 0; i < reservedPerRow; i++) store.addSpot(sNo++, SpotType.RESERVED);
+            }
+        }
+        return store;
+    }
+
+    private void validateDistribution() {
+        int total = compactPerRow + regularPerRow + handicappedPerRow + reservedPerRow;
+        if (total != spotsPerRow) {
+            throw new IllegalArgumentException(
+                "Spot distribution per row must add up to spotsPerRow. " +
+                "Expected " + spotsPerRow + " but got " + total
+            );
+        }
+    }
+
     // Helper method to add N spots of a given type
     private int addSpots(Row row, int floorNo, int rowNo, int startSpotNo,
                          SpotType type, int count) {
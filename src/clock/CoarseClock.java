@@ -0,0 +1,84 @@
+package clock;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Clock that reads a time refreshed by a daemon thread every few milliseconds, for hot
+ * paths that only need "now" to the tick (event timestamps, default entry and exit times).
+ * Reading it is one volatile load: no system call and no new Instant per call.
+ *
+ * Close the clock to stop its ticker; views made with withZone() share it.
+ */
+public final class CoarseClock extends Clock implements AutoCloseable {
+
+    public static final long DEFAULT_RESOLUTION_MILLIS = 10;
+
+    // Ticker state shared by the clock and its zone views
+    private static final class Tick {
+        final Clock source;
+        volatile Instant now;
+        volatile boolean running = true;
+
+        Tick(Clock source) {
+            this.source = source;
+            this.now = source.instant();
+        }
+    }
+
+    private final Tick tick;
+    private final ZoneId zone;
+
+    public CoarseClock() {
+        this(Clock.systemDefaultZone(), DEFAULT_RESOLUTION_MILLIS);
+    }
+
+    public CoarseClock(Clock source, long resolutionMillis) {
+        if (resolutionMillis <= 0) throw new IllegalArgumentException("Resolution must be positive");
+        this.tick = new Tick(source);
+        this.zone = source.getZone();
+        Thread ticker = new Thread(() -> {
+            while (tick.running) {
+                try {
+                    Thread.sleep(resolutionMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                tick.now = tick.source.instant();
+            }
+        }, "coarse-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    private CoarseClock(Tick tick, ZoneId zone) {
+        this.tick = tick;
+        this.zone = zone;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new CoarseClock(tick, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return tick.now;
+    }
+
+    @Override
+    public long millis() {
+        return tick.now.toEpochMilli();
+    }
+
+    @Override
+    public void close() {
+        tick.running = false;
+    }
+}
@@ -0,0 +1,65 @@
+package clock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock that only moves when told to, for simulations and trace replays: every service
+ * and store reading it sees the same virtual "now", so runs are repeatable and time can
+ * pass as fast as the work allows. Views made with withZone() share the same time.
+ */
+public final class VirtualClock extends Clock {
+
+    private final AtomicLong millis;
+    private final ZoneId zone;
+
+    public VirtualClock(LocalDateTime start) {
+        this(start, ZoneId.systemDefault());
+    }
+
+    public VirtualClock(LocalDateTime start, ZoneId zone) {
+        this(new AtomicLong(start.atZone(zone).toInstant().toEpochMilli()), zone);
+    }
+
+    private VirtualClock(AtomicLong millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    // Moves the clock to the given local time (backwards too, e.g. when a replay restarts)
+    public void set(LocalDateTime time) {
+        millis.set(time.atZone(zone).toInstant().toEpochMilli());
+    }
+
+    public void set(Instant instant) {
+        millis.set(instant.toEpochMilli());
+    }
+
+    public void advance(Duration duration) {
+        millis.addAndGet(duration.toMillis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new VirtualClock(millis, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis.get());
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+}
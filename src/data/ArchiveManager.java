@@ -0,0 +1,230 @@
+package data;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves old history out of a lot's hot database into one archive file per month.
+ *
+ *   closed sessions  -> month of exit_time
+ *   paid fines       -> month they were paid
+ *   payments         -> month of paid_time (only once their session is closed)
+ *
+ * Archive files sit next to the hot file ("parking-archive-2024-03.db" for "parking.db")
+ * and hold the same three tables, so each one can be read by a plain SQLiteDataStore.
+ * A month is moved with ATTACH + INSERT ... SELECT + DELETE in one transaction, and the
+ * payments it takes away are added to the hot revenue_rollup table in that same
+ * transaction, so getTotalRevenue never changes because of archiving. The job uses the hot
+ * store's connection, so each month moves under the write lock of the store in front of it
+ * (setWriteLock) and never interleaves with a write from the gates.
+ */
+public class ArchiveManager {
+
+    public static final int DEFAULT_RETENTION_DAYS = 90;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Rows older than the cutoff (bound as ?) that may leave the hot database
+    private static final String SESSION_WHERE =
+            "exit_time IS NOT NULL AND REPLACE(exit_time, 'T', ' ') < ?";
+    private static final String FINE_WHERE =
+            "paid = 1 AND REPLACE(COALESCE(paid_at, issued_at), 'T', ' ') < ?";
+    private static final String PAYMENT_WHERE =
+            "paid_time < ? AND ticket_no NOT IN (SELECT ticket_no FROM main.parking_session WHERE exit_time IS NULL)";
+
+    private static final String SESSION_MONTH = "substr(REPLACE(exit_time, 'T', ' '), 1, 7)";
+    private static final String FINE_MONTH = "substr(REPLACE(COALESCE(paid_at, issued_at), 'T', ' '), 1, 7)";
+    private static final String PAYMENT_MONTH = "substr(paid_time, 1, 7)";
+
+    private final SQLiteDataStore hot;
+    private final int retentionDays;
+    private final Map<String, SQLiteDataStore> readers = new ConcurrentHashMap<>();
+    private volatile List<String> months;
+    private volatile Object writeLock = this; // held by every writer on the hot connection
+
+    public ArchiveManager(SQLiteDataStore hot) {
+        this(hot, Integer.getInteger("parking.archive.days", DEFAULT_RETENTION_DAYS));
+    }
+
+    public ArchiveManager(SQLiteDataStore hot, int retentionDays) {
+        this.hot = hot;
+        this.retentionDays = retentionDays;
+        this.months = scanMonths();
+    }
+
+    // Monitor every writer on the hot store's connection holds (the EventPublishingDataStore in front)
+    public void setWriteLock(Object writeLock) {
+        this.writeLock = writeLock;
+    }
+
+    // ===============================
+    //  ARCHIVING
+    // ===============================
+
+    // Archives everything older than the retention period; returns the number of rows moved
+    public int archive() {
+        return archiveOlderThan(LocalDateTime.now(hot.getClock()).minusDays(retentionDays));
+    }
+
+    public synchronized int archiveOlderThan(LocalDateTime cutoff) {
+        String cutoffStr = cutoff.format(FORMATTER);
+        int moved = 0;
+        try {
+            List<String> due;
+            synchronized (writeLock) {
+                due = monthsToArchive(cutoffStr);
+            }
+            for (String month : due) {
+                synchronized (writeLock) { // one month at a time, so the gates wait at most one move
+                    moved += moveMonth(month, cutoffStr);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        months = scanMonths();
+        if (moved > 0) {
+            System.out.println("Archived " + moved + " rows older than " + cutoffStr + " from " + hot.getDbFile());
+        }
+        return moved;
+    }
+
+    private List<String> monthsToArchive(String cutoff) throws SQLException {
+        String sql = "SELECT " + SESSION_MONTH + " FROM main.parking_session WHERE " + SESSION_WHERE
+                + " UNION SELECT " + FINE_MONTH + " FROM main.fine WHERE " + FINE_WHERE
+                + " UNION SELECT " + PAYMENT_MONTH + " FROM main.payment WHERE " + PAYMENT_WHERE + ";";
+        List<String> result = new ArrayList<>();
+        try (PreparedStatement stmt = hot.getConnection().prepareStatement(sql)) {
+            stmt.setString(1, cutoff);
+            stmt.setString(2, cutoff);
+            stmt.setString(3, cutoff);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String month = rs.getString(1);
+                    if (month != null && month.matches("\\d{4}-\\d{2}")) result.add(month);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Moves one month's rows in a single transaction (ATTACH/DETACH must sit outside it)
+    private int moveMonth(String month, String cutoff) throws SQLException {
+        Connection conn = hot.getConnection();
+        try (PreparedStatement attach = conn.prepareStatement("ATTACH DATABASE ? AS arc;")) {
+            attach.setString(1, archiveFileFor(month).toString());
+            attach.execute();
+        }
+        int moved = 0;
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String table : new String[] {"parking_session", "fine", "payment"}) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS arc." + table + " AS SELECT * FROM main." + table + " WHERE 0;");
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                // Rollup first, while the payments are still in the hot table
+                update(conn, "INSERT INTO main.revenue_rollup (month, amount_paid, payments) "
+                        + "SELECT ?, COALESCE(SUM(amount_paid), 0), COUNT(*) FROM main.payment "
+                        + "WHERE " + PAYMENT_WHERE + " AND " + PAYMENT_MONTH + " = ? "
+                        + "ON CONFLICT(month) DO UPDATE SET amount_paid = amount_paid + excluded.amount_paid, "
+                        + "payments = payments + excluded.payments;", month, cutoff, month);
+
+                moved += copyAndDelete(conn, "parking_session", SESSION_WHERE, SESSION_MONTH, cutoff, month);
+                moved += copyAndDelete(conn, "fine", FINE_WHERE, FINE_MONTH, cutoff, month);
+                moved += copyAndDelete(conn, "payment", PAYMENT_WHERE, PAYMENT_MONTH, cutoff, month);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DETACH DATABASE arc;");
+            }
+        }
+        return moved;
+    }
+
+    private int copyAndDelete(Connection conn, String table, String where, String monthExpr,
+                              String cutoff, String month) throws SQLException {
+        String filter = " WHERE " + where + " AND " + monthExpr + " = ?;";
+        update(conn, "INSERT INTO arc." + table + " SELECT * FROM main." + table + filter, cutoff, month);
+        return update(conn, "DELETE FROM main." + table + filter, cutoff, month);
+    }
+
+    private static int update(Connection conn, String sql, String... params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) stmt.setString(i + 1, params[i]);
+            return stmt.executeUpdate();
+        }
+    }
+
+    // ===============================
+    //  ARCHIVE FILES
+    // ===============================
+
+    // "parking.db" -> "parking-archive-2024-03.db"
+    public Path archiveFileFor(String month) {
+        return Path.of(archivePrefix() + month + ".db");
+    }
+
+    // Archived months, oldest first
+    public List<String> getArchivedMonths() {
+        return months;
+    }
+
+    // Read-only view of one month's archive, opened on first use
+    public DataStore archiveFor(String month) {
+        return readers.computeIfAbsent(month, m -> {
+            SQLiteDataStore store = new SQLiteDataStore(hot.getLotId(), archiveFileFor(m).toString());
+            store.connect();
+            return store;
+        });
+    }
+
+    public void close() {
+        readers.values().forEach(SQLiteDataStore::close);
+        readers.clear();
+    }
+
+    private String archivePrefix() {
+        String file = hot.getDbFile();
+        if (file.endsWith(".db")) file = file.substring(0, file.length() - 3);
+        return file + "-archive-";
+    }
+
+    private List<String> scanMonths() {
+        Path prefix = Path.of(archivePrefix()).toAbsolutePath();
+        Path dir = prefix.getParent();
+        String namePrefix = prefix.getFileName().toString();
+        TreeSet<String> found = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, namePrefix + "*.db")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String month = name.substring(namePrefix.length(), name.length() - 3);
+                if (month.matches("\\d{4}-\\d{2}")) found.add(month);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>(found);
+    }
+}
@@ -0,0 +1,75 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import model.ParkingSession;
+import model.PaymentRecord;
+
+/**
+ * DataStore decorator that answers history queries from the hot database plus the monthly
+ * archives written by ArchiveManager, so callers never see where a row lives.
+ *
+ * Date-bounded queries only open archives for months that can contain matching rows
+ * (a session is archived under its exit month, which is never before its entry month);
+ * the rest fan out to every archive in parallel. Revenue needs no fan-out: the hot
+ * database keeps a rollup of everything archived.
+ */
+public class ArchivedHistoryDataStore extends DataStoreDecorator {
+
+    private final ArchiveManager archives;
+
+    public ArchivedHistoryDataStore(DataStore delegate, ArchiveManager archives) {
+        super(delegate);
+        this.archives = archives;
+    }
+
+    public ArchiveManager getArchiveManager() {
+        return archives;
+    }
+
+    @Override
+    public List<ParkingSession> getSessionsEnteredSince(String entryTime) {
+        List<ParkingSession> sessions = fromArchivesSince(entryTime, store -> store.getSessionsEnteredSince(entryTime));
+        if (sessions.isEmpty()) return delegate.getSessionsEnteredSince(entryTime);
+        sessions.addAll(delegate.getSessionsEnteredSince(entryTime));
+        sessions.sort(Comparator.comparing(ParkingSession::getEntryTime));
+        return sessions;
+    }
+
+    @Override
+    public List<ParkingSession> getSessionsExitedSince(String exitTime) {
+        List<ParkingSession> sessions = fromArchivesSince(exitTime, store -> store.getSessionsExitedSince(exitTime));
+        if (sessions.isEmpty()) return delegate.getSessionsExitedSince(exitTime);
+        sessions.addAll(delegate.getSessionsExitedSince(exitTime));
+        sessions.sort(Comparator.comparing(s -> s.getExitTime().replace('T', ' ')));
+        return sessions;
+    }
+
+    @Override
+    public List<PaymentRecord> getPaymentsByTicket(String ticketNo) {
+        List<PaymentRecord> payments = new ArrayList<>(delegate.getPaymentsByTicket(ticketNo));
+        archives.getArchivedMonths().parallelStream()
+                .map(month -> archives.archiveFor(month).getPaymentsByTicket(ticketNo))
+                .forEachOrdered(payments::addAll);
+        return payments;
+    }
+
+    @Override
+    public void close() {
+        archives.close();
+        delegate.close();
+    }
+
+    // Runs the query on every archive whose month is not before the given time's month
+    private <T> List<T> fromArchivesSince(String since, Function<DataStore, List<T>> query) {
+        String fromMonth = since == null || since.length() < 7 ? "" : since.substring(0, 7);
+        List<T> result = new ArrayList<>();
+        archives.getArchivedMonths().parallelStream()
+                .filter(month -> month.compareTo(fromMonth) >= 0)
+                .map(month -> query.apply(archives.archiveFor(month)))
+                .forEachOrdered(result::addAll);
+        return result;
+    }
+}
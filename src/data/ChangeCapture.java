@@ -0,0 +1,253 @@
+package data;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+
+/**
+ * Change data capture for one lot: turns the committed writes published by its
+ * EventPublishingDataStore into row changes of parking_session, fine, payment and
+ * parking_spot, and appends them to a ChangeLog in commit order.
+ *
+ * The hook is in-process rather than database triggers, so it works the same on every
+ * storage engine and only sees committed work. The listener just queues the event; a
+ * writer thread appends each batch in one write. When the store reports a RELOAD (spot
+ * layout created or statuses repaired underneath) the writer appends an UPSERT of every
+ * spot as read at that moment. Reservations, users and configuration are not captured.
+ *
+ * Fine changes are keyed by fine_id (the store sets it on insert), except FINES_PAID, which
+ * settles every fine of a plate and is keyed by the plate. A batch the log fails to append
+ * is retried a few times; if it still fails, capture stops (isFailed) rather than leave a
+ * gap in the log, and downstream must resync from the store.
+ */
+public class ChangeCapture {
+
+    public static final String SESSIONS = "parking_session";
+    public static final String FINES = "fine";
+    public static final String PAYMENTS = "payment";
+    public static final String SPOTS = "parking_spot";
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int APPEND_ATTEMPTS = 5;
+    private static final long RETRY_DELAY_MILLIS = 500;
+
+    private final DataStore store;
+    private final EventPublishingDataStore events;
+    private final ChangeLog log;
+    private final BlockingQueue<StoreEvent> queue = new LinkedBlockingQueue<>();
+    private final Consumer<StoreEvent> listener = queue::add;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean failed;     // the log refused a batch; nothing after it was captured
+
+    // Captures the writes of store; its chain must contain an EventPublishingDataStore
+    public ChangeCapture(DataStore store, ChangeLog log) {
+        this.store = store;
+        this.events = DataStoreDecorator.find(store, EventPublishingDataStore.class);
+        if (events == null) throw new IllegalArgumentException("Store does not publish change events");
+        this.log = log;
+
+        events.addListener(listener);
+        this.writer = new Thread(this::write, "change-capture-" + events.getLotId());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public ChangeLog getLog() {
+        return log;
+    }
+
+    // True once capture stopped because the log could not be written
+    public boolean isFailed() {
+        return failed;
+    }
+
+    // Stops capturing after writing what was already queued, then closes the log
+    public void close() {
+        events.removeListener(listener);
+        running = false; // no interrupt: it would close the log's FileChannel mid-write
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    private void write() {
+        List<StoreEvent> batch = new ArrayList<>();
+        List<ChangeRecord> changes = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                StoreEvent first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            for (StoreEvent event : batch) {
+                if (event.getType() == StoreEvent.Type.RELOAD) changes.addAll(allSpots(event));
+                else toChanges(event, changes);
+            }
+            if (!append(changes)) {
+                // Stop rather than skip: a later batch would hide the gap from consumers
+                failed = true;
+                running = false;
+                events.removeListener(listener);
+                queue.clear();
+                System.err.println("Change capture of lot " + events.getLotId() + " stopped; the log ends before "
+                        + changes.size() + " lost change(s)");
+                return;
+            }
+            batch.clear();
+            changes.clear();
+        }
+    }
+
+    // Appends the batch, retrying a failed write (append rewrites from the last complete record)
+    private boolean append(List<ChangeRecord> changes) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                log.append(changes);
+                return true;
+            } catch (IOException e) {
+                e.printStackTrace();
+                if (attempt == APPEND_ATTEMPTS) return false;
+            }
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    // ===============================
+    //  EVENT -> ROW CHANGES
+    // ===============================
+
+    static void toChanges(StoreEvent e, List<ChangeRecord> out) {
+        switch (e.getType()) {
+            case SPOT_UPSERTED: {
+                ParkingSpot spot = e.getSpot();
+                out.add(change(e, SPOTS, ChangeRecord.Op.UPSERT, spot.getSpotId(), spotColumns(spot)));
+                break;
+            }
+            case SPOT_OCCUPIED:
+                out.add(change(e, SPOTS, ChangeRecord.Op.UPDATE, e.getSpotId(),
+                        columns("spot_id", e.getSpotId(), "status", "OCCUPIED", "current_plate", e.getPlate())));
+                break;
+            case SPOT_RELEASED:
+                out.add(change(e, SPOTS, ChangeRecord.Op.UPDATE, e.getSpotId(),
+                        columns("spot_id", e.getSpotId(), "status", "AVAILABLE", "current_plate", null)));
+                break;
+            case SESSION_OPENED: {
+                ParkingSession s = e.getSession();
+                out.add(change(e, SESSIONS, ChangeRecord.Op.INSERT, s.getTicketNo(), columns(
+                        "ticket_no", s.getTicketNo(),
+                        "plate", s.getPlate(),
+                        "spot_id", s.getSpotId(),
+                        "vehicle_type", s.getVehicle().getType(),
+                        "has_hc_card", flag(s.getVehicle().hasHcCard()),
+                        "is_vip", flag(s.getVehicle().isVIP()),
+                        "entry_time", s.getEntryTime())));
+                break;
+            }
+            case SESSION_CLOSED:
+                out.add(change(e, SESSIONS, ChangeRecord.Op.UPDATE, e.getTicketNo(), columns(
+                        "ticket_no", e.getTicketNo(),
+                        "exit_time", e.getExitTime(),
+                        "duration_hours", Integer.toString(e.getDurationHours()),
+                        "parking_fee", Double.toString(e.getAmount()))));
+                break;
+            case FINE_ADDED: {
+                FineRecord f = e.getFine();
+                out.add(change(e, FINES, ChangeRecord.Op.INSERT, Integer.toString(f.getId()), columns(
+                        "fine_id", Integer.toString(f.getId()),
+                        "plate", f.getPlate(),
+                        "reason", f.getReason().name(),
+                        "amount", Double.toString(f.getAmount()),
+                        "issued_at", f.getIssuedTime(),
+                        "paid", flag(f.isPaid()),
+                        "paid_at", f.getPaidAt())));
+                break;
+            }
+            case FINE_UPDATED: {
+                FineRecord f = e.getFine();
+                out.add(change(e, FINES, ChangeRecord.Op.UPDATE, Integer.toString(f.getId()), columns(
+                        "fine_id", Integer.toString(f.getId()),
+                        "plate", f.getPlate(),
+                        "amount", Double.toString(f.getAmount()),
+                        "paid", flag(f.isPaid()),
+                        "paid_at", f.getPaidAt())));
+                break;
+            }
+            case FINES_PAID:
+                out.add(change(e, FINES, ChangeRecord.Op.UPDATE, e.getPlate(),
+                        columns("plate", e.getPlate(), "paid", "1", "paid_at", e.getPaidAt())));
+                break;
+            case PAYMENT_RECORDED: {
+                PaymentRecord p = e.getPayment();
+                out.add(change(e, PAYMENTS, ChangeRecord.Op.INSERT, p.getTicketNo(), columns(
+                        "ticket_no", p.getTicketNo(),
+                        "plate", p.getPlate(),
+                        "method", p.getMethod().name(),
+                        "paid_time", p.getPaidTime().format(TIME_FORMAT),
+                        "parking_fee", Double.toString(p.getParkingFee()),
+                        "fine_paid", Double.toString(p.getFinePaid()),
+                        "total_due", Double.toString(p.getTotalDue()),
+                        "amount_paid", Double.toString(p.getAmountPaid()),
+                        "balance", Double.toString(p.getBalance()))));
+                break;
+            }
+            default:
+                break; // reservations and config are not captured
+        }
+    }
+
+    private List<ChangeRecord> allSpots(StoreEvent reload) {
+        List<ChangeRecord> out = new ArrayList<>();
+        for (ParkingSpot spot : store.getAllSpots()) {
+            out.add(change(reload, SPOTS, ChangeRecord.Op.UPSERT, spot.getSpotId(), spotColumns(spot)));
+        }
+        return out;
+    }
+
+    private static Map<String, String> spotColumns(ParkingSpot spot) {
+        return columns(
+                "spot_id", spot.getSpotId(),
+                "spot_type", spot.getType().name(),
+                "status", spot.getStatus().name(),
+                "hourly_rate", Double.toString(spot.getHourlyRate()),
+                "current_plate", spot.getCurrentVehiclePlate());
+    }
+
+    private static ChangeRecord change(StoreEvent e, String table, ChangeRecord.Op op, String key,
+                                       Map<String, String> columns) {
+        return new ChangeRecord(0, e.getPublishedAt(), e.getLotId(), table, op, key, columns);
+    }
+
+    // columns("a", x, "b", y, ...) in the given order
+    private static Map<String, String> columns(String... namesAndValues) {
+        Map<String, String> map = new LinkedHashMap<>(namesAndValues.length);
+        for (int i = 0; i < namesAndValues.length; i += 2) map.put(namesAndValues[i], namesAndValues[i + 1]);
+        return map;
+    }
+
+    private static String flag(boolean b) {
+        return b ? "1" : "0";
+    }
+}
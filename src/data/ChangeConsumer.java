@@ -0,0 +1,68 @@
+package data;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A named reader of a ChangeLog. It starts after the consumer's committed offset, so a
+ * restarted consumer picks up where it last committed (records after that may be seen
+ * twice, never skipped). poll() only moves the read position; commit() stores it.
+ * seek() rewinds or skips, e.g. to replay the log into a new downstream system.
+ *
+ * Not thread-safe: one consumer per thread.
+ */
+public class ChangeConsumer implements AutoCloseable {
+
+    private final ChangeLog log;
+    private final String name;
+    private ChangeLog.Cursor cursor;
+    private long position;   // last sequence handed out by poll()
+
+    ChangeConsumer(ChangeLog log, String name) throws IOException {
+        this.log = log;
+        this.name = name;
+        this.position = Math.min(log.committedOffset(name), log.getLastSequence());
+        this.cursor = log.openCursor(position);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    // Up to max new records, waiting up to timeoutMillis if there are none yet
+    public List<ChangeRecord> poll(int max, long timeoutMillis) throws IOException, InterruptedException {
+        List<ChangeRecord> batch = cursor.next(max);
+        if (batch.isEmpty() && timeoutMillis > 0 && log.awaitAfter(position, timeoutMillis)) {
+            batch = cursor.next(max);
+        }
+        if (!batch.isEmpty()) position = batch.get(batch.size() - 1).getSequence();
+        return batch;
+    }
+
+    // Stores the position as this consumer's offset
+    public void commit() throws IOException {
+        log.commitOffset(name, position);
+    }
+
+    // Continues after the given sequence (0 = from the beginning); not committed until commit()
+    public void seek(long afterSeq) throws IOException {
+        cursor.close();
+        long target = Math.max(0, Math.min(afterSeq, log.getLastSequence()));
+        cursor = log.openCursor(target);
+        position = target;
+    }
+
+    // Records written but not yet polled by this consumer
+    public long lag() {
+        return log.getLastSequence() - position;
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
@@ -0,0 +1,350 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Ordered, replayable log of a lot's row changes ("changes.log" in one directory per lot),
+ * with a committed offset per named consumer ("offsets/<name>.offset").
+ *
+ * Records are numbered 1, 2, 3, ... and never rewritten. Each is framed as
+ * [int length][body][int CRC32 of body]; body: long sequence, long committed-at millis,
+ * byte op, then lot, table, key and (count, name, value...) as length-prefixed UTF-8.
+ * After a crash the log ends at the first record that does not check out. Appends go out
+ * as one write per batch; readers never take the append lock: each keeps its own file
+ * channel and position and reads up to the last fully written record.
+ */
+public class ChangeLog {
+
+    private static final int BLOCK = 64;                  // records per entry in the position index
+    private static final int MAX_RECORD = 1 << 20;        // sanity bound when reading lengths
+    private static final ChangeRecord.Op[] OPS = ChangeRecord.Op.values();
+
+    private final Path dir;
+    private final Path offsetsDir;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(64 * 1024);
+    private long[] blockPositions = new long[1024]; // file position of record 1 + b * BLOCK
+    private volatile long endPosition;  // end of the last complete record
+    private volatile long lastSequence;
+
+    public ChangeLog(Path dir) throws IOException {
+        this.dir = dir;
+        this.offsetsDir = dir.resolve("offsets");
+        Files.createDirectories(offsetsDir);
+        this.channel = FileChannel.open(dir.resolve("changes.log"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    // Sequence of the newest record, 0 while the log is empty
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    // ===============================
+    //  APPEND
+    // ===============================
+
+    // Appends the changes in order (their own sequence is ignored); returns the last new sequence
+    public synchronized long append(List<ChangeRecord> changes) throws IOException {
+        if (changes.isEmpty()) return lastSequence;
+        ByteBuffer buf = encodeBuffer;
+        buf.clear();
+        long seq = lastSequence;
+        for (ChangeRecord change : changes) {
+            seq++;
+            if ((seq - 1) % BLOCK == 0) indexBlock(seq, endPosition + buf.position());
+            buf = encode(buf, seq, change);
+        }
+        encodeBuffer = buf;
+        buf.flip();
+        long at = endPosition;
+        while (buf.hasRemaining()) at += channel.write(buf, at);
+        endPosition = at;
+        lastSequence = seq;
+        notifyAll();
+        return seq;
+    }
+
+    // Flushes appended records to disk
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        notifyAll();
+    }
+
+    // ===============================
+    //  READ
+    // ===============================
+
+    // Up to max records with a sequence above afterSeq (a fresh cursor; consumers keep theirs)
+    public List<ChangeRecord> read(long afterSeq, int max) throws IOException {
+        try (Cursor cursor = openCursor(afterSeq)) {
+            return cursor.next(max);
+        }
+    }
+
+    // Waits until a record after the given sequence exists; false on timeout
+    public synchronized boolean awaitAfter(long afterSeq, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (lastSequence <= afterSeq && channel.isOpen()) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return lastSequence > afterSeq;
+    }
+
+    // A named consumer starting after its committed offset
+    public ChangeConsumer consumer(String name) throws IOException {
+        return new ChangeConsumer(this, name);
+    }
+
+    // ===============================
+    //  CONSUMER OFFSETS
+    // ===============================
+
+    // Last sequence the consumer has committed, 0 if it never did
+    public long committedOffset(String consumer) throws IOException {
+        Path file = offsetFile(consumer);
+        if (!Files.exists(file)) return 0;
+        return Long.parseLong(Files.readString(file).trim());
+    }
+
+    // Replaces the consumer's offset atomically, so a crash keeps either the old or the new one
+    public void commitOffset(String consumer, long sequence) throws IOException {
+        Path file = offsetFile(consumer);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, Long.toString(sequence));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path offsetFile(String consumer) {
+        if (!consumer.matches("[A-Za-z0-9_.-]+")) throw new IllegalArgumentException("Invalid consumer name: " + consumer);
+        return offsetsDir.resolve(consumer + ".offset");
+    }
+
+    // ===============================
+    //  CURSOR
+    // ===============================
+
+    Cursor openCursor(long afterSeq) throws IOException {
+        Cursor cursor = new Cursor(FileChannel.open(dir.resolve("changes.log"), StandardOpenOption.READ));
+        cursor.seek(afterSeq);
+        return cursor;
+    }
+
+    // Sequential reader with its own channel and read-ahead window; not thread-safe
+    final class Cursor implements AutoCloseable {
+        private final FileChannel in;
+        private ByteBuffer window = ByteBuffer.allocate(256 * 1024);
+        private long windowStart;   // file position of window[0]
+        private long position;      // file position of the next record
+        private long nextSequence;
+
+        private Cursor(FileChannel in) {
+            this.in = in;
+            window.limit(0);
+        }
+
+        long getNextSequence() {
+            return nextSequence;
+        }
+
+        // Positions the cursor on the record after afterSeq (or the end of the log)
+        void seek(long afterSeq) throws IOException {
+            long target = Math.max(1, afterSeq + 1);
+            long first;
+            synchronized (ChangeLog.this) {
+                if (target > lastSequence) {
+                    position = endPosition;
+                    nextSequence = lastSequence + 1;
+                    return;
+                }
+                first = (target - 1) / BLOCK * BLOCK + 1;
+                position = blockPositions[(int) ((target - 1) / BLOCK)];
+            }
+            for (long seq = first; seq < target; seq++) {
+                fill(position, 4);
+                position += 8 + window.getInt((int) (position - windowStart));
+            }
+            nextSequence = target;
+        }
+
+        List<ChangeRecord> next(int max) throws IOException {
+            long end = endPosition;
+            List<ChangeRecord> out = new ArrayList<>(Math.min(max, 1024));
+            while (out.size() < max && position < end) {
+                fill(position, 4);
+                int length = window.getInt((int) (position - windowStart));
+                fill(position, length + 8);
+                ChangeRecord record = decode(window, (int) (position - windowStart) + 4);
+                if (record.getSequence() != nextSequence) {
+                    throw new IOException("Change log out of order at " + position + ": expected "
+                            + nextSequence + ", found " + record.getSequence());
+                }
+                out.add(record);
+                position += length + 8;
+                nextSequence++;
+            }
+            return out;
+        }
+
+        // Makes file bytes [at, at + need) available in the window
+        private void fill(long at, int need) throws IOException {
+            if (at >= windowStart && at + need <= windowStart + window.limit()) return;
+            if (need > window.capacity()) window = ByteBuffer.allocate(Integer.highestOneBit(need) * 2);
+            window.clear();
+            long readAt = at;
+            while (window.position() < need) {
+                int n = in.read(window, readAt);
+                if (n < 0) throw new IOException("Change log ends inside a record at " + at);
+                readAt += n;
+            }
+            window.flip();
+            windowStart = at;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // ===============================
+    //  ENCODING
+    // ===============================
+
+    // Writes one framed record; returns the buffer, grown if it had to be
+    private ByteBuffer encode(ByteBuffer buf, long seq, ChangeRecord change) {
+        while (true) {
+            int start = buf.position();
+            try {
+                buf.putInt(0);
+                buf.putLong(seq);
+                buf.putLong(change.getCommittedAt());
+                buf.put((byte) change.getOp().ordinal());
+                putString(buf, change.getLotId());
+                putString(buf, change.getTable());
+                putString(buf, change.getKey());
+                buf.putInt(change.getColumns().size());
+                for (Map.Entry<String, String> c : change.getColumns().entrySet()) {
+                    putString(buf, c.getKey());
+                    putString(buf, c.getValue());
+                }
+                int length = buf.position() - start - 4;
+                crc.reset();
+                crc.update(buf.array(), start + 4, length);
+                buf.putInt((int) crc.getValue());
+                buf.putInt(start, length);
+                return buf;
+            } catch (java.nio.BufferOverflowException e) {
+                ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                buf.flip();
+                buf.limit(start);
+                bigger.put(buf);
+                buf = bigger;
+            }
+        }
+    }
+
+    // Decodes the body starting at index at
+    private static ChangeRecord decode(ByteBuffer buf, int at) {
+        ByteBuffer b = buf.duplicate();
+        b.position(at);
+        long seq = b.getLong();
+        long committedAt = b.getLong();
+        ChangeRecord.Op op = OPS[b.get()];
+        String lot = getString(b);
+        String table = getString(b);
+        String key = getString(b);
+        int count = b.getInt();
+        Map<String, String> columns = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) columns.put(getString(b), getString(b));
+        return new ChangeRecord(seq, committedAt, lot, table, op, key, columns);
+    }
+
+    private static void putString(ByteBuffer buf, String s) {
+        if (s == null) {
+            buf.putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        buf.putInt(bytes.length);
+        buf.put(bytes);
+    }
+
+    private static String getString(ByteBuffer b) {
+        int length = b.getInt();
+        if (length < 0) return null;
+        String s = new String(b.array(), b.arrayOffset() + b.position(), length, StandardCharsets.UTF_8);
+        b.position(b.position() + length);
+        return s;
+    }
+
+    private void indexBlock(long seq, long position) {
+        int block = (int) ((seq - 1) / BLOCK);
+        if (block >= blockPositions.length) blockPositions = Arrays.copyOf(blockPositions, blockPositions.length * 2);
+        blockPositions[block] = position;
+    }
+
+    // Finds the end of the log (first record failing its length, sequence or CRC) and cuts it there
+    private void recover() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(4);
+        ByteBuffer body = ByteBuffer.allocate(64 * 1024);
+        long at = 0, seq = 0;
+        while (at + 4 <= size) {
+            header.clear();
+            if (channel.read(header, at) < 4) break;
+            int length = header.getInt(0);
+            if (length < 8 || length > MAX_RECORD || at + 8 + length > size) break;
+            if (body.capacity() < length + 4) body = ByteBuffer.allocate(Integer.highestOneBit(length + 4) * 2);
+            body.clear().limit(length + 4);
+            while (body.hasRemaining() && channel.read(body, at + 4 + body.position()) > 0) { }
+            crc.reset();
+            crc.update(body.array(), 0, length);
+            if (body.getInt(length) != (int) crc.getValue() || body.getLong(0) != seq + 1) break;
+            seq++;
+            if ((seq - 1) % BLOCK == 0) indexBlock(seq, at);
+            at += 8 + length;
+        }
+        if (at < size) {
+            System.err.println("Change log " + dir + ": dropped " + (size - at) + " bytes after record " + seq);
+            channel.truncate(at);
+        }
+        endPosition = at;
+        lastSequence = seq;
+        if (seq > 0) System.out.println("Change log " + dir + ": " + seq + " records.");
+    }
+}
@@ -0,0 +1,90 @@
+package data;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One captured row change in a lot's change log (see ChangeLog / ChangeCapture).
+ *
+ * The table and column names follow the SQLite schema (parking_session, fine, payment,
+ * parking_spot). INSERT and UPSERT carry the whole row, UPDATE only the key and the
+ * columns that changed. The key is the row's natural key: ticket_no for sessions and
+ * payments, spot_id for spots, fine_id for fine updates, and the plate for new fines
+ * (their id is assigned by the database) and for "all fines of a plate paid".
+ */
+public final class ChangeRecord {
+
+    public enum Op { INSERT, UPDATE, UPSERT }
+
+    private final long sequence;     // position in the log, from 1; 0 until appended
+    private final long committedAt;  // epoch millis
+    private final String lotId;
+    private final String table;
+    private final Op op;
+    private final String key;
+    private final Map<String, String> columns;
+
+    public ChangeRecord(long sequence, long committedAt, String lotId, String table, Op op, String key,
+                        Map<String, String> columns) {
+        this.sequence = sequence;
+        this.committedAt = committedAt;
+        this.lotId = lotId;
+        this.table = table;
+        this.op = op;
+        this.key = key;
+        this.columns = Collections.unmodifiableMap(new LinkedHashMap<>(columns));
+    }
+
+    public long getSequence() { return sequence; }
+    public long getCommittedAt() { return committedAt; }
+    public String getLotId() { return lotId; }
+    public String getTable() { return table; }
+    public Op getOp() { return op; }
+    public String getKey() { return key; }
+    public Map<String, String> getColumns() { return columns; }
+
+    // One line of JSON, e.g. for the file sink
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(128 + columns.size() * 24);
+        sb.append("{\"seq\":").append(sequence);
+        sb.append(",\"at\":\"").append(Instant.ofEpochMilli(committedAt)).append('"');
+        sb.append(",\"lot\":");
+        appendJson(sb, lotId);
+        sb.append(",\"table\":\"").append(table).append('"');
+        sb.append(",\"op\":\"").append(op).append('"');
+        sb.append(",\"key\":");
+        appendJson(sb, key);
+        sb.append(",\"columns\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> c : columns.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            appendJson(sb, c.getKey());
+            sb.append(':');
+            appendJson(sb, c.getValue());
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static void appendJson(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
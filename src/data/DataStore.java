@@ -12,6 +12,8 @@ public interface DataStore {
     void close(); //close database connection
 
     void initSchema(); //create required tables if not exist
+    void initializeSpotsIfNeeded(); //add any spot of the standard layout that is missing
+    void syncSpotStatusFromSessions(); //mark the spots of open sessions OCCUPIED
 
     // Parking spot operations
     void upsertSpot(ParkingSpot spot); //insert or update parking spit
@@ -38,7 +40,28 @@ public interface DataStore {
     void reduceFineAmount(FineRecord fine, double amountPaid);
     void setActiveFineScheme(String scheme);  // save fine scheme for future entries
     String getActiveFineScheme();             // optional getter
+    String getConfig(String key);              // generic config value, null if not set
+    void setConfig(String key, String value);  // insert or replace a config value
 
+    // Session history (used by DemandForecaster for incremental refits)
+    List<ParkingSession> getSessionsEnteredSince(String entryTime); //sessions with entry_time >= entryTime, oldest first
+    List<ParkingSession> getSessionsExitedSince(String exitTime);   //closed sessions with exit_time >= exitTime, oldest first
+
+    // Bulk exit: closes sessions, frees spots, writes fines and payments in one transaction; false = rolled back
+    // (also when any of the sessions was already closed)
+    boolean recordExitBatch(List<model.ExitResult> exits);
+
+    // Bulk entry: inserts sessions and marks their spots OCCUPIED in one transaction; false = rolled back
+    // (also when any of the spots is no longer AVAILABLE)
+    boolean createSessionBatch(List<ParkingSession> sessions);
+
+    // Runs several store calls as one transaction (commit, or rollback if work throws); false = rolled back
+    boolean runInTransaction(Runnable work);
+
+    // Reservations (used by ReservationService)
+    int createReservation(model.Reservation reservation); //insert a booking, returns its id (-1 on failure)
+    void updateReservationStatus(int reservationId, enums.ReservationStatus status);
+    List<model.Reservation> getOpenReservations(); //BOOKED reservations, ordered by start time
 
 
     
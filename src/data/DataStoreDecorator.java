@@ -0,0 +1,91 @@
+package data;
+
+import enums.ReservationStatus;
+import java.util.List;
+import model.ExitResult;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.Reservation;
+
+/**
+ * Base class for stores that add behaviour on top of another DataStore (Decorator pattern).
+ * Every call is forwarded to the wrapped store; subclasses override only what they change.
+ */
+public abstract class DataStoreDecorator implements DataStore {
+
+    protected final DataStore delegate;
+
+    protected DataStoreDecorator(DataStore delegate) {
+        this.delegate = delegate;
+    }
+
+    public DataStore getDelegate() {
+        return delegate;
+    }
+
+    // Returns the innermost store, peeling off any decorators
+    public static DataStore unwrap(DataStore store) {
+        while (store instanceof DataStoreDecorator) {
+            store = ((DataStoreDecorator) store).delegate;
+        }
+        return store;
+    }
+
+    // Returns the first store of the given type in the chain (the store itself included), or null
+    public static <T extends DataStore> T find(DataStore store, Class<T> type) {
+        while (store != null) {
+            if (type.isInstance(store)) return type.cast(store);
+            store = store instanceof DataStoreDecorator ? ((DataStoreDecorator) store).delegate : null;
+        }
+        return null;
+    }
+
+    @Override public void connect() { delegate.connect(); }
+    @Override public void close() { delegate.close(); }
+    @Override public void initSchema() { delegate.initSchema(); }
+    @Override public void initializeSpotsIfNeeded() { delegate.initializeSpotsIfNeeded(); }
+    @Override public void syncSpotStatusFromSessions() { delegate.syncSpotStatusFromSessions(); }
+
+    @Override public void upsertSpot(ParkingSpot spot) { delegate.upsertSpot(spot); }
+    @Override public List<ParkingSpot> findAvailableSpots(String spotType) { return delegate.findAvailableSpots(spotType); }
+    @Override public void setSpotOccupied(String spotId, String plate) { delegate.setSpotOccupied(spotId, plate); }
+    @Override public void setSpotAvailable(String spotId) { delegate.setSpotAvailable(spotId); }
+    @Override public void createSession(ParkingSession session) { delegate.createSession(session); }
+    @Override public ParkingSession getOpenSessionByPlate(String plate) { return delegate.getOpenSessionByPlate(plate); }
+    @Override public void closeSession(String ticketNo, String exitTimeISO, int durationHours, double parkingFee) {
+        delegate.closeSession(ticketNo, exitTimeISO, durationHours, parkingFee);
+    }
+    @Override public void addFine(FineRecord fine) { delegate.addFine(fine); }
+    @Override public void markAllFinesPaid(String plate, String paidTimeISO) { delegate.markAllFinesPaid(plate, paidTimeISO); }
+    @Override public void createPayment(PaymentRecord payment) { delegate.createPayment(payment); }
+    @Override public List<PaymentRecord> getPaymentsByTicket(String ticketNo) { return delegate.getPaymentsByTicket(ticketNo); }
+    @Override public List<FineRecord> getUnpaidFinesByPlate(String plate) { return delegate.getUnpaidFinesByPlate(plate); }
+    @Override public List<FineRecord> getAllUnpaidFines() { return delegate.getAllUnpaidFines(); }
+    @Override public double getTotalRevenue() { return delegate.getTotalRevenue(); }
+    @Override public int getOccupiedSpotCount() { return delegate.getOccupiedSpotCount(); }
+    @Override public int getTotalSpotCount() { return delegate.getTotalSpotCount(); }
+    @Override public String authenticate(String username, String password) { return delegate.authenticate(username, password); }
+    @Override public List<ParkingSpot> getAvailableSpots(String type) { return delegate.getAvailableSpots(type); }
+    @Override public double getTotalUnpaidFines() { return delegate.getTotalUnpaidFines(); }
+    @Override public List<ParkingSpot> getAllSpots() { return delegate.getAllSpots(); }
+    @Override public List<ParkingSession> getAllActiveSessions() { return delegate.getAllActiveSessions(); }
+    @Override public void reduceFineAmount(FineRecord fine, double amountPaid) { delegate.reduceFineAmount(fine, amountPaid); }
+    @Override public void setActiveFineScheme(String scheme) { delegate.setActiveFineScheme(scheme); }
+    @Override public String getActiveFineScheme() { return delegate.getActiveFineScheme(); }
+    @Override public String getConfig(String key) { return delegate.getConfig(key); }
+    @Override public void setConfig(String key, String value) { delegate.setConfig(key, value); }
+
+    @Override public List<ParkingSession> getSessionsEnteredSince(String entryTime) { return delegate.getSessionsEnteredSince(entryTime); }
+    @Override public List<ParkingSession> getSessionsExitedSince(String exitTime) { return delegate.getSessionsExitedSince(exitTime); }
+    @Override public boolean recordExitBatch(List<ExitResult> exits) { return delegate.recordExitBatch(exits); }
+    @Override public boolean createSessionBatch(List<ParkingSession> sessions) { return delegate.createSessionBatch(sessions); }
+    @Override public boolean runInTransaction(Runnable work) { return delegate.runInTransaction(work); }
+
+    @Override public int createReservation(Reservation reservation) { return delegate.createReservation(reservation); }
+    @Override public void updateReservationStatus(int reservationId, ReservationStatus status) {
+        delegate.updateReservationStatus(reservationId, status);
+    }
+    @Override public List<Reservation> getOpenReservations() { return delegate.getOpenReservations(); }
+}
@@ -0,0 +1,93 @@
+package data;
+
+import java.time.Clock;
+
+/**
+ * Creates the storage engine for a lot, chosen per deployment with -Dparking.store:
+ *
+ *   sqlite  (default) one SQLite file per lot, e.g. parking.db / parking-NORTH.db
+ *   h2      embedded H2 file per lot, e.g. parking.mv.db / parking-NORTH.mv.db
+ *   memory  nothing on disk; for simulations, demos and benchmarks
+ *
+ * Monthly archives and lot snapshots work on SQLite files and are only set up for "sqlite".
+ */
+public final class DataStoreFactory {
+
+    public static final String SQLITE = "sqlite";
+    public static final String H2 = "h2";
+    public static final String MEMORY = "memory";
+
+    private DataStoreFactory() {}
+
+    // Engine named by -Dparking.store
+    public static String configuredEngine() {
+        return System.getProperty("parking.store", SQLITE).trim().toLowerCase();
+    }
+
+    // Opens the configured engine for a lot, connected and with its schema in place
+    public static DataStore open(String lotId) {
+        return open(lotId, Clock.systemDefaultZone());
+    }
+
+    public static DataStore open(String lotId, Clock clock) {
+        String engine = configuredEngine();
+        return open(engine, lotId, fileFor(engine, lotId), clock);
+    }
+
+    public static DataStore open(String engine, String lotId) {
+        return open(engine, lotId, fileFor(engine, lotId));
+    }
+
+    public static DataStore open(String engine, String lotId, String file) {
+        return open(engine, lotId, file, Clock.systemDefaultZone());
+    }
+
+    // The clock stamps the times the store fills in itself (e.g. when a fine is paid off)
+    public static DataStore open(String engine, String lotId, String file, Clock clock) {
+        DataStore store;
+        if (SQLITE.equals(engine)) store = new SQLiteDataStore(lotId, file, clock);
+        else if (H2.equals(engine)) store = new H2DataStore(lotId, file, clock);
+        else if (MEMORY.equals(engine)) store = new InMemoryDataStore(lotId, clock);
+        else throw unknown(engine);
+        store.connect();
+        store.initSchema();
+        return store;
+    }
+
+    // Database file for a lot; H2 adds ".mv.db" itself, so its name has no extension
+    public static String fileFor(String engine, String lotId) {
+        String sqliteFile = LotStoreRouter.dbFileFor(lotId);
+        if (MEMORY.equals(engine)) return null;
+        if (H2.equals(engine)) return sqliteFile.substring(0, sqliteFile.length() - ".db".length());
+        return sqliteFile;
+    }
+
+    // Engine behind a (possibly decorated) store, or null for custom implementations
+    public static String engineOf(DataStore store) {
+        DataStore inner = DataStoreDecorator.unwrap(store);
+        if (inner instanceof H2DataStore) return H2;
+        if (inner instanceof SQLiteDataStore) return SQLITE;
+        if (inner instanceof InMemoryDataStore) return MEMORY;
+        return null;
+    }
+
+    // True if the JDBC driver for the engine is on the classpath (the memory engine needs none)
+    public static boolean isAvailable(String engine) {
+        String driver;
+        if (SQLITE.equals(engine)) driver = "org.sqlite.JDBC";
+        else if (H2.equals(engine)) driver = "org.h2.Driver";
+        else if (MEMORY.equals(engine)) return true;
+        else throw unknown(engine);
+        try {
+            Class.forName(driver);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static IllegalArgumentException unknown(String engine) {
+        return new IllegalArgumentException("Unknown storage engine: " + engine
+                + " (expected " + SQLITE + ", " + H2 + " or " + MEMORY + ")");
+    }
+}
@@ -0,0 +1,234 @@
+package data;
+
+import enums.ReservationStatus;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import model.ExitResult;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.Reservation;
+
+/**
+ * DataStore decorator that publishes every write as a StoreEvent once it is committed.
+ *
+ * This is the command side of the dashboards' read model (service.ReadModel): writes go
+ * through here, listeners receive the numbered events in commit order. Writes and their
+ * publication happen under one lock, so readConsistent() can take a snapshot of the store
+ * that matches an exact event number. Listeners run on the writing thread while that lock
+ * is held and must only hand the event off (e.g. to a queue).
+ */
+public class EventPublishingDataStore extends DataStoreDecorator {
+
+    private final String lotId;
+    private final Clock clock;          // stamps publishedAt
+    private final List<Consumer<StoreEvent>> listeners = new CopyOnWriteArrayList<>();
+    private volatile long sequence;     // number of the last published event; written under the lock
+    private List<StoreEvent> pending;   // events of the running transaction, null outside one
+
+    public EventPublishingDataStore(DataStore delegate, String lotId) {
+        this(delegate, lotId, Clock.systemDefaultZone());
+    }
+
+    public EventPublishingDataStore(DataStore delegate, String lotId, Clock clock) {
+        super(delegate);
+        this.lotId = lotId;
+        this.clock = clock;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public void addListener(Consumer<StoreEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<StoreEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    // Number of the last published event
+    public long getSequence() {
+        return sequence;
+    }
+
+    // Runs reads with no write in progress; returns the number of the last event they include
+    public synchronized long readConsistent(Runnable read) {
+        read.run();
+        return sequence;
+    }
+
+    // ===============================
+    //  WRITES
+    // ===============================
+
+    @Override
+    public synchronized void upsertSpot(ParkingSpot spot) {
+        delegate.upsertSpot(spot);
+        emit(StoreEvent.spotUpserted(lotId, spot));
+    }
+
+    @Override
+    public synchronized void setSpotOccupied(String spotId, String plate) {
+        delegate.setSpotOccupied(spotId, plate);
+        emit(StoreEvent.spotOccupied(lotId, spotId, plate));
+    }
+
+    @Override
+    public synchronized void setSpotAvailable(String spotId) {
+        delegate.setSpotAvailable(spotId);
+        emit(StoreEvent.spotReleased(lotId, spotId));
+    }
+
+    @Override
+    public synchronized void createSession(ParkingSession session) {
+        delegate.createSession(session);
+        emit(StoreEvent.sessionOpened(lotId, session));
+    }
+
+    @Override
+    public synchronized void closeSession(String ticketNo, String exitTimeISO, int durationHours, double parkingFee) {
+        delegate.closeSession(ticketNo, exitTimeISO, durationHours, parkingFee);
+        emit(StoreEvent.sessionClosed(lotId, ticketNo, exitTimeISO, durationHours, parkingFee));
+    }
+
+    @Override
+    public synchronized void addFine(FineRecord fine) {
+        delegate.addFine(fine);
+        emit(StoreEvent.fineAdded(lotId, fine));
+    }
+
+    @Override
+    public synchronized void markAllFinesPaid(String plate, String paidTimeISO) {
+        delegate.markAllFinesPaid(plate, paidTimeISO);
+        emit(StoreEvent.finesPaid(lotId, plate, paidTimeISO));
+    }
+
+    @Override
+    public synchronized void reduceFineAmount(FineRecord fine, double amountPaid) {
+        delegate.reduceFineAmount(fine, amountPaid);
+        emit(StoreEvent.fineUpdated(lotId, fine));
+    }
+
+    @Override
+    public synchronized void createPayment(PaymentRecord payment) {
+        delegate.createPayment(payment);
+        emit(StoreEvent.paymentRecorded(lotId, payment));
+    }
+
+    @Override
+    public synchronized void setActiveFineScheme(String scheme) {
+        delegate.setActiveFineScheme(scheme);
+        emit(StoreEvent.configChanged(lotId, "active_fine_scheme", scheme));
+    }
+
+    @Override
+    public synchronized void setConfig(String key, String value) {
+        delegate.setConfig(key, value);
+        emit(StoreEvent.configChanged(lotId, key, value));
+    }
+
+    @Override
+    public synchronized int createReservation(Reservation reservation) {
+        int id = delegate.createReservation(reservation);
+        if (id > 0) {
+            Reservation created = new Reservation(id, reservation.getSpotId(), reservation.getPlate(),
+                    reservation.getStartTime(), reservation.getEndTime(), reservation.getStatus());
+            created.setLotId(lotId);
+            emit(StoreEvent.reservationCreated(lotId, created));
+        }
+        return id;
+    }
+
+    @Override
+    public synchronized void updateReservationStatus(int reservationId, ReservationStatus status) {
+        delegate.updateReservationStatus(reservationId, status);
+        emit(StoreEvent.reservationStatus(lotId, reservationId, status.name()));
+    }
+
+    @Override
+    public synchronized boolean recordExitBatch(List<ExitResult> exits) {
+        if (!delegate.recordExitBatch(exits)) return false;
+        List<StoreEvent> events = new ArrayList<>();
+        for (ExitResult exit : exits) {
+            ParkingSession session = exit.getSession();
+            events.add(StoreEvent.sessionClosed(lotId, session.getTicketNo(), exit.getExitTimeStr(),
+                    exit.getDurationHours(), exit.getParkingFee()));
+            events.add(StoreEvent.spotReleased(lotId, session.getSpotId()));
+            for (FineRecord fine : exit.getNewFines()) events.add(StoreEvent.fineAdded(lotId, fine));
+            for (FineRecord fine : exit.getUpdatedFines()) events.add(StoreEvent.fineUpdated(lotId, fine));
+            events.add(StoreEvent.paymentRecorded(lotId, exit.getPayment()));
+        }
+        events.forEach(this::emit);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean createSessionBatch(List<ParkingSession> sessions) {
+        if (!delegate.createSessionBatch(sessions)) return false;
+        for (ParkingSession session : sessions) {
+            emit(StoreEvent.sessionOpened(lotId, session));
+            emit(StoreEvent.spotOccupied(lotId, session.getSpotId(), session.getPlate()));
+        }
+        return true;
+    }
+
+    // Events of the work are held back until commit and dropped on rollback
+    @Override
+    public synchronized boolean runInTransaction(Runnable work) {
+        if (pending != null) {
+            int mark = pending.size();
+            boolean committed = delegate.runInTransaction(work);
+            if (!committed) pending.subList(mark, pending.size()).clear();
+            return committed;
+        }
+        pending = new ArrayList<>();
+        List<StoreEvent> events = pending;
+        boolean committed;
+        try {
+            committed = delegate.runInTransaction(work);
+        } finally {
+            pending = null;
+        }
+        if (committed) events.forEach(this::emit);
+        return committed;
+    }
+
+    // Both rewrite rows below this decorator, so listeners re-read the store
+    @Override
+    public synchronized void initializeSpotsIfNeeded() {
+        delegate.initializeSpotsIfNeeded();
+        emit(StoreEvent.reload(lotId));
+    }
+
+    @Override
+    public synchronized void syncSpotStatusFromSessions() {
+        delegate.syncSpotStatusFromSessions();
+        emit(StoreEvent.reload(lotId));
+    }
+
+    // ===============================
+    //  PUBLISHING (lock held)
+    // ===============================
+
+    private void emit(StoreEvent event) {
+        if (pending != null) {
+            pending.add(event);
+            return;
+        }
+        event.publish(sequence + 1, clock.millis());
+        sequence = event.getSequence();
+        for (Consumer<StoreEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // a broken listener must not fail the write
+            }
+        }
+    }
+}
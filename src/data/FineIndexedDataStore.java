@@ -0,0 +1,76 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.ExitResult;
+import model.FineRecord;
+
+/**
+ * DataStore decorator that keeps a PlateFineFilter in front of the fine table.
+ *
+ * The filter is rebuilt from the unpaid fines when the store is wrapped and then kept
+ * up to date by addFine, reduceFineAmount and markAllFinesPaid. Lookups for plates the
+ * filter rules out (the common case at exit) return an empty list without a query.
+ */
+public class FineIndexedDataStore extends DataStoreDecorator {
+
+    private final PlateFineFilter filter = new PlateFineFilter();
+
+    public FineIndexedDataStore(DataStore delegate) {
+        super(delegate);
+        rebuildIndex();
+    }
+
+    // Reloads the filter from the fine table (startup, or after out-of-band changes)
+    public void rebuildIndex() {
+        filter.clear();
+        for (FineRecord fine : delegate.getAllUnpaidFines()) {
+            filter.add(fine.getPlate());
+        }
+    }
+
+    // Microsecond check: false = no outstanding fines for this plate in this lot
+    public boolean mightOwe(String plate) {
+        return filter.mightOwe(plate);
+    }
+
+    @Override
+    public List<FineRecord> getUnpaidFinesByPlate(String plate) {
+        if (!filter.mightOwe(plate)) return new ArrayList<>();
+        return delegate.getUnpaidFinesByPlate(plate);
+    }
+
+    @Override
+    public void addFine(FineRecord fine) {
+        delegate.addFine(fine);
+        if (!fine.isPaid()) filter.add(fine.getPlate());
+    }
+
+    @Override
+    public void reduceFineAmount(FineRecord fine, double amountPaid) {
+        boolean wasOutstanding = !fine.isPaid() && fine.getAmount() > 0;
+        delegate.reduceFineAmount(fine, amountPaid);
+        if (wasOutstanding && fine.getAmount() <= 0) filter.remove(fine.getPlate());
+    }
+
+    @Override
+    public boolean recordExitBatch(List<ExitResult> exits) {
+        if (!delegate.recordExitBatch(exits)) return false;
+        for (ExitResult exit : exits) {
+            for (FineRecord fine : exit.getNewFines()) {
+                if (!fine.isPaid()) filter.add(fine.getPlate());
+            }
+            for (FineRecord fine : exit.getUpdatedFines()) {
+                if (fine.isPaid()) filter.remove(fine.getPlate());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void markAllFinesPaid(String plate, String paidTimeISO) {
+        int settled = filter.mightOwe(plate) ? delegate.getUnpaidFinesByPlate(plate).size() : 0;
+        delegate.markAllFinesPaid(plate, paidTimeISO);
+        for (int i = 0; i < settled; i++) filter.remove(plate);
+    }
+}
@@ -0,0 +1,128 @@
+package data;
+
+import java.nio.file.Path;
+import java.time.Clock;
+
+/**
+ * The JDBC store on an embedded H2 database instead of SQLite.
+ *
+ * All queries are inherited from SQLiteDataStore; only the dialect differs. The schema uses
+ * standard types (VARCHAR, DOUBLE PRECISION, identity columns) that PostgreSQL accepts as
+ * well, and upserts use H2's MERGE ... KEY. H2 enforces foreign keys and SQLite (without
+ * PRAGMA foreign_keys) does not, so they are left out to keep both engines accepting the
+ * same writes. "key", "value" and "month" are column names here but keywords in H2, hence
+ * NON_KEYWORDS in the URL.
+ *
+ * H2 names the file "<dbFile>.mv.db". Monthly archives and lot snapshots read SQLite files
+ * directly and are not available on this engine.
+ */
+public class H2DataStore extends SQLiteDataStore {
+
+    public H2DataStore(String lotId, String dbFile) {
+        super(lotId, dbFile);
+    }
+
+    public H2DataStore(String lotId, String dbFile, Clock clock) {
+        super(lotId, dbFile, clock);
+    }
+
+    @Override
+    protected String jdbcUrl() {
+        return "jdbc:h2:file:" + Path.of(getDbFile()).toAbsolutePath() + ";NON_KEYWORDS=KEY,VALUE,MONTH";
+    }
+
+    @Override
+    protected String upsertSql(String table, String key, String... columns) {
+        return "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY(" + key + ") VALUES ("
+                + "?, ".repeat(columns.length - 1) + "?);";
+    }
+
+    @Override
+    protected String[] schemaStatements() {
+        return new String[] {
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                username VARCHAR(50) NOT NULL UNIQUE,
+                password VARCHAR(50) NOT NULL,
+                role VARCHAR(20) NOT NULL
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS parking_spot (
+                spot_id VARCHAR(32) PRIMARY KEY,
+                spot_type VARCHAR(20) NOT NULL,
+                status VARCHAR(20) NOT NULL,
+                hourly_rate DOUBLE PRECISION NOT NULL,
+                current_plate VARCHAR(32)
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS parking_session (
+                session_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                ticket_no VARCHAR(64) UNIQUE NOT NULL,
+                plate VARCHAR(32) NOT NULL,
+                spot_id VARCHAR(32) NOT NULL,
+                vehicle_type VARCHAR(20),
+                has_hc_card INTEGER,
+                is_vip INTEGER,
+                entry_time VARCHAR(32) NOT NULL,
+                exit_time VARCHAR(32),
+                duration_hours INTEGER,
+                parking_fee DOUBLE PRECISION,
+                fine_scheme VARCHAR(32)
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS fine (
+                fine_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                plate VARCHAR(32) NOT NULL,
+                reason VARCHAR(32) NOT NULL,
+                amount DOUBLE PRECISION NOT NULL,
+                issued_at VARCHAR(32) NOT NULL,
+                paid INTEGER DEFAULT 0 NOT NULL,
+                paid_at VARCHAR(32)
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS payment (
+                payment_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                ticket_no VARCHAR(64) NOT NULL,
+                plate VARCHAR(32) NOT NULL,
+                method VARCHAR(20) NOT NULL,
+                paid_time VARCHAR(32) NOT NULL,
+                parking_fee DOUBLE PRECISION NOT NULL,
+                fine_paid DOUBLE PRECISION NOT NULL,
+                total_due DOUBLE PRECISION NOT NULL,
+                amount_paid DOUBLE PRECISION NOT NULL,
+                balance DOUBLE PRECISION NOT NULL
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS config (
+                key VARCHAR(50) PRIMARY KEY,
+                value VARCHAR(2000)
+            );
+            """,
+            // Files created with the old VARCHAR(100) could not hold tariffs or custom fine schemes
+            "ALTER TABLE config ALTER COLUMN value SET DATA TYPE VARCHAR(2000);",
+            """
+            CREATE TABLE IF NOT EXISTS revenue_rollup (
+                month VARCHAR(7) PRIMARY KEY,
+                amount_paid DOUBLE PRECISION NOT NULL,
+                payments INTEGER NOT NULL
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS reservation (
+                reservation_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                spot_id VARCHAR(32) NOT NULL,
+                plate VARCHAR(32) NOT NULL,
+                start_time VARCHAR(32) NOT NULL,
+                end_time VARCHAR(32) NOT NULL,
+                status VARCHAR(20) NOT NULL
+            );
+            """,
+        };
+    }
+}
@@ -0,0 +1,680 @@
+package data;
+
+import enums.FineReason;
+import enums.ReservationStatus;
+import enums.SpotStatus;
+import enums.SpotType;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import model.ExitResult;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.PlateCodec;
+import model.Reservation;
+import model.Vehicle;
+
+/**
+ * DataStore that keeps everything in memory, for simulations and tests. Nothing is written
+ * to disk and nothing survives close().
+ *
+ * Keyed lookups (open session by plate, unpaid fines by plate, payments by ticket, config)
+ * are concurrent maps read without locking; plates are keyed by their PlateCodec code.
+ * Spots live in an array in insertion order with one availability bitset per spot type,
+ * so the per-type and occupancy queries never scan objects. Stored rows are immutable and
+ * every call returns fresh model objects, the same as reading them back from SQLite.
+ *
+ * Writes are serialized on the store. runInTransaction keeps an undo log of the rows it
+ * replaced and plays it back if the work throws; other threads can see a transaction's
+ * writes before it finishes (there is no isolation, only atomic rollback).
+ */
+public class InMemoryDataStore implements DataStore {
+
+    private static final String DEFAULT_FINE_SCHEME = "Fixed Fine (RM 50)";
+    private static final String FINE_SCHEME_KEY = "active_fine_scheme";
+
+    private final String lotId;
+    private final Clock clock; // stamps paid_at
+
+    // --- Spots: array in insertion order, availability bitset per type ---
+    private final Map<String, Integer> spotOrdinals = new ConcurrentHashMap<>();
+    private SpotRow[] spotRows = new SpotRow[64];
+    private final Map<SpotType, BitSet> available = new EnumMap<>(SpotType.class);
+    private int occupiedCount;
+
+    // --- Sessions ---
+    private final Map<String, SessionRow> sessionsByTicket = new ConcurrentHashMap<>();
+    private final Map<Long, SessionRow> openByPlate = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, SessionRow> openBySeq = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, SessionRow> byEntryTime = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, SessionRow> byExitTime = new ConcurrentSkipListMap<>();
+    private long nextSessionSeq;
+
+    // --- Fines and payments ---
+    private final ConcurrentSkipListMap<Integer, FineRow> fines = new ConcurrentSkipListMap<>();
+    private final Map<Long, List<Integer>> unpaidFineIdsByPlate = new ConcurrentHashMap<>();
+    private volatile double unpaidFineTotal;
+    private int nextFineId = 1;
+
+    private final Map<String, List<PaymentRecord>> paymentsByTicket = new ConcurrentHashMap<>();
+    private volatile double revenue;
+
+    // --- Reservations, config, users ---
+    private final ConcurrentSkipListMap<Integer, Reservation> reservations = new ConcurrentSkipListMap<>();
+    private int nextReservationId = 1;
+    private final Map<String, String> config = new ConcurrentHashMap<>();
+    private final Map<String, String[]> users = new ConcurrentHashMap<>(); // username -> {password, role}
+
+    private Deque<Runnable> undo; // non-null while runInTransaction is running
+
+    public InMemoryDataStore() {
+        this(model.ParkingLot.DEFAULT_LOT_ID);
+    }
+
+    public InMemoryDataStore(String lotId) {
+        this(lotId, Clock.systemDefaultZone());
+    }
+
+    public InMemoryDataStore(String lotId, Clock clock) {
+        this.lotId = lotId;
+        this.clock = clock;
+        for (SpotType type : SpotType.values()) available.put(type, new BitSet());
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    // The users table has no write method on DataStore; logins for this engine are added here
+    public void addUser(String username, String password, String role) {
+        users.put(username, new String[] {password, role});
+    }
+
+    // ===============================
+    //  LIFECYCLE
+    // ===============================
+
+    @Override public void connect() { }
+    @Override public void close() { }
+    @Override public void initSchema() { }
+
+    @Override
+    public void initializeSpotsIfNeeded() {
+        int created = 0;
+        for (String[] spotData : SQLiteDataStore.DEFAULT_SPOT_LAYOUT) {
+            if (spotOrdinals.containsKey(spotData[0])) continue;
+            upsertSpot(new ParkingSpot(spotData[0], SpotType.valueOf(spotData[1])));
+            created++;
+        }
+        if (created > 0) System.out.println("Initialized " + created + " missing spots (in memory, lot " + lotId + ").");
+    }
+
+    @Override
+    public synchronized void syncSpotStatusFromSessions() {
+        int fixed = 0;
+        for (SessionRow s : openBySeq.values()) {
+            Integer ordinal = spotOrdinals.get(s.spotId);
+            if (ordinal != null && spotRows[ordinal].status == SpotStatus.AVAILABLE) {
+                setSpotOccupied(s.spotId, s.plate);
+                fixed++;
+            }
+        }
+        if (fixed > 0) System.out.println("Fixed " + fixed + " inconsistent spot statuses.");
+    }
+
+    // ===============================
+    //  SPOTS
+    // ===============================
+
+    @Override
+    public synchronized void upsertSpot(ParkingSpot spot) {
+        Integer ordinal = spotOrdinals.get(spot.getSpotId());
+        SpotRow old = ordinal == null ? null : spotRows[ordinal];
+        replaceSpot(old, new SpotRow(spot.getSpotId(), spot.getType(), spot.getStatus(), spot.getCurrentVehiclePlate()));
+    }
+
+    @Override
+    public synchronized void setSpotOccupied(String spotId, String plate) {
+        Integer ordinal = spotOrdinals.get(spotId);
+        if (ordinal == null) return; // UPDATE of a missing row: nothing to do
+        SpotRow old = spotRows[ordinal];
+        replaceSpot(old, new SpotRow(spotId, old.type, SpotStatus.OCCUPIED, plate));
+    }
+
+    @Override
+    public synchronized void setSpotAvailable(String spotId) {
+        Integer ordinal = spotOrdinals.get(spotId);
+        if (ordinal == null) return;
+        SpotRow old = spotRows[ordinal];
+        replaceSpot(old, new SpotRow(spotId, old.type, SpotStatus.AVAILABLE, null));
+    }
+
+    @Override
+    public synchronized List<ParkingSpot> findAvailableSpots(String spotType) {
+        List<ParkingSpot> result = new ArrayList<>();
+        SpotType type = spotTypeOf(spotType);
+        if (type == null) return result;
+        BitSet free = available.get(type);
+        for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) result.add(spotRows[i].toSpot());
+        return result;
+    }
+
+    @Override
+    public List<ParkingSpot> getAvailableSpots(String type) {
+        return findAvailableSpots(type);
+    }
+
+    @Override
+    public synchronized List<ParkingSpot> getAllSpots() {
+        List<ParkingSpot> result = new ArrayList<>(spotOrdinals.size());
+        for (int i = 0; i < spotOrdinals.size(); i++) result.add(spotRows[i].toSpot());
+        return result;
+    }
+
+    @Override
+    public synchronized int getOccupiedSpotCount() {
+        return occupiedCount;
+    }
+
+    @Override
+    public int getTotalSpotCount() {
+        return spotOrdinals.size();
+    }
+
+    // ===============================
+    //  SESSIONS
+    // ===============================
+
+    @Override
+    public synchronized void createSession(ParkingSession session) {
+        try {
+            insertSession(session);
+        } catch (IllegalStateException e) {
+            e.printStackTrace(); // same outcome as the UNIQUE(ticket_no) violation in SQL
+        }
+    }
+
+    @Override
+    public synchronized boolean createSessionBatch(List<ParkingSession> sessions) {
+        return runInTransaction(() -> {
+            for (ParkingSession session : sessions) {
+                Integer ordinal = spotOrdinals.get(session.getSpotId());
+                if (ordinal == null || spotRows[ordinal].status != SpotStatus.AVAILABLE) {
+                    throw new IllegalStateException("Spot " + session.getSpotId() + " is no longer available");
+                }
+                insertSession(session);
+                setSpotOccupied(session.getSpotId(), session.getPlate());
+            }
+        });
+    }
+
+    @Override
+    public ParkingSession getOpenSessionByPlate(String plate) {
+        if (plate == null) return null;
+        SessionRow row = openByPlate.get(PlateCodec.lookup(plate));
+        return row == null ? null : row.toSession(lotId, row.fineScheme);
+    }
+
+    @Override
+    public List<ParkingSession> getAllActiveSessions() {
+        List<ParkingSession> result = new ArrayList<>();
+        for (SessionRow row : openBySeq.values()) result.add(row.toSession(lotId, row.fineScheme));
+        return result;
+    }
+
+    @Override
+    public synchronized void closeSession(String ticketNo, String exitTimeISO, int durationHours, double parkingFee) {
+        SessionRow old = sessionsByTicket.get(ticketNo);
+        if (old == null) return;
+        replaceSession(old, old.closed(exitTimeISO, durationHours, parkingFee));
+    }
+
+    @Override
+    public List<ParkingSession> getSessionsEnteredSince(String entryTime) {
+        List<ParkingSession> result = new ArrayList<>();
+        for (SessionRow row : byEntryTime.tailMap(entryTime).values()) result.add(row.toSession(lotId, null));
+        return result;
+    }
+
+    @Override
+    public List<ParkingSession> getSessionsExitedSince(String exitTime) {
+        List<ParkingSession> result = new ArrayList<>();
+        for (SessionRow row : byExitTime.tailMap(exitTime).values()) result.add(row.toSession(lotId, null));
+        return result;
+    }
+
+    @Override
+    public synchronized boolean recordExitBatch(List<ExitResult> exits) {
+        return runInTransaction(() -> {
+            for (ExitResult exit : exits) {
+                ParkingSession session = exit.getSession();
+                SessionRow open = sessionsByTicket.get(session.getTicketNo());
+                if (open == null || open.exitTime != null) {
+                    throw new IllegalStateException("Session " + session.getTicketNo() + " was already closed");
+                }
+                closeSession(session.getTicketNo(), exit.getExitTimeStr(), exit.getDurationHours(), exit.getParkingFee());
+                setSpotAvailable(session.getSpotId());
+                for (FineRecord fine : exit.getNewFines()) {
+                    fine.setId(insertFine(fine.getPlate(), fine.getReason(), fine.getAmount(), fine.getIssuedTime(),
+                            fine.isPaid(), fine.getPaidAt()));
+                }
+                for (FineRecord fine : exit.getUpdatedFines()) {
+                    FineRow old = fines.get(fine.getId());
+                    if (old != null) replaceFine(old, old.with(fine.getAmount(), fine.isPaid(), fine.getPaidAt()));
+                }
+                createPayment(exit.getPayment());
+            }
+        });
+    }
+
+    // ===============================
+    //  FINES
+    // ===============================
+
+    @Override
+    public synchronized void addFine(FineRecord fine) {
+        fine.setId(insertFine(fine.getPlate(), fine.getReason(), fine.getAmount(), fine.getIssuedTime(), fine.isPaid(), null));
+    }
+
+    @Override
+    public List<FineRecord> getUnpaidFinesByPlate(String plate) {
+        List<FineRecord> result = new ArrayList<>();
+        if (plate == null) return result;
+        for (Integer id : unpaidFineIdsByPlate.getOrDefault(PlateCodec.lookup(plate), List.of())) {
+            FineRow row = fines.get(id);
+            if (row != null && !row.paid) result.add(row.toFine(lotId));
+        }
+        return result;
+    }
+
+    @Override
+    public List<FineRecord> getAllUnpaidFines() {
+        List<FineRecord> result = new ArrayList<>();
+        for (FineRow row : fines.values()) if (!row.paid) result.add(row.toFine(lotId));
+        return result;
+    }
+
+    @Override
+    public synchronized void markAllFinesPaid(String plate, String paidTimeISO) {
+        if (plate == null) return;
+        for (Integer id : unpaidFineIdsByPlate.getOrDefault(PlateCodec.lookup(plate), List.of())) {
+            FineRow old = fines.get(id);
+            replaceFine(old, old.with(old.amount, true, paidTimeISO));
+        }
+    }
+
+    @Override
+    public synchronized void reduceFineAmount(FineRecord fine, double amount) {
+        fine.reduceAmount(amount);
+        boolean fullyPaid = fine.getAmount() <= 0;
+        FineRow old = fines.get(fine.getId());
+        if (old == null) return;
+        replaceFine(old, old.with(fine.getAmount(), fullyPaid,
+                fullyPaid ? LocalDateTime.now(clock).toString() : fine.getPaidAt()));
+    }
+
+    @Override
+    public double getTotalUnpaidFines() {
+        return unpaidFineTotal;
+    }
+
+    // ===============================
+    //  PAYMENTS
+    // ===============================
+
+    @Override
+    public synchronized void createPayment(PaymentRecord payment) {
+        // Stored as the payment table keeps it: whole seconds, no duration
+        PaymentRecord stored = new PaymentRecord(payment.getTicketNo(), payment.getPlate(), payment.getMethod(),
+                payment.getPaidTime().withNano(0), 0, payment.getParkingFee(), payment.getFinePaid(),
+                payment.getAmountPaid());
+        stored.setLotId(lotId);
+        appendPayment(stored);
+        changed(() -> removePayment(stored));
+    }
+
+    @Override
+    public List<PaymentRecord> getPaymentsByTicket(String ticketNo) {
+        List<PaymentRecord> result = new ArrayList<>();
+        for (PaymentRecord p : paymentsByTicket.getOrDefault(ticketNo, List.of())) {
+            PaymentRecord copy = new PaymentRecord(p.getTicketNo(), p.getPlate(), p.getMethod(), p.getPaidTime(),
+                    0, p.getParkingFee(), p.getFinePaid(), p.getAmountPaid());
+            copy.setLotId(lotId);
+            result.add(copy);
+        }
+        return result;
+    }
+
+    @Override
+    public double getTotalRevenue() {
+        return revenue;
+    }
+
+    // ===============================
+    //  RESERVATIONS
+    // ===============================
+
+    @Override
+    public synchronized int createReservation(Reservation reservation) {
+        int id = nextReservationId++;
+        Reservation stored = copyOf(reservation, id, reservation.getStatus());
+        reservations.put(id, stored);
+        changed(() -> reservations.remove(id));
+        return id;
+    }
+
+    @Override
+    public synchronized void updateReservationStatus(int reservationId, ReservationStatus status) {
+        Reservation old = reservations.get(reservationId);
+        if (old == null) return;
+        reservations.put(reservationId, copyOf(old, reservationId, status));
+        changed(() -> reservations.put(reservationId, old));
+    }
+
+    @Override
+    public List<Reservation> getOpenReservations() {
+        List<Reservation> result = new ArrayList<>();
+        for (Reservation r : reservations.values()) {
+            if (r.getStatus() == ReservationStatus.BOOKED) result.add(copyOf(r, r.getId(), r.getStatus()));
+        }
+        result.sort(Comparator.comparing(Reservation::getStartTime));
+        return result;
+    }
+
+    private Reservation copyOf(Reservation r, int id, ReservationStatus status) {
+        Reservation copy = new Reservation(id, r.getSpotId(), r.getPlate(),
+                r.getStartTime().withNano(0), r.getEndTime().withNano(0), status);
+        copy.setLotId(lotId);
+        return copy;
+    }
+
+    // ===============================
+    //  CONFIG AND AUTH
+    // ===============================
+
+    @Override
+    public String getConfig(String key) {
+        return config.get(key);
+    }
+
+    @Override
+    public synchronized void setConfig(String key, String value) {
+        String old = config.get(key);
+        putConfig(key, value);
+        changed(() -> putConfig(key, old));
+    }
+
+    @Override
+    public void setActiveFineScheme(String scheme) {
+        setConfig(FINE_SCHEME_KEY, scheme);
+    }
+
+    @Override
+    public String getActiveFineScheme() {
+        return config.getOrDefault(FINE_SCHEME_KEY, DEFAULT_FINE_SCHEME);
+    }
+
+    @Override
+    public String authenticate(String username, String password) {
+        String[] user = username == null ? null : users.get(username);
+        return user != null && user[0].equals(password) ? user[1] : null;
+    }
+
+    // ===============================
+    //  TRANSACTIONS
+    // ===============================
+
+    @Override
+    public synchronized boolean runInTransaction(Runnable work) {
+        if (undo != null) {
+            work.run(); // part of the enclosing transaction
+            return true;
+        }
+        undo = new ArrayDeque<>();
+        try {
+            work.run();
+            return true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            Deque<Runnable> log = undo;
+            undo = null;
+            while (!log.isEmpty()) log.pop().run();
+            return false;
+        } finally {
+            undo = null;
+        }
+    }
+
+    // Records how to undo a write when inside runInTransaction
+    private void changed(Runnable inverse) {
+        if (undo != null) undo.push(inverse);
+    }
+
+    // ===============================
+    //  INDEX MAINTENANCE (callers hold the lock)
+    // ===============================
+
+    // Swaps one spot row for another (either may be null) and keeps the bitsets and count in step
+    private void replaceSpot(SpotRow old, SpotRow now) {
+        String spotId = now != null ? now.spotId : old.spotId;
+        Integer ordinal = spotOrdinals.get(spotId);
+        if (ordinal == null) {
+            ordinal = spotOrdinals.size();
+            if (ordinal == spotRows.length) spotRows = Arrays.copyOf(spotRows, ordinal * 2);
+            spotOrdinals.put(spotId, ordinal);
+        }
+        if (old != null) {
+            if (old.status == SpotStatus.AVAILABLE) available.get(old.type).clear(ordinal);
+            if (old.status == SpotStatus.OCCUPIED) occupiedCount--;
+        }
+        spotRows[ordinal] = now;
+        if (now != null) {
+            if (now.status == SpotStatus.AVAILABLE) available.get(now.type).set(ordinal);
+            if (now.status == SpotStatus.OCCUPIED) occupiedCount++;
+        } else if (ordinal == spotOrdinals.size() - 1) {
+            spotOrdinals.remove(spotId); // undoing the insert of the newest spot
+        }
+        changed(() -> replaceSpot(now, old));
+    }
+
+    private void insertSession(ParkingSession session) {
+        if (sessionsByTicket.containsKey(session.getTicketNo())) {
+            throw new IllegalStateException("Duplicate ticket " + session.getTicketNo());
+        }
+        replaceSession(null, new SessionRow(nextSessionSeq++, session.getTicketNo(), session.getPlate(),
+                session.getSpotId(), session.getEntryTime(), session.getFineScheme(), null, 0, 0.0));
+    }
+
+    private void replaceSession(SessionRow old, SessionRow now) {
+        if (old != null) {
+            sessionsByTicket.remove(old.ticketNo);
+            byEntryTime.remove(old.entryKey());
+            if (old.exitTime == null) {
+                openBySeq.remove(old.seq);
+                long plateKey = PlateCodec.encode(old.plate);
+                if (openByPlate.remove(plateKey, old) && openBySeq.size() > openByPlate.size()) {
+                    // Some plate has two open sessions (should not happen); if it is this one, the other takes over
+                    for (SessionRow other : openBySeq.values()) {
+                        if (PlateCodec.encode(other.plate) == plateKey) openByPlate.put(plateKey, other);
+                    }
+                }
+            } else {
+                byExitTime.remove(old.exitKey());
+            }
+        }
+        if (now != null) {
+            sessionsByTicket.put(now.ticketNo, now);
+            byEntryTime.put(now.entryKey(), now);
+            if (now.exitTime == null) {
+                openBySeq.put(now.seq, now);
+                openByPlate.put(PlateCodec.encode(now.plate), now);
+            } else {
+                byExitTime.put(now.exitKey(), now);
+            }
+        }
+        changed(() -> replaceSession(now, old));
+    }
+
+    // Returns the new fine's id
+    private int insertFine(String plate, FineReason reason, double amount, String issuedAt, boolean paid, String paidAt) {
+        int id = nextFineId++;
+        replaceFine(null, new FineRow(id, plate, reason, amount, issuedAt, paid, paidAt));
+        return id;
+    }
+
+    private void replaceFine(FineRow old, FineRow now) {
+        if (old != null) {
+            fines.remove(old.id);
+            if (!old.paid) {
+                unpaidFineIdsByPlate.computeIfPresent(PlateCodec.encode(old.plate), (k, ids) -> {
+                    List<Integer> rest = new ArrayList<>(ids);
+                    rest.remove(Integer.valueOf(old.id));
+                    return rest.isEmpty() ? null : List.copyOf(rest);
+                });
+                unpaidFineTotal -= old.amount;
+            }
+        }
+        if (now != null) {
+            fines.put(now.id, now);
+            if (!now.paid) {
+                unpaidFineIdsByPlate.merge(PlateCodec.encode(now.plate), List.of(now.id), (ids, add) -> {
+                    List<Integer> all = new ArrayList<>(ids);
+                    all.addAll(add);
+                    return List.copyOf(all);
+                });
+                unpaidFineTotal += now.amount;
+            }
+        }
+        changed(() -> replaceFine(now, old));
+    }
+
+    private void appendPayment(PaymentRecord p) {
+        paymentsByTicket.merge(p.getTicketNo(), List.of(p), (list, add) -> {
+            List<PaymentRecord> all = new ArrayList<>(list);
+            all.addAll(add);
+            return List.copyOf(all);
+        });
+        revenue += p.getAmountPaid();
+    }
+
+    private void removePayment(PaymentRecord p) {
+        paymentsByTicket.computeIfPresent(p.getTicketNo(), (k, list) -> {
+            List<PaymentRecord> rest = new ArrayList<>(list);
+            rest.remove(p);
+            return rest.isEmpty() ? null : List.copyOf(rest);
+        });
+        revenue -= p.getAmountPaid();
+    }
+
+    private void putConfig(String key, String value) {
+        if (value == null) config.remove(key); else config.put(key, value);
+    }
+
+    private static SpotType spotTypeOf(String name) {
+        for (SpotType type : SpotType.values()) if (type.name().equals(name)) return type;
+        return null;
+    }
+
+    // ===============================
+    //  ROWS
+    // ===============================
+
+    private static final class SpotRow {
+        final String spotId;
+        final SpotType type;
+        final SpotStatus status;
+        final String plate;
+
+        SpotRow(String spotId, SpotType type, SpotStatus status, String plate) {
+            this.spotId = spotId;
+            this.type = type;
+            this.status = status;
+            this.plate = plate;
+        }
+
+        ParkingSpot toSpot() {
+            ParkingSpot spot = new ParkingSpot(spotId, type);
+            spot.setStatus(status);
+            spot.setCurrentVehiclePlate(plate);
+            return spot;
+        }
+    }
+
+    private static final class SessionRow {
+        final long seq;  // insertion order, like a rowid
+        final String ticketNo, plate, spotId, entryTime, fineScheme, exitTime;
+        final int durationHours;
+        final double parkingFee;
+
+        SessionRow(long seq, String ticketNo, String plate, String spotId, String entryTime, String fineScheme,
+                   String exitTime, int durationHours, double parkingFee) {
+            this.seq = seq;
+            this.ticketNo = ticketNo;
+            this.plate = plate;
+            this.spotId = spotId;
+            this.entryTime = entryTime;
+            this.fineScheme = fineScheme;
+            this.exitTime = exitTime;
+            this.durationHours = durationHours;
+            this.parkingFee = parkingFee;
+        }
+
+        SessionRow closed(String exitTime, int durationHours, double parkingFee) {
+            return new SessionRow(seq, ticketNo, plate, spotId, entryTime, fineScheme, exitTime, durationHours, parkingFee);
+        }
+
+        // Sort keys for the history indexes; exit times are stored with either ' ' or 'T'
+        String entryKey() { return entryTime + '\u0000' + ticketNo; }
+        String exitKey() { return exitTime.replace('T', ' ') + '\u0000' + ticketNo; }
+
+        ParkingSession toSession(String lotId, String fineScheme) {
+            ParkingSession session = new ParkingSession(ticketNo, new Vehicle(plate, "UNKNOWN", false, false),
+                    spotId, entryTime, fineScheme);
+            session.setExitTime(exitTime);
+            session.setLotId(lotId);
+            return session;
+        }
+    }
+
+    private static final class FineRow {
+        final int id;
+        final String plate;
+        final FineReason reason;
+        final double amount;
+        final String issuedAt;
+        final boolean paid;
+        final String paidAt;
+
+        FineRow(int id, String plate, FineReason reason, double amount, String issuedAt, boolean paid, String paidAt) {
+            this.id = id;
+            this.plate = plate;
+            this.reason = reason;
+            this.amount = amount;
+            this.issuedAt = issuedAt;
+            this.paid = paid;
+            this.paidAt = paidAt;
+        }
+
+        FineRow with(double amount, boolean paid, String paidAt) {
+            return new FineRow(id, plate, reason, amount, issuedAt, paid, paidAt);
+        }
+
+        FineRecord toFine(String lotId) {
+            FineRecord fine = new FineRecord(id, plate, reason, amount, issuedAt, paid, paidAt);
+            fine.setLotId(lotId);
+            return fine;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.ExitResult;
+import model.PaymentRecord;
+
+/**
+ * DataStore decorator that records payments in a PaymentLedger first and copies them into
+ * the database in the background.
+ *
+ * createPayment returns as soon as the record is flushed to the mapped ledger. A feed thread
+ * writes new ledger records to the payment table in batches, each in one transaction that
+ * also stores the last copied sequence ("payment_ledger_fed" in config), so a restart
+ * resumes exactly where the feed stopped and no payment is written twice. The feed flushes
+ * a batch before committing its sequence, and runs under the write lock of the store in
+ * front (setWriteLock) because it shares that store's connection. Payments that
+ * bulk exits already wrote to the database are appended with FLAG_IN_DATABASE and skipped
+ * by the feed. Until a payment has been copied, revenue and ticket lookups include it from
+ * the ledger, so reads never lag behind writes.
+ */
+public class LedgerDataStore extends DataStoreDecorator {
+
+    public static final String FED_KEY = "payment_ledger_fed";
+    private static final int FEED_BATCH = 512;
+    private static final long FEED_IDLE_MILLIS = 1_000;
+
+    private final PaymentLedger ledger;
+    private final Thread feeder;
+    private final Object feedLock = new Object();  // guards fed and pendingAmount; held only briefly
+    private final Object viewLock = new Object();  // a feed transaction and reads that combine DB + pending
+    private volatile Object writeLock = viewLock; // serializes the feed with other writers on the connection
+    private volatile boolean running = true;
+    private long fed;              // last sequence known to be in the database
+    private double pendingAmount;  // amount paid by ledger records not yet copied
+
+    public LedgerDataStore(DataStore delegate, PaymentLedger ledger) {
+        super(delegate);
+        this.ledger = ledger;
+        String stored = delegate.getConfig(FED_KEY);
+        this.fed = stored == null || stored.isBlank() ? -1 : Long.parseLong(stored.trim());
+        if (fed >= ledger.size()) {
+            // The log lost records the database already has: new payments would reuse their sequences
+            throw new IllegalStateException("Payment ledger has " + ledger.size()
+                    + " records but the database was fed up to sequence " + fed);
+        }
+        ledger.forEachFrom(fed + 1, Integer.MAX_VALUE, e -> {
+            if (!e.isInDatabase()) pendingAmount += e.getPayment().getAmountPaid();
+        });
+
+        this.feeder = new Thread(this::feedLoop, "payment-ledger-feed");
+        feeder.setDaemon(true);
+        feeder.start();
+    }
+
+    public PaymentLedger getLedger() {
+        return ledger;
+    }
+
+    // Monitor every writer on the delegate's connection holds (the EventPublishingDataStore in front)
+    public void setWriteLock(Object writeLock) {
+        this.writeLock = writeLock;
+    }
+
+    // --- Writes ---
+    @Override
+    public void createPayment(PaymentRecord payment) {
+        long seq;
+        try {
+            synchronized (feedLock) {
+                seq = ledger.append(payment, (byte) 0);
+                pendingAmount += payment.getAmountPaid();
+                feedLock.notifyAll();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Payment ledger append failed, writing " + payment.getTicketNo()
+                    + " to the database directly: " + e.getMessage());
+            delegate.createPayment(payment);
+            return;
+        }
+        ledger.forceThrough(seq);
+    }
+
+    @Override
+    public boolean recordExitBatch(List<ExitResult> exits) {
+        if (!delegate.recordExitBatch(exits)) return false;
+        for (ExitResult exit : exits) {
+            if (!exit.isSuccess() || exit.getPayment() == null) continue;
+            try {
+                ledger.append(exit.getPayment(), PaymentLedger.FLAG_IN_DATABASE);
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace(); // the database already has it
+            }
+        }
+        return true;
+    }
+
+    // --- Reads ---
+    @Override
+    public double getTotalRevenue() {
+        synchronized (viewLock) {
+            double stored = delegate.getTotalRevenue();
+            synchronized (feedLock) {
+                return stored + pendingAmount;
+            }
+        }
+    }
+
+    // Ledger records plus database rows the ledger does not have (older than the ledger, or archived)
+    @Override
+    public List<PaymentRecord> getPaymentsByTicket(String ticketNo) {
+        List<PaymentRecord> fromLedger;
+        List<PaymentRecord> fromDatabase;
+        synchronized (viewLock) {
+            fromLedger = ledger.findByTicket(ticketNo);
+            fromDatabase = delegate.getPaymentsByTicket(ticketNo);
+        }
+        Map<String, Integer> inLedger = new HashMap<>();
+        for (PaymentRecord p : fromLedger) inLedger.merge(key(p), 1, Integer::sum);
+
+        List<PaymentRecord> result = new ArrayList<>(fromLedger);
+        for (PaymentRecord p : fromDatabase) {
+            String k = key(p);
+            Integer n = inLedger.get(k);
+            if (n != null && n > 0) inLedger.put(k, n - 1);
+            else result.add(p);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        synchronized (feedLock) {
+            feedLock.notifyAll();
+        }
+        try {
+            feeder.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        feedOnce(); // whatever is left
+        ledger.force();
+        delegate.close();
+    }
+
+    // ===============================
+    //  FEED
+    // ===============================
+
+    private void feedLoop() {
+        while (running) {
+            try {
+                int copied = feedOnce();
+                if (copied < 0) {
+                    Thread.sleep(FEED_IDLE_MILLIS); // database refused the batch, retry later
+                } else if (copied == 0) {
+                    synchronized (feedLock) {
+                        if (running && ledger.size() - 1 <= fed) feedLock.wait(FEED_IDLE_MILLIS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Copies one batch to the database; returns the number of ledger records consumed, -1 on rollback
+    private int feedOnce() {
+        List<PaymentLedger.Entry> batch = new ArrayList<>();
+        long from;
+        synchronized (feedLock) {
+            from = fed + 1;
+        }
+        ledger.forEachFrom(from, FEED_BATCH, batch::add);
+        if (batch.isEmpty()) return 0;
+
+        long last = batch.get(batch.size() - 1).getSequence();
+        double copied = 0;
+        for (PaymentLedger.Entry e : batch) if (!e.isInDatabase()) copied += e.getPayment().getAmountPaid();
+
+        ledger.forceThrough(last); // never commit a marker past what is on disk
+        synchronized (writeLock) {
+            synchronized (viewLock) {
+                boolean committed = delegate.runInTransaction(() -> {
+                    for (PaymentLedger.Entry e : batch) {
+                        if (!e.isInDatabase()) delegate.createPayment(e.getPayment());
+                    }
+                    delegate.setConfig(FED_KEY, Long.toString(last));
+                });
+                if (!committed) return -1;
+                synchronized (feedLock) {
+                    fed = last;
+                    pendingAmount -= copied;
+                }
+            }
+        }
+        return batch.size();
+    }
+
+    private static String key(PaymentRecord p) {
+        return p.getTicketNo() + '|' + p.getMethod() + '|' + p.getPaidTime().withNano(0) + '|'
+                + p.getParkingFee() + '|' + p.getFinePaid() + '|' + p.getAmountPaid();
+    }
+}
@@ -0,0 +1,224 @@
+package data;
+
+import enums.SpotStatus;
+import enums.SpotType;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.Vehicle;
+
+/**
+ * Compact binary image of a lot: spot states, active sessions and the dashboard aggregates.
+ *
+ * The file is written and read through a memory-mapped buffer and ends with a CRC32 of
+ * everything before it. It also records SQLite's file change counter (bytes 24-27 of the
+ * database header, bumped by every committed write). At boot a snapshot whose counter
+ * still matches the database describes exactly what is in it, so the slow startup
+ * checks can be skipped.
+ *
+ * Layout: magic, version, change counter, created-at millis, revenue, unpaid fines,
+ * spot count, spots, session count, sessions, CRC32.
+ */
+public final class LotSnapshot {
+
+    private static final int MAGIC = 0x504B534E; // "PKSN"
+    private static final int VERSION = 1;
+    private static final int CHANGE_COUNTER_OFFSET = 24;
+
+    private final int changeCounter;
+    private final long createdAt;
+    private final double totalRevenue;
+    private final double totalUnpaidFines;
+    private final List<ParkingSpot> spots;
+    private final List<ParkingSession> sessions;
+
+    private LotSnapshot(int changeCounter, long createdAt, double totalRevenue, double totalUnpaidFines,
+                        List<ParkingSpot> spots, List<ParkingSession> sessions) {
+        this.changeCounter = changeCounter;
+        this.createdAt = createdAt;
+        this.totalRevenue = totalRevenue;
+        this.totalUnpaidFines = totalUnpaidFines;
+        this.spots = spots;
+        this.sessions = sessions;
+    }
+
+    // Snapshot file kept next to the lot's database file
+    public static Path fileFor(String dbFile) {
+        return Path.of(dbFile + ".snap");
+    }
+
+    public static LotSnapshot capture(DataStore store, int changeCounter) {
+        return new LotSnapshot(changeCounter, System.currentTimeMillis(), store.getTotalRevenue(),
+                store.getTotalUnpaidFines(), store.getAllSpots(), store.getAllActiveSessions());
+    }
+
+    // Same contents under a change counter read later, once writes that do not alter them are done
+    public LotSnapshot withChangeCounter(int changeCounter) {
+        return new LotSnapshot(changeCounter, createdAt, totalRevenue, totalUnpaidFines, spots, sessions);
+    }
+
+    // SQLite file change counter, or -1 if the database file cannot be read
+    public static int readChangeCounter(Path dbFile) {
+        try (RandomAccessFile raf = new RandomAccessFile(dbFile.toFile(), "r")) {
+            if (raf.length() < CHANGE_COUNTER_OFFSET + 4) return -1;
+            raf.seek(CHANGE_COUNTER_OFFSET);
+            return raf.readInt(); // big-endian, as stored by SQLite
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // ===============================
+    //  WRITE
+    // ===============================
+
+    // Writes to a temp file and renames it over the old snapshot, so a crash never leaves half a file
+    public void write(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + spots.size() * 32 + sessions.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(changeCounter);
+        out.writeLong(createdAt);
+        out.writeDouble(totalRevenue);
+        out.writeDouble(totalUnpaidFines);
+
+        out.writeInt(spots.size());
+        for (ParkingSpot spot : spots) {
+            writeString(out, spot.getSpotId());
+            out.writeByte(spot.getType().ordinal());
+            out.writeByte(spot.getStatus().ordinal());
+            writeString(out, spot.getCurrentVehiclePlate());
+        }
+
+        out.writeInt(sessions.size());
+        for (ParkingSession s : sessions) {
+            Vehicle v = s.getVehicle();
+            writeString(out, s.getTicketNo());
+            writeString(out, v.getPlate());
+            writeString(out, v.getType());
+            out.writeBoolean(v.hasHcCard());
+            out.writeBoolean(v.isVIP());
+            writeString(out, s.getSpotId());
+            writeString(out, s.getEntryTime());
+            writeString(out, s.getFineScheme());
+        }
+        out.flush();
+        byte[] body = bytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, body.length + 8L);
+            map.put(body);
+            map.putLong(crc.getValue());
+            map.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ===============================
+    //  READ
+    // ===============================
+
+    // Loads a snapshot; null if the file is missing, from another version or fails its checksum
+    public static LotSnapshot read(Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < 48) return null;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            ByteBuffer body = map.duplicate().limit((int) size - 8);
+            crc.update(body);
+            if (crc.getValue() != map.getLong((int) size - 8)) {
+                System.err.println("Snapshot " + file + " failed its checksum, ignoring it.");
+                return null;
+            }
+
+            if (map.getInt() != MAGIC || map.getInt() != VERSION) return null;
+            int changeCounter = map.getInt();
+            long createdAt = map.getLong();
+            double revenue = map.getDouble();
+            double unpaid = map.getDouble();
+
+            SpotType[] types = SpotType.values();
+            SpotStatus[] statuses = SpotStatus.values();
+            int spotCount = map.getInt();
+            List<ParkingSpot> spots = new ArrayList<>(spotCount);
+            for (int i = 0; i < spotCount; i++) {
+                ParkingSpot spot = new ParkingSpot(readString(map), types[map.get()]);
+                spot.setStatus(statuses[map.get()]);
+                spot.setCurrentVehiclePlate(readString(map));
+                spots.add(spot);
+            }
+
+            int sessionCount = map.getInt();
+            List<ParkingSession> sessions = new ArrayList<>(sessionCount);
+            for (int i = 0; i < sessionCount; i++) {
+                String ticketNo = readString(map);
+                Vehicle vehicle = new Vehicle(readString(map), readString(map), map.get() != 0, map.get() != 0);
+                sessions.add(new ParkingSession(ticketNo, vehicle, readString(map), readString(map), readString(map)));
+            }
+            return new LotSnapshot(changeCounter, createdAt, revenue, unpaid, spots, sessions);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Snapshot " + file + " unreadable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // True if the database has not been written since this snapshot was taken
+    public boolean matches(Path dbFile) {
+        int current = readChangeCounter(dbFile);
+        return current >= 0 && current == changeCounter;
+    }
+
+    public int getChangeCounter() { return changeCounter; }
+    public long getCreatedAt() { return createdAt; }
+    public double getTotalRevenue() { return totalRevenue; }
+    public double getTotalUnpaidFines() { return totalUnpaidFines; }
+    public List<ParkingSpot> getSpots() { return spots; }
+    public List<ParkingSession> getSessions() { return sessions; }
+
+    public int getOccupiedCount() {
+        int occupied = 0;
+        for (ParkingSpot spot : spots) if (!spot.isAvailable()) occupied++;
+        return occupied;
+    }
+}
@@ -0,0 +1,234 @@
+package data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import model.FineRecord;
+import model.ParkingLot;
+
+/**
+ * Routes each parking lot (site) to its own DataStore and database file.
+ *
+ * Every lot gets a separate store (on SQLite or H2, its own file and connection), so a
+ * busy site never waits on another site's write lock. Cross-lot questions (plate-wide fine
+ * lookups, totals for reports) are fanned out to all lots in parallel and merged here.
+ */
+public class LotStoreRouter {
+
+    private final Map<String, DataStore> stores = new ConcurrentHashMap<>();
+    private final Map<String, ArchiveManager> archives = new ConcurrentHashMap<>();
+    private final Map<String, ChangeCapture> captures = new ConcurrentHashMap<>();
+    private final ExecutorService fanOutPool;
+    private final Clock clock; // shared by every lot's store (store-stamped times, event timestamps)
+
+    public LotStoreRouter() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public LotStoreRouter(Clock clock) {
+        this.clock = clock;
+        this.fanOutPool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "lot-fan-out");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Lot ids end up in file names, so only letters, digits, '_' and '-' are allowed
+    public static void checkLotId(String lotId) {
+        if (lotId == null || !lotId.matches("[A-Za-z0-9_-]{1,32}")) {
+            throw new IllegalArgumentException("Invalid parking lot id '" + lotId
+                    + "': use 1-32 letters, digits, '_' or '-'");
+        }
+    }
+
+    // The default lot keeps the original parking.db so existing single-site data is untouched
+    public static String dbFileFor(String lotId) {
+        checkLotId(lotId);
+        return ParkingLot.DEFAULT_LOT_ID.equals(lotId) ? "parking.db" : "parking-" + lotId + ".db";
+    }
+
+    // Opens (or returns) the store for a lot, creating its schema on first use.
+    // The engine comes from -Dparking.store (see DataStoreFactory). Stores are fronted by a
+    // fine filter so "does this plate owe?" rarely hits the DB, publish their writes for the
+    // dashboards' read model, and on SQLite history queries also read the monthly archives.
+    public DataStore register(String lotId) {
+        checkLotId(lotId);
+        return stores.computeIfAbsent(lotId, id -> {
+            DataStore store = DataStoreFactory.open(id, clock);
+            DataStore history = store;
+            ArchiveManager archiveManager = null;
+            if (DataStoreFactory.SQLITE.equals(DataStoreFactory.engineOf(store))) {
+                archiveManager = new ArchiveManager((SQLiteDataStore) store);
+                archives.put(id, archiveManager);
+                history = new ArchivedHistoryDataStore(store, archiveManager);
+            }
+            DataStore published = new EventPublishingDataStore(withPaymentLedger(withOffHeapSessions(history, id), id), id, clock);
+            // Background writers below the publisher share its lock on the lot's connection
+            LedgerDataStore ledgerStore = DataStoreDecorator.find(published, LedgerDataStore.class);
+            if (ledgerStore != null) ledgerStore.setWriteLock(published);
+            if (archiveManager != null) archiveManager.setWriteLock(published);
+            captureChanges(published, id);
+            return new FineIndexedDataStore(published);
+        });
+    }
+
+    // -Dparking.ledger=true: payments go to an append-only ledger in "<db>.ledger/", the payment table follows
+    private static DataStore withPaymentLedger(DataStore store, String lotId) {
+        if (!Boolean.getBoolean("parking.ledger")) return store;
+        try {
+            return new LedgerDataStore(store, new PaymentLedger(Path.of(dbFileFor(lotId) + ".ledger")));
+        } catch (IOException e) {
+            System.err.println("Payment ledger unavailable for lot " + lotId + ": " + e.getMessage());
+            return store;
+        }
+    }
+
+    // Large venues (-Dparking.sessions.offheap=true): active sessions held off-heap in "<db>.sessions"
+    private static DataStore withOffHeapSessions(DataStore store, String lotId) {
+        if (!Boolean.getBoolean("parking.sessions.offheap")) return store;
+        int capacity = Integer.getInteger("parking.sessions.capacity", 65_536);
+        try {
+            OffHeapSessionTable table = OffHeapSessionTable.map(Path.of(dbFileFor(lotId) + ".sessions"), capacity);
+            Path dbFile = DataStoreFactory.SQLITE.equals(DataStoreFactory.engineOf(store)) ? Path.of(dbFileFor(lotId)) : null;
+            return new OffHeapSessionDataStore(store, table, lotId, dbFile);
+        } catch (IOException e) {
+            System.err.println("Off-heap session table unavailable for lot " + lotId + ": " + e.getMessage());
+            return store;
+        }
+    }
+
+    // -Dparking.cdc=true: row changes are captured into a change log in "<db>.changes/"
+    private void captureChanges(DataStore store, String lotId) {
+        if (!Boolean.getBoolean("parking.cdc")) return;
+        try {
+            captures.put(lotId, new ChangeCapture(store, new ChangeLog(Path.of(dbFileFor(lotId) + ".changes"))));
+        } catch (IOException e) {
+            System.err.println("Change capture unavailable for lot " + lotId + ": " + e.getMessage());
+        }
+    }
+
+    // Change log of a lot; null unless change capture is enabled
+    public ChangeLog changeLogFor(String lotId) {
+        ChangeCapture capture = captures.get(lotId);
+        return capture == null ? null : capture.getLog();
+    }
+
+    // Archive job for a lot; null for stores registered from outside
+    public ArchiveManager archiveManagerFor(String lotId) {
+        return archives.get(lotId);
+    }
+
+    // Registers an already opened store (e.g. a custom engine) for a lot
+    public void register(String lotId, DataStore store) {
+        checkLotId(lotId);
+        stores.put(lotId, store);
+    }
+
+    public boolean isRegistered(String lotId) {
+        return lotId != null && stores.containsKey(lotId);
+    }
+
+    public DataStore storeFor(String lotId) {
+        DataStore store = stores.get(lotId);
+        if (store == null) throw new IllegalArgumentException("Unknown parking lot: " + lotId);
+        return store;
+    }
+
+    public List<String> getLotIds() {
+        return new ArrayList<>(stores.keySet());
+    }
+
+    // ===============================
+    //  CROSS-LOT QUERIES
+    // ===============================
+
+    // Runs the query against every lot in parallel; results keyed by lot id
+    public <T> Map<String, T> fanOut(Function<DataStore, T> query) {
+        return fanOut(stores.keySet(), query);
+    }
+
+    // Runs the query against the given lots in parallel; results keyed by lot id
+    public <T> Map<String, T> fanOut(Collection<String> lotIds, Function<DataStore, T> query) {
+        Map<String, Future<T>> pending = new LinkedHashMap<>();
+        for (String lotId : lotIds) {
+            DataStore store = storeFor(lotId);
+            pending.put(lotId, fanOutPool.submit(() -> query.apply(store)));
+        }
+
+        Map<String, T> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<T>> e : pending.entrySet()) {
+            try {
+                results.put(e.getKey(), e.getValue().get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while querying lot " + e.getKey(), ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Query failed for lot " + e.getKey(), ex.getCause());
+            }
+        }
+        return results;
+    }
+
+    // "Does this car owe anywhere?" - answered from the in-memory filters in the common case
+    public boolean owesAnywhere(String plate) {
+        for (String lotId : lotsThatMightOwe(plate)) {
+            if (!storeFor(lotId).getUnpaidFinesByPlate(plate).isEmpty()) return true;
+        }
+        return false;
+    }
+
+    // Unpaid fines for a plate across every site (each record carries its lotId).
+    // Only lots whose filter cannot rule the plate out are queried.
+    public List<FineRecord> getUnpaidFinesByPlateAllLots(String plate) {
+        List<String> candidates = lotsThatMightOwe(plate);
+        List<FineRecord> all = new ArrayList<>();
+        if (candidates.isEmpty()) return all;
+        if (candidates.size() == 1) {
+            all.addAll(storeFor(candidates.get(0)).getUnpaidFinesByPlate(plate));
+            return all;
+        }
+        fanOut(candidates, store -> store.getUnpaidFinesByPlate(plate)).values().forEach(all::addAll);
+        return all;
+    }
+
+    private List<String> lotsThatMightOwe(String plate) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, DataStore> e : stores.entrySet()) {
+            DataStore store = e.getValue();
+            if (!(store instanceof FineIndexedDataStore) || ((FineIndexedDataStore) store).mightOwe(plate)) {
+                result.add(e.getKey());
+            }
+        }
+        return result;
+    }
+
+    public double getTotalRevenueAllLots() {
+        return fanOut(DataStore::getTotalRevenue).values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    public double getTotalUnpaidFinesAllLots() {
+        return fanOut(DataStore::getTotalUnpaidFines).values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    public int getOccupiedSpotCountAllLots() {
+        return fanOut(DataStore::getOccupiedSpotCount).values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public void closeAll() {
+        fanOutPool.shutdownNow();
+        captures.values().forEach(ChangeCapture::close); // writes out what is queued first
+        stores.values().forEach(DataStore::close);
+    }
+}
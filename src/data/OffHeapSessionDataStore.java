@@ -0,0 +1,145 @@
+package data;
+
+import java.nio.file.Path;
+import java.util.List;
+import model.ExitResult;
+import model.ParkingSession;
+
+/**
+ * DataStore decorator that keeps the lot's active sessions in an OffHeapSessionTable and
+ * answers getAllActiveSessions / getOpenSessionByPlate from it instead of the database.
+ *
+ * The table is loaded from the database when the store is wrapped and then follows every
+ * entry and exit made through this store. If it ever cannot take a session (full, or a
+ * field that does not fit) reads fall back to the database until the next reload(), so
+ * answers are never wrong, only slower.
+ *
+ * A mapped table is reused across restarts of a SQLite lot: close() stamps the table header
+ * with the database file's change counter (see LotSnapshot), and the next start keeps the
+ * reopened table only if the database has not been written since. Nothing is written to
+ * the database, so closing does not invalidate the lot's snapshot. Opening clears the
+ * stamp, so after a crash (or any run that did not close cleanly) the table is reloaded;
+ * lots without a change counter (H2, memory) always reload.
+ */
+public class OffHeapSessionDataStore extends DataStoreDecorator {
+
+    private static final long CLEAN = 1L << 32; // set in a stamp; the low 32 bits are the change counter
+
+    private final OffHeapSessionTable table;
+    private final String lotId;
+    private final Path dbFile; // SQLite file whose change counter vouches for the table, null = none
+    private boolean complete;
+
+    public OffHeapSessionDataStore(DataStore delegate, OffHeapSessionTable table, String lotId) {
+        this(delegate, table, lotId, null);
+    }
+
+    public OffHeapSessionDataStore(DataStore delegate, OffHeapSessionTable table, String lotId, Path dbFile) {
+        super(delegate);
+        this.table = table;
+        this.lotId = lotId;
+        this.dbFile = dbFile;
+        long stamp = currentStamp();
+        if (stamp != 0 && table.getStamp() == stamp) {
+            complete = true;
+            System.out.println("Off-heap session table for lot " + lotId + " reused: " + table.size() + " sessions.");
+        } else {
+            reload();
+        }
+        table.setStamp(0); // only a clean close vouches for the contents
+        table.force();
+    }
+
+    // Refills the table from the database (startup, or after out-of-band changes)
+    public synchronized void reload() {
+        table.clear();
+        complete = true;
+        for (ParkingSession session : delegate.getAllActiveSessions()) track(session);
+        table.force();
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    // --- Reads ---
+    @Override
+    public synchronized List<ParkingSession> getAllActiveSessions() {
+        if (!complete) return delegate.getAllActiveSessions();
+        List<ParkingSession> sessions = table.toSessions();
+        for (ParkingSession s : sessions) s.setLotId(lotId);
+        return sessions;
+    }
+
+    @Override
+    public synchronized ParkingSession getOpenSessionByPlate(String plate) {
+        if (!complete) return delegate.getOpenSessionByPlate(plate);
+        ParkingSession session = table.getByPlate(plate);
+        if (session != null) session.setLotId(lotId);
+        return session;
+    }
+
+    // --- Writes ---
+    @Override
+    public synchronized void createSession(ParkingSession session) {
+        delegate.createSession(session);
+        track(session);
+    }
+
+    @Override
+    public synchronized boolean createSessionBatch(List<ParkingSession> sessions) {
+        if (!delegate.createSessionBatch(sessions)) return false;
+        for (ParkingSession session : sessions) track(session);
+        return true;
+    }
+
+    @Override
+    public synchronized void closeSession(String ticketNo, String exitTimeISO, int durationHours, double parkingFee) {
+        delegate.closeSession(ticketNo, exitTimeISO, durationHours, parkingFee);
+        table.removeByTicket(ticketNo);
+    }
+
+    @Override
+    public synchronized boolean recordExitBatch(List<ExitResult> exits) {
+        if (!delegate.recordExitBatch(exits)) return false;
+        for (ExitResult exit : exits) {
+            if (exit.isSuccess() && exit.getSession() != null) table.removeByTicket(exit.getSession().getTicketNo());
+        }
+        return true;
+    }
+
+    // Writes inside the transaction have already updated the table; a rollback undoes only the database
+    @Override
+    public boolean runInTransaction(Runnable work) {
+        boolean committed = delegate.runInTransaction(work);
+        if (!committed) reload();
+        return committed;
+    }
+
+    // A complete table is stamped so the next start can reuse it instead of reloading.
+    // Decorators in front have finished their close-time writes by now.
+    @Override
+    public synchronized void close() {
+        if (complete) {
+            table.setStamp(currentStamp());
+            table.force();
+        }
+        delegate.close();
+    }
+
+    // Stamp for the database as it is now; 0 if it has no change counter
+    private long currentStamp() {
+        if (dbFile == null) return 0;
+        int counter = LotSnapshot.readChangeCounter(dbFile);
+        return counter < 0 ? 0 : CLEAN | (counter & 0xFFFF_FFFFL);
+    }
+
+    private void track(ParkingSession session) {
+        try {
+            if (!table.put(session) && !table.containsTicket(session.getTicketNo())) complete = false;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Session " + session.getTicketNo() + " kept in the database only: " + e.getMessage());
+            complete = false;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import model.ParkingSession;
+import model.PlateCodec;
+import model.Vehicle;
+
+/**
+ * Active sessions as fixed 128-byte records outside the Java heap, for lots with tens of
+ * thousands of parked cars.
+ *
+ * Records live in one direct ByteBuffer, or in a memory-mapped file so the table survives a
+ * restart. Two open-addressing indexes (linear probing, backward-shift delete, so no
+ * tombstones) map a plate code and a ticket number to a record slot; they and the free-slot
+ * stack are int arrays sized once at creation. Adding and removing sessions therefore
+ * allocates nothing: strings are copied into the record char by char and compared in place.
+ * ParkingSession objects are only built when a caller reads a session.
+ *
+ * Header: 0 magic, 4 version, 8 capacity, 12 record size, 16 stamp (see getStamp).
+ * Record layout (text fields are ASCII, length in the header bytes):
+ *   0 state  1 flags (hc card, vip)  2-7 lengths of plate, ticket, spot, type, scheme, entry
+ *   8 plate code   16 plate[16]   32 ticket[24]   56 spot[16]   72 type[12]
+ *   84 entry time[20]   104 fine scheme[24]
+ * Not thread-safe on its own; callers synchronize (OffHeapSessionDataStore does).
+ */
+public class OffHeapSessionTable {
+
+    public static final int RECORD_SIZE = 128;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x504B5354; // "PKST"
+    private static final int VERSION = 1;
+    private static final int STAMP_OFFSET = 16;
+
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+    private static final byte HC_CARD = 1, VIP = 2;
+
+    // field offsets and capacities
+    private static final int PLATE_CODE = 8;
+    private static final int[] TEXT_OFFSET = {16, 32, 56, 72, 104, 84}; // plate, ticket, spot, type, scheme, entry
+    private static final int[] TEXT_MAX = {16, 24, 16, 12, 24, 20};
+    private static final int PLATE = 0, TICKET = 1, SPOT = 2, TYPE = 3, SCHEME = 4, ENTRY = 5;
+
+    private final ByteBuffer buf;
+    private final int capacity;
+    private final int[] plateIndex;   // slot + 1, 0 = empty
+    private final int[] ticketIndex;
+    private final int mask;
+    private final int[] freeSlots;
+    private int freeTop;
+    private int size;
+
+    private OffHeapSessionTable(ByteBuffer buf, int capacity) {
+        this.buf = buf;
+        this.capacity = capacity;
+        int indexSize = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) << 1; // power of two >= 2 x capacity
+        this.plateIndex = new int[indexSize];
+        this.ticketIndex = new int[indexSize];
+        this.mask = indexSize - 1;
+        this.freeSlots = new int[capacity];
+    }
+
+    // Table in a direct buffer (lost on exit)
+    public static OffHeapSessionTable allocate(int capacity) {
+        ByteBuffer buf = ByteBuffer.allocateDirect(HEADER_SIZE + capacity * RECORD_SIZE);
+        OffHeapSessionTable table = new OffHeapSessionTable(buf, capacity);
+        table.format();
+        return table;
+    }
+
+    /**
+     * Table in a memory-mapped file. An existing file of the same capacity is reopened with its
+     * sessions (indexes are rebuilt); otherwise the file is (re)created empty.
+     */
+    public static OffHeapSessionTable map(Path file, int capacity) throws IOException {
+        long bytes = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean reuse = ch.size() == bytes;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            OffHeapSessionTable table = new OffHeapSessionTable(map, capacity);
+            if (reuse && map.getInt(0) == MAGIC && map.getInt(4) == VERSION && map.getInt(8) == capacity) {
+                table.rebuildIndexes();
+            } else {
+                table.format();
+            }
+            return table;
+        }
+    }
+
+    private void format() {
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, VERSION);
+        buf.putInt(8, capacity);
+        buf.putInt(12, RECORD_SIZE);
+        buf.putLong(STAMP_OFFSET, 0);
+        clear();
+    }
+
+    // Owner-defined tag of the contents (0 for a new table), e.g. to tell whether a reopened
+    // file still matches the database it was filled from
+    public long getStamp() {
+        return buf.getLong(STAMP_OFFSET);
+    }
+
+    public void setStamp(long stamp) {
+        buf.putLong(STAMP_OFFSET, stamp);
+    }
+
+    // ===============================
+    //  WRITES (no allocation)
+    // ===============================
+
+    /**
+     * Stores an active session.
+     * @return false if the table is full, the ticket is already present or the plate already has a session
+     * @throws IllegalArgumentException if a field is too long or not ASCII
+     */
+    public boolean put(ParkingSession session) {
+        String plate = session.getPlate();
+        long plateCode = PlateCodec.encode(plate);
+        if (freeTop == 0 || findPlate(plateCode) >= 0 || findTicket(session.getTicketNo()) >= 0) return false;
+
+        int slot = freeSlots[freeTop - 1];
+        int base = recordOffset(slot);
+        Vehicle v = session.getVehicle();
+        writeText(base, PLATE, plate);
+        writeText(base, TICKET, session.getTicketNo());
+        writeText(base, SPOT, session.getSpotId());
+        writeText(base, TYPE, v.getType());
+        writeText(base, SCHEME, session.getFineScheme());
+        writeText(base, ENTRY, session.getEntryTime());
+        buf.putLong(base + PLATE_CODE, plateCode);
+        buf.put(base + 1, (byte) ((v.hasHcCard() ? HC_CARD : 0) | (v.isVIP() ? VIP : 0)));
+        buf.put(base, LIVE);
+
+        freeTop--;
+        insert(plateIndex, PlateCodec.hash(plateCode), slot);
+        insert(ticketIndex, ticketHash(session.getTicketNo()), slot);
+        size++;
+        return true;
+    }
+
+    // Removes the session with this ticket; false if it is not in the table
+    public boolean removeByTicket(String ticketNo) {
+        int slot = findTicket(ticketNo);
+        if (slot < 0) return false;
+        int base = recordOffset(slot);
+        long plateCode = buf.getLong(base + PLATE_CODE);
+
+        delete(plateIndex, PlateCodec.hash(plateCode), slot, true);
+        delete(ticketIndex, ticketHashAt(slot), slot, false);
+        buf.put(base, FREE);
+        freeSlots[freeTop++] = slot;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < capacity; slot++) buf.put(recordOffset(slot), FREE);
+        java.util.Arrays.fill(plateIndex, 0);
+        java.util.Arrays.fill(ticketIndex, 0);
+        freeTop = 0;
+        for (int slot = capacity - 1; slot >= 0; slot--) freeSlots[freeTop++] = slot;
+        size = 0;
+    }
+
+    // Flushes a mapped table to disk (no-op for a direct buffer)
+    public void force() {
+        if (buf instanceof MappedByteBuffer) ((MappedByteBuffer) buf).force();
+    }
+
+    // ===============================
+    //  READS
+    // ===============================
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean containsPlate(String plate) {
+        return findPlate(PlateCodec.lookup(plate)) >= 0;
+    }
+
+    public boolean containsTicket(String ticketNo) {
+        return findTicket(ticketNo) >= 0;
+    }
+
+    public ParkingSession getByPlate(String plate) {
+        int slot = findPlate(PlateCodec.lookup(plate));
+        return slot < 0 ? null : materialize(slot);
+    }
+
+    public ParkingSession getByTicket(String ticketNo) {
+        int slot = findTicket(ticketNo);
+        return slot < 0 ? null : materialize(slot);
+    }
+
+    // Spot of the plate's session without building the session; null if none
+    public String spotOf(String plate) {
+        int slot = findPlate(PlateCodec.lookup(plate));
+        return slot < 0 ? null : readText(recordOffset(slot), SPOT);
+    }
+
+    // Builds ParkingSession objects for every live record, in slot order
+    public List<ParkingSession> toSessions() {
+        List<ParkingSession> sessions = new ArrayList<>(size);
+        for (int slot = 0; slot < capacity; slot++) {
+            if (buf.get(recordOffset(slot)) == LIVE) sessions.add(materialize(slot));
+        }
+        return sessions;
+    }
+
+    private ParkingSession materialize(int slot) {
+        int base = recordOffset(slot);
+        byte flags = buf.get(base + 1);
+        Vehicle vehicle = new Vehicle(readText(base, PLATE), readText(base, TYPE),
+                (flags & HC_CARD) != 0, (flags & VIP) != 0);
+        return new ParkingSession(readText(base, TICKET), vehicle, readText(base, SPOT),
+                readText(base, ENTRY), readText(base, SCHEME));
+    }
+
+    // ===============================
+    //  INDEXES
+    // ===============================
+
+    private int findPlate(long plateCode) {
+        for (int i = (int) PlateCodec.hash(plateCode) & mask; plateIndex[i] != 0; i = (i + 1) & mask) {
+            int slot = plateIndex[i] - 1;
+            if (buf.getLong(recordOffset(slot) + PLATE_CODE) == plateCode) return slot;
+        }
+        return -1;
+    }
+
+    private int findTicket(String ticketNo) {
+        if (ticketNo == null) return -1;
+        for (int i = (int) ticketHash(ticketNo) & mask; ticketIndex[i] != 0; i = (i + 1) & mask) {
+            int slot = ticketIndex[i] - 1;
+            if (textEquals(recordOffset(slot), TICKET, ticketNo)) return slot;
+        }
+        return -1;
+    }
+
+    private void insert(int[] index, long hash, int slot) {
+        int i = (int) hash & mask;
+        while (index[i] != 0) i = (i + 1) & mask;
+        index[i] = slot + 1;
+    }
+
+    // Linear-probing delete: later entries of the cluster are shifted back into the hole
+    private void delete(int[] index, long hash, int slot, boolean byPlate) {
+        int i = (int) hash & mask;
+        while (index[i] != slot + 1) i = (i + 1) & mask;
+        int hole = i;
+        for (int j = (hole + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int s = index[j] - 1;
+            long h = byPlate ? PlateCodec.hash(buf.getLong(recordOffset(s) + PLATE_CODE)) : ticketHashAt(s);
+            int home = (int) h & mask;
+            // move j into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!stays) {
+                index[hole] = index[j];
+                hole = j;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    // After reopening a mapped file: recompute plate codes (interned codes are per process) and indexes
+    private void rebuildIndexes() {
+        java.util.Arrays.fill(plateIndex, 0);
+        java.util.Arrays.fill(ticketIndex, 0);
+        freeTop = 0;
+        size = 0;
+        for (int slot = capacity - 1; slot >= 0; slot--) {
+            int base = recordOffset(slot);
+            if (buf.get(base) != LIVE) {
+                freeSlots[freeTop++] = slot;
+                continue;
+            }
+            long plateCode = PlateCodec.encode(readText(base, PLATE));
+            buf.putLong(base + PLATE_CODE, plateCode);
+            insert(plateIndex, PlateCodec.hash(plateCode), slot);
+            insert(ticketIndex, ticketHashAt(slot), slot);
+            size++;
+        }
+    }
+
+    // ===============================
+    //  HELPERS
+    // ===============================
+
+    private int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private void writeText(int base, int field, String text) {
+        if (text == null) text = "";
+        int len = text.length();
+        if (len > TEXT_MAX[field]) {
+            throw new IllegalArgumentException("Session field too long for the off-heap table: " + text);
+        }
+        int at = base + TEXT_OFFSET[field];
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (c > 127) throw new IllegalArgumentException("Non-ASCII session field: " + text);
+            buf.put(at + i, (byte) c);
+        }
+        buf.put(base + 2 + field, (byte) len);
+    }
+
+    private String readText(int base, int field) {
+        int len = buf.get(base + 2 + field);
+        int at = base + TEXT_OFFSET[field];
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) chars[i] = (char) buf.get(at + i);
+        return new String(chars);
+    }
+
+    private boolean textEquals(int base, int field, String text) {
+        int len = buf.get(base + 2 + field);
+        if (len != text.length()) return false;
+        int at = base + TEXT_OFFSET[field];
+        for (int i = 0; i < len; i++) {
+            if (buf.get(at + i) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static long ticketHash(String ticketNo) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < ticketNo.length(); i++) {
+            h ^= ticketNo.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return PlateCodec.hash(h);
+    }
+
+    // Same hash as ticketHash, read straight from a record
+    private long ticketHashAt(int slot) {
+        int base = recordOffset(slot);
+        int len = buf.get(base + 2 + TICKET);
+        int at = base + TEXT_OFFSET[TICKET];
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < len; i++) {
+            h ^= buf.get(at + i) & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return PlateCodec.hash(h);
+    }
+}
@@ -0,0 +1,296 @@
+package data;
+
+import enums.PaymentMethod;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import model.PaymentRecord;
+
+/**
+ * Append-only log of payments in fixed 128-byte binary records, spread over memory-mapped
+ * segment files ("segment-000000.dat", 65,536 records each) in one directory per lot.
+ *
+ * Appending is a handful of buffer writes plus a CRC32 of the record, with no SQL, no
+ * date formatting and no allocation beyond the CRC bookkeeping. Every record carries its
+ * own CRC, so after a crash the log ends at the first record that does not check out.
+ * Reading a ticket's payments uses a sparse index: each block of 32 records keeps a
+ * 256-bit filter of its tickets, and only blocks whose filter matches are decoded.
+ * Revenue sums walk the mapped segments directly.
+ *
+ * Record: 0 sequence, 8 paid time (epoch seconds), 16 duration hours, 20 method,
+ * 21 flags, 22 ticket length, 23 plate length, 24 parking fee, 32 fine paid,
+ * 40 amount paid, 48 ticket[32], 80 plate[24], 124 CRC32 of bytes 0-123.
+ */
+public class PaymentLedger {
+
+    public static final int RECORD_SIZE = 128;
+    public static final int RECORDS_PER_SEGMENT = 65_536;
+    public static final byte FLAG_IN_DATABASE = 1; // written to SQLite by the caller, not by the feed
+
+    private static final int BLOCK = 32;                   // records per sparse-index block
+    private static final int FILTER_LONGS = 4;             // 256-bit filter per block
+    private static final int CRC_OFFSET = 124;
+    private static final int TICKET_OFFSET = 48, TICKET_MAX = 32;
+    private static final int PLATE_OFFSET = 80, PLATE_MAX = 24;
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+
+    private final Path dir;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private long[] blockFilters = new long[FILTER_LONGS * 64];
+    private long count;   // records in the log; the next record's sequence
+    private long durable; // records known to be on disk (the rest may only be in the page cache)
+
+    public PaymentLedger(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        openSegments();
+    }
+
+    // ===============================
+    //  APPEND
+    // ===============================
+
+    // Appends a payment and returns its sequence number
+    public synchronized long append(PaymentRecord p, byte flags) throws IOException {
+        String ticket = p.getTicketNo();
+        String plate = p.getPlate();
+        if (ticket.length() > TICKET_MAX || plate.length() > PLATE_MAX) {
+            throw new IllegalArgumentException("Ticket or plate too long for the ledger: " + ticket + " / " + plate);
+        }
+
+        long seq = count;
+        MappedByteBuffer seg = segmentFor(seq);
+        int at = (int) (seq % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        seg.putLong(at, seq);
+        seg.putLong(at + 8, p.getPaidTime().toEpochSecond(ZoneOffset.UTC));
+        seg.putInt(at + 16, p.getDurationHours());
+        seg.put(at + 20, (byte) p.getMethod().ordinal());
+        seg.put(at + 21, flags);
+        seg.put(at + 22, (byte) ticket.length());
+        seg.put(at + 23, (byte) plate.length());
+        seg.putDouble(at + 24, p.getParkingFee());
+        seg.putDouble(at + 32, p.getFinePaid());
+        seg.putDouble(at + 40, p.getAmountPaid());
+        putAscii(seg, at + TICKET_OFFSET, ticket);
+        putAscii(seg, at + PLATE_OFFSET, plate);
+        seg.putInt(at + CRC_OFFSET, checksum(seg, at));
+
+        indexTicket(seq, ticketHash(ticket));
+        count = seq + 1;
+        return seq;
+    }
+
+    // Flushes written records to disk
+    public synchronized void force() {
+        forceThrough(count - 1);
+    }
+
+    // Flushes every record up to and including seq, writing only the pages appended since
+    // the last flush (one flush also covers records other threads appended meanwhile)
+    public synchronized void forceThrough(long seq) {
+        if (seq < durable) return;
+        long end = count;
+        for (long s = durable; s < end; ) {
+            int index = (int) (s / RECORDS_PER_SEGMENT);
+            long segmentEnd = Math.min(end, (long) (index + 1) * RECORDS_PER_SEGMENT);
+            int at = (int) (s % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            segments.get(index).force(at, (int) (segmentEnd - s) * RECORD_SIZE);
+            s = segmentEnd;
+        }
+        durable = end;
+    }
+
+    // ===============================
+    //  READ
+    // ===============================
+
+    public synchronized long size() {
+        return count;
+    }
+
+    public synchronized List<PaymentRecord> findByTicket(String ticketNo) {
+        List<PaymentRecord> result = new ArrayList<>();
+        long h = ticketHash(ticketNo);
+        long blocks = (count + BLOCK - 1) / BLOCK;
+        for (long b = 0; b < blocks; b++) {
+            if (!filterMatches(b, h)) continue;
+            long end = Math.min(count, (b + 1) * BLOCK);
+            for (long seq = b * BLOCK; seq < end; seq++) {
+                MappedByteBuffer seg = segments.get((int) (seq / RECORDS_PER_SEGMENT));
+                int at = (int) (seq % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+                if (asciiEquals(seg, at + TICKET_OFFSET, seg.get(at + 22), ticketNo)) result.add(decode(seg, at));
+            }
+        }
+        return result;
+    }
+
+    // Sum of amount paid for payments with paid time in [from, to); nulls = unbounded
+    public synchronized double sumAmountPaid(LocalDateTime from, LocalDateTime to) {
+        long lo = from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC);
+        long hi = to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+        double sum = 0;
+        for (long seq = 0; seq < count; seq++) {
+            MappedByteBuffer seg = segments.get((int) (seq / RECORDS_PER_SEGMENT));
+            int at = (int) (seq % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            long paid = seg.getLong(at + 8);
+            if (paid >= lo && paid < hi) sum += seg.getDouble(at + 40);
+        }
+        return sum;
+    }
+
+    // Replays up to max records from the given sequence on (used to feed SQLite)
+    public synchronized void forEachFrom(long fromSeq, int max, Consumer<Entry> action) {
+        long end = Math.min(count, Math.max(0, fromSeq) + max);
+        for (long seq = Math.max(0, fromSeq); seq < end; seq++) {
+            MappedByteBuffer seg = segments.get((int) (seq / RECORDS_PER_SEGMENT));
+            int at = (int) (seq % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            action.accept(new Entry(seq, seg.get(at + 21), decode(seg, at)));
+        }
+    }
+
+    // A decoded record with its position in the log
+    public static final class Entry {
+        private final long sequence;
+        private final byte flags;
+        private final PaymentRecord payment;
+
+        Entry(long sequence, byte flags, PaymentRecord payment) {
+            this.sequence = sequence;
+            this.flags = flags;
+            this.payment = payment;
+        }
+
+        public long getSequence() { return sequence; }
+        public boolean isInDatabase() { return (flags & FLAG_IN_DATABASE) != 0; }
+        public PaymentRecord getPayment() { return payment; }
+    }
+
+    // ===============================
+    //  SEGMENTS
+    // ===============================
+
+    private MappedByteBuffer segmentFor(long seq) throws IOException {
+        int index = (int) (seq / RECORDS_PER_SEGMENT);
+        while (segments.size() <= index) segments.add(mapSegment(segments.size()));
+        return segments.get(index);
+    }
+
+    private MappedByteBuffer mapSegment(int index) throws IOException {
+        Path file = dir.resolve(String.format("segment-%06d.dat", index));
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) RECORDS_PER_SEGMENT * RECORD_SIZE);
+        }
+    }
+
+    // Maps the existing segments and finds the end of the log (first record failing its CRC)
+    private void openSegments() throws IOException {
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "segment-*.dat")) {
+            for (Path f : stream) {
+                String name = f.getFileName().toString();
+                files.put(Integer.parseInt(name.substring(8, name.length() - 4)), f);
+            }
+        }
+        for (int index = 0; files.containsKey(index); index++) {
+            segments.add(mapSegment(index));
+        }
+        count = 0;
+        scan:
+        for (MappedByteBuffer seg : segments) {
+            for (int r = 0; r < RECORDS_PER_SEGMENT; r++) {
+                int at = r * RECORD_SIZE;
+                if (seg.getLong(at) != count || seg.getInt(at + CRC_OFFSET) != checksum(seg, at)) break scan;
+                indexTicket(count, ticketHash(readAscii(seg, at + TICKET_OFFSET, seg.get(at + 22))));
+                count++;
+            }
+        }
+        durable = count;
+        if (count > 0) System.out.println("Payment ledger " + dir + ": " + count + " records.");
+    }
+
+    // ===============================
+    //  HELPERS
+    // ===============================
+
+    // CRC32 of bytes 0-123 of a record (position/limit are free: all other access is absolute)
+    private int checksum(MappedByteBuffer seg, int at) {
+        crc.reset();
+        seg.limit(seg.capacity()).position(at);
+        seg.limit(at + CRC_OFFSET);
+        crc.update(seg);
+        seg.limit(seg.capacity());
+        return (int) crc.getValue();
+    }
+
+    private PaymentRecord decode(MappedByteBuffer seg, int at) {
+        return new PaymentRecord(
+                readAscii(seg, at + TICKET_OFFSET, seg.get(at + 22)),
+                readAscii(seg, at + PLATE_OFFSET, seg.get(at + 23)),
+                METHODS[seg.get(at + 20)],
+                LocalDateTime.ofEpochSecond(seg.getLong(at + 8), 0, ZoneOffset.UTC),
+                seg.getInt(at + 16),
+                seg.getDouble(at + 24),
+                seg.getDouble(at + 32),
+                seg.getDouble(at + 40));
+    }
+
+    private void indexTicket(long seq, long h) {
+        int base = (int) (seq / BLOCK) * FILTER_LONGS;
+        if (base + FILTER_LONGS > blockFilters.length) blockFilters = Arrays.copyOf(blockFilters, blockFilters.length * 2);
+        int b1 = (int) (h & 0xFF), b2 = (int) ((h >>> 8) & 0xFF);
+        blockFilters[base + (b1 >>> 6)] |= 1L << (b1 & 63);
+        blockFilters[base + (b2 >>> 6)] |= 1L << (b2 & 63);
+    }
+
+    private boolean filterMatches(long block, long h) {
+        int base = (int) block * FILTER_LONGS;
+        int b1 = (int) (h & 0xFF), b2 = (int) ((h >>> 8) & 0xFF);
+        return (blockFilters[base + (b1 >>> 6)] & (1L << (b1 & 63))) != 0
+                && (blockFilters[base + (b2 >>> 6)] & (1L << (b2 & 63))) != 0;
+    }
+
+    private static long ticketHash(String ticketNo) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < ticketNo.length(); i++) {
+            h ^= ticketNo.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void putAscii(MappedByteBuffer seg, int at, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            seg.put(at + i, (byte) (c < 128 ? c : '?'));
+        }
+    }
+
+    private static String readAscii(MappedByteBuffer seg, int at, int len) {
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) chars[i] = (char) seg.get(at + i);
+        return new String(chars);
+    }
+
+    private static boolean asciiEquals(MappedByteBuffer seg, int at, int len, String s) {
+        if (len != s.length()) return false;
+        for (int i = 0; i < len; i++) if (seg.get(at + i) != s.charAt(i)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package data;
+
+import model.PlateCodec;
+
+/**
+ * Counting Bloom filter over plates that have outstanding fines.
+ *
+ * "No" answers are exact: if mightOwe() is false the plate has no unpaid fine, so the
+ * fine table does not need to be queried. "Yes" answers are right except for a small
+ * false-positive rate (about 1% at the configured capacity). Counters (instead of single
+ * bits) let settled fines be removed again without rebuilding the filter.
+ */
+public class PlateFineFilter {
+
+    private static final int DEFAULT_CAPACITY = 100_000;
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    private static final int SATURATED = 0xFF;  // a saturated counter is never decremented
+
+    private final byte[] counters;
+    private final int hashCount;
+
+    public PlateFineFilter() {
+        this(DEFAULT_CAPACITY, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    public PlateFineFilter(int expectedPlates, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        int size = (int) Math.ceil(-expectedPlates * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.counters = new byte[Math.max(64, size)];
+        this.hashCount = Math.max(1, (int) Math.round((double) counters.length / expectedPlates * ln2));
+    }
+
+    // Records one outstanding fine for the plate
+    public synchronized void add(String plate) {
+        long h = hash(plate);
+        for (int i = 0; i < hashCount; i++) {
+            int idx = index(h, i);
+            int c = counters[idx] & 0xFF;
+            if (c < SATURATED) counters[idx] = (byte) (c + 1);
+        }
+    }
+
+    // Removes one outstanding fine for the plate (call once per settled fine)
+    public synchronized void remove(String plate) {
+        long h = hash(plate);
+        for (int i = 0; i < hashCount; i++) {
+            int idx = index(h, i);
+            int c = counters[idx] & 0xFF;
+            if (c > 0 && c < SATURATED) counters[idx] = (byte) (c - 1);
+        }
+    }
+
+    // false = plate definitely has no unpaid fines
+    public synchronized boolean mightOwe(String plate) {
+        long h = hash(plate);
+        for (int i = 0; i < hashCount; i++) {
+            if (counters[index(h, i)] == 0) return false;
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        java.util.Arrays.fill(counters, (byte) 0);
+    }
+
+    // Double hashing: the i-th probe is h1 + i * h2
+    private int index(long h, int i) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        return Math.floorMod(h1 + i * h2, counters.length);
+    }
+
+    // Packed plate code (see PlateCodec) through a murmur finalizer; never interns the plate
+    private static long hash(String plate) {
+        return PlateCodec.hash(plate);
+    }
+}
@@ -2,9 +2,12 @@ package data;
 
 import enums.FineReason;
 import enums.PaymentMethod;
+import enums.ReservationStatus;
 import enums.SpotStatus;
 import enums.SpotType;
 import java.sql.*;
+import java.time.Clock;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,18 +15,58 @@ import model.FineRecord;
 import model.ParkingSession;
 import model.ParkingSpot;
 import model.PaymentRecord;
+import model.PlateCodec;
+import model.Reservation;
 import model.Vehicle;
 
 public class SQLiteDataStore implements DataStore {
 
-    private static final String DB_URL = "jdbc:sqlite:parking.db";
+    private static final String DEFAULT_DB_FILE = "parking.db";
+    private static final String PLATE_FORMAT_KEY = "plate_format";
+    private static final String PLATE_FORMAT_VERSION = "1";
+
+    private final String lotId;   // site this store belongs to (stamped on loaded records)
+    private final String dbFile;  // one database file per lot, so sites never share a writer lock
+    private final Clock clock;    // stamps paid_at; a virtual clock makes simulations repeatable
     private Connection conn;
+    private boolean inTransaction; // single writes report failure by throwing (see writeFailed)
+
+    public SQLiteDataStore() {
+        this(model.ParkingLot.DEFAULT_LOT_ID, DEFAULT_DB_FILE);
+    }
+
+    public SQLiteDataStore(String lotId, String dbFile) {
+        this(lotId, dbFile, Clock.systemDefaultZone());
+    }
+
+    public SQLiteDataStore(String lotId, String dbFile, Clock clock) {
+        this.lotId = lotId;
+        this.dbFile = dbFile;
+        this.clock = clock;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public String getDbFile() {
+        return dbFile;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    // Raw connection for jobs that work across attached databases (ArchiveManager)
+    Connection getConnection() {
+        return conn;
+    }
 
     @Override
     public void connect() {
         try {
-            this.conn = DriverManager.getConnection(DB_URL);
-            if (this.conn != null) System.out.println("Connected to parking.db");
+            this.conn = DriverManager.getConnection(jdbcUrl());
+            if (this.conn != null) System.out.println("Connected to " + dbFile + " (lot " + lotId + ")");
         } catch (SQLException e) {
             System.err.println("Connection failed: " + e.getMessage());
         }
@@ -34,9 +77,28 @@ public class SQLiteDataStore implements DataStore {
         try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
     }
 
-    @Override
-    public void initSchema() {
-        String[] tables = {
+    // ===============================
+    //  DIALECT HOOKS (overridden by other JDBC engines, see H2DataStore)
+    // ===============================
+
+    protected String jdbcUrl() {
+        return "jdbc:sqlite:" + dbFile;
+    }
+
+    // Insert-or-update of one row by its key column; parameters are the columns in order
+    protected String upsertSql(String table, String key, String... columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", columns)).append(") VALUES (")
+                .append("?, ".repeat(columns.length - 1)).append("?) ON CONFLICT(").append(key).append(") DO UPDATE SET ");
+        for (int i = 0, n = 0; i < columns.length; i++) {
+            if (columns[i].equals(key)) continue;
+            sql.append(n++ == 0 ? "" : ", ").append(columns[i]).append(" = excluded.").append(columns[i]);
+        }
+        return sql.append(';').toString();
+    }
+
+    protected String[] schemaStatements() {
+        return new String[] {
             """
             CREATE TABLE IF NOT EXISTS users (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -68,6 +130,7 @@ public class SQLiteDataStore implements DataStore {
                 exit_time TEXT,
                 duration_hours INTEGER,
                 parking_fee REAL,
+                fine_scheme TEXT,
                 FOREIGN KEY (spot_id) REFERENCES parking_spot(spot_id)
             );
             """,
@@ -102,25 +165,77 @@ public class SQLiteDataStore implements DataStore {
                 value VARCHAR(100)
             );
             """,
+            """
+            CREATE TABLE IF NOT EXISTS revenue_rollup (
+                month TEXT PRIMARY KEY,
+                amount_paid REAL NOT NULL,
+                payments INTEGER NOT NULL
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS reservation (
+                reservation_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                spot_id TEXT NOT NULL,
+                plate TEXT NOT NULL,
+                start_time TEXT NOT NULL,
+                end_time TEXT NOT NULL,
+                status TEXT NOT NULL,
+                FOREIGN KEY (spot_id) REFERENCES parking_spot(spot_id)
+            );
+            """,
         };
+    }
 
+    @Override
+    public void initSchema() {
         try (Statement stmt = conn.createStatement()) {
-            for (String sql : tables) stmt.execute(sql);
+            for (String sql : schemaStatements()) stmt.execute(sql);
             System.out.println("Database tables ready.");
         } catch (SQLException e) { e.printStackTrace(); }
+
+        migrateSessionScheme();
+        migratePlates();
+    }
+
+    // Files created before sessions stored their fine scheme get the column (NULL = scheme unknown)
+    private void migrateSessionScheme() {
+        try (Statement stmt = conn.createStatement()) {
+            try {
+                stmt.executeQuery("SELECT fine_scheme FROM parking_session WHERE 1 = 0;").close();
+            } catch (SQLException missing) {
+                stmt.execute("ALTER TABLE parking_session ADD COLUMN fine_scheme VARCHAR(32);");
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+    }
+
+    // One-off rewrite of every plate column into the PlateCodec canonical form
+    // (upper case, no spaces or dashes, O read as 0) so lookups never miss on spelling
+    private void migratePlates() {
+        String done = getConfig(PLATE_FORMAT_KEY);
+        if (PLATE_FORMAT_VERSION.equals(done)) return;
+
+        String[][] columns = {
+            {"parking_session", "plate"}, {"parking_spot", "current_plate"},
+            {"fine", "plate"}, {"payment", "plate"}, {"reservation", "plate"},
+        };
+        boolean ok = runInTransaction(() -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String[] c : columns) {
+                    String canonical = "REPLACE(REPLACE(REPLACE(REPLACE(UPPER(" + c[1] + "), ' ', ''), '-', ''), char(9), ''), 'O', '0')";
+                    stmt.executeUpdate("UPDATE " + c[0] + " SET " + c[1] + " = " + canonical
+                            + " WHERE " + c[1] + " IS NOT NULL AND " + c[1] + " <> " + canonical + ";");
+                }
+                setConfig(PLATE_FORMAT_KEY, PLATE_FORMAT_VERSION);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        if (ok) System.out.println("Plate columns normalized.");
     }
 
     @Override
     public void setActiveFineScheme(String scheme) {
-        String sql = "INSERT INTO config(key, value) VALUES('active_fine_scheme', ?) " +
-                    "ON CONFLICT(key) DO UPDATE SET value = ?;";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, scheme);
-            stmt.setString(2, scheme);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        setConfig("active_fine_scheme", scheme);
     }
 
     @Override
@@ -135,40 +250,70 @@ public class SQLiteDataStore implements DataStore {
     }
 
 
+    @Override
+    public String getConfig(String key) {
+        String sql = "SELECT value FROM config WHERE key = ?;";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) return rs.getString("value");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public void setConfig(String key, String value) {
+        String sql = upsertSql("config", "key", "key", "value");
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.setString(2, value);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            writeFailed(e);
+        }
+    }
+
+
+    // Standard layout (3 floors, 2 rows per floor, 10 spots per row;
+    // 2 Compact, 6 Regular, 1 Handicapped, 1 Reserved per row), shared with InMemoryDataStore
+    static final String[][] DEFAULT_SPOT_LAYOUT = {
+        // Floor 1, Row 1
+        {"F1-R1-S1", "COMPACT"}, {"F1-R1-S2", "COMPACT"}, {"F1-R1-S3", "REGULAR"}, {"F1-R1-S4", "REGULAR"},
+        {"F1-R1-S5", "REGULAR"}, {"F1-R1-S6", "REGULAR"}, {"F1-R1-S7", "REGULAR"}, {"F1-R1-S8", "REGULAR"},
+        {"F1-R1-S9", "HANDICAPPED"}, {"F1-R1-S10", "RESERVED"},
+        // Floor 1, Row 2
+        {"F1-R2-S1", "COMPACT"}, {"F1-R2-S2", "COMPACT"}, {"F1-R2-S3", "REGULAR"}, {"F1-R2-S4", "REGULAR"},
+        {"F1-R2-S5", "REGULAR"}, {"F1-R2-S6", "REGULAR"}, {"F1-R2-S7", "REGULAR"}, {"F1-R2-S8", "REGULAR"},
+        {"F1-R2-S9", "HANDICAPPED"}, {"F1-R2-S10", "RESERVED"},
+        // Floor 2, Row 1
+        {"F2-R1-S1", "COMPACT"}, {"F2-R1-S2", "COMPACT"}, {"F2-R1-S3", "REGULAR"}, {"F2-R1-S4", "REGULAR"},
+        {"F2-R1-S5", "REGULAR"}, {"F2-R1-S6", "REGULAR"}, {"F2-R1-S7", "REGULAR"}, {"F2-R1-S8", "REGULAR"},
+        {"F2-R1-S9", "HANDICAPPED"}, {"F2-R1-S10", "RESERVED"},
+        // Floor 2, Row 2
+        {"F2-R2-S1", "COMPACT"}, {"F2-R2-S2", "COMPACT"}, {"F2-R2-S3", "REGULAR"}, {"F2-R2-S4", "REGULAR"},
+        {"F2-R2-S5", "REGULAR"}, {"F2-R2-S6", "REGULAR"}, {"F2-R2-S7", "REGULAR"}, {"F2-R2-S8", "REGULAR"},
+        {"F2-R2-S9", "HANDICAPPED"}, {"F2-R2-S10", "RESERVED"},
+        // Floor 3, Row 1
+        {"F3-R1-S1", "COMPACT"}, {"F3-R1-S2", "COMPACT"}, {"F3-R1-S3", "REGULAR"}, {"F3-R1-S4", "REGULAR"},
+        {"F3-R1-S5", "REGULAR"}, {"F3-R1-S6", "REGULAR"}, {"F3-R1-S7", "REGULAR"}, {"F3-R1-S8", "REGULAR"},
+        {"F3-R1-S9", "HANDICAPPED"}, {"F3-R1-S10", "RESERVED"},
+        // Floor 3, Row 2
+        {"F3-R2-S1", "COMPACT"}, {"F3-R2-S2", "COMPACT"}, {"F3-R2-S3", "REGULAR"}, {"F3-R2-S4", "REGULAR"},
+        {"F3-R2-S5", "REGULAR"}, {"F3-R2-S6", "REGULAR"}, {"F3-R2-S7", "REGULAR"}, {"F3-R2-S8", "REGULAR"},
+        {"F3-R2-S9", "HANDICAPPED"}, {"F3-R2-S10", "RESERVED"}
+    };
+
     // --- Spot Management ---
     /**
      * Initializes all parking spots if they don't exist yet.
      * Called once at app startup to ensure full parking lot is seeded.
      */
+    @Override
     public void initializeSpotsIfNeeded() {
-        // Define your full parking layout here (3 floors, 2 rows per floor, 10 spots per row)
-        // Spot distribution: 2 Compact, 6 Regular, 1 Handicapped, 1 Reserved per row
-        String[][] spotLayout = {
-            // Floor 1, Row 1
-            {"F1-R1-S1", "COMPACT"}, {"F1-R1-S2", "COMPACT"}, {"F1-R1-S3", "REGULAR"}, {"F1-R1-S4", "REGULAR"},
-            {"F1-R1-S5", "REGULAR"}, {"F1-R1-S6", "REGULAR"}, {"F1-R1-S7", "REGULAR"}, {"F1-R1-S8", "REGULAR"},
-            {"F1-R1-S9", "HANDICAPPED"}, {"F1-R1-S10", "RESERVED"},
-            // Floor 1, Row 2
-            {"F1-R2-S1", "COMPACT"}, {"F1-R2-S2", "COMPACT"}, {"F1-R2-S3", "REGULAR"}, {"F1-R2-S4", "REGULAR"},
-            {"F1-R2-S5", "REGULAR"}, {"F1-R2-S6", "REGULAR"}, {"F1-R2-S7", "REGULAR"}, {"F1-R2-S8", "REGULAR"},
-            {"F1-R2-S9", "HANDICAPPED"}, {"F1-R2-S10", "RESERVED"},
-            // Floor 2, Row 1
-            {"F2-R1-S1", "COMPACT"}, {"F2-R1-S2", "COMPACT"}, {"F2-R1-S3", "REGULAR"}, {"F2-R1-S4", "REGULAR"},
-            {"F2-R1-S5", "REGULAR"}, {"F2-R1-S6", "REGULAR"}, {"F2-R1-S7", "REGULAR"}, {"F2-R1-S8", "REGULAR"},
-            {"F2-R1-S9", "HANDICAPPED"}, {"F2-R1-S10", "RESERVED"},
-            // Floor 2, Row 2
-            {"F2-R2-S1", "COMPACT"}, {"F2-R2-S2", "COMPACT"}, {"F2-R2-S3", "REGULAR"}, {"F2-R2-S4", "REGULAR"},
-            {"F2-R2-S5", "REGULAR"}, {"F2-R2-S6", "REGULAR"}, {"F2-R2-S7", "REGULAR"}, {"F2-R2-S8", "REGULAR"},
-            {"F2-R2-S9", "HANDICAPPED"}, {"F2-R2-S10", "RESERVED"},
-            // Floor 3, Row 1
-            {"F3-R1-S1", "COMPACT"}, {"F3-R1-S2", "COMPACT"}, {"F3-R1-S3", "REGULAR"}, {"F3-R1-S4", "REGULAR"},
-            {"F3-R1-S5", "REGULAR"}, {"F3-R1-S6", "REGULAR"}, {"F3-R1-S7", "REGULAR"}, {"F3-R1-S8", "REGULAR"},
-            {"F3-R1-S9", "HANDICAPPED"}, {"F3-R1-S10", "RESERVED"},
-            // Floor 3, Row 2
-            {"F3-R2-S1", "COMPACT"}, {"F3-R2-S2", "COMPACT"}, {"F3-R2-S3", "REGULAR"}, {"F3-R2-S4", "REGULAR"},
-            {"F3-R2-S5", "REGULAR"}, {"F3-R2-S6", "REGULAR"}, {"F3-R2-S7", "REGULAR"}, {"F3-R2-S8", "REGULAR"},
-            {"F3-R2-S9", "HANDICAPPED"}, {"F3-R2-S10", "RESERVED"}
-        };
+        String[][] spotLayout = DEFAULT_SPOT_LAYOUT;
 
         int createdCount = 0;
         for (String[] spotData : spotLayout) {
@@ -209,6 +354,7 @@ public class SQLiteDataStore implements DataStore {
      * On startup: ensure all open sessions have their spots marked OCCUPIED.
      * Call this after seeding/initializing spots.
      */
+    @Override
     public void syncSpotStatusFromSessions() {
         List<ParkingSession> openSessions = getAllActiveSessions();
         int fixedCount = 0;
@@ -256,7 +402,7 @@ public class SQLiteDataStore implements DataStore {
 
     @Override
     public void upsertSpot(ParkingSpot spot) {
-        String sql = "INSERT OR REPLACE INTO parking_spot (spot_id, spot_type, status, hourly_rate, current_plate) VALUES (?, ?, ?, ?, ?);";
+        String sql = upsertSql("parking_spot", "spot_id", "spot_id", "spot_type", "status", "hourly_rate", "current_plate");
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, spot.getSpotId());
             stmt.setString(2, spot.getType().name());
@@ -264,7 +410,7 @@ public class SQLiteDataStore implements DataStore {
             stmt.setDouble(4, spot.getHourlyRate());
             stmt.setString(5, spot.getCurrentVehiclePlate());
             stmt.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { writeFailed(e); }
     }
 
     @Override
@@ -308,7 +454,7 @@ public class SQLiteDataStore implements DataStore {
             stmt.setString(1, plate);
             stmt.setString(2, spotId);
             stmt.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { writeFailed(e); }
     }
 
     @Override
@@ -317,31 +463,95 @@ public class SQLiteDataStore implements DataStore {
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, spotId);
             stmt.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { writeFailed(e); }
     }
 
     // --- Session Management ---
     // --- Create new session ---
     @Override
     public void createSession(ParkingSession session) {
-        String sql = "INSERT INTO parking_session (ticket_no, plate, spot_id, entry_time) VALUES (?, ?, ?, ?);";
+        String sql = "INSERT INTO parking_session (ticket_no, plate, spot_id, entry_time, fine_scheme) VALUES (?, ?, ?, ?, ?);";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, session.getTicketNo());
             stmt.setString(2, session.getPlate());         // plate from Vehicle
             stmt.setString(3, session.getSpotId());
             stmt.setString(4, session.getEntryTime());
+            stmt.setString(5, session.getFineScheme());
             stmt.executeUpdate();
+        } catch (SQLException e) {
+            writeFailed(e);
+        }
+    }
+
+    // --- Bulk entry ---
+    @Override
+    public boolean createSessionBatch(List<ParkingSession> sessions) {
+        String insertSql = "INSERT INTO parking_session (ticket_no, plate, spot_id, entry_time, fine_scheme) VALUES (?, ?, ?, ?, ?);";
+        String occupySql = "UPDATE parking_spot SET status = 'OCCUPIED', current_plate = ? WHERE spot_id = ? AND status = 'AVAILABLE';";
+        try {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(insertSql);
+                 PreparedStatement occupy = conn.prepareStatement(occupySql)) {
+                for (ParkingSession session : sessions) {
+                    insert.setString(1, session.getTicketNo());
+                    insert.setString(2, session.getPlate());
+                    insert.setString(3, session.getSpotId());
+                    insert.setString(4, session.getEntryTime());
+                    insert.setString(5, session.getFineScheme());
+                    insert.addBatch();
+
+                    occupy.setString(1, session.getPlate());
+                    occupy.setString(2, session.getSpotId());
+                    occupy.addBatch();
+                }
+                insert.executeBatch();
+                int[] occupied = occupy.executeBatch();
+                for (int i = 0; i < occupied.length; i++) {
+                    if (occupied[i] == 0) throw new SQLException("Spot " + sessions.get(i).getSpotId() + " is no longer available");
+                }
+            }
+            conn.commit();
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
+            try { conn.rollback(); } catch (SQLException ex) { ex.printStackTrace(); }
+            return false;
+        } finally {
+            try { conn.setAutoCommit(true); } catch (SQLException e) { e.printStackTrace(); }
         }
     }
 
+    // --- Multi-step writes ---
+    @Override
+    public boolean runInTransaction(Runnable work) {
+        try {
+            conn.setAutoCommit(false);
+            inTransaction = true;
+            work.run();
+            conn.commit();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+            try { conn.rollback(); } catch (SQLException ex) { ex.printStackTrace(); }
+            return false;
+        } finally {
+            inTransaction = false;
+            try { conn.setAutoCommit(true); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    // A failed single write is logged; inside runInTransaction it aborts the work so the whole transaction rolls back
+    private void writeFailed(SQLException e) {
+        if (inTransaction) throw new IllegalStateException(e);
+        e.printStackTrace();
+    }
+
 // --- Get open session by plate ---
     @Override
     public ParkingSession getOpenSessionByPlate(String plate) {
         String sql = "SELECT * FROM parking_session WHERE plate = ? AND exit_time IS NULL;";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, plate);
+            stmt.setString(1, PlateCodec.normalize(plate));
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     Vehicle vehicle = new Vehicle(
@@ -351,13 +561,15 @@ public class SQLiteDataStore implements DataStore {
                             false 
                     );
 
-                    return new ParkingSession(
+                    ParkingSession session = new ParkingSession(
                         rs.getString("ticket_no"),
                         vehicle,
                         rs.getString("spot_id"),
                         rs.getString("entry_time"),
-                        "Fixed Fine (RM 50)" // HARDCODE this or fetch from config
+                        rs.getString("fine_scheme") // null for sessions older than the column
                     );
+                    session.setLotId(lotId);
+                    return session;
                 }
             }
         } catch (SQLException e) {
@@ -381,13 +593,56 @@ public class SQLiteDataStore implements DataStore {
                         false
                 );
 
-                sessions.add(new ParkingSession(
+                ParkingSession session = new ParkingSession(
                         rs.getString("ticket_no"),
                         vehicle,
                         rs.getString("spot_id"),
                         rs.getString("entry_time"),
-                        "Fixed Fine (RM 50)" // Removed rs.getString("fine_scheme")
-                ));
+                        rs.getString("fine_scheme")
+                );
+                session.setLotId(lotId);
+                sessions.add(session);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return sessions;
+    }
+
+
+    // --- Session history (forecasting) ---
+    @Override
+    public List<ParkingSession> getSessionsEnteredSince(String entryTime) {
+        String sql = "SELECT * FROM parking_session WHERE entry_time >= ? ORDER BY entry_time;";
+        return querySessionHistory(sql, entryTime);
+    }
+
+    @Override
+    public List<ParkingSession> getSessionsExitedSince(String exitTime) {
+        // exit_time is written as "yyyy-MM-dd HH:mm:ss" or "yyyy-MM-dd'T'HH:mm", so compare on a normalized value
+        String sql = "SELECT * FROM parking_session WHERE exit_time IS NOT NULL " +
+                     "AND REPLACE(exit_time, 'T', ' ') >= ? ORDER BY REPLACE(exit_time, 'T', ' ');";
+        return querySessionHistory(sql, exitTime);
+    }
+
+    private List<ParkingSession> querySessionHistory(String sql, String since) {
+        List<ParkingSession> sessions = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, since);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Vehicle vehicle = new Vehicle(rs.getString("plate"), "UNKNOWN", false, false);
+                    ParkingSession session = new ParkingSession(
+                            rs.getString("ticket_no"),
+                            vehicle,
+                            rs.getString("spot_id"),
+                            rs.getString("entry_time"),
+                            null
+                    );
+                    session.setExitTime(rs.getString("exit_time"));
+                    session.setLotId(lotId);
+                    sessions.add(session);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -407,8 +662,96 @@ public class SQLiteDataStore implements DataStore {
             stmt.setString(4, ticketNo);
             stmt.executeUpdate();
             System.out.println("Session " + ticketNo + " closed successfully.");
+        } catch (SQLException e) {
+            writeFailed(e);
+        }
+    }
+
+
+    // --- Bulk exit ---
+    @Override
+    public boolean recordExitBatch(List<model.ExitResult> exits) {
+        String closeSql = "UPDATE parking_session SET exit_time = ?, duration_hours = ?, parking_fee = ? WHERE ticket_no = ? AND exit_time IS NULL;";
+        String releaseSql = "UPDATE parking_spot SET status = 'AVAILABLE', current_plate = NULL WHERE spot_id = ?;";
+        String fineSql = "INSERT INTO fine (plate, reason, amount, issued_at, paid, paid_at) VALUES (?, ?, ?, ?, ?, ?);";
+        String fineUpdateSql = "UPDATE fine SET amount = ?, paid = ?, paid_at = ? WHERE fine_id = ?;";
+        String paymentSql = """
+            INSERT INTO payment
+            (ticket_no, plate, method, paid_time, parking_fee, fine_paid, total_due, amount_paid, balance)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);
+        """;
+        DateTimeFormatter paidFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        try {
+            conn.setAutoCommit(false);
+            try (PreparedStatement close = conn.prepareStatement(closeSql);
+                 PreparedStatement release = conn.prepareStatement(releaseSql);
+                 PreparedStatement fineInsert = conn.prepareStatement(fineSql, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement fineUpdate = conn.prepareStatement(fineUpdateSql);
+                 PreparedStatement payment = conn.prepareStatement(paymentSql)) {
+
+                for (model.ExitResult exit : exits) {
+                    ParkingSession session = exit.getSession();
+
+                    close.setString(1, exit.getExitTimeStr());
+                    close.setInt(2, exit.getDurationHours());
+                    close.setDouble(3, exit.getParkingFee());
+                    close.setString(4, session.getTicketNo());
+                    close.addBatch();
+
+                    release.setString(1, session.getSpotId());
+                    release.addBatch();
+
+                    for (FineRecord fine : exit.getNewFines()) {
+                        fineInsert.setString(1, fine.getPlate());
+                        fineInsert.setString(2, fine.getReason().name());
+                        fineInsert.setDouble(3, fine.getAmount());
+                        fineInsert.setString(4, fine.getIssuedTime());
+                        fineInsert.setInt(5, fine.isPaid() ? 1 : 0);
+                        fineInsert.setString(6, fine.getPaidAt());
+                        fineInsert.executeUpdate(); // one by one: the fine gets its generated id
+                        fine.setId(generatedId(fineInsert));
+                    }
+
+                    for (FineRecord fine : exit.getUpdatedFines()) {
+                        fineUpdate.setDouble(1, fine.getAmount());
+                        fineUpdate.setInt(2, fine.isPaid() ? 1 : 0);
+                        fineUpdate.setString(3, fine.getPaidAt());
+                        fineUpdate.setInt(4, fine.getId());
+                        fineUpdate.addBatch();
+                    }
+
+                    PaymentRecord p = exit.getPayment();
+                    payment.setString(1, p.getTicketNo());
+                    payment.setString(2, p.getPlate());
+                    payment.setString(3, p.getMethod().name());
+                    payment.setString(4, p.getPaidTime().format(paidFormat));
+                    payment.setDouble(5, p.getParkingFee());
+                    payment.setDouble(6, p.getFinePaid());
+                    payment.setDouble(7, p.getTotalDue());
+                    payment.setDouble(8, p.getAmountPaid());
+                    payment.setDouble(9, p.getBalance());
+                    payment.addBatch();
+                }
+
+                int[] closed = close.executeBatch();
+                for (int i = 0; i < closed.length; i++) {
+                    if (closed[i] == 0) {
+                        throw new SQLException("Session " + exits.get(i).getSession().getTicketNo() + " was already closed");
+                    }
+                }
+                release.executeBatch();
+                fineUpdate.executeBatch();
+                payment.executeBatch();
+            }
+            conn.commit();
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
+            try { conn.rollback(); } catch (SQLException ex) { ex.printStackTrace(); }
+            return false;
+        } finally {
+            try { conn.setAutoCommit(true); } catch (SQLException e) { e.printStackTrace(); }
         }
     }
 
@@ -417,15 +760,24 @@ public class SQLiteDataStore implements DataStore {
     @Override
     public void addFine(FineRecord fine) {
         String sql = "INSERT INTO fine (plate, reason, amount, issued_at, paid) VALUES (?, ?, ?, ?, ?);";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, fine.getPlate());
             stmt.setString(2, fine.getReason().name());  // store enum name
             stmt.setDouble(3, fine.getAmount());
             stmt.setString(4, fine.getIssuedTime());
             stmt.setInt(5, fine.isPaid() ? 1 : 0);
             stmt.executeUpdate();
+            fine.setId(generatedId(stmt));
         } catch (SQLException e) {
-            e.printStackTrace();
+            writeFailed(e);
+        }
+    }
+
+    // fine_id of the row the statement just inserted
+    private static int generatedId(PreparedStatement insert) throws SQLException {
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            if (!keys.next()) throw new SQLException("No fine_id generated");
+            return keys.getInt(1);
         }
     }
 
@@ -434,7 +786,7 @@ public class SQLiteDataStore implements DataStore {
         List<FineRecord> fines = new ArrayList<>();
         String sql = "SELECT * FROM fine WHERE plate = ? AND paid = 0;";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, plate);
+            stmt.setString(1, PlateCodec.normalize(plate));
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -442,7 +794,7 @@ public class SQLiteDataStore implements DataStore {
                     FineReason reason =
                             FineReason.valueOf(rs.getString("reason"));
 
-                    fines.add(new FineRecord(
+                    FineRecord fine = new FineRecord(
                             rs.getInt("fine_id"),
                             rs.getString("plate"),
                             reason,
@@ -450,7 +802,9 @@ public class SQLiteDataStore implements DataStore {
                             rs.getString("issued_at"),
                             rs.getInt("paid") != 0,
                             rs.getString("paid_at")
-                    ));
+                    );
+                    fine.setLotId(lotId);
+                    fines.add(fine);
                 }
             }
         } catch (SQLException e) {
@@ -465,9 +819,9 @@ public class SQLiteDataStore implements DataStore {
         String sql = "UPDATE fine SET paid = 1, paid_at = ? WHERE plate = ? AND paid = 0;";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, paidTimeISO);
-            stmt.setString(2, plate);
+            stmt.setString(2, PlateCodec.normalize(plate));
             stmt.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { writeFailed(e); }
     }
 
     @Override
@@ -485,7 +839,7 @@ public class SQLiteDataStore implements DataStore {
             stmt.setDouble(1, fine.getAmount());
             stmt.setInt(2, fullyPaid ? 1 : 0);
             stmt.setString(3,
-                    fullyPaid ? java.time.LocalDateTime.now().toString()
+                    fullyPaid ? LocalDateTime.now(clock).toString()
                             : fine.getPaidAt());
 
             stmt.setInt(4, fine.getId());
@@ -493,7 +847,7 @@ public class SQLiteDataStore implements DataStore {
             stmt.executeUpdate();
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            writeFailed(e);
         }
     }
 
@@ -523,7 +877,7 @@ public class SQLiteDataStore implements DataStore {
             stmt.setDouble(9, payment.getBalance());
             stmt.executeUpdate();
         } catch (SQLException e) {
-            e.printStackTrace();
+            writeFailed(e);
         }
     }
 
@@ -535,7 +889,7 @@ public class SQLiteDataStore implements DataStore {
         try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 FineReason reason = FineReason.valueOf(rs.getString("reason"));
-                fines.add(new FineRecord(
+                FineRecord fine = new FineRecord(
                         rs.getInt("fine_id"),
                         rs.getString("plate"),
                         reason,
@@ -543,7 +897,9 @@ public class SQLiteDataStore implements DataStore {
                         rs.getString("issued_at"),
                         rs.getInt("paid") != 0,
                         rs.getString("paid_at")
-                ));
+                );
+                fine.setLotId(lotId);
+                fines.add(fine);
             }
         } catch (SQLException e) { e.printStackTrace(); }
         return fines;
@@ -568,12 +924,13 @@ public class SQLiteDataStore implements DataStore {
                             rs.getString("ticket_no"),
                             rs.getString("plate"),
                             PaymentMethod.valueOf(rs.getString("method")),
-                            rs.getTimestamp("paid_time").toLocalDateTime(),
+                            LocalDateTime.parse(rs.getString("paid_time").replace(' ', 'T')), // TEXT column
                             0, // duration not stored in payment table
                             rs.getDouble("parking_fee"),
                             rs.getDouble("fine_paid"),
                             rs.getDouble("amount_paid")
                     );
+                    record.setLotId(lotId);
 
                     payments.add(record);
                 }
@@ -588,10 +945,66 @@ public class SQLiteDataStore implements DataStore {
 
 
 
+    // --- Reservations ---
+    @Override
+    public int createReservation(Reservation reservation) {
+        String sql = "INSERT INTO reservation (spot_id, plate, start_time, end_time, status) VALUES (?, ?, ?, ?, ?);";
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, reservation.getSpotId());
+            stmt.setString(2, reservation.getPlate());
+            stmt.setString(3, reservation.getStartTime().format(fmt));
+            stmt.setString(4, reservation.getEndTime().format(fmt));
+            stmt.setString(5, reservation.getStatus().name());
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) return keys.getInt(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    @Override
+    public void updateReservationStatus(int reservationId, ReservationStatus status) {
+        String sql = "UPDATE reservation SET status = ? WHERE reservation_id = ?;";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, status.name());
+            stmt.setInt(2, reservationId);
+            stmt.executeUpdate();
+        } catch (SQLException e) { writeFailed(e); }
+    }
+
+    @Override
+    public List<Reservation> getOpenReservations() {
+        List<Reservation> reservations = new ArrayList<>();
+        String sql = "SELECT * FROM reservation WHERE status = 'BOOKED' ORDER BY start_time;";
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                Reservation r = new Reservation(
+                        rs.getInt("reservation_id"),
+                        rs.getString("spot_id"),
+                        rs.getString("plate"),
+                        LocalDateTime.parse(rs.getString("start_time"), fmt),
+                        LocalDateTime.parse(rs.getString("end_time"), fmt),
+                        ReservationStatus.valueOf(rs.getString("status"))
+                );
+                r.setLotId(lotId);
+                reservations.add(r);
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return reservations;
+    }
+
+
     // --- Admin Stats ---
     @Override
     public double getTotalRevenue() {
-        String sql = "SELECT SUM(amount_paid) FROM payment;";
+        // Live payments plus the rollup of payments moved to the monthly archives
+        String sql = "SELECT COALESCE((SELECT SUM(amount_paid) FROM payment), 0) " +
+                     "+ COALESCE((SELECT SUM(amount_paid) FROM revenue_rollup), 0);";
         try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             if (rs.next()) return rs.getDouble(1);
         } catch (SQLException e) { e.printStackTrace(); }
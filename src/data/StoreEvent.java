@@ -0,0 +1,209 @@
+package data;
+
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.Reservation;
+
+/**
+ * One committed change to a lot's store, published by EventPublishingDataStore.
+ *
+ * Events of a lot are numbered 1, 2, 3, ... in commit order, without gaps: writes inside
+ * runInTransaction are only numbered and published once the transaction commits. Only the
+ * fields that belong to the event type are set:
+ *
+ *   SPOT_UPSERTED       spot
+ *   SPOT_OCCUPIED       spotId, plate
+ *   SPOT_RELEASED       spotId
+ *   SESSION_OPENED      session
+ *   SESSION_CLOSED      ticketNo, exitTime, durationHours, amount (parking fee)
+ *   FINE_ADDED          fine (id not known yet), plate
+ *   FINE_UPDATED        fine (amount and paid state after the change), plate
+ *   FINES_PAID          plate, paidAt
+ *   PAYMENT_RECORDED    payment
+ *   RESERVATION_CREATED reservation (with its new id)
+ *   RESERVATION_STATUS  reservationId, status
+ *   CONFIG_CHANGED      key, value
+ *   RELOAD              nothing; the store changed in ways not covered above, re-read it
+ */
+public final class StoreEvent {
+
+    public enum Type {
+        SPOT_UPSERTED, SPOT_OCCUPIED, SPOT_RELEASED,
+        SESSION_OPENED, SESSION_CLOSED,
+        FINE_ADDED, FINE_UPDATED, FINES_PAID,
+        PAYMENT_RECORDED,
+        RESERVATION_CREATED, RESERVATION_STATUS,
+        CONFIG_CHANGED,
+        RELOAD
+    }
+
+    private final Type type;
+    private final String lotId;
+    private long sequence;      // set when published
+    private long publishedAt;   // epoch millis, set when published
+
+    private String spotId;
+    private String plate;
+    private String ticketNo;
+    private String exitTime;
+    private int durationHours;
+    private double amount;
+    private String paidAt;
+    private int reservationId;
+    private String status;
+    private String key;
+    private String value;
+    private ParkingSpot spot;
+    private ParkingSession session;
+    private FineRecord fine;
+    private PaymentRecord payment;
+    private Reservation reservation;
+
+    private StoreEvent(Type type, String lotId) {
+        this.type = type;
+        this.lotId = lotId;
+    }
+
+    // ===============================
+    //  FACTORIES
+    // ===============================
+
+    static StoreEvent spotUpserted(String lotId, ParkingSpot spot) {
+        StoreEvent e = new StoreEvent(Type.SPOT_UPSERTED, lotId);
+        e.spotId = spot.getSpotId();
+        e.spot = new ParkingSpot(spot.getSpotId(), spot.getType()); // callers keep mutating theirs
+        e.spot.setStatus(spot.getStatus());
+        e.spot.setCurrentVehiclePlate(spot.getCurrentVehiclePlate());
+        return e;
+    }
+
+    static StoreEvent spotOccupied(String lotId, String spotId, String plate) {
+        StoreEvent e = new StoreEvent(Type.SPOT_OCCUPIED, lotId);
+        e.spotId = spotId;
+        e.plate = plate;
+        return e;
+    }
+
+    static StoreEvent spotReleased(String lotId, String spotId) {
+        StoreEvent e = new StoreEvent(Type.SPOT_RELEASED, lotId);
+        e.spotId = spotId;
+        return e;
+    }
+
+    static StoreEvent sessionOpened(String lotId, ParkingSession session) {
+        StoreEvent e = new StoreEvent(Type.SESSION_OPENED, lotId);
+        e.session = session;
+        e.ticketNo = session.getTicketNo();
+        e.plate = session.getPlate();
+        e.spotId = session.getSpotId();
+        return e;
+    }
+
+    static StoreEvent sessionClosed(String lotId, String ticketNo, String exitTime, int durationHours, double parkingFee) {
+        StoreEvent e = new StoreEvent(Type.SESSION_CLOSED, lotId);
+        e.ticketNo = ticketNo;
+        e.exitTime = exitTime;
+        e.durationHours = durationHours;
+        e.amount = parkingFee;
+        return e;
+    }
+
+    static StoreEvent fineAdded(String lotId, FineRecord fine) {
+        StoreEvent e = new StoreEvent(Type.FINE_ADDED, lotId);
+        e.fine = copyOf(fine);
+        e.plate = fine.getPlate();
+        return e;
+    }
+
+    static StoreEvent fineUpdated(String lotId, FineRecord fine) {
+        StoreEvent e = new StoreEvent(Type.FINE_UPDATED, lotId);
+        e.fine = copyOf(fine);
+        e.plate = fine.getPlate();
+        return e;
+    }
+
+    static StoreEvent finesPaid(String lotId, String plate, String paidAt) {
+        StoreEvent e = new StoreEvent(Type.FINES_PAID, lotId);
+        e.plate = plate;
+        e.paidAt = paidAt;
+        return e;
+    }
+
+    static StoreEvent paymentRecorded(String lotId, PaymentRecord payment) {
+        StoreEvent e = new StoreEvent(Type.PAYMENT_RECORDED, lotId);
+        e.payment = payment;
+        e.ticketNo = payment.getTicketNo();
+        e.plate = payment.getPlate();
+        return e;
+    }
+
+    static StoreEvent reservationCreated(String lotId, Reservation reservation) {
+        StoreEvent e = new StoreEvent(Type.RESERVATION_CREATED, lotId);
+        e.reservation = reservation;
+        e.reservationId = reservation.getId();
+        return e;
+    }
+
+    static StoreEvent reservationStatus(String lotId, int reservationId, String status) {
+        StoreEvent e = new StoreEvent(Type.RESERVATION_STATUS, lotId);
+        e.reservationId = reservationId;
+        e.status = status;
+        return e;
+    }
+
+    static StoreEvent configChanged(String lotId, String key, String value) {
+        StoreEvent e = new StoreEvent(Type.CONFIG_CHANGED, lotId);
+        e.key = key;
+        e.value = value;
+        return e;
+    }
+
+    static StoreEvent reload(String lotId) {
+        return new StoreEvent(Type.RELOAD, lotId);
+    }
+
+    // Fines are reduced in place by their holders, so events keep their own copy
+    private static FineRecord copyOf(FineRecord fine) {
+        FineRecord copy = new FineRecord(fine.getId(), fine.getPlate(), fine.getReason(), fine.getAmount(),
+                fine.getIssuedTime(), fine.isPaid(), fine.getPaidAt());
+        copy.setLotId(fine.getLotId());
+        return copy;
+    }
+
+    void publish(long sequence, long publishedAt) {
+        this.sequence = sequence;
+        this.publishedAt = publishedAt;
+    }
+
+    // ===============================
+    //  GETTERS
+    // ===============================
+
+    public Type getType() { return type; }
+    public String getLotId() { return lotId; }
+    public long getSequence() { return sequence; }
+    public long getPublishedAt() { return publishedAt; }
+    public String getSpotId() { return spotId; }
+    public String getPlate() { return plate; }
+    public String getTicketNo() { return ticketNo; }
+    public String getExitTime() { return exitTime; }
+    public int getDurationHours() { return durationHours; }
+    public double getAmount() { return amount; }
+    public String getPaidAt() { return paidAt; }
+    public int getReservationId() { return reservationId; }
+    public String getStatus() { return status; }
+    public String getKey() { return key; }
+    public String getValue() { return value; }
+    public ParkingSpot getSpot() { return spot; }
+    public ParkingSession getSession() { return session; }
+    public FineRecord getFine() { return fine; }
+    public PaymentRecord getPayment() { return payment; }
+    public Reservation getReservation() { return reservation; }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + lotId;
+    }
+}
@@ -0,0 +1,9 @@
+package enums;
+
+//lifecycle of a spot booking
+public enum ReservationStatus {
+    BOOKED,      // waiting for the vehicle to arrive
+    CHECKED_IN,  // vehicle entered on its booked spot
+    CANCELLED,
+    NO_SHOW      // released automatically after the grace period
+}
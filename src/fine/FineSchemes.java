@@ -0,0 +1,82 @@
+package fine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Scheme names stored with sessions and in the config table, and the built-in schemes.
+ *
+ * The custom scheme is compiled from the definition saved in AdminPanel ("fine_scheme_dsl").
+ * Every saved definition gets a new version, kept in config as "fine_scheme_dsl.v<n>" with
+ * the current number in "fine_scheme_dsl_version". Sessions store the pinned name
+ * "Custom (DSL)#<n>", so a vehicle is fined by the definition in force when it entered even
+ * after the admin changes it. Version 0 is DEFAULT_DSL. Custom definitions belong to a lot's
+ * config, so custom names resolve through that lot's LotFineSchemes, not here.
+ */
+public final class FineSchemes {
+
+    public static final String FIXED = "Fixed Fine (RM 50)";
+    public static final String PROGRESSIVE = "Progressive (Tiered)";
+    public static final String HOURLY = "Hourly (RM 20/hr)";
+    public static final String CUSTOM = "Custom (DSL)";
+    public static final String DSL_CONFIG_KEY = "fine_scheme_dsl";
+    public static final String DSL_VERSION_KEY = "fine_scheme_dsl_version";
+    public static final String DEFAULT_DSL = "tier 0 50; tier 24 100; tier 48 150; tier 72 200";
+
+    static final TableFineScheme DEFAULT_CUSTOM = TableFineScheme.compile(DEFAULT_DSL);
+    private static final String PINNED_PREFIX = CUSTOM + '#';
+
+    private FineSchemes() {}
+
+    public static String[] names() {
+        return new String[]{FIXED, PROGRESSIVE, HOURLY, CUSTOM};
+    }
+
+    // Built-in scheme for a stored name, or null if unknown (custom names: see LotFineSchemes)
+    public static FineScheme byName(String name) {
+        if (name == null) return null;
+        return switch (name) {
+            case FIXED -> new FixedFineScheme();
+            case PROGRESSIVE -> new ProgressiveFineScheme();
+            case HOURLY -> new HourlyFineScheme();
+            default -> null;
+        };
+    }
+
+    public static String versionKey(int version) {
+        return DSL_CONFIG_KEY + ".v" + version;
+    }
+
+    // Config keys the custom scheme occupies in a store, versions first
+    public static List<String> configKeys(Function<String, String> getConfig) {
+        List<String> keys = new ArrayList<>();
+        String stored = getConfig.apply(DSL_VERSION_KEY);
+        int current = stored != null ? parseVersion(stored.trim()) : 0;
+        for (int v = 1; v <= current; v++) keys.add(versionKey(v));
+        keys.add(DSL_CONFIG_KEY);
+        keys.add(DSL_VERSION_KEY);
+        return keys;
+    }
+
+    public static boolean isCustomKey(String key) {
+        return key != null && key.startsWith(DSL_CONFIG_KEY);
+    }
+
+    static String pinned(int version) {
+        return PINNED_PREFIX + version;
+    }
+
+    // Version of a pinned name, or -1 if the name is not pinned
+    static int pinnedVersion(String name) {
+        return name.startsWith(PINNED_PREFIX) ? parseVersion(name.substring(PINNED_PREFIX.length())) : -1;
+    }
+
+    static int parseVersion(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package fine;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The fine schemes of one lot: the built-in ones plus every saved version of its custom
+ * scheme, read from that lot's config (keys in FineSchemes).
+ *
+ * A version is written once and never changes, so each is compiled on first use and kept.
+ * The current version number is read from config whenever it is needed, so a definition
+ * saved through any service (or replayed into a trace's store) applies to the next entry.
+ * Every store gets its own instance: lots, simulations and replays never see each other's
+ * definitions.
+ */
+public class LotFineSchemes {
+
+    private final Function<String, String> getConfig;
+    private final Map<Integer, TableFineScheme> versions = new ConcurrentHashMap<>();
+
+    public LotFineSchemes(Function<String, String> getConfig) {
+        this.getConfig = getConfig;
+        versions.put(0, FineSchemes.DEFAULT_CUSTOM);
+    }
+
+    // Scheme for a stored name, or null if the name is unknown
+    public FineScheme byName(String name) {
+        if (name == null) return null;
+        int pinned = FineSchemes.pinnedVersion(name);
+        if (pinned >= 0) return version(pinned);
+        if (FineSchemes.CUSTOM.equals(name)) return getCustom();
+        return FineSchemes.byName(name);
+    }
+
+    // Name to store with a session entering now: the custom scheme is pinned to its current version
+    public String pin(String name) {
+        return FineSchemes.CUSTOM.equals(name) ? FineSchemes.pinned(getCustomVersion()) : name;
+    }
+
+    public TableFineScheme getCustom() {
+        return version(getCustomVersion());
+    }
+
+    // A definition saved before versioning (no version key) is version 1
+    public int getCustomVersion() {
+        String stored = getConfig.apply(FineSchemes.DSL_VERSION_KEY);
+        if (stored != null) return Math.max(0, FineSchemes.parseVersion(stored.trim()));
+        String legacy = getConfig.apply(FineSchemes.DSL_CONFIG_KEY);
+        return legacy != null && !legacy.isBlank() ? 1 : 0;
+    }
+
+    /**
+     * Config writes that save a definition as the next version, making it current; run them
+     * in one transaction.
+     * @return the version the definition was saved as
+     */
+    public int writeCustom(TableFineScheme scheme, BiConsumer<String, String> setConfig) {
+        int current = getCustomVersion();
+        if (current > 0 && getConfig.apply(FineSchemes.versionKey(current)) == null) {
+            setConfig.accept(FineSchemes.versionKey(current), getCustom().getDefinition()); // saved before versioning
+        }
+        int version = current + 1;
+        setConfig.accept(FineSchemes.versionKey(version), scheme.getDefinition());
+        setConfig.accept(FineSchemes.DSL_CONFIG_KEY, scheme.getDefinition());
+        setConfig.accept(FineSchemes.DSL_VERSION_KEY, Integer.toString(version));
+        return version;
+    }
+
+    // A version missing from config falls back to the current one; one that does not compile to the default tiers
+    private TableFineScheme version(int v) {
+        TableFineScheme known = versions.get(v);
+        if (known != null) return known;
+
+        int current = getCustomVersion();
+        String definition = getConfig.apply(FineSchemes.versionKey(v));
+        if (definition == null && v == current) definition = getConfig.apply(FineSchemes.DSL_CONFIG_KEY);
+        if (definition == null || definition.isBlank()) {
+            return v == current ? FineSchemes.DEFAULT_CUSTOM : version(current); // best effort
+        }
+        TableFineScheme compiled;
+        try {
+            compiled = TableFineScheme.compile(definition);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Warning: stored custom fine scheme v" + v + " is invalid (" + e.getMessage()
+                    + ") → using default tiers");
+            compiled = FineSchemes.DEFAULT_CUSTOM;
+        }
+        versions.put(v, compiled);
+        return compiled;
+    }
+}
@@ -0,0 +1,103 @@
+package fine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fine scheme defined in a small text format instead of Java code, e.g.
+ *
+ *   tier 0 50; tier 24 100; tier 48 150; tier 72 200    (same as ProgressiveFineScheme)
+ *   rate 20                                              (same as HourlyFineScheme)
+ *   tier 0 50; rate 10; cap 300
+ *
+ *   tier H A  adds A once the overstay is more than H hours
+ *   rate R    adds R for every overstay hour
+ *   cap C     the fine never exceeds C
+ *
+ * The definition is compiled once into a table of fines for 0..N overstay hours (N = the
+ * highest tier), so calculateFine is an array read plus the per-hour rate past the table.
+ */
+public class TableFineScheme implements FineScheme {
+
+    private final String definition;
+    private final double[] table;  // table[h] = fine for h overstay hours, h <= lastTier
+    private final int lastTier;
+    private final double rate;
+    private final double cap;      // Double.POSITIVE_INFINITY = no cap
+
+    private TableFineScheme(String definition, double[] table, double rate, double cap) {
+        this.definition = definition;
+        this.table = table;
+        this.lastTier = table.length - 1;
+        this.rate = rate;
+        this.cap = cap;
+    }
+
+    /**
+     * Parses and compiles a definition.
+     * @throws IllegalArgumentException if the definition is malformed
+     */
+    public static TableFineScheme compile(String definition) {
+        if (definition == null || definition.isBlank()) {
+            throw new IllegalArgumentException("Fine scheme definition is empty");
+        }
+        List<Integer> tierHours = new ArrayList<>();
+        List<Double> tierAmounts = new ArrayList<>();
+        double rate = 0;
+        double cap = Double.POSITIVE_INFINITY;
+
+        for (String clause : definition.split(";")) {
+            String[] t = clause.trim().toLowerCase().split("\\s+");
+            if (t.length == 1 && t[0].isEmpty()) continue;
+            try {
+                switch (t[0]) {
+                    case "tier" -> {
+                        if (t.length != 3) throw new IllegalArgumentException("expected 'tier HOURS AMOUNT'");
+                        int hours = Integer.parseInt(t[1]);
+                        if (hours < 0 || hours > 10_000) throw new IllegalArgumentException("tier hours out of range");
+                        tierHours.add(hours);
+                        tierAmounts.add(Double.parseDouble(t[2]));
+                    }
+                    case "rate" -> rate = Double.parseDouble(t[1]);
+                    case "cap" -> cap = Double.parseDouble(t[1]);
+                    default -> throw new IllegalArgumentException("unknown keyword '" + t[0] + "'");
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Bad clause '" + clause.trim() + "'");
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Bad clause '" + clause.trim() + "': " + e.getMessage());
+            }
+        }
+        if (rate < 0 || cap < 0) throw new IllegalArgumentException("Rate and cap must not be negative");
+
+        int lastTier = 0;
+        for (int h : tierHours) lastTier = Math.max(lastTier, h + 1);
+
+        // table[h]: tiers passed (h > tier hours) + h x rate, capped
+        double[] table = new double[lastTier + 1];
+        for (int i = 0; i < tierHours.size(); i++) {
+            int from = tierHours.get(i) + 1;
+            for (int h = from; h <= lastTier; h++) table[h] += tierAmounts.get(i);
+        }
+        for (int h = 0; h <= lastTier; h++) table[h] = Math.min(table[h] + h * rate, cap);
+        table[0] = 0; // no overstay, no fine
+
+        return new TableFineScheme(definition.trim(), table, rate, cap);
+    }
+
+    @Override
+    public double calculateFine(long overstayHours) {
+        if (overstayHours <= 0) return 0.0;
+        if (overstayHours <= lastTier) return table[(int) overstayHours];
+        return Math.min(table[lastTier] + (overstayHours - lastTier) * rate, cap);
+    }
+
+    @Override
+    public String getSchemeName() {
+        return FineSchemes.CUSTOM;
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+}
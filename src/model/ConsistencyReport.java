@@ -0,0 +1,122 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Result of one ConsistencyChecker run: what was scanned, every problem found and whether it was repaired
+public class ConsistencyReport {
+
+    public enum IssueType {
+        OCCUPIED_WITHOUT_SESSION,   // spot OCCUPIED but no open session on it
+        AVAILABLE_WITH_SESSION,     // open session on a spot marked AVAILABLE
+        PLATE_MISMATCH,             // spot shows a different plate than its open session
+        DUPLICATE_OPEN_SESSION,     // one plate has more than one open session
+        SESSION_ON_UNKNOWN_SPOT,    // open session points at a spot that does not exist
+        SPOT_SHARED_BY_SESSIONS,    // several open sessions on one spot
+        FINE_WITHOUT_SESSION,       // fine for a plate that never parked here
+        EMPTY_UNPAID_FINE           // unpaid fine with nothing left to pay
+    }
+
+    public static class Issue {
+        private final IssueType type;
+        private final String subject;  // spot id, ticket no, plate or fine id
+        private final String detail;
+        private final boolean repairable;
+        private boolean repaired;
+
+        public Issue(IssueType type, String subject, String detail, boolean repairable) {
+            this.type = type;
+            this.subject = subject;
+            this.detail = detail;
+            this.repairable = repairable;
+        }
+
+        public IssueType getType() { return type; }
+        public String getSubject() { return subject; }
+        public String getDetail() { return detail; }
+        public boolean isRepairable() { return repairable; }
+        public boolean isRepaired() { return repaired; }
+        public void setRepaired(boolean repaired) { this.repaired = repaired; }
+
+        @Override
+        public String toString() {
+            String state = repaired ? "REPAIRED" : repairable ? "repairable" : "report only";
+            return String.format("%-24s %-16s %s [%s]", type, subject, detail, state);
+        }
+    }
+
+    private final List<Issue> issues = new ArrayList<>();
+    private int spotsScanned;
+    private int sessionsScanned;
+    private int finesScanned;
+    private long durationMillis;
+    private boolean repairAttempted;
+    private boolean repairCommitted;
+
+    public synchronized void addIssue(Issue issue) {
+        issues.add(issue);
+    }
+
+    public synchronized List<Issue> getIssues() {
+        return Collections.unmodifiableList(new ArrayList<>(issues));
+    }
+
+    public synchronized Map<IssueType, Integer> countByType() {
+        Map<IssueType, Integer> counts = new EnumMap<>(IssueType.class);
+        for (Issue issue : issues) counts.merge(issue.getType(), 1, Integer::sum);
+        return counts;
+    }
+
+    public synchronized int getRepairedCount() {
+        int n = 0;
+        for (Issue issue : issues) if (issue.isRepaired()) n++;
+        return n;
+    }
+
+    public boolean isConsistent() {
+        return getIssues().isEmpty();
+    }
+
+    public void setScanned(int spots, int sessions, int fines) {
+        this.spotsScanned = spots;
+        this.sessionsScanned = sessions;
+        this.finesScanned = fines;
+    }
+
+    public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
+    public void setRepairResult(boolean attempted, boolean committed) {
+        this.repairAttempted = attempted;
+        this.repairCommitted = committed;
+    }
+
+    public int getSpotsScanned() { return spotsScanned; }
+    public int getSessionsScanned() { return sessionsScanned; }
+    public int getFinesScanned() { return finesScanned; }
+    public long getDurationMillis() { return durationMillis; }
+    public boolean isRepairAttempted() { return repairAttempted; }
+    public boolean isRepairCommitted() { return repairCommitted; }
+
+    // Multi-line text for the console and the admin dialog
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Consistency check: %d spots, %d open sessions, %d unpaid fines in %d ms%n",
+                spotsScanned, sessionsScanned, finesScanned, durationMillis));
+        List<Issue> all = getIssues();
+        if (all.isEmpty()) {
+            sb.append("No problems found.");
+            return sb.toString();
+        }
+        countByType().forEach((type, n) -> sb.append(String.format("  %-24s %d%n", type, n)));
+        if (repairAttempted) {
+            sb.append(repairCommitted
+                    ? String.format("Repaired %d of %d issues.%n", getRepairedCount(), all.size())
+                    : String.format("Repair transaction rolled back, nothing changed.%n"));
+        }
+        sb.append(System.lineSeparator());
+        for (Issue issue : all) sb.append(issue).append(System.lineSeparator());
+        return sb.toString();
+    }
+}
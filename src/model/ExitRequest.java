@@ -0,0 +1,25 @@
+package model;
+
+import enums.PaymentMethod;
+import java.time.LocalDateTime;
+
+// one vehicle leaving in a bulk exit (see ExitService.confirmExits)
+public class ExitRequest {
+
+    private final String plate;
+    private final LocalDateTime exitTime;
+    private final PaymentMethod method;
+    private final double amountPaid;
+
+    public ExitRequest(String plate, LocalDateTime exitTime, PaymentMethod method, double amountPaid) {
+        this.plate = PlateCodec.normalize(plate); // matched against stored (canonical) plates
+        this.exitTime = exitTime;
+        this.method = method;
+        this.amountPaid = amountPaid;
+    }
+
+    public String getPlate() { return plate; }
+    public LocalDateTime getExitTime() { return exitTime; }
+    public PaymentMethod getMethod() { return method; }
+    public double getAmountPaid() { return amountPaid; }
+}
@@ -0,0 +1,59 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+// outcome of one ExitRequest in a bulk exit, plus everything that must be persisted for it
+public class ExitResult {
+
+    private final ExitRequest request;
+    private final boolean success;
+    private final String message;
+
+    private final ParkingSession session;
+    private final String exitTimeStr;
+    private final int durationHours;
+    private final double parkingFee;
+    private final List<FineRecord> newFines;      // fines issued on this exit (amounts after payment)
+    private final List<FineRecord> updatedFines;  // existing fines reduced by this payment
+    private final PaymentRecord payment;
+
+    private ExitResult(ExitRequest request, boolean success, String message,
+                       ParkingSession session, String exitTimeStr, int durationHours, double parkingFee,
+                       List<FineRecord> newFines, List<FineRecord> updatedFines, PaymentRecord payment) {
+        this.request = request;
+        this.success = success;
+        this.message = message;
+        this.session = session;
+        this.exitTimeStr = exitTimeStr;
+        this.durationHours = durationHours;
+        this.parkingFee = parkingFee;
+        this.newFines = newFines;
+        this.updatedFines = updatedFines;
+        this.payment = payment;
+    }
+
+    public static ExitResult failed(ExitRequest request, String message) {
+        return new ExitResult(request, false, message, null, null, 0, 0.0,
+                Collections.emptyList(), Collections.emptyList(), null);
+    }
+
+    public static ExitResult completed(ExitRequest request, ParkingSession session, String exitTimeStr,
+                                       int durationHours, double parkingFee,
+                                       List<FineRecord> newFines, List<FineRecord> updatedFines,
+                                       PaymentRecord payment) {
+        return new ExitResult(request, true, "Exit finalized for ticket: " + session.getTicketNo(),
+                session, exitTimeStr, durationHours, parkingFee, newFines, updatedFines, payment);
+    }
+
+    public ExitRequest getRequest() { return request; }
+    public boolean isSuccess() { return success; }
+    public String getMessage() { return message; }
+    public ParkingSession getSession() { return session; }
+    public String getExitTimeStr() { return exitTimeStr; }
+    public int getDurationHours() { return durationHours; }
+    public double getParkingFee() { return parkingFee; }
+    public List<FineRecord> getNewFines() { return newFines; }
+    public List<FineRecord> getUpdatedFines() { return updatedFines; }
+    public PaymentRecord getPayment() { return payment; }
+}
@@ -10,6 +10,7 @@ public class FineRecord {
     private String issuedTime;
     private boolean paid;
     private String paidAt;
+    private String lotId = ParkingLot.DEFAULT_LOT_ID;
 
     // Constructor without ID
     public FineRecord(String plate, FineReason reason, double amount, String issuedTime, boolean paid) {
@@ -31,6 +32,13 @@ public class FineRecord {
         this.paidAt = paidAt;
     }
 
+    // Detached copy (cached fines are handed out as copies, since callers reduce them in place)
+    public FineRecord copy() {
+        FineRecord copy = new FineRecord(id, plate, reason, amount, issuedTime, paid, paidAt);
+        copy.lotId = lotId;
+        return copy;
+    }
+
     // Getters
     public int getId() { return id; }
     public String getPlate() { return plate; }
@@ -39,10 +47,13 @@ public class FineRecord {
     public String getIssuedTime() { return issuedTime; }
     public boolean isPaid() { return paid; }
     public String getPaidAt() { return paidAt; }
+    public String getLotId() { return lotId; }
 
     // Setters
+    public void setId(int id) { this.id = id; } // set by the store when the fine is inserted
     public void setPaid(boolean paid) { this.paid = paid; }
     public void setPaidAt(String paidAt) { this.paidAt = paidAt; }
+    public void setLotId(String lotId) { this.lotId = lotId; }
 
     // Reduce fine by partial payment
     public void reduceAmount(double paidAmount) {
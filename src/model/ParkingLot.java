@@ -13,11 +13,20 @@ import enums.SpotType;
 
 public class ParkingLot {
 
+    public static final String DEFAULT_LOT_ID = "MAIN";
+
+    private String lotId;   // site identifier, each lot has its own data store
     private String name;
     private List<Floor> floors;
 
-    // Constructor
+    // Constructor (single-site deployments)
     public ParkingLot(String name) {
+        this(DEFAULT_LOT_ID, name);
+    }
+
+    // Constructor (multi-site deployments)
+    public ParkingLot(String lotId, String name) {
+        this.lotId = lotId;
         this.name = name;
         this.floors = new ArrayList<>();
     }
@@ -27,6 +36,10 @@ public class ParkingLot {
         this.floors.add(floor);
     }
 
+    public String getLotId() {
+        return lotId;
+    }
+
     public String getName() {
         return name;
     }
@@ -7,6 +7,7 @@ public class ParkingSession {
     private String entryTime;
     private String exitTime;
     private String fineScheme;  
+    private String lotId = ParkingLot.DEFAULT_LOT_ID;
 
     public ParkingSession(String ticketNo, Vehicle vehicle, String spotId, String entryTime, String fineScheme) {
         this.ticketNo = ticketNo;
@@ -36,4 +37,6 @@ public class ParkingSession {
     public boolean isVIP() { return vehicle.isVIP(); }
     public String getExitTime() { return exitTime; }
     public void setExitTime(String exitTime) { this.exitTime = exitTime; }
+    public String getLotId() { return lotId; }
+    public void setLotId(String lotId) { this.lotId = lotId; }
 }
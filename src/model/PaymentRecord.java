@@ -18,6 +18,8 @@ public class PaymentRecord {
     private final double amountPaid;
     private final double balance;
 
+    private String lotId = ParkingLot.DEFAULT_LOT_ID;
+
     public PaymentRecord(String ticketNo,
                          String plate,
                          PaymentMethod method,
@@ -49,6 +51,8 @@ public class PaymentRecord {
     public double getTotalDue() { return totalDue; }
     public double getAmountPaid() { return amountPaid; }
     public double getBalance() { return balance; }
+    public String getLotId() { return lotId; }
+    public void setLotId(String lotId) { this.lotId = lotId; }
 
     public boolean isFullyPaid() {
         return balance >= 0;
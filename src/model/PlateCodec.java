@@ -0,0 +1,164 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The one place where licence plates are normalized and turned into compact keys.
+ *
+ * normalize() gives the canonical text form used everywhere (and stored in the database):
+ * trimmed, upper case, no spaces or dashes, letter O read as digit 0 (the two are the same
+ * glyph on most plates and operators type either).
+ *
+ * encode() turns a plate into a long for in-memory maps, caches and filters:
+ *   - up to 10 characters of 0-9 / A-Z are packed at 6 bits per character (always >= 0)
+ *   - anything else gets a number from an intern table, tagged with the sign bit
+ * Packed codes are the same in every run; interned codes only within one process, so only
+ * the text form is ever persisted.
+ *
+ * Only paths that store a plate call encode(). Lookups use lookup(), which never interns (a
+ * plate that was never stored cannot be a key anywhere), and filters use hash(String), so
+ * the intern table grows with the plates a process keeps, not with every plate it is asked
+ * about.
+ */
+public final class PlateCodec {
+
+    public static final int MAX_PACKED_LENGTH = 10;
+    private static final long INTERNED = Long.MIN_VALUE;
+    public static final long UNKNOWN = -1L; // lookup() of a plate that was never encoded; never assigned
+
+    private static final Map<String, Long> internIds = new ConcurrentHashMap<>();
+    private static final Map<Long, String> internPlates = new ConcurrentHashMap<>();
+    private static final AtomicLong nextInternId = new AtomicLong();
+
+    private PlateCodec() {}
+
+    // Canonical form; null stays null
+    public static String normalize(String plate) {
+        if (plate == null) return null;
+        StringBuilder sb = null;
+        int len = plate.length();
+        for (int i = 0; i < len; i++) {
+            char c = plate.charAt(i);
+            char n = canonicalChar(c);
+            if (n != c && sb == null) {
+                sb = new StringBuilder(len);
+                sb.append(plate, 0, i);
+            }
+            if (sb != null && n != 0) sb.append(n);
+        }
+        return sb == null ? plate : sb.toString(); // already canonical: no copy
+    }
+
+    // True if both are the same plate after normalization
+    public static boolean same(String a, String b) {
+        if (a == null || b == null) return a == b;
+        return normalize(a).equals(normalize(b));
+    }
+
+    public static long encode(String plate) {
+        String p = normalize(plate);
+        if (p == null) throw new IllegalArgumentException("Plate is null");
+        long code = pack(p);
+        if (code >= 0) return code;
+        return internIds.computeIfAbsent(p, key -> {
+            long id = INTERNED | nextInternId.getAndIncrement();
+            internPlates.put(id, key);
+            return id;
+        });
+    }
+
+    // Code of the plate if it packs or was encoded before, else UNKNOWN; never interns
+    public static long lookup(String plate) {
+        String p = normalize(plate);
+        if (p == null) throw new IllegalArgumentException("Plate is null");
+        long code = pack(p);
+        if (code >= 0) return code;
+        Long interned = internIds.get(p);
+        return interned != null ? interned : UNKNOWN;
+    }
+
+    public static String decode(long code) {
+        if (isInterned(code)) {
+            String plate = internPlates.get(code);
+            if (plate == null) throw new IllegalArgumentException("Unknown plate code " + code);
+            return plate;
+        }
+        char[] buf = new char[MAX_PACKED_LENGTH];
+        int n = 0;
+        for (long c = code; c != 0; c >>>= 6) buf[n++] = valueChar((int) (c & 0x3F));
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = n - 1; i >= 0; i--) sb.append(buf[i]);
+        return sb.toString();
+    }
+
+    public static boolean isInterned(long code) {
+        return code < 0;
+    }
+
+    // Number of plates that did not fit the packed form
+    public static int internedCount() {
+        return internIds.size();
+    }
+
+    // Well spread hash of a plate without encoding it: the packed code's hash, or one of the text
+    public static long hash(String plate) {
+        String p = normalize(plate);
+        if (p == null) throw new IllegalArgumentException("Plate is null");
+        long code = pack(p);
+        if (code >= 0) return hash(code);
+        long h = 0xcbf29ce484222325L; // FNV-1a, then mixed
+        for (int i = 0; i < p.length(); i++) {
+            h ^= p.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return hash(h);
+    }
+
+    // Mix of a code's bits, for hash-based structures that need a well spread value
+    public static long hash(long code) {
+        long h = code;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // ===============================
+    //  HELPERS
+    // ===============================
+
+    // Packed code of a canonical plate, or -1 if it does not pack
+    private static long pack(String p) {
+        if (p.length() > MAX_PACKED_LENGTH) return -1;
+        long code = 0;
+        for (int i = 0; i < p.length(); i++) {
+            int v = charValue(p.charAt(i));
+            if (v < 0) return -1;
+            code = (code << 6) | v;
+        }
+        return code;
+    }
+
+    // Canonical character, or 0 to drop it
+    private static char canonicalChar(char c) {
+        if (c <= ' ' || c == '-') return 0; // spaces, tabs, line breaks
+        if (c >= 'a' && c <= 'z') c = (char) (c - 32);
+        else if (c > 127) c = Character.toUpperCase(c);
+        return c == 'O' ? '0' : c;
+    }
+
+    // 0 is padding, so digits start at 1: '0'-'9' -> 1-10, 'A'-'Z' -> 11-36
+    private static int charValue(char c) {
+        if (c >= '0' && c <= '9') return c - '0' + 1;
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 11;
+        return -1;
+    }
+
+    private static char valueChar(int v) {
+        return v <= 10 ? (char) ('0' + v - 1) : (char) ('A' + v - 11);
+    }
+}
@@ -0,0 +1,29 @@
+package model;
+
+import java.time.LocalDateTime;
+
+// a single plate read reported by an entry camera (ANPR)
+public class PlateRead {
+
+    private final String plate;
+    private final LocalDateTime readTime;
+    private final String gateId;
+
+    public PlateRead(String plate, LocalDateTime readTime, String gateId) {
+        this.plate = plate;
+        this.readTime = readTime;
+        this.gateId = gateId;
+    }
+
+    // Parses one feed line: "<yyyy-MM-ddTHH:mm:ss>,<plate>[,<gateId>]"
+    public static PlateRead parse(String line) {
+        String[] parts = line.split(",");
+        if (parts.length < 2) throw new IllegalArgumentException("Bad plate read: " + line);
+        String gate = parts.length > 2 ? parts[2].trim() : "G1";
+        return new PlateRead(parts[1].trim(), LocalDateTime.parse(parts[0].trim()), gate);
+    }
+
+    public String getPlate() { return plate; }
+    public LocalDateTime getReadTime() { return readTime; }
+    public String getGateId() { return gateId; }
+}
@@ -0,0 +1,50 @@
+package model;
+
+import enums.ReservationStatus;
+import java.time.LocalDateTime;
+
+// A booking of one spot for one plate over [startTime, endTime)
+public class Reservation {
+    private int id;
+    private String spotId;
+    private String plate;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private ReservationStatus status;
+    private String lotId = ParkingLot.DEFAULT_LOT_ID;
+
+    // Constructor for a new booking (id assigned by the store)
+    public Reservation(String spotId, String plate, LocalDateTime startTime, LocalDateTime endTime) {
+        this(0, spotId, plate, startTime, endTime, ReservationStatus.BOOKED);
+    }
+
+    // Constructor with ID (DB loaded)
+    public Reservation(int id, String spotId, String plate, LocalDateTime startTime,
+                       LocalDateTime endTime, ReservationStatus status) {
+        this.id = id;
+        this.spotId = spotId;
+        this.plate = plate;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public String getSpotId() { return spotId; }
+    public String getPlate() { return plate; }
+    public LocalDateTime getStartTime() { return startTime; }
+    public LocalDateTime getEndTime() { return endTime; }
+    public ReservationStatus getStatus() { return status; }
+    public String getLotId() { return lotId; }
+
+    // Setters
+    public void setId(int id) { this.id = id; }
+    public void setStatus(ReservationStatus status) { this.status = status; }
+    public void setLotId(String lotId) { this.lotId = lotId; }
+
+    // True if the booking overlaps [from, to)
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return startTime.isBefore(to) && endTime.isAfter(from);
+    }
+}
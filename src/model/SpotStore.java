@@ -0,0 +1,316 @@
+package model;
+
+import enums.SpotStatus;
+import enums.SpotType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * All spots of a lot kept as parallel primitive arrays instead of one object per spot.
+ *
+ *   types[i], statuses[i]   enum ordinals
+ *   plateCodes[i]           PlateCodec code of the parked plate, NO_PLATE = empty
+ *   spotNos[i]              the "S7" part of the id
+ *
+ * The floor/row hierarchy is two offset tables: floor f owns rows
+ * [floorRowStart[f], floorRowStart[f + 1]) and row r owns spots
+ * [rowSpotStart[r], rowSpotStart[r + 1]). An id like "F2-R1-S7" is parsed once and found
+ * with three binary searches; ids are rebuilt from the offsets when asked for, so 100k
+ * spots cost a few hundred KB and no per-spot objects. Plates are kept as their code, so
+ * plates that come and go leave nothing behind (getPlate returns the canonical form).
+ *
+ * spot(i) hands out a flyweight ParkingSpot that reads and writes the arrays directly,
+ * so existing code that takes a ParkingSpot works unchanged. Not thread-safe.
+ */
+public class SpotStore {
+
+    private static final SpotType[] TYPES = SpotType.values();
+    private static final SpotStatus[] STATUSES = SpotStatus.values();
+    private static final long NO_PLATE = -1L; // an interned code PlateCodec never reaches
+
+    private int[] floorNos = new int[4];
+    private int[] floorRowStart = new int[5];
+    private int floorCount;
+
+    private int[] rowNos = new int[16];
+    private int[] rowSpotStart = new int[17];
+    private int rowCount;
+
+    private int[] spotNos;
+    private byte[] types;
+    private byte[] statuses;
+    private long[] plateCodes;
+    private int size;
+
+    public SpotStore() {
+        this(64);
+    }
+
+    public SpotStore(int expectedSpots) {
+        int capacity = Math.max(expectedSpots, 4);
+        spotNos = new int[capacity];
+        types = new byte[capacity];
+        statuses = new byte[capacity];
+        plateCodes = new long[capacity];
+    }
+
+    // ===============================
+    //  BUILDING (floors, rows and spots in ascending order)
+    // ===============================
+
+    public void addFloor(int floorNo) {
+        if (floorCount > 0 && floorNo <= floorNos[floorCount - 1]) {
+            throw new IllegalArgumentException("Floors must be added in ascending order");
+        }
+        if (floorCount == floorNos.length) {
+            floorNos = Arrays.copyOf(floorNos, floorCount * 2);
+            floorRowStart = Arrays.copyOf(floorRowStart, floorCount * 2 + 1);
+        }
+        floorNos[floorCount] = floorNo;
+        floorRowStart[floorCount] = rowCount;
+        floorRowStart[++floorCount] = rowCount;
+    }
+
+    public void addRow(int rowNo) {
+        if (floorCount == 0) throw new IllegalStateException("Add a floor before its rows");
+        if (rowCount > floorRowStart[floorCount - 1] && rowNo <= rowNos[rowCount - 1]) {
+            throw new IllegalArgumentException("Rows must be added in ascending order");
+        }
+        if (rowCount == rowNos.length) {
+            rowNos = Arrays.copyOf(rowNos, rowCount * 2);
+            rowSpotStart = Arrays.copyOf(rowSpotStart, rowCount * 2 + 1);
+        }
+        rowNos[rowCount] = rowNo;
+        rowSpotStart[rowCount] = size;
+        rowSpotStart[++rowCount] = size;
+        floorRowStart[floorCount] = rowCount;
+    }
+
+    // Appends an AVAILABLE spot to the last row; returns its index
+    public int addSpot(int spotNo, SpotType type) {
+        if (rowCount == 0) throw new IllegalStateException("Add a row before its spots");
+        if (size > rowSpotStart[rowCount - 1] && spotNo <= spotNos[size - 1]) {
+            throw new IllegalArgumentException("Spots must be added in ascending order");
+        }
+        if (size == spotNos.length) {
+            int capacity = size * 2;
+            spotNos = Arrays.copyOf(spotNos, capacity);
+            types = Arrays.copyOf(types, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            plateCodes = Arrays.copyOf(plateCodes, capacity);
+        }
+        spotNos[size] = spotNo;
+        types[size] = (byte) type.ordinal();
+        statuses[size] = (byte) SpotStatus.AVAILABLE.ordinal();
+        plateCodes[size] = NO_PLATE;
+        rowSpotStart[rowCount] = ++size;
+        return size - 1;
+    }
+
+    // ===============================
+    //  LOOKUP
+    // ===============================
+
+    public int size() {
+        return size;
+    }
+
+    // Dense index of a spot id, -1 if unknown
+    public int indexOf(String spotId) {
+        int[] parts = parseId(spotId);
+        if (parts == null) return -1;
+        int f = Arrays.binarySearch(floorNos, 0, floorCount, parts[0]);
+        if (f < 0) return -1;
+        int r = Arrays.binarySearch(rowNos, floorRowStart[f], floorRowStart[f + 1], parts[1]);
+        if (r < 0) return -1;
+        int s = Arrays.binarySearch(spotNos, rowSpotStart[r], rowSpotStart[r + 1], parts[2]);
+        return s < 0 ? -1 : s;
+    }
+
+    public String idOf(int index) {
+        int row = rowOf(index);
+        return "F" + floorNos[floorOf(row)] + "-R" + rowNos[row] + "-S" + spotNos[index];
+    }
+
+    public int floorNoOf(int index) {
+        return floorNos[floorOf(rowOf(index))];
+    }
+
+    public int rowNoOf(int index) {
+        return rowNos[rowOf(index)];
+    }
+
+    public SpotType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    public SpotStatus getStatus(int index) {
+        return STATUSES[statuses[index]];
+    }
+
+    public boolean isAvailable(int index) {
+        return statuses[index] == SpotStatus.AVAILABLE.ordinal();
+    }
+
+    public String getPlate(int index) {
+        long code = plateCodes[index];
+        return code == NO_PLATE ? null : PlateCodec.decode(code);
+    }
+
+    public void setStatus(int index, SpotStatus status) {
+        statuses[index] = (byte) status.ordinal();
+    }
+
+    public void setPlate(int index, String plate) {
+        plateCodes[index] = plate == null ? NO_PLATE : PlateCodec.encode(plate);
+    }
+
+    public void occupy(int index, String plate) {
+        setStatus(index, SpotStatus.OCCUPIED);
+        setPlate(index, plate);
+    }
+
+    public void release(int index) {
+        setStatus(index, SpotStatus.AVAILABLE);
+        plateCodes[index] = NO_PLATE;
+    }
+
+    // ===============================
+    //  HIERARCHY
+    // ===============================
+
+    public int getFloorCount() {
+        return floorCount;
+    }
+
+    public int getFloorNo(int floor) {
+        return floorNos[floor];
+    }
+
+    // Spot index range [first, last) of the floor at the given position
+    public int firstSpotOfFloor(int floor) {
+        return rowSpotStart[floorRowStart[floor]];
+    }
+
+    public int endSpotOfFloor(int floor) {
+        return rowSpotStart[floorRowStart[floor + 1]];
+    }
+
+    // ===============================
+    //  SCANS (no allocation per spot)
+    // ===============================
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) action.accept(i);
+    }
+
+    public int countOccupied() {
+        int occupied = 0;
+        byte free = (byte) SpotStatus.AVAILABLE.ordinal();
+        for (int i = 0; i < size; i++) if (statuses[i] != free) occupied++;
+        return occupied;
+    }
+
+    // Indexes of AVAILABLE spots of the given type, in id order
+    public int[] availableOfType(SpotType type) {
+        byte t = (byte) type.ordinal();
+        byte free = (byte) SpotStatus.AVAILABLE.ordinal();
+        int[] result = new int[16];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == t && statuses[i] == free) {
+                if (n == result.length) result = Arrays.copyOf(result, n * 2);
+                result[n++] = i;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    // ===============================
+    //  FLYWEIGHT VIEWS
+    // ===============================
+
+    // ParkingSpot backed by this store; changes through it go straight into the arrays
+    public ParkingSpot spot(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Spot index " + index);
+        return new SpotView(this, index);
+    }
+
+    public ParkingSpot spot(String spotId) {
+        int index = indexOf(spotId);
+        return index < 0 ? null : spot(index);
+    }
+
+    public List<ParkingSpot> views() {
+        List<ParkingSpot> all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) all.add(new SpotView(this, i));
+        return all;
+    }
+
+    private static final class SpotView extends ParkingSpot {
+        private final SpotStore store;
+        private final int index;
+
+        SpotView(SpotStore store, int index) {
+            super(null, null);
+            this.store = store;
+            this.index = index;
+        }
+
+        @Override public String getSpotId() { return store.idOf(index); }
+        @Override public SpotType getType() { return store.getType(index); }
+        @Override public SpotStatus getStatus() { return store.getStatus(index); }
+        @Override public String getCurrentVehiclePlate() { return store.getPlate(index); }
+        @Override public double getHourlyRate() { return store.getType(index).getHourlyRate(); }
+        @Override public boolean isAvailable() { return store.isAvailable(index); }
+        @Override public void setStatus(SpotStatus status) { store.setStatus(index, status); }
+        @Override public void setCurrentVehiclePlate(String plate) { store.setPlate(index, plate); }
+        @Override public void occupy(String plateNumber) { store.occupy(index, plateNumber); }
+        @Override public void release() { store.release(index); }
+    }
+
+    // ===============================
+    //  HELPERS
+    // ===============================
+
+    // Position in rowNos of the row holding the spot
+    private int rowOf(int index) {
+        int r = Arrays.binarySearch(rowSpotStart, 0, rowCount + 1, index);
+        if (r < 0) return -r - 2;
+        while (r + 1 < rowCount && rowSpotStart[r + 1] == index) r++; // skip empty rows
+        return r;
+    }
+
+    private int floorOf(int row) {
+        int f = Arrays.binarySearch(floorRowStart, 0, floorCount + 1, row);
+        if (f < 0) return -f - 2;
+        while (f + 1 < floorCount && floorRowStart[f + 1] == row) f++; // skip empty floors
+        return f;
+    }
+
+    // "F2-R10-S7" -> {2, 10, 7}; null for anything else
+    static int[] parseId(String spotId) {
+        if (spotId == null || spotId.isEmpty() || spotId.charAt(0) != 'F') return null;
+        int[] parts = new int[3];
+        char[] markers = {'F', 'R', 'S'};
+        int pos = 0;
+        for (int p = 0; p < 3; p++) {
+            if (p > 0) {
+                if (pos >= spotId.length() || spotId.charAt(pos) != '-') return null;
+                pos++;
+            }
+            if (pos >= spotId.length() || spotId.charAt(pos) != markers[p]) return null;
+            pos++;
+            int start = pos, value = 0;
+            while (pos < spotId.length() && Character.isDigit(spotId.charAt(pos))) {
+                value = value * 10 + (spotId.charAt(pos) - '0');
+                pos++;
+            }
+            if (pos == start || pos - start > 9) return null;
+            parts[p] = value;
+        }
+        return pos == spotId.length() ? parts : null;
+    }
+}
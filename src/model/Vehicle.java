@@ -7,7 +7,7 @@ public class Vehicle {
     private boolean isVIP;      // only VIP cars can park in Reserved spots
 
     public Vehicle(String plate, String type, boolean hasHcCard, boolean isVIP) {
-        this.plate = plate;
+        this.plate = PlateCodec.normalize(plate); // one canonical form everywhere
         this.type = type;
         this.hasHcCard = hasHcCard;
         this.isVIP = isVIP;
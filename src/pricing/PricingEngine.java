@@ -0,0 +1,263 @@
+package pricing;
+
+import data.DataStore;
+import enums.SpotType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import model.ParkingSpot;
+import model.Vehicle;
+
+/**
+ * Single place where parking fees are worked out.
+ *
+ *   fee = base rate (spot type + vehicle) x sum of the time-of-day multipliers over the billed
+ *         hours x occupancy factor of the spot's type on its floor
+ *
+ * The time-of-day part comes from a RateSchedule (prefix sums, so a stay of any length costs
+ * O(1)); the occupancy factor steps up as a (type, floor) group fills. Both are read from the
+ * config table ("pricing_schedule", "pricing_occupancy"); with neither set the fee is the old
+ * flat hours x rate. A calendar Tariff ("pricing_tariff": caps, night flat rate, free first
+ * hour, weekend values) replaces the hourly schedule when configured.
+ *
+ * The occupancy factor of a stay is taken once: quoteFee (the exit preview) fixes it for the
+ * ticket and exitFee charges with that factor, so a refresh between the two cannot change
+ * the price the driver was shown. Without a quote the exit uses the current occupancy.
+ * Occupancy listeners see every new snapshot, so a trace can carry it to the replay
+ * (setOccupancy), which then prices with the occupancy the live lot had.
+ */
+public class PricingEngine {
+
+    public static final String SCHEDULE_KEY = "pricing_schedule";
+    public static final String OCCUPANCY_KEY = "pricing_occupancy";
+    public static final String TARIFF_KEY = "pricing_tariff";
+    public static final String DEFAULT_OCCUPANCY_TIERS = "0.70 x1.1; 0.85 x1.25; 0.95 x1.5";
+    private static final double FALLBACK_RATE = 5.0; // spot not found
+
+    private final DataStore dataStore;
+    private volatile RateSchedule schedule = RateSchedule.FLAT;
+    private volatile Tariff tariff; // null = hourly pricing through the schedule
+    private volatile double[] tierThresholds = new double[0]; // ascending occupancy ratios
+    private volatile double[] tierMultipliers = new double[0];
+    private volatile Map<SpotType, Map<Integer, Double>> occupancy = new EnumMap<>(SpotType.class);
+    private final Map<String, Double> quotedFactors = new ConcurrentHashMap<>(); // ticket -> factor fixed by its quote
+    private final List<Consumer<Map<SpotType, Map<Integer, Double>>>> occupancyListeners = new CopyOnWriteArrayList<>();
+
+    public PricingEngine(DataStore dataStore) {
+        this.dataStore = dataStore;
+        refresh();
+    }
+
+    // Reloads the pricing config and the occupancy snapshot (called periodically)
+    public void refresh() {
+        refreshConfig();
+        refreshOccupancy(dataStore.getAllSpots());
+    }
+
+    // Reloads schedule, tariff and occupancy tiers only
+    public void refreshConfig() {
+        try {
+            schedule = RateSchedule.parse(dataStore.getConfig(SCHEDULE_KEY));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid " + SCHEDULE_KEY + ", using flat rates: " + e.getMessage());
+            schedule = RateSchedule.FLAT;
+        }
+        String tariffSpec = dataStore.getConfig(TARIFF_KEY);
+        try {
+            tariff = tariffSpec == null || tariffSpec.isBlank() ? null : Tariff.parse(tariffSpec);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid " + TARIFF_KEY + ", using hourly rates: " + e.getMessage());
+            tariff = null;
+        }
+        setOccupancyTiers(dataStore.getConfig(OCCUPANCY_KEY));
+    }
+
+    // ===============================
+    //  CONFIGURATION
+    // ===============================
+    public void setSchedule(String spec) {
+        schedule = RateSchedule.parse(spec); // throws on bad input, nothing saved
+        dataStore.setConfig(SCHEDULE_KEY, schedule.getSpec());
+    }
+
+    // Empty or null removes the tariff (back to hourly pricing)
+    public void setTariff(String spec) {
+        tariff = spec == null || spec.isBlank() ? null : Tariff.parse(spec); // throws on bad input, nothing saved
+        dataStore.setConfig(TARIFF_KEY, tariff == null ? "" : tariff.getSpec());
+    }
+
+    public Tariff getTariff() {
+        return tariff;
+    }
+
+    /**
+     * Occupancy tiers as "ratio xMultiplier" pairs, e.g. "0.70 x1.1; 0.85 x1.25".
+     * Empty or null switches occupancy pricing off.
+     */
+    public void setOccupancyTiers(String spec) {
+        if (spec == null || spec.isBlank()) {
+            tierThresholds = new double[0];
+            tierMultipliers = new double[0];
+            return;
+        }
+        String[] rules = spec.split(";");
+        double[] thresholds = new double[rules.length];
+        double[] multipliers = new double[rules.length];
+        try {
+            for (int i = 0; i < rules.length; i++) {
+                String[] parts = rules[i].trim().split("\\s+");
+                thresholds[i] = Double.parseDouble(parts[0]);
+                multipliers[i] = Double.parseDouble(parts[1].substring(1));
+                if (i > 0 && thresholds[i] <= thresholds[i - 1]) throw new IllegalArgumentException("tiers must ascend");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid " + OCCUPANCY_KEY + " '" + spec + "', occupancy pricing off");
+            tierThresholds = new double[0];
+            tierMultipliers = new double[0];
+            return;
+        }
+        tierThresholds = thresholds;
+        tierMultipliers = multipliers;
+    }
+
+    // Recomputes the occupied share of every (spot type, floor) group
+    public void refreshOccupancy(Collection<ParkingSpot> spots) {
+        Map<SpotType, Map<Integer, int[]>> counts = new EnumMap<>(SpotType.class);
+        for (ParkingSpot spot : spots) {
+            int[] c = counts.computeIfAbsent(spot.getType(), t -> new HashMap<>())
+                    .computeIfAbsent(floorOf(spot.getSpotId()), f -> new int[2]);
+            c[1]++;
+            if (!spot.isAvailable()) c[0]++;
+        }
+        Map<SpotType, Map<Integer, Double>> ratios = new EnumMap<>(SpotType.class);
+        counts.forEach((type, floors) -> {
+            Map<Integer, Double> byFloor = new HashMap<>();
+            floors.forEach((floor, c) -> byFloor.put(floor, c[0] / (double) c[1]));
+            ratios.put(type, byFloor);
+        });
+        occupancy = ratios;
+        for (Consumer<Map<SpotType, Map<Integer, Double>>> listener : occupancyListeners) listener.accept(ratios);
+    }
+
+    // Occupied share per (spot type, floor) as of the last refresh; not to be modified
+    public Map<SpotType, Map<Integer, Double>> getOccupancy() {
+        return occupancy;
+    }
+
+    // Prices with a snapshot taken elsewhere (trace replay) until the next refresh
+    public void setOccupancy(Map<SpotType, Map<Integer, Double>> ratios) {
+        occupancy = ratios;
+    }
+
+    public void addOccupancyListener(Consumer<Map<SpotType, Map<Integer, Double>>> listener) {
+        occupancyListeners.add(listener);
+    }
+
+    public RateSchedule getSchedule() {
+        return schedule;
+    }
+
+    // ===============================
+    //  PRICING
+    // ===============================
+
+    // Fee for a stay from entryTime to exitTime, billed as the given (already rounded-up) hours
+    public double parkingFee(ParkingSpot spot, Vehicle vehicle, LocalDateTime entryTime,
+                             LocalDateTime exitTime, long hours) {
+        if (spot == null) return hours * FALLBACK_RATE;
+        return parkingFee(spot.getType(), spot.getSpotId(), vehicle, entryTime, exitTime, hours);
+    }
+
+    public double parkingFee(SpotType type, String spotId, Vehicle vehicle, LocalDateTime entryTime,
+                             LocalDateTime exitTime, long hours) {
+        if (type == null) return hours * FALLBACK_RATE;
+        return fee(type, vehicle, entryTime, exitTime, hours, occupancyFactor(type, floorOf(spotId)));
+    }
+
+    // Fee shown to the driver before paying; fixes the occupancy factor the exit of this ticket will use
+    public double quoteFee(String ticketNo, ParkingSpot spot, Vehicle vehicle, LocalDateTime entryTime,
+                           LocalDateTime exitTime, long hours) {
+        if (spot == null) return hours * FALLBACK_RATE;
+        double factor = occupancyFactor(spot.getType(), floorOf(spot.getSpotId()));
+        quotedFactors.put(ticketNo, factor);
+        return fee(spot.getType(), vehicle, entryTime, exitTime, hours, factor);
+    }
+
+    // Fee charged at exit: the factor of the ticket's last quote (current occupancy without one)
+    public double exitFee(String ticketNo, ParkingSpot spot, Vehicle vehicle, LocalDateTime entryTime,
+                          LocalDateTime exitTime, long hours) {
+        if (spot == null) return hours * FALLBACK_RATE;
+        return exitFee(ticketNo, spot.getType(), spot.getSpotId(), vehicle, entryTime, exitTime, hours);
+    }
+
+    public double exitFee(String ticketNo, SpotType type, String spotId, Vehicle vehicle, LocalDateTime entryTime,
+                          LocalDateTime exitTime, long hours) {
+        if (type == null) return hours * FALLBACK_RATE;
+        Double quoted = quotedFactors.get(ticketNo);
+        double factor = quoted != null ? quoted : occupancyFactor(type, floorOf(spotId));
+        return fee(type, vehicle, entryTime, exitTime, hours, factor);
+    }
+
+    // Forgets the quote once the ticket has exited
+    public void exited(String ticketNo) {
+        quotedFactors.remove(ticketNo);
+    }
+
+    private double fee(SpotType type, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime,
+                       long hours, double occupancyFactor) {
+        double rate = baseRate(type, vehicle);
+        if (rate == 0) return 0;
+
+        Tariff t = tariff;
+        double units = t != null
+                ? t.units(entryTime, exitTime)
+                : schedule.sumHours(RateSchedule.hourOfWeek(entryTime), hours);
+        double fee = rate * units * occupancyFactor;
+        return Math.round(fee * 100) / 100.0;
+    }
+
+    // Current occupancy multiplier for a spot type on a floor (1.0 when off)
+    public double occupancyFactor(SpotType type, int floor) {
+        double[] thresholds = tierThresholds;
+        double[] multipliers = tierMultipliers;
+        if (thresholds.length == 0) return 1.0;
+
+        Double ratio = occupancy.getOrDefault(type, Map.of()).get(floor);
+        if (ratio == null) return 1.0;
+        double factor = 1.0;
+        for (int i = 0; i < thresholds.length && ratio >= thresholds[i]; i++) factor = multipliers[i];
+        return factor;
+    }
+
+    // Hourly base rate by spot type and vehicle, before time-of-day and occupancy adjustments
+    public static double baseRate(SpotType type, Vehicle vehicle) {
+        // Special rule: Handicapped vehicle with HC card gets discounted rate anywhere
+        if (vehicle.getType().equalsIgnoreCase("HANDICAPPED") && vehicle.hasHcCard()) {
+            return 2.0;
+        }
+
+        return switch (type) {
+            case COMPACT     -> 2.0;
+            case REGULAR     -> 5.0;
+            case HANDICAPPED -> vehicle.hasHcCard() ? 0.0 : 2.0;  // free only in HC spot with card
+            case RESERVED    -> 10.0;
+        };
+    }
+
+    // Spot ids look like "F2-R1-S7"; anything else counts as floor 0
+    static int floorOf(String spotId) {
+        if (spotId == null || spotId.length() < 2 || spotId.charAt(0) != 'F') return 0;
+        int dash = spotId.indexOf('-');
+        try {
+            return Integer.parseInt(spotId.substring(1, dash < 0 ? spotId.length() : dash));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package pricing;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Time-of-day rate multipliers for every hour of the week (Monday 00:00 = slot 0).
+ *
+ * Written as rules applied in order, later rules overriding earlier ones:
+ *   "MON-FRI 07-10 x1.5; MON-FRI 16-19 x1.5; SAT-SUN 00-24 x0.8"
+ * Day parts are MON..SUN, a range like MON-FRI, or ALL; hours are [from, to).
+ *
+ * The schedule keeps prefix sums of the multipliers, so the total multiplier for any run of
+ * consecutive hours — however many weeks it spans — costs two array lookups.
+ */
+public class RateSchedule {
+
+    public static final int HOURS_PER_WEEK = 168;
+    public static final RateSchedule FLAT = new RateSchedule(filled(1.0), "");
+
+    private final double[] multipliers;  // per hour of week
+    private final double[] prefix;       // prefix[i] = sum of multipliers[0..i)
+    private final String spec;
+
+    private RateSchedule(double[] multipliers, String spec) {
+        this.multipliers = multipliers;
+        this.spec = spec;
+        this.prefix = new double[HOURS_PER_WEEK + 1];
+        for (int i = 0; i < HOURS_PER_WEEK; i++) prefix[i + 1] = prefix[i] + multipliers[i];
+    }
+
+    public static RateSchedule parse(String spec) {
+        if (spec == null || spec.isBlank()) return FLAT;
+        double[] m = filled(1.0);
+        for (String rule : spec.split(";")) {
+            rule = rule.trim();
+            if (rule.isEmpty()) continue;
+            String[] parts = rule.split("\\s+");
+            if (parts.length != 3 || !parts[2].toLowerCase().startsWith("x")) {
+                throw new IllegalArgumentException("Bad rate rule '" + rule + "', expected e.g. 'MON-FRI 07-10 x1.5'");
+            }
+            if (!parts[1].matches("\\d{1,2}-\\d{1,2}")) {
+                throw new IllegalArgumentException("Bad hour range '" + parts[1] + "' in rate rule '" + rule + "', expected HH-HH");
+            }
+            int[] days = parseRange(parts[0]);
+            String[] hours = parts[1].split("-");
+            int fromHour = Integer.parseInt(hours[0]);
+            int toHour = Integer.parseInt(hours[1]);
+            double multiplier = Double.parseDouble(parts[2].substring(1)); // NumberFormatException is an IllegalArgumentException
+            if (fromHour < 0 || toHour > 24 || fromHour >= toHour || multiplier < 0) {
+                throw new IllegalArgumentException("Bad rate rule '" + rule + "'");
+            }
+            for (int d = days[0]; d <= days[1]; d++) {
+                for (int h = fromHour; h < toHour; h++) m[d * 24 + h] = multiplier;
+            }
+        }
+        return new RateSchedule(m, spec.trim());
+    }
+
+    public static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    public double multiplierAt(LocalDateTime time) {
+        return multipliers[hourOfWeek(time)];
+    }
+
+    /**
+     * Sum of the multipliers of the given number of consecutive hours starting at startHourOfWeek.
+     * O(1): whole weeks use the weekly total, the remainder at most two prefix-sum ranges.
+     */
+    public double sumHours(int startHourOfWeek, long hours) {
+        if (hours <= 0) return 0;
+        long weeks = hours / HOURS_PER_WEEK;
+        int rest = (int) (hours % HOURS_PER_WEEK);
+        double total = weeks * prefix[HOURS_PER_WEEK];
+
+        int end = startHourOfWeek + rest;
+        if (end <= HOURS_PER_WEEK) {
+            total += prefix[end] - prefix[startHourOfWeek];
+        } else {
+            total += prefix[HOURS_PER_WEEK] - prefix[startHourOfWeek] + prefix[end - HOURS_PER_WEEK];
+        }
+        return total;
+    }
+
+    public boolean isFlat() {
+        for (double m : multipliers) if (m != 1.0) return false;
+        return true;
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    private static int[] parseRange(String days) {
+        String d = days.toUpperCase();
+        if (d.equals("ALL")) return new int[]{0, 6};
+        String[] ends = d.split("-", -1);
+        if (ends.length > 2) throw new IllegalArgumentException("Bad day range: " + days);
+        int from = dayIndex(ends[0]);
+        int to = ends.length > 1 ? dayIndex(ends[1]) : from;
+        if (to < from) throw new IllegalArgumentException("Day range must run MON to SUN: " + days);
+        return new int[]{from, to};
+    }
+
+    private static int dayIndex(String day) {
+        for (DayOfWeek dow : DayOfWeek.values()) {
+            if (dow.name().startsWith(day) && day.length() >= 3) return dow.getValue() - 1;
+        }
+        throw new IllegalArgumentException("Unknown day: " + day);
+    }
+
+    private static double[] filled(double value) {
+        double[] m = new double[HOURS_PER_WEEK];
+        Arrays.fill(m, value);
+        return m;
+    }
+}
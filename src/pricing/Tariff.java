@@ -0,0 +1,158 @@
+package pricing;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Calendar tariff: hourly charging by day, a flat night rate, a daily cap, an optional free
+ * first hour and separate weekend values. Amounts are multiples of the spot's base hourly
+ * rate, so one tariff serves every spot type.
+ *
+ * Charging works on "tariff days" that start at the day-window opening (07:00 by default):
+ *   - day window  [07:00, 19:00): every started hour costs "hourly"
+ *   - night window [19:00, 07:00): one flat "night" charge if the stay touches it
+ *   - per tariff day the charge never exceeds "cap"
+ * The tariff day starting on Saturday or Sunday uses the weekend values.
+ *
+ * A stay is priced as its first and last partial days plus the full days in between, which
+ * are counted (weekday vs weekend) in closed form — a week-long stay costs the same to price
+ * as a one-hour stay.
+ *
+ * Spec: "day 07-19; first_hour free; weekday hourly 1 night 3 cap 8; weekend hourly 0.8 night 2 cap 5"
+ */
+public class Tariff {
+
+    private static final int MINUTES_PER_DAY = 1440;
+
+    private final int dayStartHour;
+    private final int dayMinutes;          // length of the day window
+    private final boolean firstHourFree;
+    private final double[] hourly = {1, 1};  // [weekday, weekend]
+    private final double[] night = {0, 0};
+    private final double[] cap = {0, 0};     // 0 = no cap
+    private final String spec;
+
+    private Tariff(int dayStartHour, int dayEndHour, boolean firstHourFree, String spec) {
+        this.dayStartHour = dayStartHour;
+        this.dayMinutes = (dayEndHour - dayStartHour) * 60;
+        this.firstHourFree = firstHourFree;
+        this.spec = spec;
+    }
+
+    public static Tariff parse(String spec) {
+        int dayStart = 7, dayEnd = 19;
+        boolean freeHour = false;
+        String[] clauses = spec.split(";");
+        for (String clause : clauses) {
+            String[] t = clause.trim().toLowerCase().split("\\s+");
+            if (t[0].equals("day")) {
+                String[] hours = t.length == 2 ? t[1].split("-") : new String[0];
+                if (hours.length != 2) throw new IllegalArgumentException("Expected \"day HH-HH\": " + clause.trim());
+                dayStart = Integer.parseInt(hours[0]);
+                dayEnd = Integer.parseInt(hours[1]);
+            } else if (t[0].equals("first_hour")) {
+                freeHour = t.length > 1 && t[1].equals("free");
+            }
+        }
+        if (dayStart < 0 || dayEnd > 24 || dayStart >= dayEnd) {
+            throw new IllegalArgumentException("Day window must be within 00-24: " + spec);
+        }
+
+        Tariff tariff = new Tariff(dayStart, dayEnd, freeHour, spec.trim());
+        for (String clause : clauses) {
+            String[] t = clause.trim().toLowerCase().split("\\s+");
+            int kind;
+            if (t[0].equals("weekday")) kind = 0;
+            else if (t[0].equals("weekend")) kind = 1;
+            else if (t[0].equals("day") || t[0].equals("first_hour") || t[0].isEmpty()) continue;
+            else throw new IllegalArgumentException("Unknown tariff clause: " + clause.trim());
+            if (t.length % 2 == 0) throw new IllegalArgumentException("Expected field/value pairs: " + clause.trim());
+
+            for (int i = 1; i + 1 < t.length; i += 2) {
+                double value = Double.parseDouble(t[i + 1]);
+                if (value < 0) throw new IllegalArgumentException("Negative tariff value: " + clause.trim());
+                switch (t[i]) {
+                    case "hourly" -> tariff.hourly[kind] = value;
+                    case "night"  -> tariff.night[kind] = value;
+                    case "cap"    -> tariff.cap[kind] = value;
+                    default -> throw new IllegalArgumentException("Unknown tariff field: " + t[i]);
+                }
+            }
+        }
+        // Weekend values default to the weekday ones unless given
+        if (!spec.toLowerCase().contains("weekend")) {
+            tariff.hourly[1] = tariff.hourly[0];
+            tariff.night[1] = tariff.night[0];
+            tariff.cap[1] = tariff.cap[0];
+        }
+        return tariff;
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * Charge for a stay in multiples of the base hourly rate.
+     */
+    public double units(LocalDateTime entry, LocalDateTime exit) {
+        long from = tariffMinutes(entry) + (firstHourFree ? 60 : 0);
+        long to = tariffMinutes(exit);
+        if (to <= from) return 0;
+
+        long firstDay = Math.floorDiv(from, MINUTES_PER_DAY);
+        long lastDay = Math.floorDiv(to, MINUTES_PER_DAY);
+        int fromOffset = Math.floorMod(from, MINUTES_PER_DAY);
+        int toOffset = Math.floorMod(to, MINUTES_PER_DAY);
+
+        if (firstDay == lastDay) return partialDay(firstDay, fromOffset, toOffset);
+
+        double total = partialDay(firstDay, fromOffset, MINUTES_PER_DAY);
+        if (toOffset > 0) total += partialDay(lastDay, 0, toOffset);
+
+        long fullDays = lastDay - firstDay - 1;
+        if (fullDays > 0) {
+            long weekendDays = countWeekendDays(firstDay + 1, fullDays);
+            total += (fullDays - weekendDays) * fullDay(0) + weekendDays * fullDay(1);
+        }
+        return total;
+    }
+
+    // Charge for [fromOffset, toOffset) minutes into one tariff day
+    private double partialDay(long day, int fromOffset, int toOffset) {
+        int kind = isWeekend(day) ? 1 : 0;
+        int dayPart = Math.max(0, Math.min(toOffset, dayMinutes) - fromOffset);
+        boolean touchesNight = toOffset > dayMinutes;
+        double charge = Math.ceil(dayPart / 60.0) * hourly[kind] + (touchesNight ? night[kind] : 0);
+        return capped(charge, kind);
+    }
+
+    private double fullDay(int kind) {
+        return capped(Math.ceil(dayMinutes / 60.0) * hourly[kind] + night[kind], kind);
+    }
+
+    private double capped(double charge, int kind) {
+        return cap[kind] > 0 ? Math.min(charge, cap[kind]) : charge;
+    }
+
+    // Minutes since 1970-01-01 at the day-window opening (calendar time, no zone shifts)
+    private long tariffMinutes(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60 - dayStartHour * 60L;
+    }
+
+    // Tariff day 0 started on Thursday 1970-01-01
+    private static boolean isWeekend(long day) {
+        int dow = Math.floorMod(day + 3, 7); // 0 = Monday
+        return dow >= 5;
+    }
+
+    // Weekend tariff days among count consecutive days from startDay: whole weeks + a short remainder
+    private static long countWeekendDays(long startDay, long count) {
+        long weekends = (count / 7) * 2;
+        long rest = count % 7;
+        for (long d = 0; d < rest; d++) {
+            if (isWeekend(startDay + d)) weekends++;
+        }
+        return weekends;
+    }
+}
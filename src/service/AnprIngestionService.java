@@ -0,0 +1,436 @@
+package service;
+
+import data.DataStore;
+import data.DataStoreDecorator;
+import data.EventPublishingDataStore;
+import data.StoreEvent;
+import enums.SpotType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PlateRead;
+import model.Vehicle;
+import model.PlateCodec;
+
+/**
+ * Streaming entry pipeline for ANPR camera feeds.
+ *
+ * Plate reads arrive from a file or a local socket (one "time,plate[,gate]" per line) and go
+ * into a bounded queue; when the writer falls behind the queue fills up and the readers block,
+ * which slows the feed down instead of buffering without limit. A single writer thread:
+ *  - drops repeated reads of the same plate inside a sliding time window,
+ *  - drops plates that are already parked,
+ *  - tickets each entry with the generator of the camera's gate ("G2" issues as gate 2),
+ *  - assigns a spot from an in-memory free-spot pool (no spot scan per vehicle), giving a
+ *    plate its booked spot (checked in once the batch commits) and skipping spots held for
+ *    other bookings,
+ *  - writes each micro-batch of sessions and spot updates in one transaction, which the
+ *    store rolls back if a spot is no longer free (taken at a gate since the pool was
+ *    loaded); the pool is then reloaded and the batch retried once.
+ * On an event-publishing store, exits free their plate and spot before the next batch; the
+ * pool is still reloaded every POOL_RELOAD_MILLIS to pick up anything else.
+ * The store must serialize writers on its connection, as the router's stores do.
+ */
+public class AnprIngestionService {
+
+    private static final DateTimeFormatter ENTRY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String CAMERA_VEHICLE_TYPE = "CAR"; // cameras cannot tell the vehicle class
+    private static final long POOL_RELOAD_MILLIS = 30_000;
+
+    private final DataStore dataStore;
+    private final EntryService entryService;
+    private final int batchSize;
+    private final long maxBatchDelayMillis;
+    private final Duration dedupWindow;
+    private final EventPublishingDataStore events; // null: exits are only seen on reload
+    private final Consumer<StoreEvent> eventListener = this::onStoreEvent;
+    private final ConcurrentLinkedQueue<StoreEvent> storeEvents = new ConcurrentLinkedQueue<>();
+
+    private final BlockingQueue<PlateRead> queue;
+    private volatile boolean running;
+    private Thread writerThread;
+    private ServerSocket serverSocket;
+
+    // Writer-thread state (only touched by the writer thread)
+    private final LinkedHashMap<Long, LocalDateTime> recentReads = new LinkedHashMap<>(); // keyed by PlateCodec.hash
+    private final Set<Long> platesInside = new HashSet<>();
+    private final Map<SpotType, ArrayDeque<String>> freeSpots = new EnumMap<>(SpotType.class);
+    private final Map<String, SpotType> spotTypes = new HashMap<>();
+    private final Map<String, Long> plateByTicket = new HashMap<>(); // open sessions
+    private final Map<Integer, TicketIdGenerator> gateTicketIds = new HashMap<>();
+    private long poolLoadedAt;
+
+    // Statistics
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public AnprIngestionService(DataStore dataStore, EntryService entryService) {
+        this(dataStore, entryService, 200, 250, 10_000, Duration.ofSeconds(30));
+    }
+
+    public AnprIngestionService(DataStore dataStore, EntryService entryService, int batchSize,
+                                long maxBatchDelayMillis, int queueCapacity, Duration dedupWindow) {
+        this.dataStore = dataStore;
+        this.entryService = entryService;
+        this.batchSize = batchSize;
+        this.maxBatchDelayMillis = maxBatchDelayMillis;
+        this.dedupWindow = dedupWindow;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.events = DataStoreDecorator.find(dataStore, EventPublishingDataStore.class);
+    }
+
+    // ===============================
+    //  LIFECYCLE
+    // ===============================
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        if (events != null) events.addListener(eventListener);
+        writerThread = new Thread(this::writerLoop, "anpr-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        try { if (serverSocket != null) serverSocket.close(); } catch (IOException e) { e.printStackTrace(); }
+        if (writerThread != null) {
+            try {
+                writerThread.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (events != null) events.removeListener(eventListener);
+    }
+
+    // ===============================
+    //  SOURCES
+    // ===============================
+
+    // Blocks while the queue is full (backpressure)
+    public void submit(PlateRead read) throws InterruptedException {
+        queue.put(read);
+        received.incrementAndGet();
+    }
+
+    // Replays a recorded feed file, one plate read per line
+    public void ingestFile(Path file) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            readLines(reader);
+        }
+    }
+
+    // Accepts camera connections on the loopback interface; each connection streams lines
+    public void listen(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            while (running && !serverSocket.isClosed()) {
+                try {
+                    Socket camera = serverSocket.accept();
+                    Thread reader = new Thread(() -> readSocket(camera), "anpr-camera");
+                    reader.setDaemon(true);
+                    reader.start();
+                } catch (IOException e) {
+                    if (running) e.printStackTrace();
+                }
+            }
+        }, "anpr-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void readSocket(Socket camera) {
+        try (camera; BufferedReader reader = new BufferedReader(
+                new InputStreamReader(camera.getInputStream(), StandardCharsets.UTF_8))) {
+            readLines(reader);
+        } catch (IOException e) {
+            System.err.println("Camera connection closed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readLines(BufferedReader reader) throws IOException, InterruptedException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                submit(PlateRead.parse(line));
+            } catch (RuntimeException e) {
+                System.err.println("Skipping bad plate read: " + line);
+            }
+        }
+    }
+
+    // ===============================
+    //  WRITER (micro-batching)
+    // ===============================
+    private void writerLoop() {
+        reloadLotState();
+
+        List<PlateRead> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PlateRead first = queue.poll(maxBatchDelayMillis, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.currentTimeMillis() + maxBatchDelayMillis;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    PlateRead next = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PlateRead> reads) {
+        if (System.currentTimeMillis() - poolLoadedAt > POOL_RELOAD_MILLIS) reloadLotState();
+        else applyStoreEvents();
+
+        List<PlateRead> fresh = new ArrayList<>(reads.size());
+        for (PlateRead read : reads) {
+            if (isDuplicate(PlateCodec.hash(read.getPlate()), read.getReadTime())) { // hash: misreads are not interned
+                duplicates.incrementAndGet();
+            } else {
+                fresh.add(read);
+            }
+        }
+        if (fresh.isEmpty() || admit(fresh)) return;
+
+        // Rolled back, typically because a pooled spot was taken at a gate since the last reload:
+        // re-read the lot (which drops the stale spot) and try the batch once more
+        reloadLotState();
+        if (!admit(fresh)) rejected.addAndGet(fresh.size());
+    }
+
+    // Assigns spots and writes the sessions in one transaction; false = rolled back, pool and plates restored
+    private boolean admit(List<PlateRead> reads) {
+        String fineScheme = entryService.activeFineSchemeName();
+        List<ParkingSession> sessions = new ArrayList<>();
+        List<LocalDateTime> readTimes = new ArrayList<>();
+        Map<String, SpotType> assignedTypes = new HashMap<>();
+        int refused = 0;
+
+        for (PlateRead read : reads) {
+            String plate = PlateCodec.normalize(read.getPlate());
+            if (platesInside.contains(PlateCodec.lookup(plate))) {
+                refused++;
+                continue;
+            }
+
+            Vehicle vehicle = new Vehicle(plate, CAMERA_VEHICLE_TYPE, false, false);
+            String ticketNo;
+            try {
+                ticketNo = ticketIdsFor(read.getGateId()).nextTicketNo(read.getReadTime());
+            } catch (IllegalArgumentException e) {
+                refused++; // unnumbered gate, or read too late to be ticketed at its own time
+                System.err.println("Refused " + plate + " at gate " + read.getGateId() + ": " + e.getMessage());
+                continue;
+            }
+            SpotType type = entryService.chooseSpotType(vehicle, freeCounts());
+            String spotId = takeSpot(type, plate, read.getReadTime(), assignedTypes);
+            if (spotId == null) {
+                refused++;
+                System.err.println("Lot full for " + plate + " at gate " + read.getGateId());
+                continue;
+            }
+
+            sessions.add(new ParkingSession(ticketNo, vehicle, spotId,
+                    read.getReadTime().format(ENTRY_FORMAT), fineScheme));
+            readTimes.add(read.getReadTime());
+            platesInside.add(PlateCodec.encode(plate));
+        }
+
+        if (!sessions.isEmpty() && !dataStore.createSessionBatch(sessions)) {
+            // Give the spots and plates back (the caller reloads the pool before retrying)
+            for (ParkingSession s : sessions) {
+                freeSpots.get(assignedTypes.get(s.getSpotId())).addFirst(s.getSpotId());
+                platesInside.remove(PlateCodec.encode(s.getPlate()));
+            }
+            return false;
+        }
+        for (ParkingSession s : sessions) plateByTicket.put(s.getTicketNo(), PlateCodec.encode(s.getPlate()));
+        // Committed: plates that drove into their booked spot fulfil the booking
+        for (int i = 0; i < sessions.size(); i++) {
+            entryService.checkIn(sessions.get(i).getPlate(), sessions.get(i).getSpotId(), readTimes.get(i));
+        }
+        rejected.addAndGet(refused);
+        if (!sessions.isEmpty()) {
+            admitted.addAndGet(sessions.size());
+            batches.incrementAndGet();
+        }
+        return true;
+    }
+
+    // Takes the plate's booked spot if it is due and free, else a free spot of the type not held for a booking
+    private String takeSpot(SpotType type, String plate, LocalDateTime at, Map<String, SpotType> assignedTypes) {
+        String booked = entryService.bookedSpotFor(plate, at);
+        if (booked != null) {
+            for (Map.Entry<SpotType, ArrayDeque<String>> e : freeSpots.entrySet()) {
+                if (e.getValue().remove(booked)) {
+                    assignedTypes.put(booked, e.getKey());
+                    return booked;
+                }
+            }
+        }
+        if (type == null) return null;
+        for (Iterator<String> it = freeSpots.get(type).iterator(); it.hasNext(); ) {
+            String spotId = it.next();
+            if (!entryService.isHeldForOther(spotId, plate, at)) {
+                it.remove();
+                assignedTypes.put(spotId, type);
+                return spotId;
+            }
+        }
+        return null;
+    }
+
+    // Ticket generator of a camera gate, numbered by the digits of its id ("G2" -> 2)
+    private TicketIdGenerator ticketIdsFor(String gate) {
+        String digits = gate == null ? "" : gate.replaceAll("\\D", "");
+        if (digits.isEmpty() || digits.length() > 4) {
+            throw new IllegalArgumentException("Gate " + gate + " has no gate number");
+        }
+        int gateNo = Integer.parseInt(digits);
+        TicketIdGenerator ids = gateTicketIds.get(gateNo);
+        if (ids == null) {
+            ids = entryService.ticketIdsForGate(gateNo); // IAE if out of range
+            gateTicketIds.put(gateNo, ids);
+        }
+        return ids;
+    }
+
+    // Runs under the store's lock: only hand the event to the writer thread
+    private void onStoreEvent(StoreEvent event) {
+        switch (event.getType()) {
+            case SESSION_OPENED, SESSION_CLOSED, SPOT_RELEASED, RELOAD -> storeEvents.add(event);
+            default -> { }
+        }
+    }
+
+    // Frees the plates and spots of exits since the last batch and takes those of entries made elsewhere
+    private void applyStoreEvents() {
+        StoreEvent event;
+        while ((event = storeEvents.poll()) != null) {
+            switch (event.getType()) {
+                case SESSION_OPENED -> { // entries of our own batches are already recorded
+                    if (plateByTicket.containsKey(event.getTicketNo())) continue;
+                    long plate = PlateCodec.encode(event.getPlate());
+                    plateByTicket.put(event.getTicketNo(), plate);
+                    platesInside.add(plate);
+                    SpotType type = spotTypes.get(event.getSpotId());
+                    if (type != null) freeSpots.get(type).remove(event.getSpotId());
+                }
+                case SESSION_CLOSED -> {
+                    Long plate = plateByTicket.remove(event.getTicketNo());
+                    if (plate != null) platesInside.remove(plate);
+                }
+                case SPOT_RELEASED -> {
+                    SpotType type = spotTypes.get(event.getSpotId());
+                    ArrayDeque<String> pool = type == null ? null : freeSpots.get(type);
+                    if (pool != null && !pool.contains(event.getSpotId())) pool.addLast(event.getSpotId());
+                }
+                case RELOAD -> {
+                    reloadLotState();
+                    return;
+                }
+                default -> { }
+            }
+        }
+    }
+
+    // Sliding window: a plate read again within dedupWindow of its last read is ignored
+    private boolean isDuplicate(long plateKey, LocalDateTime readTime) {
+        LocalDateTime cutoff = readTime.minus(dedupWindow);
+        Iterator<Map.Entry<Long, LocalDateTime>> it = recentReads.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().isAfter(cutoff)) break;
+            it.remove();
+        }
+
+        LocalDateTime last = recentReads.remove(plateKey);
+        recentReads.put(plateKey, readTime); // re-insert at the tail (most recent)
+        return last != null && last.isAfter(cutoff);
+    }
+
+    // Rebuilds the free-spot pool and parked plates from the store (picks up exits)
+    private void reloadLotState() {
+        storeEvents.clear(); // the reload reads their effects
+        platesInside.clear();
+        plateByTicket.clear();
+        for (ParkingSession s : dataStore.getAllActiveSessions()) {
+            long plate = PlateCodec.encode(s.getPlate());
+            platesInside.add(plate);
+            plateByTicket.put(s.getTicketNo(), plate);
+        }
+
+        freeSpots.clear();
+        spotTypes.clear();
+        for (SpotType type : SpotType.values()) freeSpots.put(type, new ArrayDeque<>());
+        for (ParkingSpot spot : dataStore.getAllSpots()) {
+            spotTypes.put(spot.getSpotId(), spot.getType());
+            if (spot.isAvailable()) freeSpots.get(spot.getType()).add(spot.getSpotId());
+        }
+        poolLoadedAt = System.currentTimeMillis();
+    }
+
+    private Map<SpotType, Integer> freeCounts() {
+        Map<SpotType, Integer> counts = new EnumMap<>(SpotType.class);
+        for (Map.Entry<SpotType, ArrayDeque<String>> e : freeSpots.entrySet()) {
+            counts.put(e.getKey(), e.getValue().size());
+        }
+        return counts;
+    }
+
+    // --- Statistics ---
+    public long getReceivedCount() { return received.get(); }
+    public long getDuplicateCount() { return duplicates.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+    public long getAdmittedCount() { return admitted.get(); }
+    public long getBatchCount() { return batches.get(); }
+    public int getQueueDepth() { return queue.size(); }
+}
@@ -0,0 +1,80 @@
+package service;
+
+import data.ChangeConsumer;
+import data.ChangeLog;
+import data.ChangeRecord;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Tails a lot's ChangeLog into a local file, one JSON object per line, for testing
+ * downstream consumers without a broker. Runs as the consumer "file-sink" (or the given
+ * name) on its own thread; the offset is committed after each batch is flushed, so after
+ * a crash the file may repeat the last batch but never misses a change.
+ */
+public class ChangeFileSink {
+
+    public static final String DEFAULT_CONSUMER = "file-sink";
+    private static final int BATCH = 4096;
+
+    private final ChangeLog log;
+    private final Path file;
+    private final String consumerName;
+    private Thread thread;
+    private volatile boolean running;
+
+    public ChangeFileSink(ChangeLog log, Path file) {
+        this(log, file, DEFAULT_CONSUMER);
+    }
+
+    public ChangeFileSink(ChangeLog log, Path file, String consumerName) {
+        this.log = log;
+        this.file = file;
+        this.consumerName = consumerName;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "change-sink-" + consumerName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread == null) return;
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    private void run() {
+        try (ChangeConsumer consumer = log.consumer(consumerName);
+             BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (running) {
+                List<ChangeRecord> batch = consumer.poll(BATCH, 200);
+                if (batch.isEmpty()) continue;
+                for (ChangeRecord record : batch) {
+                    out.write(record.toJson());
+                    out.newLine();
+                }
+                out.flush();
+                consumer.commit();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package service;
+
+import data.DataStore;
+import data.DataStoreDecorator;
+import data.EventPublishingDataStore;
+import enums.SpotStatus;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import model.ConsistencyReport;
+import model.ConsistencyReport.Issue;
+import model.ConsistencyReport.IssueType;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PlateCodec;
+
+/**
+ * Cross-checks spots, open sessions and fines and optionally repairs what it can.
+ *
+ * Everything is loaded in four bulk scans (spots, open sessions, unpaid fines, session
+ * history) and indexed into hash maps, so each check is a hash join instead of a query per
+ * row. The three independent checks (spot side, session side, fine side) run in parallel;
+ * the repairs they collect are then applied in a single transaction, so a failed repair
+ * leaves the database exactly as it was. On a store that publishes change events, scans and
+ * repairs run under its write lock (readConsistent), so a write that lands meanwhile (an exit
+ * closing a session, a fine being paid) cannot be undone by a repair computed from older rows.
+ * Give it the FineService (setFineService) when the services are running, so plates whose
+ * fines were repaired drop out of its cache.
+ *
+ * Replaces the old per-session syncSpotStatusFromSessions at startup and can be run on
+ * demand from the admin dashboard.
+ */
+public class ConsistencyChecker {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final DataStore dataStore;
+    private final Clock clock; // exit time given to duplicate sessions it closes
+    private FineService fineService; // optional, its fine cache is told about repaired fines
+
+    public ConsistencyChecker(DataStore dataStore) {
+        this(dataStore, Clock.systemDefaultZone());
+    }
+
+    public ConsistencyChecker(DataStore dataStore, Clock clock) {
+        this.dataStore = dataStore;
+        this.clock = clock;
+    }
+
+    public ConsistencyChecker setFineService(FineService fineService) {
+        this.fineService = fineService;
+        return this;
+    }
+
+    // One problem plus the store call that fixes it (null = report only)
+    private static final class Finding {
+        final Issue issue;
+        final Runnable repair;
+        final String finePlate; // plate whose fines the repair changes, if any
+
+        Finding(Issue issue, Runnable repair) {
+            this(issue, repair, null);
+        }
+
+        Finding(Issue issue, Runnable repair, String finePlate) {
+            this.issue = issue;
+            this.repair = repair;
+            this.finePlate = finePlate;
+        }
+    }
+
+    // Read-only check
+    public ConsistencyReport check() {
+        return check(false);
+    }
+
+    public ConsistencyReport check(boolean repair) {
+        long started = System.nanoTime();
+        ConsistencyReport report = new ConsistencyReport();
+        List<Finding> repaired = new ArrayList<>();
+
+        EventPublishingDataStore events = DataStoreDecorator.find(dataStore, EventPublishingDataStore.class);
+        Runnable run = () -> repaired.addAll(scanAndRepair(report, repair));
+        if (events != null) events.readConsistent(run);
+        else run.run();
+
+        if (fineService != null) {
+            for (Finding f : repaired) if (f.finePlate != null) fineService.invalidate(f.finePlate);
+        }
+        report.setDurationMillis((System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    // Scans, checks and (if asked) repairs; returns the findings a repair was attempted for
+    private List<Finding> scanAndRepair(ConsistencyReport report, boolean repair) {
+        // --- Bulk scans ---
+        List<ParkingSpot> spots = dataStore.getAllSpots();
+        List<ParkingSession> openSessions = dataStore.getAllActiveSessions();
+        List<FineRecord> unpaidFines = dataStore.getAllUnpaidFines();
+        List<ParkingSession> history = dataStore.getSessionsEnteredSince("");
+        report.setScanned(spots.size(), openSessions.size(), unpaidFines.size());
+
+        // --- Build side of the joins ---
+        Map<String, ParkingSpot> spotsById = new HashMap<>(spots.size() * 2);
+        for (ParkingSpot spot : spots) spotsById.put(spot.getSpotId(), spot);
+
+        // Open sessions per plate; only the newest one counts, the rest are duplicates
+        Map<String, List<ParkingSession>> openByPlate = new HashMap<>();
+        for (ParkingSession s : openSessions) {
+            openByPlate.computeIfAbsent(normalize(s.getPlate()), p -> new ArrayList<>()).add(s);
+        }
+        Map<String, List<ParkingSession>> liveBySpot = new HashMap<>();
+        for (List<ParkingSession> sessions : openByPlate.values()) {
+            sessions.sort((a, b) -> String.valueOf(b.getEntryTime()).compareTo(String.valueOf(a.getEntryTime())));
+            ParkingSession newest = sessions.get(0);
+            liveBySpot.computeIfAbsent(newest.getSpotId(), id -> new ArrayList<>()).add(newest);
+        }
+
+        Set<String> platesSeen = new HashSet<>();
+        for (ParkingSession s : history) platesSeen.add(normalize(s.getPlate()));
+        for (ParkingSession s : openSessions) platesSeen.add(normalize(s.getPlate()));
+
+        // --- Probe side, in parallel ---
+        ExecutorService pool = Executors.newFixedThreadPool(3, r -> {
+            Thread t = new Thread(r, "consistency-check");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Finding> findings = new ArrayList<>();
+        try {
+            CompletableFuture<List<Finding>> spotSide =
+                    CompletableFuture.supplyAsync(() -> checkSpots(spots, liveBySpot), pool);
+            CompletableFuture<List<Finding>> sessionSide =
+                    CompletableFuture.supplyAsync(() -> checkSessions(openByPlate, liveBySpot, spotsById), pool);
+            CompletableFuture<List<Finding>> fineSide =
+                    CompletableFuture.supplyAsync(() -> checkFines(unpaidFines, platesSeen), pool);
+            findings.addAll(spotSide.join());
+            findings.addAll(sessionSide.join());
+            findings.addAll(fineSide.join());
+        } finally {
+            pool.shutdown();
+        }
+        for (Finding f : findings) report.addIssue(f.issue);
+
+        // --- Repairs, all or nothing ---
+        List<Finding> repairs = new ArrayList<>();
+        for (Finding f : findings) if (f.repair != null) repairs.add(f);
+        if (!repair || repairs.isEmpty()) return Collections.emptyList();
+        boolean committed = dataStore.runInTransaction(() -> {
+            for (Finding f : repairs) f.repair.run();
+        });
+        if (committed) {
+            for (Finding f : repairs) f.issue.setRepaired(true);
+        }
+        report.setRepairResult(true, committed);
+        return repairs;
+    }
+
+    // Every spot against the live session on it
+    private List<Finding> checkSpots(List<ParkingSpot> spots, Map<String, List<ParkingSession>> liveBySpot) {
+        List<Finding> out = new ArrayList<>();
+        for (ParkingSpot spot : spots) {
+            String spotId = spot.getSpotId();
+            List<ParkingSession> live = liveBySpot.getOrDefault(spotId, Collections.emptyList());
+
+            if (live.isEmpty()) {
+                if (spot.getStatus() == SpotStatus.OCCUPIED) {
+                    out.add(new Finding(new Issue(IssueType.OCCUPIED_WITHOUT_SESSION, spotId,
+                            "marked OCCUPIED by " + spot.getCurrentVehiclePlate() + " but has no open session", true),
+                            () -> dataStore.setSpotAvailable(spotId)));
+                }
+                continue;
+            }
+
+            String plate = live.get(0).getPlate();
+            if (spot.isAvailable()) {
+                out.add(new Finding(new Issue(IssueType.AVAILABLE_WITH_SESSION, spotId,
+                        "marked AVAILABLE but " + plate + " is parked there", true),
+                        () -> dataStore.setSpotOccupied(spotId, plate)));
+            } else if (!normalize(plate).equals(normalize(spot.getCurrentVehiclePlate()))) {
+                out.add(new Finding(new Issue(IssueType.PLATE_MISMATCH, spotId,
+                        "shows " + spot.getCurrentVehiclePlate() + " but the open session is " + plate, true),
+                        () -> dataStore.setSpotOccupied(spotId, plate)));
+            }
+        }
+        return out;
+    }
+
+    // Duplicate open sessions, sessions on missing spots, spots with several live sessions
+    private List<Finding> checkSessions(Map<String, List<ParkingSession>> openByPlate,
+                                        Map<String, List<ParkingSession>> liveBySpot,
+                                        Map<String, ParkingSpot> spotsById) {
+        List<Finding> out = new ArrayList<>();
+        String closedAt = LocalDateTime.now(clock).format(FORMATTER);
+
+        for (List<ParkingSession> sessions : openByPlate.values()) {
+            ParkingSession newest = sessions.get(0);
+            for (int i = 1; i < sessions.size(); i++) {
+                ParkingSession stale = sessions.get(i);
+                String ticketNo = stale.getTicketNo();
+                out.add(new Finding(new Issue(IssueType.DUPLICATE_OPEN_SESSION, ticketNo,
+                        stale.getPlate() + " entered " + stale.getEntryTime() + " and again at "
+                                + newest.getEntryTime() + "; closing the older session without charge", true),
+                        () -> dataStore.closeSession(ticketNo, closedAt, 0, 0.0)));
+            }
+            if (!spotsById.containsKey(newest.getSpotId())) {
+                out.add(new Finding(new Issue(IssueType.SESSION_ON_UNKNOWN_SPOT, newest.getTicketNo(),
+                        newest.getPlate() + " is parked on unknown spot " + newest.getSpotId(), false), null));
+            }
+        }
+
+        liveBySpot.forEach((spotId, live) -> {
+            if (live.size() > 1) {
+                List<String> plates = new ArrayList<>();
+                for (ParkingSession s : live) plates.add(s.getPlate());
+                out.add(new Finding(new Issue(IssueType.SPOT_SHARED_BY_SESSIONS, spotId,
+                        live.size() + " open sessions on one spot: " + String.join(", ", plates), false), null));
+            }
+        });
+        return out;
+    }
+
+    // Unpaid fines against every plate that ever parked
+    private List<Finding> checkFines(List<FineRecord> unpaidFines, Set<String> platesSeen) {
+        List<Finding> out = new ArrayList<>();
+        for (FineRecord fine : unpaidFines) {
+            String subject = "fine #" + fine.getId();
+            if (fine.getAmount() <= 0) {
+                out.add(new Finding(new Issue(IssueType.EMPTY_UNPAID_FINE, subject,
+                        String.format("%s owes RM %.2f but the fine is still unpaid; marking it paid",
+                                fine.getPlate(), fine.getAmount()), true),
+                        () -> dataStore.reduceFineAmount(fine, 0), fine.getPlate()));
+            }
+            if (!platesSeen.contains(normalize(fine.getPlate()))) {
+                out.add(new Finding(new Issue(IssueType.FINE_WITHOUT_SESSION, subject,
+                        fine.getPlate() + " has a " + fine.getReason() + " fine but never parked here", false), null));
+            }
+        }
+        return out;
+    }
+
+    private static String normalize(String plate) {
+        return plate == null ? "" : PlateCodec.normalize(plate);
+    }
+}
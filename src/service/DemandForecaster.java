@@ -0,0 +1,217 @@
+package service;
+
+import data.DataStore;
+import enums.SpotType;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import model.ParkingSession;
+import model.ParkingSpot;
+
+/**
+ * Forecasts hourly arrivals and departures per SpotType from parking_session history.
+ *
+ * Each spot type keeps a seasonal profile of 168 hour-of-week slots (Monday 00:00 = slot 0).
+ * Every completed hour is folded into its slot with an exponentially weighted moving average,
+ * so a refresh only reads the sessions that entered or exited since the last refresh and
+ * walks the hours that passed in between. A refresh every few minutes costs a couple of
+ * small queries and a few hundred array updates.
+ */
+public class DemandForecaster {
+
+    private static final int SLOTS_PER_WEEK = 168;
+    private static final int MONDAY_OFFSET_HOURS = 3 * 24; // 1970-01-01 was a Thursday
+    private static final double ALPHA = 0.3;               // weight of the newest observation
+
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final DataStore dataStore;
+    private final Clock clock;
+
+    // Seasonal profiles: [type][slot]
+    private final Map<SpotType, double[]> arrivalLevel = new EnumMap<>(SpotType.class);
+    private final Map<SpotType, double[]> departureLevel = new EnumMap<>(SpotType.class);
+    private final Map<SpotType, boolean[]> slotSeen = new EnumMap<>(SpotType.class);
+
+    // Counts for the hour currently being accumulated
+    private final Map<SpotType, int[]> currentCounts = new EnumMap<>(SpotType.class); // {arrivals, departures}
+    private long cursorHour = -1; // epoch hour being accumulated, -1 until the first event
+
+    // Watermarks for incremental reads (tickets already counted at the watermark second)
+    private String entryWatermark = "";
+    private String exitWatermark = "";
+    private final Set<String> entryTicketsAtWatermark = new HashSet<>();
+    private final Set<String> exitTicketsAtWatermark = new HashSet<>();
+
+    private Map<String, SpotType> spotTypes = new HashMap<>();
+
+    public DemandForecaster(DataStore dataStore) {
+        this(dataStore, Clock.systemDefaultZone());
+    }
+
+    public DemandForecaster(DataStore dataStore, Clock clock) {
+        this.dataStore = dataStore;
+        this.clock = clock;
+        for (SpotType type : SpotType.values()) {
+            arrivalLevel.put(type, new double[SLOTS_PER_WEEK]);
+            departureLevel.put(type, new double[SLOTS_PER_WEEK]);
+            slotSeen.put(type, new boolean[SLOTS_PER_WEEK]);
+            currentCounts.put(type, new int[2]);
+        }
+    }
+
+    // ===============================
+    //  INCREMENTAL REFIT
+    // ===============================
+    public synchronized void refresh() {
+        refresh(LocalDateTime.now(clock));
+    }
+
+    public synchronized void refresh(LocalDateTime now) {
+        Map<String, SpotType> types = new HashMap<>();
+        for (ParkingSpot spot : dataStore.getAllSpots()) {
+            types.put(spot.getSpotId(), spot.getType());
+        }
+        spotTypes = types;
+
+        List<long[]> events = new ArrayList<>(); // {epochHour, typeOrdinal, kind}
+
+        List<ParkingSession> entered = dataStore.getSessionsEnteredSince(entryWatermark);
+        for (ParkingSession s : entered) {
+            String at = normalize(s.getEntryTime());
+            if (!advanceWatermark(at, s.getTicketNo(), true)) continue;
+            addEvent(events, s.getSpotId(), at, 0);
+        }
+
+        List<ParkingSession> exited = dataStore.getSessionsExitedSince(exitWatermark);
+        for (ParkingSession s : exited) {
+            String at = normalize(s.getExitTime());
+            if (!advanceWatermark(at, s.getTicketNo(), false)) continue;
+            addEvent(events, s.getSpotId(), at, 1);
+        }
+
+        events.sort((a, b) -> Long.compare(a[0], b[0]));
+        for (long[] e : events) {
+            advanceTo(e[0]);
+            currentCounts.get(SpotType.values()[(int) e[1]])[(int) e[2]]++;
+        }
+
+        if (cursorHour >= 0) advanceTo(toEpochHour(now));
+    }
+
+    // Returns false if the ticket was already counted in an earlier refresh
+    private boolean advanceWatermark(String at, String ticketNo, boolean entry) {
+        String watermark = entry ? entryWatermark : exitWatermark;
+        Set<String> seen = entry ? entryTicketsAtWatermark : exitTicketsAtWatermark;
+
+        int cmp = at.compareTo(watermark);
+        if (cmp < 0 || (cmp == 0 && seen.contains(ticketNo))) return false;
+        if (cmp > 0) {
+            seen.clear();
+            if (entry) entryWatermark = at; else exitWatermark = at;
+        }
+        seen.add(ticketNo);
+        return true;
+    }
+
+    private void addEvent(List<long[]> events, String spotId, String at, int kind) {
+        SpotType type = spotTypes.get(spotId);
+        if (type == null) return;
+        long hour = toEpochHour(LocalDateTime.parse(at, FORMATTER));
+        events.add(new long[]{hour, type.ordinal(), kind});
+    }
+
+    // Folds every completed hour up to (not including) targetHour into the seasonal profile
+    private void advanceTo(long targetHour) {
+        if (cursorHour < 0) {
+            cursorHour = targetHour;
+            return;
+        }
+        while (cursorHour < targetHour) {
+            int slot = slotOf(cursorHour);
+            for (SpotType type : SpotType.values()) {
+                int[] counts = currentCounts.get(type);
+                fold(type, slot, counts[0], counts[1]);
+                counts[0] = 0;
+                counts[1] = 0;
+            }
+            cursorHour++;
+        }
+    }
+
+    private void fold(SpotType type, int slot, int arrivals, int departures) {
+        boolean[] seen = slotSeen.get(type);
+        double[] arr = arrivalLevel.get(type);
+        double[] dep = departureLevel.get(type);
+        if (!seen[slot]) {
+            arr[slot] = arrivals;
+            dep[slot] = departures;
+            seen[slot] = true;
+        } else {
+            arr[slot] += ALPHA * (arrivals - arr[slot]);
+            dep[slot] += ALPHA * (departures - dep[slot]);
+        }
+    }
+
+    // ===============================
+    //  FORECAST QUERIES
+    // ===============================
+
+    // Expected arrivals for each of the next hoursAhead hours (index 0 = current hour)
+    public synchronized double[] forecastArrivals(SpotType type, int hoursAhead) {
+        return project(arrivalLevel.get(type), hoursAhead);
+    }
+
+    // Expected departures for each of the next hoursAhead hours (index 0 = current hour)
+    public synchronized double[] forecastDepartures(SpotType type, int hoursAhead) {
+        return project(departureLevel.get(type), hoursAhead);
+    }
+
+    // Expected arrivals minus departures over the horizon (positive = spots filling up)
+    public synchronized double netDemand(SpotType type, int hoursAhead) {
+        double[] arr = forecastArrivals(type, hoursAhead);
+        double[] dep = forecastDepartures(type, hoursAhead);
+        double net = 0;
+        for (int i = 0; i < hoursAhead; i++) net += arr[i] - dep[i];
+        return net;
+    }
+
+    // Spots of this type expected to be missing within the horizon given what is free now
+    public synchronized double projectedShortfall(SpotType type, int hoursAhead, int availableNow) {
+        return Math.max(0, netDemand(type, hoursAhead) - availableNow);
+    }
+
+    private double[] project(double[] profile, int hoursAhead) {
+        double[] out = new double[Math.max(0, hoursAhead)];
+        if (cursorHour < 0) return out;
+        for (int i = 0; i < out.length; i++) {
+            out[i] = profile[slotOf(cursorHour + i)];
+        }
+        return out;
+    }
+
+    // ===============================
+    //  Time helpers
+    // ===============================
+    private static String normalize(String time) {
+        String t = time.replace('T', ' ');
+        return t.length() == 16 ? t + ":00" : t;
+    }
+
+    private static long toEpochHour(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private static int slotOf(long epochHour) {
+        return Math.floorMod(epochHour + MONDAY_OFFSET_HOURS, SLOTS_PER_WEEK);
+    }
+}
@@ -1,25 +1,65 @@
 package service;
 
 import data.DataStore;
+import enums.SpotType;
+import fine.LotFineSchemes;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import model.ParkingSession;
 import model.ParkingSpot;
 import model.Vehicle;
+import model.PlateCodec;
 
 public class EntryService {
 
     private final DataStore dataStore;
+    private final DemandForecaster forecaster; // optional, null = no forecast-aware allocation
+    private final TicketIdGenerator ticketIds;
+    private final ReservationService reservations; // optional, null = no bookings
+    private final LotFineSchemes fineSchemes;       // pins the custom scheme to this lot's current version
+    private final Clock clock;                      // "now" for entries made without a time
     private static final DateTimeFormatter ENTRY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int FORECAST_HORIZON_HOURS = 3;
 
     public EntryService(DataStore dataStore) {
+        this(dataStore, null);
+    }
+
+    public EntryService(DataStore dataStore, DemandForecaster forecaster) {
+        this(dataStore, forecaster, null);
+    }
+
+    public EntryService(DataStore dataStore, DemandForecaster forecaster, ReservationService reservations) {
+        this(dataStore, forecaster, reservations, new TicketIdGenerator(Integer.getInteger("parking.gate.id", 1)));
+    }
+
+    public EntryService(DataStore dataStore, DemandForecaster forecaster, ReservationService reservations,
+                        TicketIdGenerator ticketIds) {
+        this(dataStore, forecaster, reservations, ticketIds, Clock.systemDefaultZone());
+    }
+
+    public EntryService(DataStore dataStore, DemandForecaster forecaster, ReservationService reservations,
+                        TicketIdGenerator ticketIds, Clock clock) {
         this.dataStore = dataStore;
+        this.forecaster = forecaster;
+        this.reservations = reservations;
+        this.ticketIds = ticketIds;
+        this.fineSchemes = new LotFineSchemes(dataStore::getConfig);
+        this.clock = clock;
     }
 
     public String registerVehicleEntry(Vehicle vehicle, String spotId) {
-        // Ticket format
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmm"));
-        String ticketNo = "T-" + vehicle.getPlate().toUpperCase().replace(" ", "") + "-" + timestamp;
+        return registerVehicleEntry(vehicle, spotId, LocalDateTime.now(clock));
+    }
+
+    // Entry at the given time (e.g. a simulation's virtual clock)
+    public String registerVehicleEntry(Vehicle vehicle, String spotId, LocalDateTime now) {
+        String ticketNo = newTicketNo(vehicle, now);
 
         ParkingSpot spot = dataStore.getAllSpots().stream()
                 .filter(s -> s.getSpotId().equals(spotId))
@@ -28,21 +68,116 @@ public class EntryService {
 
         if (spot == null) return null;
 
-        // Check spot suitability
-        if (!isSpotSuitable(vehicle, spot.getType().toString())) return null;
+        // A booked spot is held for its booking's plate
+        if (isHeldForOther(spotId, vehicle.getPlate(), now)) return null;
+
+        // Check spot suitability (a booking also entitles the plate to its spot)
+        if (!isSpotSuitable(vehicle, spot.getType().toString()) && !isBookedFor(spotId, vehicle.getPlate(), now)) return null;
 
         // Get active fine scheme from DataStore
-        String fineScheme = dataStore.getActiveFineScheme();  // <- new
+        String fineScheme = activeFineSchemeName();
 
         // Save session
-        String entryTime = LocalDateTime.now().format(ENTRY_FORMAT);
+        String entryTime = now.format(ENTRY_FORMAT);
         ParkingSession session = new ParkingSession(ticketNo, vehicle, spotId, entryTime, fineScheme);
         dataStore.createSession(session);
         dataStore.setSpotOccupied(spotId, vehicle.getPlate());
+        if (reservations != null) reservations.checkIn(vehicle.getPlate(), spotId, now);
 
         return ticketNo;
     }
 
+    /**
+     * Picks a spot for the vehicle instead of making the operator choose one.
+     * Types are tried in preference order (HANDICAPPED first for handicapped vehicles,
+     * otherwise the SpotType order), skipping a type when the forecast says its free spots
+     * will be used up within the next few hours and another suitable type still has room.
+     * A plate with a booking due now gets its booked spot; spots held for other bookings are skipped.
+     * @return the spot id, or null if no suitable spot is available
+     */
+    public String recommendSpot(Vehicle vehicle) {
+        return recommendSpot(vehicle, LocalDateTime.now(clock));
+    }
+
+    public String recommendSpot(Vehicle vehicle, LocalDateTime now) {
+        String booked = bookedSpotFor(vehicle.getPlate(), now);
+
+        Map<SpotType, List<ParkingSpot>> candidates = new EnumMap<>(SpotType.class);
+        Map<SpotType, Integer> freeCounts = new EnumMap<>(SpotType.class);
+        for (ParkingSpot spot : dataStore.getAllSpots()) {
+            if (spot.isAvailable() && spot.getSpotId().equals(booked)) return booked;
+            if (spot.isAvailable() && !isHeldForOther(spot.getSpotId(), vehicle.getPlate(), now)) {
+                candidates.computeIfAbsent(spot.getType(), t -> new ArrayList<>()).add(spot);
+                freeCounts.merge(spot.getType(), 1, Integer::sum);
+            }
+        }
+        SpotType type = chooseSpotType(vehicle, freeCounts);
+        return type == null ? null : candidates.get(type).get(0).getSpotId();
+    }
+
+    // Chooses which spot type to give the vehicle from the free spot counts (null = none suitable)
+    SpotType chooseSpotType(Vehicle vehicle, Map<SpotType, Integer> freeCounts) {
+        List<SpotType> preference = new ArrayList<>(List.of(SpotType.values()));
+        if (vehicle.getType().equalsIgnoreCase("HANDICAPPED")) {
+            preference.remove(SpotType.HANDICAPPED);
+            preference.add(0, SpotType.HANDICAPPED);
+        }
+
+        SpotType fallback = null;
+        double fallbackSlack = Double.NEGATIVE_INFINITY;
+        for (SpotType type : preference) {
+            int free = freeCounts.getOrDefault(type, 0);
+            if (free == 0 || !isSpotSuitable(vehicle, type.toString())) continue;
+
+            double expected = forecaster != null ? forecaster.netDemand(type, FORECAST_HORIZON_HOURS) : 0;
+            double slack = free - expected;
+            if (slack >= 1) return type;
+
+            if (slack > fallbackSlack) {
+                fallbackSlack = slack;
+                fallback = type;
+            }
+        }
+        return fallback;
+    }
+
+    // --- Reservations (no-ops when no ReservationService is configured) ---
+    boolean isHeldForOther(String spotId, String plate, LocalDateTime at) {
+        return reservations != null && reservations.isHeldForOther(spotId, plate, at);
+    }
+
+    private boolean isBookedFor(String spotId, String plate, LocalDateTime at) {
+        if (reservations == null) return false;
+        model.Reservation holder = reservations.holderOf(spotId, at);
+        return holder != null && PlateCodec.same(holder.getPlate(), plate);
+    }
+
+    // Name of the active fine scheme as stored with a session entering now
+    String activeFineSchemeName() {
+        return fineSchemes.pin(dataStore.getActiveFineScheme());
+    }
+
+    // Fulfils the plate's booking of the spot, if it has one due (for entries written elsewhere, e.g. ANPR)
+    void checkIn(String plate, String spotId, LocalDateTime at) {
+        if (reservations != null) reservations.checkIn(plate, spotId, at);
+    }
+
+    // The spot the plate has booked for this time, or null
+    String bookedSpotFor(String plate, LocalDateTime at) {
+        if (reservations == null) return null;
+        model.Reservation due = reservations.dueFor(plate, at);
+        return due == null ? null : due.getSpotId();
+    }
+
+    // Ticket format: "T-" + 13 base32 chars encoding entry time, gate and sequence (unique per gate)
+    String newTicketNo(Vehicle vehicle, LocalDateTime entryTime) {
+        return ticketIds.nextTicketNo(entryTime);
+    }
+
+    // Generator for tickets issued at another gate (e.g. an ANPR camera); shares ours for our gate
+    TicketIdGenerator ticketIdsForGate(int gateId) {
+        return ticketIds.forGate(gateId);
+    }
 
     private boolean isSpotSuitable(Vehicle vehicle, String spotType) {
         String vType = vehicle.getType().toUpperCase();
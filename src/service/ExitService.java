@@ -2,29 +2,64 @@ package service;
 
 import data.DataStore;
 import enums.FineReason;
+import enums.SpotType;
 import fine.FineScheme;
+import fine.LotFineSchemes;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+import model.ExitRequest;
+import model.ExitResult;
 import model.FineRecord;
 import model.ParkingSession;
 import model.ParkingSpot;
 import model.PaymentRecord;
 import model.Vehicle;
+import pricing.PricingEngine;
 
 public class ExitService {
 
     private final DataStore dataStore;
+    private final FineService fineService;
     private final FineScheme activeFineScheme;
+    private final PricingEngine pricing;
+    private final LotFineSchemes fineSchemes; // resolves the scheme names stored with sessions
+    private final Clock clock; // default exit time offered by the exit screens
 
     private static final DateTimeFormatter FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public ExitService(DataStore dataStore, FineScheme activeFineScheme) {
+        this(dataStore, activeFineScheme, new FineService(dataStore));
+    }
+
+    public ExitService(DataStore dataStore, FineScheme activeFineScheme, FineService fineService) {
+        this(dataStore, activeFineScheme, fineService, new PricingEngine(dataStore));
+    }
+
+    public ExitService(DataStore dataStore, FineScheme activeFineScheme, FineService fineService,
+                       PricingEngine pricing) {
+        this(dataStore, activeFineScheme, fineService, pricing, Clock.systemDefaultZone());
+    }
+
+    public ExitService(DataStore dataStore, FineScheme activeFineScheme, FineService fineService,
+                       PricingEngine pricing, Clock clock) {
         this.dataStore = dataStore;
         this.activeFineScheme = activeFineScheme;
+        this.fineService = fineService;
+        this.pricing = pricing;
+        this.fineSchemes = new LotFineSchemes(dataStore::getConfig);
+        this.clock = clock;
     }
 
     // ===============================
@@ -34,7 +69,7 @@ public class ExitService {
         if (session == null) return null;
 
         long hours = calculateHoursCeiling(session.getEntryTime(), exitTime);
-        double parkingFee = hours * getHourlyRate(session, session.getVehicle());
+        double parkingFee = calculateParkingFee(session, exitTime, hours, true);
 
         // Use the scheme that was active WHEN THIS VEHICLE ENTERED
         FineScheme scheme = mapStringToScheme(session.getFineScheme());
@@ -46,8 +81,7 @@ public class ExitService {
         double newFine = calculatePreviewFines(session, hours, scheme);
 
         // Past unpaid fines (unchanged)
-        List<FineRecord> pastUnpaid = dataStore.getUnpaidFinesByPlate(session.getVehicle().getPlate());
-        double pastFineTotal = pastUnpaid.stream().mapToDouble(FineRecord::getAmount).sum();
+        double pastFineTotal = fineService.getUnpaidTotal(session.getVehicle().getPlate());
 
         double totalFines = pastFineTotal + newFine;
 
@@ -74,23 +108,23 @@ public class ExitService {
         String exitTimeStr = exitTime.format(FORMATTER);
 
         long hours = calculateHoursCeiling(session.getEntryTime(), exitTime);
-        double parkingFee = hours * getHourlyRate(session, vehicle);
+        double parkingFee = calculateParkingFee(session, exitTime, hours, false);
 
         FineScheme scheme = mapStringToScheme(session.getFineScheme());
         if (scheme == null) scheme = activeFineScheme;
 
         List<FineRecord> newFines = generateFinalFines(session, hours, exitTimeStr, scheme);
         for (FineRecord fine : newFines) {
-            dataStore.addFine(fine);
+            fineService.addFine(fine);
         }
 
         double amountLeft = payment.getAmountPaid() - payment.getParkingFee();
-        List<FineRecord> unpaidFines = dataStore.getUnpaidFinesByPlate(plate);
+        List<FineRecord> unpaidFines = fineService.getUnpaidFines(plate);
 
         for (FineRecord fine : unpaidFines) {
             if (amountLeft <= 0) break;
             double toPay = Math.min(amountLeft, fine.getAmount());
-            dataStore.reduceFineAmount(fine, toPay);
+            fineService.reduceFineAmount(fine, toPay);
             amountLeft -= toPay;
         }
 
@@ -109,11 +143,180 @@ public class ExitService {
         );
 
         dataStore.createPayment(finalizedPayment);
+        pricing.exited(session.getTicketNo());
 
         System.out.println("Exit finalized for ticket: " + session.getTicketNo());
         return finalizedPayment;
     }
 
+    // ===============================
+    //  BULK EXIT (EVENT-END SURGES)
+    // ===============================
+    /**
+     * Finalizes many exits at once. Sessions, spots and unpaid fines are loaded with one
+     * query each, every exit is priced in parallel on the fork/join pool, and all session
+     * closes, spot releases, fines and payments are written in one batched transaction.
+     * Same payment rules as processPayment: the parking fee must be covered, the rest goes
+     * to fines (older fines first, then the ones issued on this exit). The batch settles
+     * this lot's fines only, in its one transaction; fines owed at other lots stay open.
+     * @return one result per request, in request order
+     */
+    public List<ExitResult> confirmExits(List<ExitRequest> requests) {
+        return confirmExits(requests, false);
+    }
+
+    // A batch rolled back because a session was closed meanwhile is re-run once on fresh data,
+    // where that vehicle fails as already exited and the others go through
+    private List<ExitResult> confirmExits(List<ExitRequest> requests, boolean retry) {
+        Map<String, ParkingSession> openByPlate = new HashMap<>();
+        for (ParkingSession s : dataStore.getAllActiveSessions()) {
+            openByPlate.put(s.getPlate(), s);
+        }
+        List<ParkingSpot> spots = dataStore.getAllSpots();
+        Map<String, SpotType> spotTypes = new HashMap<>();
+        for (ParkingSpot spot : spots) {
+            spotTypes.put(spot.getSpotId(), spot.getType());
+        }
+        pricing.refreshOccupancy(spots); // price the whole batch against the same occupancy
+
+        Set<String> platesInBatch = new HashSet<>();
+        for (ExitRequest r : requests) platesInBatch.add(r.getPlate());
+        Map<String, List<FineRecord>> unpaidByPlate = new HashMap<>();
+        for (FineRecord fine : dataStore.getAllUnpaidFines()) {
+            if (platesInBatch.contains(fine.getPlate())) {
+                unpaidByPlate.computeIfAbsent(fine.getPlate(), p -> new ArrayList<>()).add(fine);
+            }
+        }
+
+        // Validation pass (sequential): unknown plates and duplicates fail up front
+        ExitResult[] results = new ExitResult[requests.size()];
+        ParkingSession[] sessions = new ParkingSession[requests.size()];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ExitRequest r = requests.get(i);
+            if (!seen.add(r.getPlate())) {
+                results[i] = ExitResult.failed(r, "Duplicate plate in batch: " + r.getPlate());
+            } else if ((sessions[i] = openByPlate.get(r.getPlate())) == null) {
+                results[i] = ExitResult.failed(r, "Vehicle not found or already exited: " + r.getPlate());
+            }
+        }
+
+        // Pricing pass (parallel): each item only touches its own plate's fines
+        ForkJoinPool.commonPool().invoke(new PricingTask(0, requests.size(), requests, sessions,
+                results, spotTypes, unpaidByPlate));
+
+        List<ExitResult> completed = new ArrayList<>();
+        for (ExitResult r : results) {
+            if (r.isSuccess()) completed.add(r);
+        }
+
+        if (!completed.isEmpty() && !dataStore.recordExitBatch(completed)) {
+            if (!retry) return confirmExits(requests, true);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i].isSuccess()) {
+                    results[i] = ExitResult.failed(results[i].getRequest(), "Database error, exit batch rolled back");
+                }
+            }
+        }
+        for (ExitResult r : results) {
+            if (!r.isSuccess()) continue; // a rolled-back item keeps its quote for the next attempt
+            fineService.invalidate(r.getRequest().getPlate());
+            pricing.exited(r.getSession().getTicketNo());
+        }
+
+        System.out.println("Bulk exit: " + completed.size() + "/" + requests.size() + " vehicles processed.");
+        return List.of(results);
+    }
+
+    private class PricingTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 64;
+
+        private final int from, to;
+        private final List<ExitRequest> requests;
+        private final ParkingSession[] sessions;
+        private final ExitResult[] results;
+        private final Map<String, SpotType> spotTypes;
+        private final Map<String, List<FineRecord>> unpaidByPlate;
+
+        PricingTask(int from, int to, List<ExitRequest> requests, ParkingSession[] sessions, ExitResult[] results,
+                    Map<String, SpotType> spotTypes, Map<String, List<FineRecord>> unpaidByPlate) {
+            this.from = from;
+            this.to = to;
+            this.requests = requests;
+            this.sessions = sessions;
+            this.results = results;
+            this.spotTypes = spotTypes;
+            this.unpaidByPlate = unpaidByPlate;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    if (results[i] == null) {
+                        ExitRequest r = requests.get(i);
+                        results[i] = priceExit(r, sessions[i], spotTypes,
+                                unpaidByPlate.getOrDefault(r.getPlate(), List.of()));
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PricingTask(from, mid, requests, sessions, results, spotTypes, unpaidByPlate),
+                      new PricingTask(mid, to, requests, sessions, results, spotTypes, unpaidByPlate));
+        }
+    }
+
+    // Prices one exit and applies its payment to the in-memory fine records (no DB access)
+    private ExitResult priceExit(ExitRequest request, ParkingSession session,
+                                 Map<String, SpotType> spotTypes, List<FineRecord> unpaid) {
+        LocalDateTime exitTime = request.getExitTime();
+        String exitTimeStr = exitTime.format(FORMATTER);
+
+        long hours = calculateHoursCeiling(session.getEntryTime(), exitTime);
+        SpotType spotType = spotTypes.get(session.getSpotId());
+        double parkingFee = pricing.exitFee(session.getTicketNo(), spotType, session.getSpotId(), session.getVehicle(),
+                LocalDateTime.parse(session.getEntryTime(), FORMATTER), exitTime, hours);
+
+        if (request.getAmountPaid() < parkingFee) {
+            return ExitResult.failed(request, String.format("Parking fee RM %.2f not fully paid", parkingFee));
+        }
+
+        FineScheme scheme = mapStringToScheme(session.getFineScheme());
+        if (scheme == null) scheme = activeFineScheme;
+        List<FineRecord> newFines = buildFines(session, hours, exitTimeStr, scheme,
+                reason -> unpaid.stream().anyMatch(f -> f.getReason() == reason));
+
+        double amountLeft = request.getAmountPaid() - parkingFee;
+        double finePaid = 0;
+        List<FineRecord> updatedFines = new ArrayList<>();
+        List<FineRecord> payable = new ArrayList<>(unpaid);
+        payable.addAll(newFines);
+        for (FineRecord fine : payable) {
+            if (amountLeft <= 0) break;
+            double toPay = Math.min(amountLeft, fine.getAmount());
+            fine.reduceAmount(toPay);
+            if (fine.isPaid()) fine.setPaidAt(exitTimeStr);
+            if (!newFines.contains(fine)) updatedFines.add(fine);
+            amountLeft -= toPay;
+            finePaid += toPay;
+        }
+
+        PaymentRecord payment = new PaymentRecord(
+                session.getTicketNo(),
+                session.getPlate(),
+                request.getMethod(),
+                exitTime,
+                (int) hours,
+                parkingFee,
+                finePaid,
+                request.getAmountPaid()
+        );
+        return ExitResult.completed(request, session, exitTimeStr, (int) hours, parkingFee,
+                newFines, updatedFines, payment);
+    }
+
     // ===============================
     //  Preview fine calculation
     // ===============================
@@ -138,16 +341,23 @@ public class ExitService {
     // ===============================
     public List<FineRecord> generateFinalFines(ParkingSession session, long hours,
                                                 String exitTimeStr, FineScheme scheme) {
+        String plate = session.getVehicle().getPlate();
+        return buildFines(session, hours, exitTimeStr, scheme, reason -> fineExists(plate, reason));
+    }
+
+    // Fines for this exit, skipping reasons the plate already has an unpaid fine for
+    private List<FineRecord> buildFines(ParkingSession session, long hours, String exitTimeStr,
+                                        FineScheme scheme, Predicate<FineReason> alreadyFined) {
         List<FineRecord> fines = new ArrayList<>();
         String plate = session.getVehicle().getPlate();
 
-        if (hours > 24 && !fineExists(plate, FineReason.OVERSTAY_24H)) {
+        if (hours > 24 && !alreadyFined.test(FineReason.OVERSTAY_24H)) {
             fines.add(new FineRecord(plate, FineReason.OVERSTAY_24H, scheme.calculateFine(hours - 24),
                     exitTimeStr, false));
         }
 
         if (session.getSpotId().contains("RES") && !session.getVehicle().isVIP()
-                && !fineExists(plate, FineReason.RESERVED_VIOLATION)) {
+                && !alreadyFined.test(FineReason.RESERVED_VIOLATION)) {
             fines.add(new FineRecord(plate, FineReason.RESERVED_VIOLATION, 100.0,
                     exitTimeStr, false));
         }
@@ -156,32 +366,19 @@ public class ExitService {
     }
 
     private boolean fineExists(String plate, FineReason reason) {
-        return dataStore.getUnpaidFinesByPlate(plate).stream()
-                .anyMatch(f -> f.getReason() == reason);
+        return fineService.hasUnpaidFine(plate, reason);
     }
 
-    private double getHourlyRate(ParkingSession session, Vehicle vehicle) {
+    // A preview quotes the fee (fixing its occupancy factor); the exit charges the quoted factor
+    private double calculateParkingFee(ParkingSession session, LocalDateTime exitTime, long hours, boolean quote) {
         ParkingSpot spot = dataStore.getAllSpots().stream()
                 .filter(s -> s.getSpotId().equals(session.getSpotId()))
                 .findFirst().orElse(null);
 
-        if (spot == null) return 5.0;
-
-        String spotType = spot.getType().toString().toUpperCase();
-
-        // Special rule: Handicapped vehicle with HC card gets discounted rate anywhere
-        if (vehicle.getType().equalsIgnoreCase("HANDICAPPED") && vehicle.hasHcCard()) {
-            return 2.0;
-        }
-
-        // Normal rates by spot type
-        return switch (spotType) {
-            case "COMPACT"     -> 2.0;
-            case "REGULAR"     -> 5.0;
-            case "HANDICAPPED" -> vehicle.hasHcCard() ? 0.0 : 2.0;  // free only in HC spot with card
-            case "RESERVED"    -> 10.0;
-            default            -> 5.0;
-        };
+        LocalDateTime entryTime = LocalDateTime.parse(session.getEntryTime(), FORMATTER);
+        return quote
+                ? pricing.quoteFee(session.getTicketNo(), spot, session.getVehicle(), entryTime, exitTime, hours)
+                : pricing.exitFee(session.getTicketNo(), spot, session.getVehicle(), entryTime, exitTime, hours);
     }
 
     private long calculateHoursCeiling(String entryTimeStr, LocalDateTime exitTime) {
@@ -190,16 +387,13 @@ public class ExitService {
         return Math.max(1, (long) Math.ceil(minutes / 60.0));
     }
 
-    private FineScheme mapStringToScheme(String schemeName) {
-        if (schemeName == null) return null;
-        return switch (schemeName) {
-            case "Fixed Fine (RM 50)" -> new fine.FixedFineScheme();
-            case "Progressive (Tiered)" -> new fine.ProgressiveFineScheme();
-            case "Hourly (RM 20/hr)" -> new fine.HourlyFineScheme();
-            default -> null;
-        };
+    FineScheme mapStringToScheme(String schemeName) {
+        return fineSchemes.byName(schemeName);
     }
 
     public void setActiveFineScheme(FineScheme scheme) { /* immutable */ }
     public FineScheme getActiveFineScheme() { return activeFineScheme; }
+    public FineService getFineService() { return fineService; }
+    public PricingEngine getPricingEngine() { return pricing; }
+    public Clock getClock() { return clock; }
 }
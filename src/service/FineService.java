@@ -0,0 +1,105 @@
+package service;
+
+import data.DataStore;
+import data.LotStoreRouter;
+import enums.FineReason;
+import java.util.List;
+import model.FineRecord;
+
+/**
+ * Single entry point for reading and settling a plate's fines.
+ *
+ * Reads are served from a PlateFineCache, so one exit (preview, payment dialog,
+ * receipt, duplicate-fine checks) costs one fine query instead of four or more.
+ * Every write goes through here and invalidates exactly the affected plate.
+ *
+ * With a LotStoreRouter (setLotRouter) a plate's fines are read from every site, so an exit
+ * sees and can settle what the car owes at other lots; a payment against a fine is written
+ * to the lot the fine belongs to.
+ */
+public class FineService {
+
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final long DEFAULT_TTL_MILLIS = 60_000;
+
+    private final DataStore dataStore;
+    private final PlateFineCache cache;
+    private volatile LotStoreRouter router; // null = this store's fines only
+
+    public FineService(DataStore dataStore) {
+        this(dataStore, new PlateFineCache(DEFAULT_CACHE_SIZE, DEFAULT_TTL_MILLIS));
+    }
+
+    public FineService(DataStore dataStore, PlateFineCache cache) {
+        this.dataStore = dataStore;
+        this.cache = cache;
+    }
+
+    // Plate-wide fines across every lot the router knows (dataStore must be one of them)
+    public FineService setLotRouter(LotStoreRouter router) {
+        this.router = router;
+        cache.clear();
+        return this;
+    }
+
+    // --- Reads (cached) ---
+    public List<FineRecord> getUnpaidFines(String plate) {
+        return summaryFor(plate).getFines();
+    }
+
+    public double getUnpaidTotal(String plate) {
+        return summaryFor(plate).getTotal();
+    }
+
+    public boolean hasUnpaidFine(String plate, FineReason reason) {
+        return summaryFor(plate).getFines().stream().anyMatch(f -> f.getReason() == reason);
+    }
+
+    private PlateFineCache.Summary summaryFor(String plate) {
+        PlateFineCache.Summary summary = cache.get(plate);
+        if (summary == null) {
+            long generation = cache.generation(plate); // a write landing during the load keeps it out of the cache
+            LotStoreRouter r = router;
+            summary = cache.put(plate, r != null
+                    ? r.getUnpaidFinesByPlateAllLots(plate)
+                    : dataStore.getUnpaidFinesByPlate(plate), generation);
+        }
+        return summary;
+    }
+
+    // --- Writes (invalidate the plate) ---
+    public void addFine(FineRecord fine) {
+        dataStore.addFine(fine);
+        cache.invalidate(fine.getPlate());
+    }
+
+    public void reduceFineAmount(FineRecord fine, double amountPaid) {
+        storeOf(fine).reduceFineAmount(fine, amountPaid);
+        cache.invalidate(fine.getPlate());
+    }
+
+    public void markAllFinesPaid(String plate, String paidTimeISO) {
+        LotStoreRouter r = router;
+        if (r == null) {
+            dataStore.markAllFinesPaid(plate, paidTimeISO);
+        } else {
+            for (String lotId : r.getLotIds()) r.storeFor(lotId).markAllFinesPaid(plate, paidTimeISO);
+        }
+        cache.invalidate(plate);
+    }
+
+    // For writes made directly against the store (e.g. batched exits)
+    public void invalidate(String plate) {
+        cache.invalidate(plate);
+    }
+
+    // The lot a fine was read from; fines from lots outside the router stay with this store
+    private DataStore storeOf(FineRecord fine) {
+        LotStoreRouter r = router;
+        return r != null && r.isRegistered(fine.getLotId()) ? r.storeFor(fine.getLotId()) : dataStore;
+    }
+
+    public PlateFineCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,211 @@
+package service;
+
+import data.DataStore;
+import fine.FineScheme;
+import fine.LotFineSchemes;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import model.ParkingSession;
+
+/**
+ * Watches active sessions and reports overstays while the car is still parked.
+ *
+ * Every active session has one timer in a TimingWheel, set for the next stay threshold
+ * (24h, 48h, 72h, 96h — the steps of ProgressiveFineScheme). When it fires the monitor
+ * works out the fine accrued so far with the session's fine scheme, publishes an
+ * OverstayEvent and re-arms the timer for the next threshold. Entries and exits are picked
+ * up by reconcile(); track/untrack let callers update the monitor immediately.
+ */
+public class OverstayMonitor {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long TICK_MILLIS = 60_000;
+    private static final int[] THRESHOLD_HOURS = {24, 48, 72, 96};
+    private static final int FREE_HOURS = 24;
+
+    // Raised when an active session crosses a stay threshold
+    public static final class OverstayEvent {
+        private final String ticketNo;
+        private final String plate;
+        private final String spotId;
+        private final int thresholdHours;
+        private final long hoursParked;
+        private final double accruedFine;
+
+        OverstayEvent(Tracked t, long hoursParked, double accruedFine) {
+            this.ticketNo = t.session.getTicketNo();
+            this.plate = t.session.getPlate();
+            this.spotId = t.session.getSpotId();
+            this.thresholdHours = THRESHOLD_HOURS[t.nextThreshold];
+            this.hoursParked = hoursParked;
+            this.accruedFine = accruedFine;
+        }
+
+        public String getTicketNo() { return ticketNo; }
+        public String getPlate() { return plate; }
+        public String getSpotId() { return spotId; }
+        public int getThresholdHours() { return thresholdHours; }
+        public long getHoursParked() { return hoursParked; }
+        public double getAccruedFine() { return accruedFine; }
+    }
+
+    private static final class Tracked {
+        final ParkingSession session;
+        final long entryMillis;
+        final FineScheme scheme;
+        int nextThreshold;
+        TimingWheel.Timer<Tracked> timer;
+        volatile double accruedFine;
+
+        Tracked(ParkingSession session, long entryMillis, FineScheme scheme) {
+            this.session = session;
+            this.entryMillis = entryMillis;
+            this.scheme = scheme;
+        }
+    }
+
+    private final DataStore dataStore;
+    private final FineScheme defaultScheme;
+    private final LotFineSchemes fineSchemes; // resolves the scheme names stored with sessions
+    private final Clock clock;
+    private final TimingWheel<Tracked> wheel;
+    private final Map<String, Tracked> byTicket = new HashMap<>();
+    private final List<Consumer<OverstayEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public OverstayMonitor(DataStore dataStore, FineScheme defaultScheme) {
+        this(dataStore, defaultScheme, Clock.systemDefaultZone());
+    }
+
+    public OverstayMonitor(DataStore dataStore, FineScheme defaultScheme, Clock clock) {
+        this.dataStore = dataStore;
+        this.defaultScheme = defaultScheme;
+        this.fineSchemes = new LotFineSchemes(dataStore::getConfig);
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, clock.millis());
+    }
+
+    public void addListener(Consumer<OverstayEvent> listener) {
+        listeners.add(listener);
+    }
+
+    // ===============================
+    //  TRACKING
+    // ===============================
+
+    // Starts watching a session (no-op if it is already tracked)
+    public synchronized void track(ParkingSession session) {
+        if (byTicket.containsKey(session.getTicketNo())) return;
+
+        long entryMillis = LocalDateTime.parse(session.getEntryTime(), FORMATTER)
+                .atZone(clock.getZone()).toInstant().toEpochMilli();
+        FineScheme scheme = fineSchemes.byName(session.getFineScheme());
+        Tracked t = new Tracked(session, entryMillis, scheme != null ? scheme : defaultScheme);
+        // A session already past several thresholds (e.g. at startup) only reports the latest one
+        long now = clock.millis();
+        while (t.nextThreshold + 1 < THRESHOLD_HOURS.length && dueMillis(t, t.nextThreshold + 1) <= now) {
+            t.nextThreshold++;
+        }
+        byTicket.put(session.getTicketNo(), t);
+        arm(t);
+    }
+
+    // Stops watching a session (car left)
+    public synchronized void untrack(String ticketNo) {
+        Tracked t = byTicket.remove(ticketNo);
+        if (t != null) wheel.cancel(t.timer);
+    }
+
+    // Brings the tracked set in line with the store's active sessions
+    public synchronized void reconcile() {
+        Set<String> active = new HashSet<>();
+        for (ParkingSession s : dataStore.getAllActiveSessions()) {
+            active.add(s.getTicketNo());
+            track(s);
+        }
+        for (String ticketNo : new ArrayList<>(byTicket.keySet())) {
+            if (!active.contains(ticketNo)) untrack(ticketNo);
+        }
+    }
+
+    // ===============================
+    //  CLOCK
+    // ===============================
+    public void advance() {
+        advance(clock.millis());
+    }
+
+    // Fires every threshold reached by nowMillis; events are published outside the lock
+    public void advance(long nowMillis) {
+        List<OverstayEvent> events = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(nowMillis, t -> {
+                long hours = hoursParked(t, nowMillis);
+                t.accruedFine = t.scheme.calculateFine(hours - FREE_HOURS);
+                events.add(new OverstayEvent(t, hours, t.accruedFine));
+                t.nextThreshold++;
+                arm(t);
+            });
+        }
+        for (OverstayEvent e : events) {
+            for (Consumer<OverstayEvent> listener : listeners) listener.accept(e);
+        }
+    }
+
+    // ===============================
+    //  QUERIES
+    // ===============================
+
+    // Fine accrued at the last threshold crossed (0 if the session has not overstayed)
+    public synchronized double getAccruedFine(String ticketNo) {
+        Tracked t = byTicket.get(ticketNo);
+        return t == null ? 0.0 : t.accruedFine;
+    }
+
+    // Fine the session would owe if it left now (covers schemes that grow every hour)
+    public synchronized double getAccruedFine(String ticketNo, long nowMillis) {
+        Tracked t = byTicket.get(ticketNo);
+        if (t == null) return 0.0;
+        long hours = hoursParked(t, nowMillis);
+        return hours > FREE_HOURS ? t.scheme.calculateFine(hours - FREE_HOURS) : 0.0;
+    }
+
+    public synchronized List<ParkingSession> getOverstayedSessions() {
+        List<ParkingSession> overstayed = new ArrayList<>();
+        for (Tracked t : byTicket.values()) {
+            if (t.nextThreshold > 0) overstayed.add(t.session);
+        }
+        return overstayed;
+    }
+
+    public synchronized int getTrackedCount() {
+        return byTicket.size();
+    }
+
+    // Schedules the next threshold; the fine steps up on the first minute past it (hours are rounded up)
+    private void arm(Tracked t) {
+        if (t.nextThreshold >= THRESHOLD_HOURS.length) {
+            t.timer = null;
+            return;
+        }
+        t.timer = wheel.schedule(t, dueMillis(t, t.nextThreshold));
+    }
+
+    private static long dueMillis(Tracked t, int threshold) {
+        return t.entryMillis + Duration.ofHours(THRESHOLD_HOURS[threshold]).toMillis() + TICK_MILLIS;
+    }
+
+    private static long hoursParked(Tracked t, long nowMillis) {
+        long minutes = Math.max(0, (nowMillis - t.entryMillis) / 60_000);
+        return Math.max(1, (long) Math.ceil(minutes / 60.0));
+    }
+}
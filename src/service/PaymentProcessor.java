@@ -11,14 +11,27 @@ import model.ParkingSession;
 import model.ParkingSpot;
 import model.PaymentRecord;
 import model.Vehicle;
+import pricing.PricingEngine;
 
 public class PaymentProcessor {
 
     private final DataStore dataStore;
+    private final FineService fineService;
+    private final PricingEngine pricing;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public PaymentProcessor(DataStore dataStore) {
+        this(dataStore, new FineService(dataStore));
+    }
+
+    public PaymentProcessor(DataStore dataStore, FineService fineService) {
+        this(dataStore, fineService, new PricingEngine(dataStore));
+    }
+
+    public PaymentProcessor(DataStore dataStore, FineService fineService, PricingEngine pricing) {
         this.dataStore = dataStore;
+        this.fineService = fineService;
+        this.pricing = pricing;
     }
 
     /**
@@ -36,7 +49,7 @@ public class PaymentProcessor {
         long hours = calculateHoursCeiling(session.getEntryTime(), exitTime);
 
         // 2️⃣ Determine parking fee based on spot & vehicle
-        double parkingFee = calculateParkingFee(session, vehicle, hours);
+        double parkingFee = calculateParkingFee(session, vehicle, exitTime, hours);
 
         if (amountPaid < parkingFee) {
             // Parking fee must be fully paid to exit
@@ -50,7 +63,7 @@ public class PaymentProcessor {
         amountLeft -= parkingFee;
 
         // 4️⃣ Apply remaining payment to fines
-        List<FineRecord> unpaidFines = dataStore.getUnpaidFinesByPlate(plate);
+        List<FineRecord> unpaidFines = fineService.getUnpaidFines(plate);
         double finePaidTotal = 0.0;
 
         for (FineRecord fine : unpaidFines) {
@@ -59,7 +72,7 @@ public class PaymentProcessor {
             double fineAmount = fine.getAmount();
             double paymentToApply = Math.min(fineAmount, amountLeft);
 
-            dataStore.reduceFineAmount(fine, paymentToApply); // partial or full payment
+            fineService.reduceFineAmount(fine, paymentToApply); // partial or full payment
             amountLeft -= paymentToApply;
             finePaidTotal += paymentToApply;
         }
@@ -81,9 +94,10 @@ public class PaymentProcessor {
         String exitTimeStr = exitTime.format(FORMATTER);
         dataStore.closeSession(ticketNo, exitTimeStr, (int) hours, parkingFee);
         dataStore.setSpotAvailable(session.getSpotId());
+        pricing.exited(ticketNo);
 
         System.out.println("Unpaid fines for " + plate + ": "
-            + dataStore.getUnpaidFinesByPlate(plate).size());
+            + fineService.getUnpaidFines(plate).size());
 
 
         // 7️⃣ Print receipt to console
@@ -100,10 +114,10 @@ public class PaymentProcessor {
         String ticketNo = session.getTicketNo();
 
         long hours = calculateHoursCeiling(session.getEntryTime(), exitTime);
-        double parkingFee = calculateParkingFee(session, vehicle, hours);
+        double parkingFee = calculateParkingFee(session, vehicle, exitTime, hours);
 
         // Get unpaid fines for this plate
-        List<FineRecord> unpaidFines = dataStore.getUnpaidFinesByPlate(plate);
+        List<FineRecord> unpaidFines = fineService.getUnpaidFines(plate);
         double totalFines = unpaidFines.stream().mapToDouble(FineRecord::getAmount).sum();
 
         double amountLeft = amountPaid;
@@ -118,7 +132,7 @@ public class PaymentProcessor {
             if (amountLeft <= 0) break;
             double fineRemaining = fine.getAmount();
             double pay = Math.min(amountLeft, fineRemaining);
-            dataStore.reduceFineAmount(fine, pay);
+            fineService.reduceFineAmount(fine, pay);
             paidFines += pay;
             amountLeft -= pay;
         }
@@ -141,6 +155,7 @@ public class PaymentProcessor {
         if (paidParking >= parkingFee) {
             dataStore.closeSession(ticketNo, exitTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm")), (int) hours, parkingFee);
             dataStore.setSpotAvailable(session.getSpotId());
+            pricing.exited(ticketNo);
         }
 
         // --- Print receipt to console ---
@@ -149,27 +164,15 @@ public class PaymentProcessor {
         return true;
     }
 
-    // --- Calculate parking fee based on spot & vehicle ---
-    private double calculateParkingFee(ParkingSession session, Vehicle vehicle, long hours) {
+    // --- Calculate parking fee based on spot & vehicle (same engine as ExitService, honouring its preview quote) ---
+    private double calculateParkingFee(ParkingSession session, Vehicle vehicle, LocalDateTime exitTime, long hours) {
         ParkingSpot spot = dataStore.getAllSpots().stream()
                 .filter(s -> s.getSpotId().equals(session.getSpotId()))
                 .findFirst()
                 .orElse(null);
 
-        double rate = 5.0; // default fallback
-
-        if (spot != null) {
-            String spotType = spot.getType().toString().toUpperCase();
-
-            switch (spotType) {
-                case "COMPACT": rate = 2.0; break;
-                case "REGULAR": rate = 5.0; break;
-                case "HANDICAPPED": rate = vehicle.hasHcCard() ? 0.0 : 2.0; break;
-                case "RESERVED": rate = 10.0; break;
-            }
-        }
-
-        return hours * rate;
+        LocalDateTime entryTime = LocalDateTime.parse(session.getEntryTime(), FORMATTER);
+        return pricing.exitFee(session.getTicketNo(), spot, vehicle, entryTime, exitTime, hours);
     }
 
     // --- Ceiling rounding for hours ---
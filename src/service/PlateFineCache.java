@@ -0,0 +1,129 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import model.FineRecord;
+import model.PlateCodec;
+
+/**
+ * Size-bounded LRU cache of per-plate unpaid fine summaries with a time-to-live.
+ *
+ * Entries are dropped explicitly by FineService whenever a fine for the plate changes;
+ * the TTL only guards against changes made outside this process. A load that raced with an
+ * invalidation must not be cached: loaders read generation(plate) before querying and pass
+ * it to put, which drops the result if the plate was invalidated since. Generations are
+ * kept per stripe of plates (a bounded array, not a map that grows with every plate seen).
+ * Keys are PlateCodec.lookup codes, so a plate the process never stored is simply not
+ * cached instead of growing the codec's intern table.
+ */
+public class PlateFineCache {
+
+    // Immutable snapshot of a plate's unpaid fines; it holds and hands out copies
+    public static class Summary {
+        private final List<FineRecord> fines;
+        private final double total;
+        private final long loadedAtMillis;
+
+        Summary(List<FineRecord> fines, long loadedAtMillis) {
+            this.fines = copies(fines);
+            this.total = fines.stream().mapToDouble(FineRecord::getAmount).sum();
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        public List<FineRecord> getFines() { return copies(fines); }
+        public double getTotal() { return total; }
+
+        private static List<FineRecord> copies(List<FineRecord> fines) {
+            List<FineRecord> out = new ArrayList<>(fines.size());
+            for (FineRecord fine : fines) out.add(fine.copy());
+            return out;
+        }
+    }
+
+    private static final int GENERATION_STRIPES = 256; // power of two
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<Long, Summary> entries; // keyed by PlateCodec code
+    private final long[] generations = new long[GENERATION_STRIPES]; // bumped by invalidate / clear
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public PlateFineCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        // accessOrder = true turns the LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Summary> eldest) {
+                if (size() > PlateFineCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Returns the cached summary, or null on a miss (absent or expired)
+    public synchronized Summary get(String plate) {
+        long key = PlateCodec.lookup(plate);
+        Summary s = entries.get(key);
+        if (s != null && System.currentTimeMillis() - s.loadedAtMillis <= ttlMillis) {
+            hits++;
+            return s;
+        }
+        if (s != null) entries.remove(key);
+        misses++;
+        return null;
+    }
+
+    // Read before loading a plate's fines; pass to put
+    public synchronized long generation(String plate) {
+        return generations[stripe(plate)];
+    }
+
+    // Summary of the loaded fines, cached only if the plate was not invalidated since generation()
+    public synchronized Summary put(String plate, List<FineRecord> fines, long generation) {
+        Summary s = new Summary(fines, System.currentTimeMillis());
+        long key = PlateCodec.lookup(plate);
+        if (key != PlateCodec.UNKNOWN && generations[stripe(plate)] == generation) entries.put(key, s);
+        return s;
+    }
+
+    public synchronized void invalidate(String plate) {
+        generations[stripe(plate)]++;
+        if (entries.remove(PlateCodec.lookup(plate)) != null) invalidations++;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) generations[i]++;
+        entries.clear();
+    }
+
+    private static int stripe(String plate) {
+        return (int) PlateCodec.hash(plate) & (GENERATION_STRIPES - 1);
+    }
+
+    // --- Statistics ---
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getInvalidations() { return invalidations; }
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format("size=%d/%d hits=%d misses=%d hitRate=%.1f%% evictions=%d invalidations=%d",
+                entries.size(), maxEntries, hits, misses, getHitRate() * 100, evictions, invalidations);
+    }
+}
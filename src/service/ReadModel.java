@@ -0,0 +1,419 @@
+package service;
+
+import data.DataStore;
+import data.DataStoreDecorator;
+import data.EventPublishingDataStore;
+import data.LotSnapshot;
+import data.StoreEvent;
+import enums.SpotStatus;
+import enums.SpotType;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.PlateCodec;
+
+/**
+ * Query side for the dashboards: in-memory projections of one lot, kept up to date from
+ * the StoreEvents of its EventPublishingDataStore.
+ *
+ * Projections: occupancy by floor and spot type, vehicles inside, outstanding fines per
+ * plate, total revenue and revenue per day. A single projector thread applies the events;
+ * the getters only read concurrent maps and immutable snapshots, so a dashboard refresh
+ * never queries the database or waits for a write. The projector itself reads the store
+ * when it (re)builds the projections and to learn the id of a newly added fine. At startup
+ * the spots, vehicles inside and revenue can come from a validated LotSnapshot instead, so
+ * only the unpaid fines are read from the database.
+ *
+ * Revenue per day covers payments made while the model is running; the total also includes
+ * everything before.
+ */
+public class ReadModel {
+
+    private final DataStore store;
+    private final EventPublishingDataStore events;
+    private final BlockingQueue<StoreEvent> queue = new LinkedBlockingQueue<>();
+    private final Consumer<StoreEvent> listener = queue::add;
+    private final Thread projector;
+    private final Object appliedLock = new Object();
+    private volatile boolean running = true;
+    private volatile long applied;  // number of the last event reflected in the projections
+    private long rebuiltAt;         // events up to this number are already in the rebuilt state
+
+    // --- Projections (written by the projector thread only) ---
+    private final Map<String, SpotEntry> spots = new HashMap<>();
+    private volatile Occupancy occupancy = new Occupancy(new TreeMap<>());
+    private final Map<String, ParkingSession> activeByTicket = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, ParkingSession> activeByEntry = new ConcurrentSkipListMap<>();
+    private final Map<String, List<FineRecord>> finesByPlate = new ConcurrentHashMap<>();
+    private volatile double unpaidFineTotal;
+    private volatile double totalRevenue;
+    private final ConcurrentSkipListMap<LocalDate, Double> revenueByDay = new ConcurrentSkipListMap<>();
+
+    // Reads the lot through store; its chain must contain an EventPublishingDataStore
+    public ReadModel(DataStore store) {
+        this(store, null);
+    }
+
+    // snapshot (may be null) must describe the store as it is now: validated against the
+    // database file, with nothing written through the store since
+    public ReadModel(DataStore store, LotSnapshot snapshot) {
+        this.store = store;
+        this.events = DataStoreDecorator.find(store, EventPublishingDataStore.class);
+        if (events == null) throw new IllegalArgumentException("Store does not publish change events");
+
+        events.addListener(listener);
+        if (snapshot == null) {
+            rebuild();
+        } else {
+            List<FineRecord> unpaid = new ArrayList<>();
+            rebuiltAt = events.readConsistent(() -> unpaid.addAll(store.getAllUnpaidFines()));
+            load(snapshot.getSpots(), snapshot.getSessions(), unpaid, snapshot.getTotalRevenue());
+        }
+        this.projector = new Thread(this::project, "read-model-" + events.getLotId());
+        projector.setDaemon(true);
+        projector.start();
+    }
+
+    public void close() {
+        running = false;
+        events.removeListener(listener);
+        projector.interrupt();
+    }
+
+    // Waits (up to the timeout) until every event published so far is applied; false on timeout
+    public boolean awaitCaughtUp(long timeoutMillis) {
+        long target = events.getSequence();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (appliedLock) {
+            while (applied < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) return false;
+                try {
+                    appliedLock.wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // ===============================
+    //  QUERIES
+    // ===============================
+
+    public Occupancy getOccupancy() {
+        return occupancy;
+    }
+
+    // Vehicles inside, oldest entry first
+    public List<ParkingSession> getActiveSessions() {
+        return new ArrayList<>(activeByEntry.values());
+    }
+
+    public int getActiveCount() {
+        return activeByTicket.size();
+    }
+
+    public List<FineRecord> getOutstandingFines() {
+        List<FineRecord> result = new ArrayList<>();
+        finesByPlate.values().forEach(result::addAll);
+        return result;
+    }
+
+    public List<FineRecord> getOutstandingFines(String plate) {
+        return plate == null ? List.of() : finesByPlate.getOrDefault(PlateCodec.normalize(plate), List.of());
+    }
+
+    public double getTotalUnpaidFines() {
+        return unpaidFineTotal;
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public NavigableMap<LocalDate, Double> getRevenueByDay() {
+        return Collections.unmodifiableNavigableMap(new TreeMap<>(revenueByDay));
+    }
+
+    // Spot counts per floor and type; immutable, replaced whenever a spot changes
+    public static final class Occupancy {
+        private final TreeMap<Integer, int[][]> floors; // floor -> [type ordinal] -> {occupied, total}
+        private final int occupied;
+        private final int total;
+
+        Occupancy(TreeMap<Integer, int[][]> floors) {
+            this.floors = floors;
+            int o = 0, t = 0;
+            for (int[][] byType : floors.values()) {
+                for (int[] counts : byType) {
+                    o += counts[0];
+                    t += counts[1];
+                }
+            }
+            this.occupied = o;
+            this.total = t;
+        }
+
+        public int getOccupied() { return occupied; }
+        public int getTotal() { return total; }
+        public List<Integer> getFloors() { return new ArrayList<>(floors.keySet()); }
+
+        public int getOccupied(int floor, SpotType type) {
+            int[][] byType = floors.get(floor);
+            return byType == null ? 0 : byType[type.ordinal()][0];
+        }
+
+        public int getTotal(int floor, SpotType type) {
+            int[][] byType = floors.get(floor);
+            return byType == null ? 0 : byType[type.ordinal()][1];
+        }
+
+        public int getOccupied(int floor) {
+            int sum = 0;
+            for (SpotType type : SpotType.values()) sum += getOccupied(floor, type);
+            return sum;
+        }
+
+        public int getTotal(int floor) {
+            int sum = 0;
+            for (SpotType type : SpotType.values()) sum += getTotal(floor, type);
+            return sum;
+        }
+    }
+
+    // ===============================
+    //  PROJECTOR
+    // ===============================
+
+    private void project() {
+        List<StoreEvent> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            boolean spotsChanged = false;
+            long last = applied;
+            for (StoreEvent event : batch) {
+                last = event.getSequence();
+                if (event.getSequence() <= rebuiltAt) continue; // already in the rebuilt state
+                try {
+                    spotsChanged |= apply(event);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    rebuild(); // projections may be off; start again from the store
+                    spotsChanged = false;
+                    last = Math.max(last, rebuiltAt);
+                }
+            }
+            batch.clear();
+            if (spotsChanged) publishOccupancy();
+            markApplied(Math.max(last, rebuiltAt));
+        }
+    }
+
+    // Returns true if spot counts changed
+    private boolean apply(StoreEvent event) {
+        switch (event.getType()) {
+            case SPOT_UPSERTED: {
+                ParkingSpot spot = event.getSpot();
+                putSpot(spot.getSpotId(), spot.getType(), spot.getStatus() == SpotStatus.OCCUPIED);
+                return true;
+            }
+            case SPOT_OCCUPIED:
+                return setOccupied(event.getSpotId(), true);
+            case SPOT_RELEASED:
+                return setOccupied(event.getSpotId(), false);
+            case SESSION_OPENED:
+                addActive(event.getSession());
+                return false;
+            case SESSION_CLOSED: {
+                ParkingSession closed = activeByTicket.remove(event.getTicketNo());
+                if (closed != null) activeByEntry.remove(entryKey(closed));
+                return false;
+            }
+            case FINE_ADDED:
+                loadFines(event.getPlate()); // the new fine's id is only known to the store
+                return false;
+            case FINE_UPDATED:
+                updateFine(event.getFine());
+                return false;
+            case FINES_PAID: {
+                List<FineRecord> paid = finesByPlate.remove(PlateCodec.normalize(event.getPlate()));
+                if (paid != null) for (FineRecord f : paid) unpaidFineTotal -= f.getAmount();
+                return false;
+            }
+            case PAYMENT_RECORDED: {
+                PaymentRecord p = event.getPayment();
+                totalRevenue += p.getAmountPaid();
+                revenueByDay.merge(p.getPaidTime().toLocalDate(), p.getAmountPaid(), Double::sum);
+                return false;
+            }
+            case RELOAD:
+                rebuild();
+                return false;
+            default:
+                return false; // reservations and config are not projected
+        }
+    }
+
+    // Re-reads the whole lot; events up to the returned number are part of the new state
+    private void rebuild() {
+        List<ParkingSpot> allSpots = new ArrayList<>();
+        List<ParkingSession> active = new ArrayList<>();
+        List<FineRecord> unpaid = new ArrayList<>();
+        double[] revenue = new double[1];
+        rebuiltAt = events.readConsistent(() -> {
+            allSpots.addAll(store.getAllSpots());
+            active.addAll(store.getAllActiveSessions());
+            unpaid.addAll(store.getAllUnpaidFines());
+            revenue[0] = store.getTotalRevenue();
+        });
+        load(allSpots, active, unpaid, revenue[0]);
+    }
+
+    // Replaces every projection; rebuiltAt must already hold the event number of this state
+    private void load(List<ParkingSpot> allSpots, List<ParkingSession> active, List<FineRecord> unpaidFines,
+                      double revenue) {
+        spots.clear();
+        for (ParkingSpot spot : allSpots) {
+            putSpot(spot.getSpotId(), spot.getType(), spot.getStatus() == SpotStatus.OCCUPIED);
+        }
+        publishOccupancy();
+
+        activeByTicket.clear();
+        activeByEntry.clear();
+        for (ParkingSession session : active) addActive(session);
+
+        Map<String, List<FineRecord>> fines = new HashMap<>();
+        double unpaid = 0;
+        for (FineRecord fine : unpaidFines) {
+            fines.computeIfAbsent(PlateCodec.normalize(fine.getPlate()), p -> new ArrayList<>()).add(fine);
+            unpaid += fine.getAmount();
+        }
+        finesByPlate.clear();
+        fines.forEach((plate, list) -> finesByPlate.put(plate, List.copyOf(list)));
+        unpaidFineTotal = unpaid;
+        totalRevenue = revenue;
+        markApplied(rebuiltAt);
+    }
+
+    private void markApplied(long sequence) {
+        synchronized (appliedLock) {
+            if (sequence > applied) applied = sequence;
+            appliedLock.notifyAll();
+        }
+    }
+
+    // --- Spots ---
+    private static final class SpotEntry {
+        final int floor;
+        final SpotType type;
+        boolean occupied;
+
+        SpotEntry(int floor, SpotType type, boolean occupied) {
+            this.floor = floor;
+            this.type = type;
+            this.occupied = occupied;
+        }
+    }
+
+    private void putSpot(String spotId, SpotType type, boolean occupied) {
+        spots.put(spotId, new SpotEntry(floorOf(spotId), type, occupied));
+    }
+
+    private boolean setOccupied(String spotId, boolean occupied) {
+        SpotEntry entry = spots.get(spotId);
+        if (entry == null || entry.occupied == occupied) return false;
+        entry.occupied = occupied;
+        return true;
+    }
+
+    private void publishOccupancy() {
+        TreeMap<Integer, int[][]> floors = new TreeMap<>();
+        int types = SpotType.values().length;
+        for (SpotEntry e : spots.values()) {
+            int[] counts = floors.computeIfAbsent(e.floor, f -> new int[types][2])[e.type.ordinal()];
+            counts[1]++;
+            if (e.occupied) counts[0]++;
+        }
+        occupancy = new Occupancy(floors);
+    }
+
+    // "F2-R1-S7" -> 2; ids outside the layout count as floor 0
+    private static int floorOf(String spotId) {
+        int dash = spotId.indexOf('-');
+        if (spotId.length() < 2 || spotId.charAt(0) != 'F' || dash < 2) return 0;
+        try {
+            return Integer.parseInt(spotId.substring(1, dash));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // --- Sessions ---
+    private void addActive(ParkingSession session) {
+        ParkingSession previous = activeByTicket.put(session.getTicketNo(), session);
+        if (previous != null) activeByEntry.remove(entryKey(previous));
+        activeByEntry.put(entryKey(session), session);
+    }
+
+    private static String entryKey(ParkingSession s) {
+        return s.getEntryTime() + '\u0000' + s.getTicketNo();
+    }
+
+    // --- Fines ---
+    private void loadFines(String plate) {
+        String key = PlateCodec.normalize(plate);
+        List<FineRecord> fresh = store.getUnpaidFinesByPlate(key);
+        List<FineRecord> old = fresh.isEmpty() ? finesByPlate.remove(key) : finesByPlate.put(key, List.copyOf(fresh));
+        double delta = 0;
+        for (FineRecord f : fresh) delta += f.getAmount();
+        if (old != null) for (FineRecord f : old) delta -= f.getAmount();
+        unpaidFineTotal += delta;
+    }
+
+    private void updateFine(FineRecord updated) {
+        String key = PlateCodec.normalize(updated.getPlate());
+        List<FineRecord> current = finesByPlate.getOrDefault(key, List.of());
+        List<FineRecord> next = new ArrayList<>(current.size());
+        boolean found = false;
+        for (FineRecord f : current) {
+            if (f.getId() != updated.getId()) {
+                next.add(f);
+                continue;
+            }
+            found = true;
+            unpaidFineTotal -= f.getAmount();
+            if (!updated.isPaid() && updated.getAmount() > 0) {
+                next.add(updated);
+                unpaidFineTotal += updated.getAmount();
+            }
+        }
+        if (!found) {
+            loadFines(key); // not seen yet; ask the store
+            return;
+        }
+        if (next.isEmpty()) finesByPlate.remove(key);
+        else finesByPlate.put(key, List.copyOf(next));
+    }
+}
@@ -0,0 +1,181 @@
+package service;
+
+import data.DataStore;
+import enums.ReservationStatus;
+import enums.SpotType;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import model.ParkingSpot;
+import model.Reservation;
+import model.PlateCodec;
+
+/**
+ * Time-window bookings of individual spots.
+ *
+ * Each spot keeps its open bookings in a TreeMap keyed by start time. Bookings on one spot
+ * never overlap, so the only booking that can clash with [from, to) is the one with the
+ * latest start before "to": conflict checks and "free between" queries are O(log n).
+ *
+ * A booked spot is held from HOLD_BEFORE before its start until the booking ends; if the
+ * vehicle has not arrived NO_SHOW_GRACE after the start, releaseNoShows() frees it.
+ */
+public class ReservationService {
+
+    public static final Duration HOLD_BEFORE = Duration.ofMinutes(15);
+    public static final Duration NO_SHOW_GRACE = Duration.ofMinutes(30);
+
+    private final DataStore dataStore;
+    private final Clock clock;
+    private final Map<String, TreeMap<LocalDateTime, Reservation>> bySpot = new HashMap<>();
+    private final Map<Integer, Reservation> byId = new HashMap<>();
+
+    public ReservationService(DataStore dataStore) {
+        this(dataStore, Clock.systemDefaultZone());
+    }
+
+    public ReservationService(DataStore dataStore, Clock clock) {
+        this.dataStore = dataStore;
+        this.clock = clock;
+        reload();
+    }
+
+    // Rebuilds the index from the open bookings in the store
+    public synchronized void reload() {
+        bySpot.clear();
+        byId.clear();
+        for (Reservation r : dataStore.getOpenReservations()) index(r);
+    }
+
+    // ===============================
+    //  BOOKING
+    // ===============================
+
+    /**
+     * Books spotId for plate over [from, to).
+     * @return the booking, or null if the spot does not exist or is already booked in that window
+     */
+    public synchronized Reservation book(String spotId, String plate, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) return null;
+        boolean spotExists = dataStore.getAllSpots().stream().anyMatch(s -> s.getSpotId().equals(spotId));
+        if (!spotExists || !isFree(spotId, from, to)) return null;
+
+        Reservation r = new Reservation(spotId, PlateCodec.normalize(plate), from, to);
+        int id = dataStore.createReservation(r);
+        if (id < 0) return null;
+        r.setId(id);
+        index(r);
+        return r;
+    }
+
+    public synchronized boolean cancel(int reservationId) {
+        Reservation r = byId.get(reservationId);
+        if (r == null) return false;
+        close(r, ReservationStatus.CANCELLED);
+        return true;
+    }
+
+    // ===============================
+    //  QUERIES
+    // ===============================
+
+    // True if no open booking on the spot overlaps [from, to)
+    public synchronized boolean isFree(String spotId, LocalDateTime from, LocalDateTime to) {
+        TreeMap<LocalDateTime, Reservation> bookings = bySpot.get(spotId);
+        if (bookings == null) return true;
+        Map.Entry<LocalDateTime, Reservation> before = bookings.lowerEntry(to);
+        return before == null || !before.getValue().getEndTime().isAfter(from);
+    }
+
+    // Spots of the given type with no booking in [from, to) (null type = any)
+    public List<String> findFreeSpots(SpotType type, LocalDateTime from, LocalDateTime to) {
+        List<String> free = new ArrayList<>();
+        for (ParkingSpot spot : dataStore.getAllSpots()) {
+            if ((type == null || spot.getType() == type) && isFree(spot.getSpotId(), from, to)) {
+                free.add(spot.getSpotId());
+            }
+        }
+        return free;
+    }
+
+    // The booking holding the spot at the given time, or null
+    public synchronized Reservation holderOf(String spotId, LocalDateTime at) {
+        TreeMap<LocalDateTime, Reservation> bookings = bySpot.get(spotId);
+        if (bookings == null) return null;
+        Map.Entry<LocalDateTime, Reservation> e = bookings.floorEntry(at.plus(HOLD_BEFORE));
+        if (e == null || !e.getValue().getEndTime().isAfter(at)) return null;
+        // A booking still running takes precedence over the next one entering its hold window
+        Map.Entry<LocalDateTime, Reservation> prev = bookings.lowerEntry(e.getKey());
+        if (prev != null && prev.getValue().getEndTime().isAfter(at)) return prev.getValue();
+        return e.getValue();
+    }
+
+    // True if the spot is held at that time for a plate other than this one
+    public boolean isHeldForOther(String spotId, String plate, LocalDateTime at) {
+        Reservation holder = holderOf(spotId, at);
+        return holder != null && !PlateCodec.same(holder.getPlate(), plate);
+    }
+
+    // The plate's booking that is due at the given time, or null
+    public synchronized Reservation dueFor(String plate, LocalDateTime at) {
+        String key = PlateCodec.normalize(plate);
+        for (Reservation r : byId.values()) {
+            if (r.getPlate().equals(key) && r == holderOf(r.getSpotId(), at)) return r;
+        }
+        return null;
+    }
+
+    public synchronized List<Reservation> getOpenReservations() {
+        List<Reservation> open = new ArrayList<>(byId.values());
+        open.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        return open;
+    }
+
+    // ===============================
+    //  LIFECYCLE
+    // ===============================
+
+    // Called on entry: the plate's booking on this spot (if due) is fulfilled and leaves the index
+    public synchronized void checkIn(String plate, String spotId, LocalDateTime at) {
+        Reservation holder = holderOf(spotId, at);
+        if (holder != null && PlateCodec.same(holder.getPlate(), plate)) {
+            close(holder, ReservationStatus.CHECKED_IN);
+        }
+    }
+
+    public int releaseNoShows() {
+        return releaseNoShows(LocalDateTime.now(clock));
+    }
+
+    // Releases bookings whose vehicle has not arrived within the grace period; returns how many
+    public synchronized int releaseNoShows(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(NO_SHOW_GRACE);
+        List<Reservation> expired = new ArrayList<>();
+        for (Reservation r : byId.values()) {
+            if (r.getStartTime().isBefore(cutoff)) expired.add(r);
+        }
+        for (Reservation r : expired) close(r, ReservationStatus.NO_SHOW);
+        return expired.size();
+    }
+
+    private void index(Reservation r) {
+        bySpot.computeIfAbsent(r.getSpotId(), k -> new TreeMap<>()).put(r.getStartTime(), r);
+        byId.put(r.getId(), r);
+    }
+
+    private void close(Reservation r, ReservationStatus status) {
+        TreeMap<LocalDateTime, Reservation> bookings = bySpot.get(r.getSpotId());
+        if (bookings != null) {
+            bookings.remove(r.getStartTime());
+            if (bookings.isEmpty()) bySpot.remove(r.getSpotId());
+        }
+        byId.remove(r.getId());
+        r.setStatus(status);
+        dataStore.updateReservationStatus(r.getId(), status);
+    }
+}
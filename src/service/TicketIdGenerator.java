@@ -0,0 +1,164 @@
+package service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ticket ids: unique, time-ordered and decodable without a lookup.
+ *
+ * Layout of the 63-bit id (sign bit unused):
+ *   41 bits  milliseconds since 2024-01-01T00:00Z  (~69 years)
+ *   10 bits  gate id (0-1023)
+ *   12 bits  sequence within the millisecond (4096 ids/ms per gate)
+ *
+ * Each gate owns its own generator, so gates never coordinate. Within a gate the sequence is
+ * kept per millisecond (lock-free, in a skip-list map), so an id always decodes to the time
+ * it was issued for, even when entry times arrive out of order (camera reads, back-dated
+ * entries, a clock stepping backwards). Only if a gate exhausts the sequence of one
+ * millisecond does it borrow the next one. Sequences are remembered for WINDOW_MILLIS
+ * behind the latest time issued; an earlier time (or one before 2024) is rejected with
+ * IllegalArgumentException, since its ids could repeat ones issued before.
+ *
+ * The printable form is 13 characters of Crockford base32 (no I, L, O, U).
+ */
+public class TicketIdGenerator {
+
+    public static final String TICKET_PREFIX = "T-";
+
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+    private static final int GATE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_GATE = (1L << GATE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    static final long WINDOW_MILLIS = 24 * 60 * 60 * 1000L; // how far out of order entry times may arrive
+
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        java.util.Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            DECODE[BASE32[i]] = (byte) i;
+            DECODE[Character.toLowerCase(BASE32[i])] = (byte) i;
+        }
+        // Crockford aliases for characters people misread
+        DECODE['O'] = DECODE['o'] = 0;
+        DECODE['I'] = DECODE['i'] = DECODE['L'] = DECODE['l'] = 1;
+    }
+
+    private final long gateId;
+    private final Clock clock;
+    private final ConcurrentSkipListMap<Long, Long> sequences = new ConcurrentSkipListMap<>(); // millis since EPOCH -> last sequence
+    private final AtomicLong latest = new AtomicLong(); // latest millisecond issued (since EPOCH)
+
+    public TicketIdGenerator(int gateId) {
+        this(gateId, Clock.systemDefaultZone());
+    }
+
+    public TicketIdGenerator(int gateId, Clock clock) {
+        if (gateId < 0 || gateId > MAX_GATE) {
+            throw new IllegalArgumentException("Gate id must be 0-" + MAX_GATE + " but was " + gateId);
+        }
+        this.gateId = gateId;
+        this.clock = clock;
+    }
+
+    // ===============================
+    //  GENERATION
+    // ===============================
+    public long nextId() {
+        return nextId(clock.millis());
+    }
+
+    // Uses the given wall-clock time (e.g. the camera read time, or a virtual clock)
+    public long nextId(long epochMillis) {
+        long millis = epochMillis - EPOCH_MILLIS;
+        if (millis < 0 || millis < latest.get() - WINDOW_MILLIS) {
+            throw new IllegalArgumentException("Ticket time " + Instant.ofEpochMilli(epochMillis)
+                    + " is before 2024 or more than 24h behind the latest ticket of gate " + gateId);
+        }
+        long sequence;
+        while ((sequence = sequences.merge(millis, 0L, (last, zero) -> last + 1)) > SEQUENCE_MASK) {
+            millis++; // sequence of this millisecond exhausted: borrow the next one
+        }
+        if (latest.accumulateAndGet(millis, Math::max) == millis) {
+            sequences.headMap(millis - WINDOW_MILLIS).clear();
+        }
+        return (millis << (GATE_BITS + SEQUENCE_BITS))
+                | (gateId << SEQUENCE_BITS)
+                | sequence;
+    }
+
+    public String nextTicketNo(LocalDateTime entryTime) {
+        return TICKET_PREFIX + encode(nextId(entryTime.atZone(clock.getZone()).toInstant().toEpochMilli()));
+    }
+
+    public int getGateId() {
+        return (int) gateId;
+    }
+
+    // Generator for another gate on the same clock (this one if it is the same gate)
+    public TicketIdGenerator forGate(int otherGate) {
+        return otherGate == gateId ? this : new TicketIdGenerator(otherGate, clock);
+    }
+
+    // ===============================
+    //  ENCODING / DECODING
+    // ===============================
+    public static String encode(long id) {
+        char[] out = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[i] = BASE32[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    public static long decode(String text) {
+        if (text.length() != ENCODED_LENGTH) throw new IllegalArgumentException("Not a ticket id: " + text);
+        long id = 0;
+        for (int i = 0; i < ENCODED_LENGTH; i++) {
+            char c = text.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) throw new IllegalArgumentException("Not a ticket id: " + text);
+            id = (id << 5) | v;
+        }
+        return id;
+    }
+
+    // Ticket number -> id, or -1 for tickets issued before this generator existed
+    public static long parseTicketNo(String ticketNo) {
+        if (ticketNo == null || !ticketNo.startsWith(TICKET_PREFIX)) return -1;
+        try {
+            return decode(ticketNo.substring(TICKET_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    public static long issuedAtMillis(long id) {
+        return (id >>> (GATE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    // Local issue time in this generator's zone, the zone nextTicketNo read the entry time in
+    public LocalDateTime issuedAt(long id) {
+        return issuedAt(id, clock.getZone());
+    }
+
+    public static LocalDateTime issuedAt(long id, ZoneId zone) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(issuedAtMillis(id)), zone);
+    }
+
+    public static int gateOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_GATE);
+    }
+
+    public static int sequenceOf(long id) {
+        return (int) (id & SEQUENCE_MASK);
+    }
+}
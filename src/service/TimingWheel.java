@@ -0,0 +1,161 @@
+package service;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (three levels of 64 slots).
+ *
+ * Level 0 holds timers due within 64 ticks, level 1 within 64^2 ticks and level 2 within
+ * 64^3 ticks; anything further out waits in level 2 and is re-placed when its slot comes
+ * round. Each slot is a doubly linked list, so scheduling and cancelling a timer are O(1)
+ * regardless of how many timers are pending. Advancing the clock moves timers from an
+ * upper level down one level every 64 ticks and fires the due level 0 slot.
+ *
+ * With the default one-minute tick the wheel covers ~68 hours before timers need to be
+ * re-placed from the top level. Not thread-safe on its own; callers synchronize.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+
+    private final long tickMillis;
+    private final Timer<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    // A scheduled timer; cancel() unlinks it from its slot
+    public static final class Timer<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Timer<T> prev, next;
+        private boolean linked;
+
+        private Timer(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() { return payload; }
+        public boolean isPending() { return linked; }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        for (Timer<T>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                Timer<T> sentinel = new Timer<>(null, Long.MIN_VALUE);
+                sentinel.prev = sentinel.next = sentinel;
+                wheel[i] = sentinel;
+            }
+        }
+    }
+
+    // ===============================
+    //  SCHEDULE / CANCEL  (O(1))
+    // ===============================
+
+    // Fires on the first advance whose time reaches deadlineMillis (rounded up to a tick)
+    public Timer<T> schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Timer<T> timer = new Timer<>(payload, deadlineTick);
+        place(timer, currentTick + 1); // the current tick's slot has already fired
+        size++;
+        return timer;
+    }
+
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || !timer.linked) return false;
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ===============================
+    //  ADVANCE
+    // ===============================
+
+    // Moves the wheel forward to nowMillis, handing every timer that came due to onExpired
+    public void advance(long nowMillis, Consumer<T> onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {          // nothing pending: jump straight to the target
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+
+            if ((currentTick & SLOT_MASK) == 0) {
+                if (((currentTick >>> SLOT_BITS) & SLOT_MASK) == 0) {
+                    cascade(2, (int) ((currentTick >>> (2 * SLOT_BITS)) & SLOT_MASK));
+                }
+                cascade(1, (int) ((currentTick >>> SLOT_BITS) & SLOT_MASK));
+            }
+
+            Timer<T> head = wheels[0][(int) (currentTick & SLOT_MASK)];
+            while (head.next != head) {
+                Timer<T> due = head.next;
+                unlink(due);
+                size--;
+                onExpired.accept(due.payload);
+            }
+        }
+    }
+
+    // Re-places every timer of one upper-level slot, which moves it down a level
+    private void cascade(int level, int slot) {
+        Timer<T> head = wheels[level][slot];
+        Timer<T> t = head.next;
+        head.prev = head.next = head;
+        while (t != head) {
+            Timer<T> next = t.next;
+            t.linked = false;
+            place(t, currentTick);      // the current tick's slot is fired right after cascading
+            t = next;
+        }
+    }
+
+    // Overdue timers go in the earliest slot that has not fired yet
+    private void place(Timer<T> timer, long earliestTick) {
+        long due = Math.max(timer.deadlineTick, earliestTick);
+        int level;
+        int slot;
+        if (due - currentTick < SLOTS) {
+            level = 0;
+            slot = (int) (due & SLOT_MASK);
+        } else if ((due >>> SLOT_BITS) - (currentTick >>> SLOT_BITS) < SLOTS) {
+            level = 1;
+            slot = (int) ((due >>> SLOT_BITS) & SLOT_MASK);
+        } else if ((due >>> (2 * SLOT_BITS)) - (currentTick >>> (2 * SLOT_BITS)) < SLOTS) {
+            level = 2;
+            slot = (int) ((due >>> (2 * SLOT_BITS)) & SLOT_MASK);
+        } else {
+            // Beyond the wheel: park in the furthest top-level slot, re-placed when it comes round
+            level = 2;
+            slot = (int) (((currentTick >>> (2 * SLOT_BITS)) + SLOT_MASK) & SLOT_MASK);
+        }
+
+        Timer<T> head = wheels[level][slot];
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+        timer.linked = true;
+    }
+
+    private void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = timer.next = null;
+        timer.linked = false;
+    }
+}
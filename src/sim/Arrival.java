@@ -0,0 +1,25 @@
+package sim;
+
+import java.time.LocalDateTime;
+import model.Vehicle;
+
+/**
+ * One simulated visit: a vehicle arriving at the lot and how long it means to stay.
+ */
+public final class Arrival {
+
+    private final LocalDateTime time;
+    private final Vehicle vehicle;
+    private final int stayMinutes;
+
+    public Arrival(LocalDateTime time, Vehicle vehicle, int stayMinutes) {
+        this.time = time;
+        this.vehicle = vehicle;
+        this.stayMinutes = Math.max(1, stayMinutes);
+    }
+
+    public LocalDateTime getTime() { return time; }
+    public Vehicle getVehicle() { return vehicle; }
+    public int getStayMinutes() { return stayMinutes; }
+    public LocalDateTime getDepartureTime() { return time.plusMinutes(stayMinutes); }
+}
@@ -0,0 +1,10 @@
+package sim;
+
+/**
+ * Supplies a simulation's arrivals in time order.
+ */
+public interface ArrivalSource {
+
+    // The next arrival, or null when there are no more
+    Arrival next();
+}
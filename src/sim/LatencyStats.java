@@ -0,0 +1,43 @@
+package sim;
+
+import java.util.Arrays;
+
+/**
+ * Raw latency samples (nanoseconds) of one operation type. Each worker thread records
+ * into its own instance; merge() combines them for the report.
+ */
+public class LatencyStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    public void record(long nanos) {
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    public void merge(LatencyStats other) {
+        if (count + other.count > samples.length) samples = Arrays.copyOf(samples, count + other.count);
+        System.arraycopy(other.samples, 0, samples, count, other.count);
+        count += other.count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    // Percentile (0-100) in microseconds, nearest rank; 0 without samples
+    public double percentileMicros(double p) {
+        if (count == 0) return 0;
+        Arrays.sort(samples, 0, count);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return samples[Math.max(0, Math.min(count - 1, rank - 1))] / 1e3;
+    }
+
+    public double meanMicros() {
+        if (count == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < count; i++) sum += samples[i];
+        return sum / 1e3 / count;
+    }
+}
@@ -0,0 +1,340 @@
+package sim;
+
+import builder.ParkingLotBuilder;
+import clock.VirtualClock;
+import data.DataStore;
+import enums.PaymentMethod;
+import fine.FineScheme;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.ParkingSession;
+import model.PaymentRecord;
+import model.SpotStore;
+import pricing.PricingEngine;
+import service.EntryService;
+import service.ExitService;
+import service.FineService;
+import service.PaymentProcessor;
+import service.TicketIdGenerator;
+
+/**
+ * Headless discrete-event simulation of a lot: arrivals and departures in virtual time
+ * drive the real EntryService, ExitService and PaymentProcessor against a store, so a new
+ * site can be sized (spots, gates, hardware) before it opens.
+ *
+ * Virtual time advances in steps (default one minute). The events of a step are split by
+ * plate over the worker threads, one gate each with its own ticket generator, and run in
+ * parallel; the next step starts when all are done. A vehicle that gets a spot is
+ * scheduled to leave at arrival + stay. Leaving is a preview followed by either the gate
+ * attendant's confirmExit (as in ExitPanel) or a pay-station processPayment.
+ *
+ * Picking and taking a spot are two store calls, so entries are serialized on one lock
+ * (as a single allocation point would be in a real site); exits run fully in parallel.
+ * With speedup 0 the simulation runs as fast as it can, otherwise virtual time runs that
+ * many times faster than the wall clock. The services read "now" from a VirtualClock set to
+ * the start of each step; give the store the same clock (setClock) so the times it stamps
+ * itself follow virtual time too.
+ */
+public class LotSimulator {
+
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+
+    private final DataStore store;
+    private final ParkingLotBuilder lot;
+    private final ArrivalSource arrivals;
+    private final FineScheme fineScheme;
+    private int threads = 4;
+    private double speedup = 0;
+    private int stepSeconds = 60;
+    private double kioskShare = 0.5;
+    private long seed = 42;
+    private boolean quiet = true;
+    private VirtualClock clock;
+
+    private final Object allocationLock = new Object();
+    private final AtomicInteger occupied = new AtomicInteger();
+
+    public LotSimulator(DataStore store, ParkingLotBuilder lot, ArrivalSource arrivals, FineScheme fineScheme) {
+        this.store = store;
+        this.lot = lot;
+        this.arrivals = arrivals;
+        this.fineScheme = fineScheme;
+    }
+
+    public LotSimulator setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    // Virtual seconds per wall second; 0 = as fast as possible
+    public LotSimulator setSpeedup(double speedup) {
+        this.speedup = speedup;
+        return this;
+    }
+
+    public LotSimulator setStepSeconds(int stepSeconds) {
+        this.stepSeconds = Math.max(1, stepSeconds);
+        return this;
+    }
+
+    // Share of departures paying at a pay station (PaymentProcessor) instead of the gate
+    public LotSimulator setKioskShare(double kioskShare) {
+        this.kioskShare = kioskShare;
+        return this;
+    }
+
+    public LotSimulator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    // Clock shared with the store; by default the simulator keeps its own
+    public LotSimulator setClock(VirtualClock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    // Quiet (default): the services' console output is discarded while the simulation runs
+    public LotSimulator setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        return this;
+    }
+
+    // ===============================
+    //  RUN
+    // ===============================
+
+    public SimulationReport run() throws InterruptedException {
+        SpotStore spots = lot.buildSpotStore();
+        for (int i = 0; i < spots.size(); i++) store.upsertSpot(spots.spot(i));
+
+        if (clock == null) clock = new VirtualClock(LocalDateTime.of(2024, 1, 1, 0, 0));
+        FineService fineService = new FineService(store);
+        PricingEngine pricing = new PricingEngine(store);
+        ExitService exitService = new ExitService(store, fineScheme, fineService, pricing, clock);
+        PaymentProcessor paymentProcessor = new PaymentProcessor(store, fineService, pricing);
+        List<Gate> gates = new ArrayList<>();
+        for (int g = 0; g < threads; g++) {
+            gates.add(new Gate(new EntryService(store, null, null, new TicketIdGenerator(g + 1, clock), clock),
+                    exitService, paymentProcessor, new Random(seed + g)));
+        }
+
+        SimulationReport report = new SimulationReport();
+        report.threads = threads;
+        report.totalSpots = spots.size();
+
+        PrintStream console = System.out;
+        if (quiet) System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "sim-gate");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            simulate(gates, pool, report);
+        } finally {
+            pool.shutdownNow();
+            if (quiet) System.setOut(console);
+        }
+
+        for (Gate gate : gates) {
+            report.entry.merge(gate.entry);
+            report.preview.merge(gate.preview);
+            report.gateExit.merge(gate.gateExit);
+            report.kioskPayment.merge(gate.kioskPayment);
+            report.entered += gate.entered;
+            report.turnedAway += gate.turnedAway;
+            report.exited += gate.exited;
+            report.failedExits += gate.failedExits;
+            gate.revenueByDay.forEach((day, amount) -> report.revenueByDay.merge(day, amount, Double::sum));
+        }
+        report.revenue = report.revenueByDay.values().stream().mapToDouble(Double::doubleValue).sum();
+        report.storeRevenue = store.getTotalRevenue();
+        return report;
+    }
+
+    private void simulate(List<Gate> gates, ExecutorService pool, SimulationReport report) throws InterruptedException {
+        PriorityQueue<Arrival> departures = new PriorityQueue<>(Comparator.comparing(Arrival::getDepartureTime));
+        Arrival nextArrival = arrivals.next();
+        if (nextArrival == null) return;
+
+        LocalDateTime start = nextArrival.getTime().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime stepEnd = start;
+        LocalDateTime nextSample = start;
+        long wallStart = System.nanoTime();
+        report.virtualStart = start;
+
+        while (nextArrival != null || !departures.isEmpty()) {
+            clock.set(stepEnd);
+            stepEnd = stepEnd.plusSeconds(stepSeconds);
+
+            // Split the step's events over the gates, keeping each plate on one gate
+            List<List<Event>> work = new ArrayList<>();
+            for (int g = 0; g < threads; g++) work.add(new ArrayList<>());
+            while (nextArrival != null && nextArrival.getTime().isBefore(stepEnd)) {
+                work.get(gateOf(nextArrival)).add(new Event(nextArrival.getTime(), nextArrival, true));
+                report.arrivals++;
+                nextArrival = arrivals.next();
+            }
+            while (!departures.isEmpty() && departures.peek().getDepartureTime().isBefore(stepEnd)) {
+                Arrival leaving = departures.poll();
+                work.get(gateOf(leaving)).add(new Event(leaving.getDepartureTime(), leaving, false));
+            }
+
+            List<Future<List<Arrival>>> results = new ArrayList<>();
+            for (int g = 0; g < threads; g++) {
+                if (work.get(g).isEmpty()) continue;
+                Gate gate = gates.get(g);
+                List<Event> events = work.get(g);
+                events.sort(Comparator.comparing(e -> e.time));
+                Callable<List<Arrival>> task = () -> gate.process(events);
+                results.add(pool.submit(task));
+            }
+            for (Future<List<Arrival>> result : results) {
+                try {
+                    departures.addAll(result.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Simulation step failed at " + stepEnd, e.getCause());
+                }
+            }
+
+            int now = occupied.get();
+            report.peakOccupied = Math.max(report.peakOccupied, now);
+            while (!nextSample.isAfter(stepEnd)) {
+                report.occupancy.add(new SimulationReport.OccupancySample(nextSample, now));
+                nextSample = nextSample.plusHours(1);
+            }
+
+            if (speedup > 0) {
+                long due = wallStart + (long) (ChronoUnit.SECONDS.between(start, stepEnd) / speedup * 1e9);
+                long wait = due - System.nanoTime();
+                if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+        }
+        report.virtualEnd = stepEnd;
+        report.wallNanos = System.nanoTime() - wallStart;
+    }
+
+    private int gateOf(Arrival a) {
+        return Math.floorMod(a.getVehicle().getPlate().hashCode(), threads);
+    }
+
+    // An arrival or a departure of one visit
+    private static final class Event {
+        final LocalDateTime time;
+        final Arrival visit;
+        final boolean arrival;
+
+        Event(LocalDateTime time, Arrival visit, boolean arrival) {
+            this.time = time;
+            this.visit = visit;
+            this.arrival = arrival;
+        }
+    }
+
+    // ===============================
+    //  GATE (one worker thread)
+    // ===============================
+
+    private final class Gate {
+        final EntryService entryService;
+        final ExitService exitService;
+        final PaymentProcessor paymentProcessor;
+        final Random random;
+        final LatencyStats entry = new LatencyStats();
+        final LatencyStats preview = new LatencyStats();
+        final LatencyStats gateExit = new LatencyStats();
+        final LatencyStats kioskPayment = new LatencyStats();
+        final Map<LocalDate, Double> revenueByDay = new HashMap<>();
+        long entered, turnedAway, exited, failedExits;
+
+        Gate(EntryService entryService, ExitService exitService, PaymentProcessor paymentProcessor, Random random) {
+            this.entryService = entryService;
+            this.exitService = exitService;
+            this.paymentProcessor = paymentProcessor;
+            this.random = random;
+        }
+
+        // Runs the step's events in time order; returns the vehicles that got a spot
+        List<Arrival> process(List<Event> events) {
+            List<Arrival> parked = new ArrayList<>();
+            for (Event e : events) {
+                if (e.arrival) {
+                    if (enter(e.visit)) parked.add(e.visit);
+                } else {
+                    leave(e.visit);
+                }
+            }
+            return parked;
+        }
+
+        private boolean enter(Arrival a) {
+            long t0 = System.nanoTime();
+            String ticketNo = null;
+            synchronized (allocationLock) {
+                String spotId = entryService.recommendSpot(a.getVehicle(), a.getTime());
+                if (spotId != null) ticketNo = entryService.registerVehicleEntry(a.getVehicle(), spotId, a.getTime());
+            }
+            entry.record(System.nanoTime() - t0);
+            if (ticketNo == null) {
+                turnedAway++;
+                return false;
+            }
+            entered++;
+            occupied.incrementAndGet();
+            return true;
+        }
+
+        private void leave(Arrival a) {
+            LocalDateTime exitTime = a.getDepartureTime();
+            long t0 = System.nanoTime();
+            ParkingSession session = store.getOpenSessionByPlate(a.getVehicle().getPlate());
+            PaymentRecord quote = exitService.previewExit(session, exitTime);
+            long t1 = System.nanoTime();
+            preview.record(t1 - t0);
+            if (quote == null) {
+                failedExits++;
+                return;
+            }
+
+            PaymentMethod method = METHODS[random.nextInt(METHODS.length)];
+            double paid;
+            if (random.nextDouble() < kioskShare) {
+                // Pay station: exact amount for parking and any fines already on record
+                paid = quote.getTotalDue();
+                boolean ok = paymentProcessor.processPayment(session, method, paid, exitTime);
+                kioskPayment.record(System.nanoTime() - t1);
+                if (!ok) {
+                    failedExits++;
+                    return;
+                }
+            } else {
+                // Gate attendant, as in ExitPanel: fee and all fines settled in one payment
+                PaymentRecord payment = new PaymentRecord(session.getTicketNo(), session.getPlate(), method,
+                        exitTime, quote.getDurationHours(), quote.getParkingFee(), quote.getFinePaid(),
+                        quote.getTotalDue());
+                paid = exitService.confirmExit(session, exitTime, payment, false).getAmountPaid();
+                gateExit.record(System.nanoTime() - t1);
+            }
+            exited++;
+            occupied.decrementAndGet();
+            revenueByDay.merge(exitTime.toLocalDate(), paid, Double::sum);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package sim;
+
+import data.DataStore;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PlateCodec;
+
+/**
+ * Comparable summary of a lot's state, used to check a replay against the recording:
+ * every spot's status and plate, the open sessions (by plate, as ticket numbers may
+ * legitimately differ), unpaid fines per plate and revenue taken since a baseline.
+ * Amounts are compared to the cent.
+ */
+public class LotState {
+
+    private final TreeMap<String, String> spots = new TreeMap<>();     // spotId -> "AVAILABLE" / "OCCUPIED plate"
+    private final TreeMap<String, String> sessions = new TreeMap<>();  // plate -> spotId
+    private final TreeMap<String, Long> unpaidCents = new TreeMap<>(); // plate -> unpaid fines in cents
+    private long revenueCents;                                         // revenue since the baseline
+
+    // Current state of the store; revenue counted above revenueBaseline
+    public static LotState capture(DataStore store, double revenueBaseline) {
+        LotState state = new LotState();
+        for (ParkingSpot spot : store.getAllSpots()) {
+            String plate = spot.getCurrentVehiclePlate();
+            state.spots.put(spot.getSpotId(), spot.getStatus() + (plate == null ? "" : " " + PlateCodec.normalize(plate)));
+        }
+        for (ParkingSession s : store.getAllActiveSessions()) {
+            state.sessions.put(PlateCodec.normalize(s.getPlate()), s.getSpotId());
+        }
+        for (FineRecord f : store.getAllUnpaidFines()) {
+            state.unpaidCents.merge(PlateCodec.normalize(f.getPlate()), cents(f.getAmount()), Long::sum);
+        }
+        state.revenueCents = cents(store.getTotalRevenue() - revenueBaseline);
+        return state;
+    }
+
+    public double getRevenue() {
+        return revenueCents / 100.0;
+    }
+
+    public int getOpenSessions() {
+        return sessions.size();
+    }
+
+    // Differences from the expected state, at most limit lines (empty = identical)
+    public List<String> diff(LotState expected, int limit) {
+        List<String> out = new ArrayList<>();
+        diffMaps("spot", expected.spots, spots, out, limit);
+        diffMaps("session", expected.sessions, sessions, out, limit);
+        diffMaps("unpaid cents", expected.unpaidCents, unpaidCents, out, limit);
+        if (revenueCents != expected.revenueCents && out.size() < limit) {
+            out.add(String.format("revenue: expected RM %.2f, got RM %.2f", expected.revenueCents / 100.0, revenueCents / 100.0));
+        }
+        return out;
+    }
+
+    private static <V> void diffMaps(String what, Map<String, V> expected, Map<String, V> actual,
+                                     List<String> out, int limit) {
+        TreeMap<String, Boolean> keys = new TreeMap<>();
+        expected.keySet().forEach(k -> keys.put(k, true));
+        actual.keySet().forEach(k -> keys.put(k, true));
+        for (String key : keys.keySet()) {
+            if (out.size() >= limit) return;
+            V e = expected.get(key), a = actual.get(key);
+            if (!Objects.equals(e, a)) out.add(what + " " + key + ": expected " + e + ", got " + a);
+        }
+    }
+
+    // ===============================
+    //  TRACE ENCODING
+    // ===============================
+
+    void write(OperationTrace.Writer w) throws IOException {
+        w.num(spots.size());
+        for (Map.Entry<String, String> e : spots.entrySet()) w.str(e.getKey()).str(e.getValue());
+        w.num(sessions.size());
+        for (Map.Entry<String, String> e : sessions.entrySet()) w.str(e.getKey()).str(e.getValue());
+        w.num(unpaidCents.size());
+        for (Map.Entry<String, Long> e : unpaidCents.entrySet()) w.str(e.getKey()).num(e.getValue());
+        w.num(revenueCents);
+    }
+
+    static LotState read(OperationTrace.Reader r) throws IOException {
+        LotState state = new LotState();
+        for (long n = r.num(); n > 0; n--) state.spots.put(r.str(), r.str());
+        for (long n = r.num(); n > 0; n--) state.sessions.put(r.str(), r.str());
+        for (long n = r.num(); n > 0; n--) state.unpaidCents.put(r.str(), r.num());
+        state.revenueCents = r.num();
+        return state;
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
@@ -0,0 +1,211 @@
+package sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Binary format of a recorded operation trace (see TraceRecorder / TraceReplayer).
+ *
+ * File: "PKTR", byte version, long start (epoch millis), int gate id, then records.
+ * Record: byte op, varint millis since the previous record, then the op's fields.
+ * Integers are zigzag varints; business times are varint seconds relative to the previous
+ * business time in the file; strings are varint (length + 1, 0 = null) and UTF-8 bytes;
+ * amounts are 8-byte doubles.
+ *
+ * The trace opens with the lot's state at the start (SPOT, SESSION, FINE, CONFIG and
+ * REVENUE records), then the operations, and ends with END (the final state, LotState).
+ * Version 2 added OCCUPANCY; version 1 traces are still read.
+ */
+public final class OperationTrace {
+
+    static final byte[] MAGIC = {'P', 'K', 'T', 'R'};
+    static final int VERSION = 2;
+
+    // Initial state
+    public static final byte SPOT = 1;        // spotId, type, status, plate
+    public static final byte SESSION = 2;     // ticket, plate, vehicleType, hc, vip, spotId, entryTime, scheme
+    public static final byte FINE = 3;        // plate, reason, amount, issuedTime
+    public static final byte CONFIG = 4;      // key, value (also recorded when changed later)
+    public static final byte REVENUE = 5;     // total revenue before the trace
+    // Operations
+    public static final byte ENTRY = 10;      // time, plate, vehicleType, hc, vip, spotId, ticket (null = refused)
+    public static final byte PREVIEW = 11;    // time, plate
+    public static final byte CONFIRM_EXIT = 12; // time, plate, method, hours, fee, finePaid, amountPaid, markAllFinesPaid
+    public static final byte PAYMENT = 13;    // time, plate, method, amountPaid, partial, succeeded
+    public static final byte BULK_EXIT = 14;  // count, then per exit: time, plate, method, amountPaid
+    public static final byte OCCUPANCY = 15;  // count, then per (type, floor) group: type, floor, occupied ratio
+    public static final byte END = 99;        // LotState
+
+    private OperationTrace() {}
+
+    // ===============================
+    //  WRITER
+    // ===============================
+
+    public static final class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private long lastMillis;
+        private long lastSeconds;
+
+        public Writer(Path file, long startMillis, int gateId) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(startMillis);
+            out.writeInt(gateId);
+            this.lastMillis = startMillis;
+        }
+
+        // Starts a record at the given wall-clock time
+        public Writer op(byte op, long epochMillis) throws IOException {
+            out.writeByte(op);
+            long delta = Math.max(0, epochMillis - lastMillis);
+            writeVarLong(delta);
+            lastMillis += delta;
+            return this;
+        }
+
+        public Writer time(LocalDateTime t) throws IOException {
+            long seconds = t.toEpochSecond(ZoneOffset.UTC);
+            writeVarLong(seconds - lastSeconds);
+            lastSeconds = seconds;
+            return this;
+        }
+
+        public Writer str(String s) throws IOException {
+            if (s == null) {
+                writeVarLong(0);
+                return this;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1);
+            out.write(bytes);
+            return this;
+        }
+
+        public Writer num(long n) throws IOException {
+            writeVarLong(n);
+            return this;
+        }
+
+        public Writer flag(boolean b) throws IOException {
+            out.writeByte(b ? 1 : 0);
+            return this;
+        }
+
+        public Writer amount(double d) throws IOException {
+            out.writeDouble(d);
+            return this;
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void writeVarLong(long v) throws IOException {
+            long z = (v << 1) ^ (v >> 63);
+            while ((z & ~0x7FL) != 0) {
+                out.writeByte((int) ((z & 0x7F) | 0x80));
+                z >>>= 7;
+            }
+            out.writeByte((int) z);
+        }
+    }
+
+    // ===============================
+    //  READER
+    // ===============================
+
+    public static final class Reader implements AutoCloseable {
+        private final DataInputStream in;
+        private final long startMillis;
+        private final int gateId;
+        private long millis;
+        private long seconds;
+
+        public Reader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException(file + " is not an operation trace");
+            int version = in.readByte();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported trace version " + version);
+            this.startMillis = in.readLong();
+            this.gateId = in.readInt();
+            this.millis = startMillis;
+        }
+
+        public long getStartMillis() { return startMillis; }
+        public int getGateId() { return gateId; }
+
+        // Wall-clock time of the record last started with nextOp()
+        public long getMillis() { return millis; }
+
+        // Next record's op code, or -1 at the end of the file
+        public int nextOp() throws IOException {
+            int op;
+            try {
+                op = in.readByte();
+            } catch (EOFException e) {
+                return -1;
+            }
+            millis += readVarLong();
+            return op;
+        }
+
+        public LocalDateTime time() throws IOException {
+            seconds += readVarLong();
+            return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+        }
+
+        public String str() throws IOException {
+            int length = (int) readVarLong();
+            if (length == 0) return null;
+            byte[] bytes = new byte[length - 1];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public long num() throws IOException {
+            return readVarLong();
+        }
+
+        public boolean flag() throws IOException {
+            return in.readByte() != 0;
+        }
+
+        public double amount() throws IOException {
+            return in.readDouble();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private long readVarLong() throws IOException {
+            long z = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.readUnsignedByte();
+                z |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) break;
+            }
+            return (z >>> 1) ^ -(z & 1);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package sim;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import model.Vehicle;
+
+/**
+ * Random arrivals: a Poisson process whose rate follows a weekday profile (morning and
+ * evening peaks), with exponentially distributed stays and a fixed vehicle mix.
+ *
+ * The rate is peakPerHour times the hour's weight; arrivals are drawn at the peak rate and
+ * thinned by the weight, which gives an exact non-homogeneous Poisson process. A share of
+ * visitors overstays past 24 hours (to exercise the fine schemes). The same seed always
+ * produces the same arrivals.
+ */
+public class PoissonArrivals implements ArrivalSource {
+
+    // Share of the peak rate for each hour of the day
+    private static final double[] HOURLY_WEIGHT = {
+        0.05, 0.03, 0.02, 0.02, 0.03, 0.10, 0.35, 0.80, 1.00, 0.90, 0.60, 0.55,
+        0.60, 0.55, 0.50, 0.55, 0.70, 0.85, 0.60, 0.40, 0.30, 0.20, 0.12, 0.08
+    };
+
+    // Vehicle mix: type, cumulative share
+    private static final String[] TYPES = {"CAR", "MOTORCYCLE", "SUV/TRUCK", "HANDICAPPED"};
+    private static final double[] TYPE_CUMULATIVE = {0.70, 0.82, 0.96, 1.00};
+    private static final double VIP_SHARE = 0.02;
+
+    private final Random random;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final double peakPerHour;
+    private final double meanStayMinutes;
+    private final double overstayShare;
+    private double clockMinutes;   // minutes from start to the last drawn candidate
+    private long plates;
+
+    public PoissonArrivals(LocalDateTime start, LocalDateTime end, double peakPerHour, double meanStayMinutes,
+                           double overstayShare, long seed) {
+        this.start = start;
+        this.end = end;
+        this.peakPerHour = peakPerHour;
+        this.meanStayMinutes = meanStayMinutes;
+        this.overstayShare = overstayShare;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Arrival next() {
+        if (peakPerHour <= 0) return null;
+        while (true) {
+            clockMinutes += -Math.log(1 - random.nextDouble()) * 60.0 / peakPerHour;
+            LocalDateTime t = start.plusSeconds((long) (clockMinutes * 60));
+            if (!t.isBefore(end)) return null;
+            if (random.nextDouble() < HOURLY_WEIGHT[t.getHour()]) return new Arrival(t, nextVehicle(), nextStay());
+        }
+    }
+
+    private Vehicle nextVehicle() {
+        double u = random.nextDouble();
+        int i = 0;
+        while (u > TYPE_CUMULATIVE[i]) i++;
+        String type = TYPES[i];
+        String plate = "SIM" + Long.toString(++plates, 36).toUpperCase();
+        return new Vehicle(plate, type, type.equals("HANDICAPPED"), random.nextDouble() < VIP_SHARE);
+    }
+
+    private int nextStay() {
+        if (random.nextDouble() < overstayShare) return 24 * 60 + random.nextInt(48 * 60);
+        return (int) Math.ceil(-Math.log(1 - random.nextDouble()) * meanStayMinutes);
+    }
+}
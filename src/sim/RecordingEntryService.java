@@ -0,0 +1,38 @@
+package sim;
+
+import data.DataStore;
+import java.time.LocalDateTime;
+import model.Vehicle;
+import service.DemandForecaster;
+import service.EntryService;
+import service.ReservationService;
+import service.TicketIdGenerator;
+
+/**
+ * EntryService that reports every vehicle entry (accepted or refused) to a TraceRecorder.
+ */
+public class RecordingEntryService extends EntryService {
+
+    private final TraceRecorder recorder;
+
+    public RecordingEntryService(TraceRecorder recorder, DataStore dataStore, DemandForecaster forecaster,
+                                 ReservationService reservations) {
+        super(dataStore, forecaster, reservations, new TicketIdGenerator(recorder.getGateId(), recorder.getClock()),
+                recorder.getClock());
+        this.recorder = recorder;
+    }
+
+    @Override
+    public String registerVehicleEntry(Vehicle vehicle, String spotId, LocalDateTime now) {
+        long wall = recorder.getClock().millis();
+        String ticketNo;
+        recorder.beginEntry();
+        try {
+            ticketNo = super.registerVehicleEntry(vehicle, spotId, now);
+        } finally {
+            recorder.endEntry();
+        }
+        recorder.entry(wall, now, vehicle, spotId, ticketNo);
+        return ticketNo;
+    }
+}
@@ -0,0 +1,52 @@
+package sim;
+
+import data.DataStore;
+import fine.FineScheme;
+import java.time.LocalDateTime;
+import java.util.List;
+import model.ExitRequest;
+import model.ExitResult;
+import model.ParkingSession;
+import model.PaymentRecord;
+import pricing.PricingEngine;
+import service.ExitService;
+import service.FineService;
+
+/**
+ * ExitService that reports exit previews, confirmed exits and bulk exits to a TraceRecorder.
+ */
+public class RecordingExitService extends ExitService {
+
+    private final TraceRecorder recorder;
+
+    public RecordingExitService(TraceRecorder recorder, DataStore dataStore, FineScheme activeFineScheme,
+                                FineService fineService, PricingEngine pricing) {
+        super(dataStore, activeFineScheme, fineService, pricing, recorder.getClock());
+        this.recorder = recorder;
+    }
+
+    @Override
+    public PaymentRecord previewExit(ParkingSession session, LocalDateTime exitTime) {
+        long wall = recorder.getClock().millis();
+        PaymentRecord preview = super.previewExit(session, exitTime);
+        if (session != null) recorder.preview(wall, exitTime, session.getPlate());
+        return preview;
+    }
+
+    @Override
+    public PaymentRecord confirmExit(ParkingSession session, LocalDateTime exitTime,
+                                     PaymentRecord payment, boolean markAllFinesPaid) {
+        long wall = recorder.getClock().millis();
+        PaymentRecord result = super.confirmExit(session, exitTime, payment, markAllFinesPaid);
+        recorder.confirmExit(wall, exitTime, session.getPlate(), payment, markAllFinesPaid);
+        return result;
+    }
+
+    @Override
+    public List<ExitResult> confirmExits(List<ExitRequest> requests) {
+        long wall = recorder.getClock().millis();
+        List<ExitResult> results = super.confirmExits(requests);
+        recorder.bulkExit(wall, requests);
+        return results;
+    }
+}
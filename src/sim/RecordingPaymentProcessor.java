@@ -0,0 +1,40 @@
+package sim;
+
+import data.DataStore;
+import enums.PaymentMethod;
+import java.time.LocalDateTime;
+import model.ParkingSession;
+import pricing.PricingEngine;
+import service.FineService;
+import service.PaymentProcessor;
+
+/**
+ * PaymentProcessor that reports every payment attempt and its outcome to a TraceRecorder.
+ */
+public class RecordingPaymentProcessor extends PaymentProcessor {
+
+    private final TraceRecorder recorder;
+
+    public RecordingPaymentProcessor(TraceRecorder recorder, DataStore dataStore, FineService fineService,
+                                     PricingEngine pricing) {
+        super(dataStore, fineService, pricing);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public boolean processPayment(ParkingSession session, PaymentMethod method, double amountPaid, LocalDateTime exitTime) {
+        long wall = recorder.getClock().millis();
+        boolean ok = super.processPayment(session, method, amountPaid, exitTime);
+        if (session != null) recorder.payment(wall, exitTime, session.getPlate(), method, amountPaid, false, ok);
+        return ok;
+    }
+
+    @Override
+    public boolean processPartialPayment(ParkingSession session, PaymentMethod method, double amountPaid,
+                                         LocalDateTime exitTime) {
+        long wall = recorder.getClock().millis();
+        boolean ok = super.processPartialPayment(session, method, amountPaid, exitTime);
+        if (session != null) recorder.payment(wall, exitTime, session.getPlate(), method, amountPaid, true, ok);
+        return ok;
+    }
+}
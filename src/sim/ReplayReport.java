@@ -0,0 +1,90 @@
+package sim;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of one TraceReplayer run: operation counts and latencies, operations whose
+ * outcome differed from the recording, and the differences between the replay's final
+ * state and the recorded one (empty when the replay reproduced the lot exactly).
+ */
+public class ReplayReport {
+
+    static final int DETAIL_LIMIT = 20;
+
+    final LatencyStats entry = new LatencyStats();
+    final LatencyStats preview = new LatencyStats();
+    final LatencyStats confirmExit = new LatencyStats();
+    final LatencyStats payment = new LatencyStats();
+    final LatencyStats bulkExit = new LatencyStats();
+    final List<String> mismatches = new ArrayList<>();   // first DETAIL_LIMIT outcome differences
+    final List<String> stateDiff = new ArrayList<>();
+    int spots;
+    int sessions;
+    int fines;
+    int configChanges;
+    long mismatchCount;
+    long ticketDifferences;
+    boolean complete;         // the trace ended with its final state
+    double recordedRevenueBefore;
+    double revenue;
+    long recordedMillis;
+    long wallNanos;
+    double speed;
+
+    public long getMismatchCount() { return mismatchCount; }
+    public long getTicketDifferences() { return ticketDifferences; }
+    public List<String> getMismatches() { return mismatches; }
+    public List<String> getStateDiff() { return stateDiff; }
+    public boolean isComplete() { return complete; }
+    public double getRevenue() { return revenue; }
+    public LatencyStats getEntryLatency() { return entry; }
+    public LatencyStats getPreviewLatency() { return preview; }
+    public LatencyStats getConfirmExitLatency() { return confirmExit; }
+    public LatencyStats getPaymentLatency() { return payment; }
+    public LatencyStats getBulkExitLatency() { return bulkExit; }
+
+    // True when every operation had its recorded outcome and the final state matches
+    public boolean isFaithful() {
+        return complete && mismatchCount == 0 && stateDiff.isEmpty();
+    }
+
+    public void print(PrintStream out) {
+        long ops = entry.getCount() + preview.getCount() + confirmExit.getCount() + payment.getCount() + bulkExit.getCount();
+        double wallSeconds = wallNanos / 1e9;
+        out.println("=========== REPLAY REPORT ===========");
+        out.printf("Start state:    %d spots, %d open sessions, %d unpaid fines (revenue before RM %.2f)%n",
+                spots, sessions, fines, recordedRevenueBefore);
+        out.printf("Recorded span:  %.1f min, replayed in %.2f s (%s)%n", recordedMillis / 60000.0, wallSeconds,
+                speed <= 0 ? "max speed" : speed + "x");
+        out.printf("Operations:     %d (%.0f ops/s), %d config changes%n", ops,
+                wallSeconds == 0 ? 0 : ops / wallSeconds, configChanges);
+        out.printf("Revenue:        RM %.2f%n", revenue);
+        out.printf("Outcomes:       %d differed from the recording, %d entries got another ticket number%n",
+                mismatchCount, ticketDifferences);
+        mismatches.forEach(m -> out.println("  " + m));
+        out.println();
+        out.printf("%-14s %9s %9s %9s %9s %9s %9s%n", "latency (us)", "count", "mean", "p50", "p90", "p99", "p99.9");
+        printLatency(out, "entry", entry);
+        printLatency(out, "exit preview", preview);
+        printLatency(out, "confirm exit", confirmExit);
+        printLatency(out, "payment", payment);
+        printLatency(out, "bulk exit", bulkExit);
+        out.println();
+        if (!complete) {
+            out.println("Final state:    not in the trace (recording did not shut down cleanly)");
+        } else if (stateDiff.isEmpty()) {
+            out.println("Final state:    identical to the recording");
+        } else {
+            out.println("Final state:    differs from the recording");
+            stateDiff.forEach(d -> out.println("  " + d));
+        }
+    }
+
+    private static void printLatency(PrintStream out, String name, LatencyStats stats) {
+        out.printf("%-14s %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, stats.getCount(), stats.meanMicros(),
+                stats.percentileMicros(50), stats.percentileMicros(90), stats.percentileMicros(99),
+                stats.percentileMicros(99.9));
+    }
+}
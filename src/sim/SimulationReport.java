@@ -0,0 +1,108 @@
+package sim;
+
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Results of one LotSimulator run: operation counts and latencies, throughput, the
+ * hourly occupancy curve and revenue per virtual day.
+ */
+public class SimulationReport {
+
+    // Occupancy at one point of virtual time
+    public static final class OccupancySample {
+        private final LocalDateTime time;
+        private final int occupied;
+
+        OccupancySample(LocalDateTime time, int occupied) {
+            this.time = time;
+            this.occupied = occupied;
+        }
+
+        public LocalDateTime getTime() { return time; }
+        public int getOccupied() { return occupied; }
+    }
+
+    final LatencyStats entry = new LatencyStats();
+    final LatencyStats preview = new LatencyStats();
+    final LatencyStats gateExit = new LatencyStats();
+    final LatencyStats kioskPayment = new LatencyStats();
+    final List<OccupancySample> occupancy = new ArrayList<>();
+    final TreeMap<LocalDate, Double> revenueByDay = new TreeMap<>();
+    int threads;
+    int totalSpots;
+    long arrivals;
+    long entered;
+    long turnedAway;
+    long exited;
+    long failedExits;
+    int peakOccupied;
+    double revenue;
+    double storeRevenue;
+    long wallNanos;
+    LocalDateTime virtualStart;
+    LocalDateTime virtualEnd;
+
+    public long getArrivals() { return arrivals; }
+    public long getEntered() { return entered; }
+    public long getTurnedAway() { return turnedAway; }
+    public long getExited() { return exited; }
+    public long getFailedExits() { return failedExits; }
+    public int getPeakOccupied() { return peakOccupied; }
+    public double getRevenue() { return revenue; }
+    public double getStoreRevenue() { return storeRevenue; }
+    public LatencyStats getEntryLatency() { return entry; }
+    public LatencyStats getPreviewLatency() { return preview; }
+    public LatencyStats getGateExitLatency() { return gateExit; }
+    public LatencyStats getKioskPaymentLatency() { return kioskPayment; }
+    public List<OccupancySample> getOccupancy() { return occupancy; }
+    public Map<LocalDate, Double> getRevenueByDay() { return revenueByDay; }
+
+    // Service operations (entries, previews, exits, payments) per wall-clock second
+    public double getThroughput() {
+        long ops = entry.getCount() + preview.getCount() + gateExit.getCount() + kioskPayment.getCount();
+        return wallNanos == 0 ? 0 : ops / (wallNanos / 1e9);
+    }
+
+    public void print(PrintStream out) {
+        double wallSeconds = wallNanos / 1e9;
+        double virtualHours = virtualStart == null ? 0
+                : java.time.Duration.between(virtualStart, virtualEnd).toMinutes() / 60.0;
+        out.println("========= SIMULATION REPORT =========");
+        out.printf("Virtual time:   %s -> %s (%.1f h)%n", virtualStart, virtualEnd, virtualHours);
+        out.printf("Wall time:      %.2f s on %d threads (%.0fx real time)%n", wallSeconds, threads,
+                wallSeconds == 0 ? 0 : virtualHours * 3600 / wallSeconds);
+        out.printf("Arrivals:       %d (entered %d, turned away %d)%n", arrivals, entered, turnedAway);
+        out.printf("Exits:          %d (failed %d)%n", exited, failedExits);
+        out.printf("Throughput:     %.0f service ops/s%n", getThroughput());
+        out.printf("Peak occupancy: %d / %d spots%n", peakOccupied, totalSpots);
+        out.printf("Revenue:        RM %.2f (store total RM %.2f)%n", revenue, storeRevenue);
+        out.println();
+        out.printf("%-14s %9s %9s %9s %9s %9s %9s%n", "latency (us)", "count", "mean", "p50", "p90", "p99", "p99.9");
+        printLatency(out, "entry", entry);
+        printLatency(out, "exit preview", preview);
+        printLatency(out, "gate exit", gateExit);
+        printLatency(out, "kiosk payment", kioskPayment);
+        out.println();
+        out.println("Occupancy (hourly):");
+        int width = 50;
+        for (OccupancySample s : occupancy) {
+            int bar = totalSpots == 0 ? 0 : (int) Math.round((double) s.getOccupied() / totalSpots * width);
+            out.printf("  %s %5d |%s%n", s.getTime().toString().replace('T', ' '), s.getOccupied(), "#".repeat(bar));
+        }
+        out.println();
+        out.println("Revenue by day:");
+        revenueByDay.forEach((day, amount) -> out.printf("  %s RM %.2f%n", day, amount));
+    }
+
+    private static void printLatency(PrintStream out, String name, LatencyStats stats) {
+        out.printf("%-14s %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, stats.getCount(), stats.meanMicros(),
+                stats.percentileMicros(50), stats.percentileMicros(90), stats.percentileMicros(99),
+                stats.percentileMicros(99.9));
+    }
+}
@@ -0,0 +1,70 @@
+package sim;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import model.Vehicle;
+
+/**
+ * Arrivals read from a CSV trace, e.g. exported from a site's session history:
+ *
+ *   arrival,plate,vehicleType,stayMinutes[,hcCard,vip]
+ *   2024-03-02T08:01:13,ABC1234,CAR,95
+ *   2024-03-02T08:01:40,WXY88,HANDICAPPED,240,true,false
+ *
+ * Lines must be in arrival order. Blank lines, lines starting with '#' and a header line
+ * starting with "arrival" are skipped.
+ */
+public class TraceArrivals implements ArrivalSource, AutoCloseable {
+
+    private final Path file;
+    private final BufferedReader reader;
+    private int lineNo;
+
+    public TraceArrivals(Path file) throws IOException {
+        this.file = file;
+        this.reader = Files.newBufferedReader(file);
+    }
+
+    @Override
+    public Arrival next() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("arrival")) continue;
+                return parse(line);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Arrival parse(String line) {
+        String[] f = line.split(",");
+        if (f.length < 4) throw new IllegalArgumentException(file + ":" + lineNo + ": expected at least 4 fields");
+        try {
+            LocalDateTime time = LocalDateTime.parse(f[0].trim());
+            boolean hc = f.length > 4 && Boolean.parseBoolean(f[4].trim());
+            boolean vip = f.length > 5 && Boolean.parseBoolean(f[5].trim());
+            Vehicle vehicle = new Vehicle(f[1].trim(), f[2].trim().toUpperCase(), hc, vip);
+            return new Arrival(time, vehicle, Integer.parseInt(f[3].trim()));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(file + ":" + lineNo + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package sim;
+
+import data.DataStore;
+import data.DataStoreDecorator;
+import data.EventPublishingDataStore;
+import data.StoreEvent;
+import fine.FineSchemes;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import model.ExitRequest;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.Vehicle;
+import enums.PaymentMethod;
+import enums.SpotType;
+import pricing.PricingEngine;
+
+/**
+ * Records a lot's service-level operations to a binary trace (format: OperationTrace) so
+ * that TraceReplayer can re-drive them against a fresh store.
+ *
+ * The recording services (RecordingEntryService, RecordingExitService,
+ * RecordingPaymentProcessor) report entries, exit previews, confirmed exits and payments.
+ * Configuration changes (fine scheme, pricing) and entries made outside EntryService
+ * (the ANPR batch path) are taken from the store's change events. Give it the lot's
+ * PricingEngine occupancy snapshots (addOccupancyListener(recorder::occupancy)) so the
+ * replay prices with the occupancy the lot had, not with one it recomputes at other times. The trace starts with
+ * the lot's state and close() appends the final state for the replay to compare with.
+ *
+ * Recording never fails an operation: on an I/O error it prints the error and stops.
+ */
+public class TraceRecorder {
+
+    public static final String ACTIVE_FINE_SCHEME_KEY = "active_fine_scheme";
+    static final String[] CONFIG_KEYS = {
+        PricingEngine.SCHEDULE_KEY, PricingEngine.OCCUPANCY_KEY, PricingEngine.TARIFF_KEY
+    };
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final DataStore store;
+    private final Clock clock;
+    private final int gateId;
+    private final EventPublishingDataStore events;
+    private final OperationTrace.Writer out;
+    private final Consumer<StoreEvent> listener = this::onStoreEvent;
+    private final ThreadLocal<Boolean> inEntry = ThreadLocal.withInitial(() -> false);
+    private double revenueBaseline;
+    private boolean stopped;
+
+    public TraceRecorder(DataStore store, Path file, int gateId) throws IOException {
+        this(store, file, gateId, Clock.systemDefaultZone());
+    }
+
+    // The recording services take their clock and gate from here, so the trace and the lot agree
+    public TraceRecorder(DataStore store, Path file, int gateId, Clock clock) throws IOException {
+        this.store = store;
+        this.clock = clock;
+        this.gateId = gateId;
+        this.events = DataStoreDecorator.find(store, EventPublishingDataStore.class);
+        this.out = new OperationTrace.Writer(file, clock.millis(), gateId);
+
+        // Start state and listener are taken with no write in between
+        IOException[] failed = new IOException[1];
+        Runnable start = () -> {
+            try {
+                writeStartState();
+            } catch (IOException e) {
+                failed[0] = e;
+            }
+            if (events != null) events.addListener(listener);
+        };
+        if (events != null) events.readConsistent(start);
+        else start.run();
+        if (failed[0] != null) throw failed[0];
+    }
+
+    private void writeStartState() throws IOException {
+        long now = clock.millis();
+        for (ParkingSpot spot : store.getAllSpots()) {
+            out.op(OperationTrace.SPOT, now).str(spot.getSpotId()).str(spot.getType().name())
+                    .str(spot.getStatus().name()).str(spot.getCurrentVehiclePlate());
+        }
+        for (ParkingSession s : store.getAllActiveSessions()) {
+            Vehicle v = s.getVehicle();
+            out.op(OperationTrace.SESSION, now).str(s.getTicketNo()).str(v.getPlate()).str(v.getType())
+                    .flag(v.hasHcCard()).flag(v.isVIP()).str(s.getSpotId()).str(s.getEntryTime()).str(s.getFineScheme());
+        }
+        for (FineRecord f : store.getAllUnpaidFines()) {
+            out.op(OperationTrace.FINE, now).str(f.getPlate()).str(f.getReason().name())
+                    .amount(f.getAmount()).str(f.getIssuedTime());
+        }
+        out.op(OperationTrace.CONFIG, now).str(ACTIVE_FINE_SCHEME_KEY).str(store.getActiveFineScheme());
+        List<String> keys = new ArrayList<>(FineSchemes.configKeys(store::getConfig));
+        keys.addAll(Arrays.asList(CONFIG_KEYS));
+        for (String key : keys) {
+            String value = store.getConfig(key);
+            if (value != null) out.op(OperationTrace.CONFIG, now).str(key).str(value);
+        }
+        revenueBaseline = store.getTotalRevenue();
+        out.op(OperationTrace.REVENUE, now).amount(revenueBaseline);
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public int getGateId() {
+        return gateId;
+    }
+
+    // ===============================
+    //  OPERATIONS
+    // ===============================
+
+    // Marks the current thread as inside EntryService, so its session event is not recorded twice
+    void beginEntry() {
+        inEntry.set(true);
+    }
+
+    void endEntry() {
+        inEntry.set(false);
+    }
+
+    synchronized void entry(long wallMillis, LocalDateTime time, Vehicle v, String spotId, String ticketNo) {
+        if (stopped) return;
+        try {
+            out.op(OperationTrace.ENTRY, wallMillis).time(time).str(v.getPlate()).str(v.getType())
+                    .flag(v.hasHcCard()).flag(v.isVIP()).str(spotId).str(ticketNo);
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    synchronized void preview(long wallMillis, LocalDateTime time, String plate) {
+        if (stopped) return;
+        try {
+            out.op(OperationTrace.PREVIEW, wallMillis).time(time).str(plate);
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    synchronized void confirmExit(long wallMillis, LocalDateTime time, String plate, PaymentRecord payment,
+                                  boolean markAllFinesPaid) {
+        if (stopped) return;
+        try {
+            out.op(OperationTrace.CONFIRM_EXIT, wallMillis).time(time).str(plate).str(methodName(payment.getMethod()))
+                    .num(payment.getDurationHours()).amount(payment.getParkingFee()).amount(payment.getFinePaid())
+                    .amount(payment.getAmountPaid()).flag(markAllFinesPaid);
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    synchronized void payment(long wallMillis, LocalDateTime time, String plate, PaymentMethod method,
+                              double amountPaid, boolean partial, boolean succeeded) {
+        if (stopped) return;
+        try {
+            out.op(OperationTrace.PAYMENT, wallMillis).time(time).str(plate).str(methodName(method))
+                    .amount(amountPaid).flag(partial).flag(succeeded);
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    synchronized void bulkExit(long wallMillis, List<ExitRequest> requests) {
+        if (stopped) return;
+        try {
+            out.op(OperationTrace.BULK_EXIT, wallMillis).num(requests.size());
+            for (ExitRequest r : requests) {
+                out.time(r.getExitTime()).str(r.getPlate()).str(methodName(r.getMethod())).amount(r.getAmountPaid());
+            }
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    // Occupancy snapshot the lot's pricing just took
+    public synchronized void occupancy(Map<SpotType, Map<Integer, Double>> ratios) {
+        if (stopped) return;
+        try {
+            int groups = 0;
+            for (Map<Integer, Double> floors : ratios.values()) groups += floors.size();
+            out.op(OperationTrace.OCCUPANCY, clock.millis()).num(groups);
+            for (Map.Entry<SpotType, Map<Integer, Double>> type : ratios.entrySet()) {
+                for (Map.Entry<Integer, Double> floor : type.getValue().entrySet()) {
+                    out.str(type.getKey().name()).num(floor.getKey()).amount(floor.getValue());
+                }
+            }
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    // Runs on the writing thread with the store's lock held: only appends to the buffer
+    private void onStoreEvent(StoreEvent e) {
+        if (e.getType() == StoreEvent.Type.CONFIG_CHANGED) {
+            config(e.getPublishedAt(), e.getKey(), e.getValue());
+        } else if (e.getType() == StoreEvent.Type.SESSION_OPENED && !inEntry.get()) {
+            ParkingSession s = e.getSession();
+            entry(e.getPublishedAt(), LocalDateTime.parse(s.getEntryTime(), TIME_FORMAT), s.getVehicle(),
+                    s.getSpotId(), s.getTicketNo());
+        }
+    }
+
+    private synchronized void config(long wallMillis, String key, String value) {
+        if (stopped) return;
+        try {
+            out.op(OperationTrace.CONFIG, wallMillis).str(key).str(value);
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    // ===============================
+    //  LIFECYCLE
+    // ===============================
+
+    public synchronized void flush() {
+        if (stopped) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            stop(e);
+        }
+    }
+
+    // Appends the final state and closes the trace
+    public void close() {
+        if (events != null) events.removeListener(listener);
+        LotState end = LotState.capture(store, revenueBaseline);
+        synchronized (this) {
+            if (stopped) return;
+            try {
+                out.op(OperationTrace.END, clock.millis());
+                end.write(out);
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            stopped = true;
+        }
+    }
+
+    private void stop(IOException e) {
+        e.printStackTrace();
+        stopped = true;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // already failing
+        }
+    }
+
+    private static String methodName(PaymentMethod method) {
+        return method == null ? null : method.name();
+    }
+}
@@ -0,0 +1,320 @@
+package sim;
+
+import clock.VirtualClock;
+import data.DataStore;
+import enums.FineReason;
+import enums.PaymentMethod;
+import enums.SpotStatus;
+import enums.SpotType;
+import fine.FineScheme;
+import fine.FineSchemes;
+import fine.LotFineSchemes;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.ExitRequest;
+import model.FineRecord;
+import model.ParkingSession;
+import model.ParkingSpot;
+import model.PaymentRecord;
+import model.Vehicle;
+import pricing.PricingEngine;
+import service.EntryService;
+import service.ExitService;
+import service.FineService;
+import service.PaymentProcessor;
+import service.TicketIdGenerator;
+
+/**
+ * Re-drives a trace written by TraceRecorder against a fresh, empty store: the store is
+ * seeded with the recorded start state, every operation is replayed through the same
+ * services with its recorded business time, and the final state is compared with the one
+ * recorded at shutdown.
+ *
+ * Replays run at maximum speed by default, or paced on the recorded wall-clock offsets
+ * (speed 1 = as recorded, 10 = ten times faster) to reproduce production load patterns.
+ * The services read "now" from a VirtualClock moved to each operation's recorded time;
+ * give the store the same clock (setClock) so the times it stamps itself are repeatable.
+ * Reservations are not part of the trace, so entries refused because a spot was held for
+ * a booking show up as outcome differences. Fees are priced with the occupancy snapshots
+ * recorded from the live lot (OCCUPANCY); a config change only reloads the pricing config.
+ */
+public class TraceReplayer {
+
+    private final DataStore store;
+    private final Path trace;
+    private double speed;
+    private boolean quiet;
+    private VirtualClock clock;
+
+    private EntryService entryService;
+    private ExitService exitService;
+    private PaymentProcessor paymentProcessor;
+    private PricingEngine pricing;
+
+    // store must be empty (spots included): the trace brings its own layout
+    public TraceReplayer(DataStore store, Path trace) {
+        this.store = store;
+        this.trace = trace;
+    }
+
+    // Virtual/wall time ratio: 0 = as fast as possible
+    public TraceReplayer setSpeed(double speed) {
+        this.speed = speed;
+        return this;
+    }
+
+    // Clock shared with the store; by default the replayer keeps its own
+    public TraceReplayer setClock(VirtualClock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public TraceReplayer setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        return this;
+    }
+
+    public ReplayReport run() throws IOException {
+        ReplayReport report = new ReplayReport();
+        report.speed = speed;
+        try (OperationTrace.Reader in = new OperationTrace.Reader(trace)) {
+            int gateId = in.getGateId();
+            Instant traceStart = Instant.ofEpochMilli(in.getStartMillis());
+            if (clock == null) clock = new VirtualClock(LocalDateTime.ofInstant(traceStart, ZoneId.systemDefault()));
+            else clock.set(traceStart);
+            long firstOpMillis = -1;
+            long replayStart = System.nanoTime();
+            int op;
+            while ((op = in.nextOp()) >= 0) {
+                if (op >= OperationTrace.ENTRY && op != OperationTrace.END) {
+                    if (entryService == null) startServices(gateId);
+                    if (firstOpMillis < 0) {
+                        firstOpMillis = in.getMillis();
+                        replayStart = System.nanoTime();
+                    }
+                    pace(replayStart, in.getMillis() - firstOpMillis);
+                }
+                switch (op) {
+                    case OperationTrace.SPOT:
+                        seedSpot(in);
+                        report.spots++;
+                        break;
+                    case OperationTrace.SESSION:
+                        seedSession(in);
+                        report.sessions++;
+                        break;
+                    case OperationTrace.FINE:
+                        store.addFine(new FineRecord(in.str(), FineReason.valueOf(in.str()), in.amount(), in.str(), false));
+                        report.fines++;
+                        break;
+                    case OperationTrace.CONFIG:
+                        applyConfig(in.str(), in.str(), report);
+                        break;
+                    case OperationTrace.REVENUE:
+                        report.recordedRevenueBefore = in.amount();
+                        break;
+                    case OperationTrace.ENTRY:
+                        replayEntry(in, report);
+                        break;
+                    case OperationTrace.PREVIEW:
+                        replayPreview(in, report);
+                        break;
+                    case OperationTrace.CONFIRM_EXIT:
+                        replayConfirmExit(in, report);
+                        break;
+                    case OperationTrace.PAYMENT:
+                        replayPayment(in, report);
+                        break;
+                    case OperationTrace.BULK_EXIT:
+                        replayBulkExit(in, report);
+                        break;
+                    case OperationTrace.OCCUPANCY:
+                        replayOccupancy(in);
+                        break;
+                    case OperationTrace.END:
+                        LotState expected = LotState.read(in);
+                        report.stateDiff.addAll(LotState.capture(store, 0).diff(expected, ReplayReport.DETAIL_LIMIT));
+                        report.complete = true;
+                        break;
+                    default:
+                        throw new IOException("Unknown trace record " + op);
+                }
+                if (firstOpMillis >= 0) report.recordedMillis = in.getMillis() - firstOpMillis;
+            }
+            report.wallNanos = System.nanoTime() - replayStart;
+        }
+        report.revenue = store.getTotalRevenue();
+        return report;
+    }
+
+    // Services are built once the start state (including config) is in the store, as in main
+    private void startServices(int gateId) {
+        FineScheme activeScheme = new LotFineSchemes(store::getConfig).byName(store.getActiveFineScheme());
+        if (activeScheme == null) activeScheme = FineSchemes.byName(FineSchemes.PROGRESSIVE); // as main
+        FineService fineService = new FineService(store);
+        pricing = new PricingEngine(store);
+        exitService = new ExitService(store, activeScheme, fineService, pricing, clock);
+        paymentProcessor = new PaymentProcessor(store, fineService, pricing);
+        entryService = new EntryService(store, null, null, new TicketIdGenerator(gateId, clock), clock);
+    }
+
+    private void pace(long replayStart, long recordedOffsetMillis) {
+        if (speed <= 0) return;
+        long due = replayStart + (long) (recordedOffsetMillis * 1_000_000L / speed);
+        long wait = due - System.nanoTime();
+        if (wait <= 0) return;
+        try {
+            Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===============================
+    //  START STATE
+    // ===============================
+
+    private void seedSpot(OperationTrace.Reader in) throws IOException {
+        ParkingSpot spot = new ParkingSpot(in.str(), SpotType.valueOf(in.str()));
+        spot.setStatus(SpotStatus.valueOf(in.str()));
+        spot.setCurrentVehiclePlate(in.str());
+        store.upsertSpot(spot);
+    }
+
+    private void seedSession(OperationTrace.Reader in) throws IOException {
+        String ticketNo = in.str();
+        Vehicle vehicle = new Vehicle(in.str(), in.str(), in.flag(), in.flag());
+        store.createSession(new ParkingSession(ticketNo, vehicle, in.str(), in.str(), in.str()));
+    }
+
+    private void applyConfig(String key, String value, ReplayReport report) {
+        if (TraceRecorder.ACTIVE_FINE_SCHEME_KEY.equals(key)) {
+            store.setActiveFineScheme(value);
+        } else {
+            store.setConfig(key, value); // custom fine scheme versions are read from here when used
+        }
+        if (pricing != null) {
+            pricing.refreshConfig(); // occupancy comes from the recorded snapshots
+            report.configChanges++;
+        }
+    }
+
+    // ===============================
+    //  OPERATIONS
+    // ===============================
+
+    private void replayEntry(OperationTrace.Reader in, ReplayReport report) throws IOException {
+        LocalDateTime time = in.time();
+        clock.set(time);
+        Vehicle vehicle = new Vehicle(in.str(), in.str(), in.flag(), in.flag());
+        String spotId = in.str();
+        String recordedTicket = in.str();
+        long start = System.nanoTime();
+        String ticketNo = entryService.registerVehicleEntry(vehicle, spotId, time);
+        report.entry.record(System.nanoTime() - start);
+        if ((ticketNo == null) != (recordedTicket == null)) {
+            mismatch(report, time, "entry of " + vehicle.getPlate() + " at " + spotId
+                    + (recordedTicket == null ? " was refused, replay admitted it" : " was admitted, replay refused it"));
+        } else if (ticketNo != null && !ticketNo.equals(recordedTicket)) {
+            report.ticketDifferences++;
+        }
+    }
+
+    private void replayPreview(OperationTrace.Reader in, ReplayReport report) throws IOException {
+        LocalDateTime time = in.time();
+        clock.set(time);
+        String plate = in.str();
+        ParkingSession session = store.getOpenSessionByPlate(plate);
+        if (session == null) {
+            mismatch(report, time, "exit preview for " + plate + ": no open session");
+            return;
+        }
+        long start = System.nanoTime();
+        exitService.previewExit(session, time);
+        report.preview.record(System.nanoTime() - start);
+    }
+
+    private void replayConfirmExit(OperationTrace.Reader in, ReplayReport report) throws IOException {
+        LocalDateTime time = in.time();
+        clock.set(time);
+        String plate = in.str();
+        PaymentMethod method = method(in.str());
+        int hours = (int) in.num();
+        double fee = in.amount(), finePaid = in.amount(), amountPaid = in.amount();
+        boolean markAllFinesPaid = in.flag();
+        ParkingSession session = store.getOpenSessionByPlate(plate);
+        if (session == null) {
+            mismatch(report, time, "exit of " + plate + ": no open session");
+            return;
+        }
+        PaymentRecord payment = new PaymentRecord(session.getTicketNo(), plate, method, time, hours, fee, finePaid, amountPaid);
+        long start = System.nanoTime();
+        exitService.confirmExit(session, time, payment, markAllFinesPaid);
+        report.confirmExit.record(System.nanoTime() - start);
+    }
+
+    private void replayPayment(OperationTrace.Reader in, ReplayReport report) throws IOException {
+        LocalDateTime time = in.time();
+        clock.set(time);
+        String plate = in.str();
+        PaymentMethod method = method(in.str());
+        double amountPaid = in.amount();
+        boolean partial = in.flag(), recordedOk = in.flag();
+        ParkingSession session = store.getOpenSessionByPlate(plate);
+        if (session == null) {
+            mismatch(report, time, "payment for " + plate + ": no open session");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean ok = partial
+                ? paymentProcessor.processPartialPayment(session, method, amountPaid, time)
+                : paymentProcessor.processPayment(session, method, amountPaid, time);
+        report.payment.record(System.nanoTime() - start);
+        if (ok != recordedOk) {
+            mismatch(report, time, "payment of RM " + String.format("%.2f", amountPaid) + " for " + plate
+                    + (recordedOk ? " succeeded, replay failed it" : " failed, replay accepted it"));
+        }
+    }
+
+    private void replayBulkExit(OperationTrace.Reader in, ReplayReport report) throws IOException {
+        int count = (int) in.num();
+        List<ExitRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime time = in.time();
+            if (i == 0) clock.set(time);
+            requests.add(new ExitRequest(in.str(), time, method(in.str()), in.amount()));
+        }
+        long start = System.nanoTime();
+        exitService.confirmExits(requests);
+        report.bulkExit.record(System.nanoTime() - start);
+    }
+
+    private void replayOccupancy(OperationTrace.Reader in) throws IOException {
+        int groups = (int) in.num();
+        Map<SpotType, Map<Integer, Double>> ratios = new EnumMap<>(SpotType.class);
+        for (int i = 0; i < groups; i++) {
+            SpotType type = SpotType.valueOf(in.str());
+            ratios.computeIfAbsent(type, t -> new HashMap<>()).put((int) in.num(), in.amount());
+        }
+        pricing.setOccupancy(ratios);
+    }
+
+    private void mismatch(ReplayReport report, LocalDateTime time, String what) {
+        report.mismatchCount++;
+        String line = time + " " + what;
+        if (report.mismatches.size() < ReplayReport.DETAIL_LIMIT) report.mismatches.add(line);
+        if (!quiet) System.err.println("Replay: " + line);
+    }
+
+    private static PaymentMethod method(String name) {
+        return name == null ? null : PaymentMethod.valueOf(name);
+    }
+}
@@ -1,23 +1,32 @@
 package ui;
 
 import data.DataStore;
+import fine.FineSchemes;
+import fine.LotFineSchemes;
+import fine.TableFineScheme;
 import java.awt.*;
 import javax.swing.*;
+import model.ConsistencyReport;
+import service.ConsistencyChecker;
 import service.ExitService;
+import service.ReadModel;
 
 public class AdminPanel extends JPanel {
 
     private final ExitService exitService;
-    private final DataStore store;
+    private final DataStore store;          // configuration and repairs (command side)
+    private final ReadModel readModel;      // dashboard figures (query side)
 
     // UI Components that need updating
     private JLabel lblOccupancy, lblRevenue, lblUnpaidFines;
     private DefaultListModel<String> vehiclesListModel;
     private JComboBox<String> schemeDropdown;
+    private JTextField customSchemeField;
 
-    public AdminPanel(ExitService exitService, DataStore store) {
+    public AdminPanel(ExitService exitService, DataStore store, ReadModel readModel) {
         this.exitService = exitService;
         this.store = store;
+        this.readModel = readModel;
 
         // Modern layout styling
         setLayout(new BorderLayout(15, 15));
@@ -91,7 +100,7 @@ public class AdminPanel extends JPanel {
         gbc.gridx = 0; gbc.gridy = 0;
         finePanel.add(new JLabel("Active Fine Policy:"), gbc);
 
-        String[] options = {"Fixed Fine (RM 50)", "Progressive (Tiered)", "Hourly (RM 20/hr)"};
+        String[] options = FineSchemes.names();
         schemeDropdown = new JComboBox<>(options);
         
         // ─── IMPORTANT: Load and pre-select the current active scheme ───
@@ -106,14 +115,41 @@ public class AdminPanel extends JPanel {
         gbc.gridx = 1;
         finePanel.add(schemeDropdown, gbc);
 
+        // Custom scheme definition, e.g. "tier 0 50; tier 24 100; rate 10; cap 300"
+        gbc.gridx = 0; gbc.gridy = 1;
+        finePanel.add(new JLabel("Custom Definition:"), gbc);
+
+        LotFineSchemes fineSchemes = new LotFineSchemes(store::getConfig); // this lot's custom versions
+        customSchemeField = new JTextField(fineSchemes.getCustom().getDefinition(), 22);
+        customSchemeField.setToolTipText("tier HOURS AMOUNT; rate PER_HOUR; cap MAX  (hours = overstay past 24h)");
+        customSchemeField.setEnabled(FineSchemes.CUSTOM.equals(schemeDropdown.getSelectedItem()));
+        schemeDropdown.addActionListener(e ->
+                customSchemeField.setEnabled(FineSchemes.CUSTOM.equals(schemeDropdown.getSelectedItem())));
+        gbc.gridx = 1;
+        finePanel.add(customSchemeField, gbc);
+
         JButton btnApply = new JButton("Update Policy");
         btnApply.setBackground(new Color(44, 62, 80));
         btnApply.setForeground(Color.WHITE);
-        gbc.gridy = 1; gbc.gridx = 0; gbc.gridwidth = 2;
+        gbc.gridy = 2; gbc.gridx = 0; gbc.gridwidth = 2;
         finePanel.add(btnApply, gbc);
 
         btnApply.addActionListener(e -> {
             String scheme = (String) schemeDropdown.getSelectedItem();
+            if (FineSchemes.CUSTOM.equals(scheme)) {
+                TableFineScheme compiled;
+                try {
+                    compiled = TableFineScheme.compile(customSchemeField.getText());
+                } catch (IllegalArgumentException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Invalid Definition", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                // Sessions already parked keep their version
+                if (!store.runInTransaction(() -> fineSchemes.writeCustom(compiled, store::setConfig))) {
+                    JOptionPane.showMessageDialog(this, "Could not save the custom definition.", "Database Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+            }
             store.setActiveFineScheme(scheme);
             JOptionPane.showMessageDialog(this, 
                 "Fine policy updated for future records.\n\n" +
@@ -131,16 +167,50 @@ public class AdminPanel extends JPanel {
         refreshBtn.setPreferredSize(new Dimension(0, 45));
         refreshBtn.setFont(new Font("SansSerif", Font.BOLD, 12));
         refreshBtn.addActionListener(e -> refreshStats());
-        add(refreshBtn, BorderLayout.SOUTH);
+
+        JButton checkBtn = new JButton("Check Consistency");
+        checkBtn.setPreferredSize(new Dimension(0, 45));
+        checkBtn.setFont(new Font("SansSerif", Font.BOLD, 12));
+        checkBtn.addActionListener(e -> runConsistencyCheck());
+
+        JPanel bottomPanel = new JPanel(new GridLayout(1, 2, 20, 0));
+        bottomPanel.add(refreshBtn);
+        bottomPanel.add(checkBtn);
+        add(bottomPanel, BorderLayout.SOUTH);
+    }
+
+    // ---------------- CONSISTENCY CHECK ----------------
+    private void runConsistencyCheck() {
+        ConsistencyChecker checker = new ConsistencyChecker(store, exitService.getClock())
+                .setFineService(exitService.getFineService());
+        ConsistencyReport report = checker.check();
+
+        if (!report.isConsistent()) {
+            int choice = JOptionPane.showConfirmDialog(this,
+                    report.getIssues().size() + " problem(s) found. Apply the automatic repairs?",
+                    "Consistency Check", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.YES_OPTION) {
+                report = checker.check(true);
+                refreshStats();
+            }
+        }
+
+        JTextArea text = new JTextArea(report.summary(), 20, 80);
+        text.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(this, new JScrollPane(text), "Consistency Report",
+                report.isConsistent() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
     }
 
     // ---------------- REFRESH LOGIC ----------------
     public void refreshStats() {
-        // Fetch latest data from DataStore (SQLite)
-        double revenue = store.getTotalRevenue();
-        int occupied = store.getOccupiedSpotCount();
-        int totalSpots = store.getTotalSpotCount();
-        double unpaidFines = store.getTotalUnpaidFines();
+        // Read from the in-memory projections, once they include the latest writes
+        readModel.awaitCaughtUp(200);
+        double revenue = readModel.getTotalRevenue();
+        ReadModel.Occupancy occupancy = readModel.getOccupancy();
+        int occupied = occupancy.getOccupied();
+        int totalSpots = occupancy.getTotal();
+        double unpaidFines = readModel.getTotalUnpaidFines();
 
         // Safe percentage calculation
         double percent = (totalSpots > 0) ? (occupied * 100.0 / totalSpots) : 0;
@@ -153,7 +223,7 @@ public class AdminPanel extends JPanel {
 
         // Update Parked Vehicles List
         vehiclesListModel.clear();
-        store.getAllActiveSessions().forEach(session ->
+        readModel.getActiveSessions().forEach(session ->
                 vehiclesListModel.addElement(String.format("%-10s | Spot: %s", 
                     session.getPlate(), session.getSpotId()))
         );
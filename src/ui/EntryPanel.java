@@ -62,12 +62,30 @@ public class EntryPanel extends JPanel {
         gbc.gridy = 5;
         formPanel.add(vipCheckBox, gbc);
 
+        // Auto-Select Button (forecast-aware allocation)
+        JButton autoBtn = new JButton("Auto-Select Spot");
+        gbc.gridy = 6;
+        formPanel.add(autoBtn, gbc);
+
+        autoBtn.addActionListener(e -> {
+            String type = typeCombo.getSelectedItem().toString();
+            Vehicle probe = new Vehicle(plateField.getText().trim(), type,
+                    hcCheckBox.isSelected(), vipCheckBox.isSelected());
+            String spotId = entryService.recommendSpot(probe);
+            if (spotId == null) {
+                JOptionPane.showMessageDialog(this, "No suitable spot available for a " + type + ".");
+                return;
+            }
+            selectedSpotId = spotId;
+            JOptionPane.showMessageDialog(this, "Selected Spot: " + selectedSpotId);
+        });
+
         // Confirm Button
         JButton confirmBtn = new JButton("Confirm & Print Ticket");
         confirmBtn.setBackground(new Color(46, 204, 113)); // Green
         confirmBtn.setForeground(Color.WHITE);
         confirmBtn.setFont(new Font("SansSerif", Font.BOLD, 14));
-        gbc.gridy = 6;
+        gbc.gridy = 7;
         gbc.weighty = 1.0; 
         gbc.anchor = GridBagConstraints.NORTH;
         formPanel.add(confirmBtn, gbc);
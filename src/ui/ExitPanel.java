@@ -14,6 +14,8 @@ import model.ParkingSession;
 import model.PaymentRecord;
 import service.ExitService;
 import service.PaymentProcessor;
+import service.ReadModel;
+import model.PlateCodec;
 
 public class ExitPanel extends JPanel {
 
@@ -21,6 +23,7 @@ public class ExitPanel extends JPanel {
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
 
     private final DataStore store;
+    private final ReadModel readModel;
     private final ExitService exitService;
     private final PaymentProcessor paymentProcessor;
     private final AdminPanel adminPanel;
@@ -37,10 +40,11 @@ public class ExitPanel extends JPanel {
     private ParkingSession currentSession;
     private PaymentRecord previewRecord;
 
-    public ExitPanel(DataStore store, ExitService exitService,
+    public ExitPanel(DataStore store, ReadModel readModel, ExitService exitService,
                      PaymentProcessor paymentProcessor,
                      AdminPanel adminPanel, ReportingPanel reportingPanel) {
         this.store = store;
+        this.readModel = readModel;
         this.exitService = exitService;
         this.paymentProcessor = paymentProcessor;
         this.adminPanel = adminPanel;
@@ -66,7 +70,7 @@ public class ExitPanel extends JPanel {
 
         topPanel.add(new JLabel("Exit Time (yyyy-MM-ddTHH:mm):"));
         exitTimeField = new JTextField(16);
-        exitTimeField.setText(LocalDateTime.now().format(DISPLAY_FORMAT));
+        exitTimeField.setText(LocalDateTime.now(exitService.getClock()).format(DISPLAY_FORMAT));
         topPanel.add(exitTimeField);
 
         JButton searchBtn = new JButton("Preview Exit");
@@ -77,7 +81,7 @@ public class ExitPanel extends JPanel {
     }
 
     private void previewVehicleExit() {
-        String plate = plateField.getText().trim().toUpperCase().replace("O", "0");
+        String plate = PlateCodec.normalize(plateField.getText());
         String exitText = exitTimeField.getText().trim();
 
         if (plate.isEmpty() || exitText.isEmpty()) {
@@ -157,7 +161,7 @@ public class ExitPanel extends JPanel {
         LocalDateTime exitTime = previewRecord.getPaidTime();
         double parkingFee = previewRecord.getParkingFee();
 
-        List<FineRecord> pastFines = store.getUnpaidFinesByPlate(currentSession.getVehicle().getPlate());
+        List<FineRecord> pastFines = exitService.getFineService().getUnpaidFines(currentSession.getVehicle().getPlate());
 
         long hours = previewRecord.getDurationHours();
         List<FineRecord> newFines = new ArrayList<>();
@@ -220,11 +224,11 @@ public class ExitPanel extends JPanel {
                 double finePaid = 0.0;
                 double remainingAmount = typedAmount - parkingFee;
 
-                List<FineRecord> unpaidFines = store.getUnpaidFinesByPlate(currentSession.getVehicle().getPlate());
+                List<FineRecord> unpaidFines = exitService.getFineService().getUnpaidFines(currentSession.getVehicle().getPlate());
                 for (FineRecord f : unpaidFines) {
                     if (remainingAmount <= 0) break;
                     double toPay = Math.min(f.getAmount(), remainingAmount);
-                    store.reduceFineAmount(f, toPay);
+                    exitService.getFineService().reduceFineAmount(f, toPay);
                     finePaid += toPay;
                     remainingAmount -= toPay;
                 }
@@ -266,7 +270,7 @@ public class ExitPanel extends JPanel {
         String plate = record.getPlate();
         ParkingSession session = store.getOpenSessionByPlate(plate);
 
-        List<FineRecord> unpaidFines = store.getUnpaidFinesByPlate(plate);
+        List<FineRecord> unpaidFines = exitService.getFineService().getUnpaidFines(plate);
         List<FineRecord> sessionFines = new ArrayList<>();
         if (session != null) {
             long hours = record.getDurationHours();
@@ -304,11 +308,12 @@ public class ExitPanel extends JPanel {
     }
 
     public void refreshVehiclesInside() {
+        readModel.awaitCaughtUp(200);
         listModel.clear();
-        store.getAllActiveSessions().forEach(session ->
+        readModel.getActiveSessions().forEach(session ->
                 listModel.addElement(session.getPlate() + " (" + session.getSpotId() + ")")
         );
-        double totalRev = store.getTotalRevenue();
+        double totalRev = readModel.getTotalRevenue();
         revenueLabel.setText(String.format("Total Revenue: RM %.2f", totalRev));
     }
 
@@ -316,7 +321,7 @@ public class ExitPanel extends JPanel {
         receiptArea.setText("");
         plateField.setText("");
         hcCheckBox.setSelected(false);
-        exitTimeField.setText(LocalDateTime.now().format(DISPLAY_FORMAT));
+        exitTimeField.setText(LocalDateTime.now(exitService.getClock()).format(DISPLAY_FORMAT));
         processBtn.setEnabled(false);
         currentSession = null;
         previewRecord = null;
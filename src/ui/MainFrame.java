@@ -6,7 +6,7 @@ import javax.swing.*;
 public class MainFrame extends JFrame {
     private String role; 
 
-    public MainFrame(data.DataStore store, service.ExitService exitService, service.EntryService entryService,
+    public MainFrame(data.DataStore store, data.LotStoreRouter router, service.ReadModel readModel, service.ExitService exitService, service.EntryService entryService,
                      service.PaymentProcessor paymentProcessor, String role) {
         this.role = role;
         
@@ -17,10 +17,10 @@ public class MainFrame extends JFrame {
         setLayout(new BorderLayout());
 
         // --- Initialize Panels ---
-        ReportingPanel reportingPanel = new ReportingPanel(store);
+        ReportingPanel reportingPanel = new ReportingPanel(readModel, router);
         EntryPanel entryPanel = new EntryPanel(store, entryService);
-        AdminPanel adminPanel = new AdminPanel(exitService, store);
-        ExitPanel exitPanel = new ExitPanel(store, exitService, paymentProcessor, adminPanel, reportingPanel);
+        AdminPanel adminPanel = new AdminPanel(exitService, store, readModel);
+        ExitPanel exitPanel = new ExitPanel(store, readModel, exitService, paymentProcessor, adminPanel, reportingPanel);
         
 
         // --- Header Setup (Title & Logout) ---
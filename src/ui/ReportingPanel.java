@@ -1,27 +1,35 @@
 package ui;
 
-import data.DataStore;
+import data.LotStoreRouter;
 import java.awt.*;
 import java.util.List;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import model.FineRecord;
 import model.ParkingSession;
+import service.ReadModel;
 
 public class ReportingPanel extends JPanel {
 
-    private final DataStore store;
+    private final ReadModel readModel;
+    private final LotStoreRouter router; // null or a single lot: no all-sites line
 
     private JTable vehiclesTable;
     private JTable finesTable;
     private JLabel revenueLabel;
     private JLabel occupancyLabel;
+    private JLabel allLotsLabel;
 
     private DefaultTableModel vehiclesModel;
     private DefaultTableModel finesModel;
 
-    public ReportingPanel(DataStore store) {
-        this.store = store;
+    public ReportingPanel(ReadModel readModel) {
+        this(readModel, null);
+    }
+
+    public ReportingPanel(ReadModel readModel, LotStoreRouter router) {
+        this.readModel = readModel;
+        this.router = router;
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
@@ -43,6 +51,10 @@ public class ReportingPanel extends JPanel {
         occupancyLabel.setFont(new Font("SansSerif", Font.BOLD, 14));
         topPanel.add(occupancyLabel);
 
+        allLotsLabel = new JLabel();
+        allLotsLabel.setFont(new Font("SansSerif", Font.BOLD, 14));
+        topPanel.add(allLotsLabel);
+
         add(topPanel, BorderLayout.NORTH);
     }
 
@@ -69,6 +81,7 @@ public class ReportingPanel extends JPanel {
 
     // --- REFRESH ALL STATS ---
     public void refreshStats() {
+        readModel.awaitCaughtUp(200); // include the write that triggered the refresh
         refreshVehicles();
         refreshFines();
         refreshRevenueAndOccupancy();
@@ -76,7 +89,7 @@ public class ReportingPanel extends JPanel {
 
     private void refreshVehicles() {
         vehiclesModel.setRowCount(0); // Clear old data
-        List<ParkingSession> activeSessions = store.getAllActiveSessions();
+        List<ParkingSession> activeSessions = readModel.getActiveSessions();
         for (ParkingSession session : activeSessions) {
             vehiclesModel.addRow(new Object[]{
                     session.getPlate(),
@@ -88,7 +101,7 @@ public class ReportingPanel extends JPanel {
 
     private void refreshFines() {
         finesModel.setRowCount(0); // Clear old data
-        List<FineRecord> unpaidFines = store.getAllUnpaidFines();
+        List<FineRecord> unpaidFines = readModel.getOutstandingFines();
         for (FineRecord fine : unpaidFines) {
             finesModel.addRow(new Object[]{
                     fine.getPlate(),
@@ -99,11 +112,31 @@ public class ReportingPanel extends JPanel {
     }
 
     private void refreshRevenueAndOccupancy() {
-        double totalRevenue = store.getTotalRevenue();
+        double totalRevenue = readModel.getTotalRevenue();
         revenueLabel.setText(String.format("Total Revenue: RM %.2f", totalRevenue));
 
-        int occupied = store.getOccupiedSpotCount();
-        int totalSpots = store.getTotalSpotCount();
-        occupancyLabel.setText(String.format("Occupancy: %d / %d", occupied, totalSpots));
+        ReadModel.Occupancy occupancy = readModel.getOccupancy();
+        StringBuilder text = new StringBuilder(String.format("Occupancy: %d / %d",
+                occupancy.getOccupied(), occupancy.getTotal()));
+        List<Integer> floors = occupancy.getFloors();
+        if (floors.size() > 1) {
+            text.append("   (");
+            for (int i = 0; i < floors.size(); i++) {
+                int floor = floors.get(i);
+                if (i > 0) text.append(", ");
+                text.append(String.format("F%d %d/%d", floor, occupancy.getOccupied(floor), occupancy.getTotal(floor)));
+            }
+            text.append(")");
+        }
+        occupancyLabel.setText(text.toString());
+
+        // Totals over every site, each lot queried in parallel
+        if (router != null && router.getLotIds().size() > 1) {
+            allLotsLabel.setText(String.format("All %d sites: RM %.2f revenue, RM %.2f unpaid fines, %d occupied",
+                    router.getLotIds().size(), router.getTotalRevenueAllLots(),
+                    router.getTotalUnpaidFinesAllLots(), router.getOccupiedSpotCountAllLots()));
+        } else {
+            allLotsLabel.setText("");
+        }
     }
 }